@@ -4,14 +4,23 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobExecutionListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.otus.hw.migration.listener.JobMetricsListener;
 import ru.otus.hw.migration.step.*;
 
+import java.util.Arrays;
+
 @Slf4j
 @Configuration
 public class Job {
@@ -31,13 +40,16 @@ public class Job {
 
     private final CommentStep commentStep;
 
+    private final JobMetricsListener jobMetricsListener;
+
     public Job(
         JobRepository jobRepository,
         AllTruncateStep allTruncateStep,
         AuthorStep authorStep,
         BookStep bookStep,
         GenreStep genreStep,
-        CommentStep commentStep
+        CommentStep commentStep,
+        JobMetricsListener jobMetricsListener
     ) {
         this.jobRepository = jobRepository;
         this.allTruncateStep = allTruncateStep;
@@ -45,6 +57,17 @@ public class Job {
         this.bookStep = bookStep;
         this.genreStep = genreStep;
         this.commentStep = commentStep;
+        this.jobMetricsListener = jobMetricsListener;
+    }
+
+    // Пул для параллельных веток job, размер - app.batch.parallel.pool-size
+    @Bean
+    public TaskExecutor migrationTaskExecutor(@Value("${app.batch.parallel.pool-size:4}") int poolSize) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("migration-");
+        return executor;
     }
 
     @Bean
@@ -52,7 +75,8 @@ public class Job {
         final Step migrationAuthorStep,
         final Step migrationGenreStep,
         final Step migrationCommentStep,
-        final Step migrationBookStep
+        final Step migrationBookStep,
+        final TaskExecutor migrationTaskExecutor
     ) {
         return new JobBuilder(MIGRATE_JOB_NAME, jobRepository)
             // RunIdIncrementer increments run.id param each time the Job is running
@@ -60,37 +84,50 @@ public class Job {
             .incrementer(new RunIdIncrementer())
 
             // Pre-cleaning target tables
-            .start(allTruncateStep.truncateTargetTables())
-
-            // Temporary objects create
-            // Table
-            .next(authorStep.createTempTableAuthor())
-            .next(genreStep.createTempTableGenre())
-            .next(bookStep.createTempTableBook())
-            .next(commentStep.createTempTableComment())
-            // Sequence
-            .next(authorStep.createTempSeqAuthor())
-            .next(genreStep.createTempSeqGenre())
-            .next(bookStep.createTempSeqBook())
-            .next(commentStep.createTempSeqComment())
+            .flow(allTruncateStep.truncateTargetTables())
+
+            // Temporary objects create - друг от друга не зависят, создаём параллельно
+            .next(
+                split(
+                    "createTempObjectsFlow", migrationTaskExecutor,
+                    // Table
+                    authorStep.createTempTableAuthor(),
+                    genreStep.createTempTableGenre(),
+                    bookStep.createTempTableBook(),
+                    commentStep.createTempTableComment(),
+                    // Sequence
+                    authorStep.createTempSeqAuthor(),
+                    genreStep.createTempSeqGenre(),
+                    bookStep.createTempSeqBook(),
+                    commentStep.createTempSeqComment()
+                )
+            )
 
             // Migration
-            .next(migrationAuthorStep)
-            .next(migrationGenreStep)
+            // todo авторы и жанры независимы - параллельно (authors || genres)
+            .next(split("migrationAuthorGenreFlow", migrationTaskExecutor, migrationAuthorStep, migrationGenreStep))
+            // книги ссылаются на temp_table_author и temp_table_genre
             .next(migrationBookStep)
+            // комментарии ссылаются на temp_table_book
             .next(migrationCommentStep)
 
-            // Temporary objects drop
-            // Table
-            .next(authorStep.dropTempTableAuthor())
-            .next(genreStep.dropTempTableGenre())
-            .next(bookStep.dropTempTableBook())
-            .next(commentStep.dropTempTableComment())
-            // Sequence
-            .next(authorStep.dropTempSeqAuthor())
-            .next(genreStep.dropTempSeqGenre())
-            .next(bookStep.dropTempSeqBook())
-            .next(commentStep.dropTempSeqComment())
+            // Temporary objects drop - тоже параллельно
+            .next(
+                split(
+                    "dropTempObjectsFlow", migrationTaskExecutor,
+                    // Table
+                    authorStep.dropTempTableAuthor(),
+                    genreStep.dropTempTableGenre(),
+                    bookStep.dropTempTableBook(),
+                    commentStep.dropTempTableComment(),
+                    // Sequence
+                    authorStep.dropTempSeqAuthor(),
+                    genreStep.dropTempSeqGenre(),
+                    bookStep.dropTempSeqBook(),
+                    commentStep.dropTempSeqComment()
+                )
+            )
+            .end()
 
             // todo Listener-ы можно врезаться в нужный момент
             .listener(
@@ -106,6 +143,8 @@ public class Job {
                     }
                 }
             )
+            // Сводка по шагам: кол-во элементов, эл/с, время чтения/обработки/записи/commit
+            .listener(jobMetricsListener)
             .build();
         /*
         SELECT * FROM BATCH_JOB_EXECUTION ;
@@ -116,4 +155,24 @@ public class Job {
         SELECT * FROM BATCH_STEP_EXECUTION_CONTEXT ;
         */
     }
+
+    // Flow из одного шага
+    private static Flow flow(String name, Step step) {
+        return new FlowBuilder<SimpleFlow>(name)
+            .start(step)
+            .build();
+    }
+
+    // todo FlowBuilder.split - каждый шаг в своей ветке, ветки выполняются на taskExecutor,
+    //  следующий за split шаг ждёт завершения всех веток
+    private static Flow split(String name, TaskExecutor taskExecutor, Step... steps) {
+        final Flow[] flows = Arrays.stream(steps)
+            .map(step -> flow(step.getName() + "Flow", step))
+            .toArray(Flow[]::new);
+
+        return new FlowBuilder<SimpleFlow>(name)
+            .split(taskExecutor)
+            .add(flows)
+            .build();
+    }
 }
@@ -0,0 +1,46 @@
+package ru.otus.hw.migration.listener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Навешивает {@link StepMetricsListener} на chunk-шаг.
+ * <p>
+ * Без actuator-а бина MeterRegistry нет - пишем в Metrics.globalRegistry, как и сам Spring Batch.
+ */
+@Component
+public class StepMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean itemLogging;
+
+    public StepMetrics(
+        ObjectProvider<MeterRegistry> meterRegistry,
+        @Value("${app.batch.metrics.item-logging:false}") boolean itemLogging
+    ) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.itemLogging = itemLogging;
+    }
+
+    public <I, O> SimpleStepBuilder<I, O> instrument(SimpleStepBuilder<I, O> builder) {
+        final StepMetricsListener<I, O> listener = new StepMetricsListener<>(meterRegistry, itemLogging);
+
+        // todo listener реализует все интерфейсы сразу - регистрируем по каждому явно
+        return builder
+            .listener((StepExecutionListener) listener)
+            .listener((ChunkListener) listener)
+            .listener((ItemReadListener<I>) listener)
+            .listener((ItemProcessListener<I, O>) listener)
+            .listener((ItemWriteListener<O>) listener);
+    }
+}
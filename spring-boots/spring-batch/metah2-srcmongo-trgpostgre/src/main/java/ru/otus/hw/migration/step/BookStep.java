@@ -1,9 +1,7 @@
 package ru.otus.hw.migration.step;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.batch.core.*;
+import org.springframework.batch.core.Step;
 import org.springframework.batch.core.repository.JobRepository;
-import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.core.step.tasklet.TaskletStep;
 import org.springframework.batch.item.data.RepositoryItemReader;
@@ -15,17 +13,14 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 import ru.otus.hw.migration.item.processor.BookItemProcessorImpl;
+import ru.otus.hw.migration.listener.StepMetrics;
 import ru.otus.hw.model.sourcedb.dto.BookDto;
 import ru.otus.hw.model.sourcedb.entity.Book;
-import ru.otus.hw.model.sourcedb.entity.Comment;
 
 import javax.sql.DataSource;
 
-import java.util.List;
-
 import static ru.otus.hw.migration.job.Job.CHUNK_SIZE;
 
-@Slf4j
 @Component
 public class BookStep {
 
@@ -35,14 +30,18 @@ public class BookStep {
 
     private final PlatformTransactionManager platformTransactionManager;
 
+    private final StepMetrics stepMetrics;
+
     public BookStep(
         @Qualifier("postgresDataSource") DataSource postgresDataSource,
         JobRepository jobRepository,
-        PlatformTransactionManager platformTransactionManager
+        PlatformTransactionManager platformTransactionManager,
+        StepMetrics stepMetrics
     ) {
         this.postgresDataSource = postgresDataSource;
         this.jobRepository = jobRepository;
         this.platformTransactionManager = platformTransactionManager;
+        this.stepMetrics = stepMetrics;
     }
 
     @Bean
@@ -68,68 +67,15 @@ public class BookStep {
         final CompositeItemWriter<BookDto> writer,
         final BookItemProcessorImpl processor
     ) {
-        return new StepBuilder("migrationBookStep", jobRepository)
-            .<Book, BookDto>chunk(CHUNK_SIZE, platformTransactionManager)
-            .reader(reader)
-            .processor(processor)
-            .writer(writer)
-            .allowStartIfComplete(true)
-
-            // todo можно перехватить момент выполнения
-            .listener(
-                new ItemReadListener<>() {
-                    public void beforeRead() {
-                        log.info("Начало чтения");
-                    }
-
-                    public void afterRead(Book o) {
-                        log.info("Конец чтения");
-                    }
-
-                    public void onReadError(Exception e) {
-                        log.info("Ошибка чтения");
-                    }
-                }
+        return stepMetrics.instrument(
+                new StepBuilder("migrationBookStep", jobRepository)
+                    .<Book, BookDto>chunk(CHUNK_SIZE, platformTransactionManager)
+                    .reader(reader)
+                    .processor(processor)
+                    .writer(writer)
+                    .allowStartIfComplete(true)
             )
-            .listener(new ItemWriteListener<Book>() {
-                public void beforeWrite(List<Book> list) {
-                    log.info("Начало записи");
-                }
-
-                public void afterWrite(List<Book> list) {
-                    log.info("Конец записи");
-                }
-
-                public void onWriteError(Exception e, List<Book> list) {
-                    log.info("Ошибка записи");
-                }
-            })
-            .listener(new ItemProcessListener<Book,Book>() {
-                public void beforeProcess(Book o) {
-                    log.info("Начало обработки");
-                }
-
-                public void afterProcess(Book o, Book o2) {
-                    log.info("Конец обработки");
-                }
-
-                public void onProcessError(Book o, Exception e) {
-                    log.info("Ошибка обработки");
-                }
-            })
-            .listener(new ChunkListener() {
-                public void beforeChunk(ChunkContext chunkContext) {
-                    log.info("Начало пачки");
-                }
-
-                public void afterChunk(ChunkContext chunkContext) {
-                    log.info("Конец пачки");
-                }
-
-                public void afterChunkError(ChunkContext chunkContext) {
-                    log.info("Ошибка пачки");
-                }
-            })
+            // todo вместо log.info на каждый элемент - метрики и сводка, см. StepMetricsListener
 //          .taskExecutor(new SimpleAsyncTaskExecutor())
             .build();
     }
@@ -1,9 +1,7 @@
 package ru.otus.hw.migration.step;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.batch.core.*;
+import org.springframework.batch.core.Step;
 import org.springframework.batch.core.repository.JobRepository;
-import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.core.step.tasklet.TaskletStep;
 import org.springframework.batch.item.data.RepositoryItemReader;
@@ -12,20 +10,17 @@ import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 import ru.otus.hw.migration.item.processor.CommentItemProcessorImpl;
+import ru.otus.hw.migration.listener.StepMetrics;
 import ru.otus.hw.model.sourcedb.dto.CommentDto;
 import ru.otus.hw.model.sourcedb.entity.Comment;
 
 import javax.sql.DataSource;
 
-import java.util.List;
-
 import static ru.otus.hw.migration.job.Job.CHUNK_SIZE;
 
-@Slf4j
 @Component
 public class CommentStep {
 
@@ -35,14 +30,18 @@ public class CommentStep {
 
     private final PlatformTransactionManager platformTransactionManager;
 
+    private final StepMetrics stepMetrics;
+
     public CommentStep(
         @Qualifier("postgresDataSource") DataSource postgresDataSource,
         JobRepository jobRepository,
-        PlatformTransactionManager platformTransactionManager
+        PlatformTransactionManager platformTransactionManager,
+        StepMetrics stepMetrics
     ) {
         this.postgresDataSource = postgresDataSource;
         this.jobRepository = jobRepository;
         this.platformTransactionManager = platformTransactionManager;
+        this.stepMetrics = stepMetrics;
     }
 
     @Bean
@@ -82,67 +81,15 @@ public class CommentStep {
         final CompositeItemWriter<CommentDto> writer,
         final CommentItemProcessorImpl processor
     ) {
-        return new StepBuilder("migrationCommentStep", jobRepository)
-            .<Comment, CommentDto>chunk(CHUNK_SIZE, platformTransactionManager)
-            .reader(reader)
-            .processor(processor)
-            .writer(writer)
-            .allowStartIfComplete(true)
-            // todo можно перехватить момент выполнения
-            .listener(
-                new ItemReadListener<>() {
-                    public void beforeRead() {
-                        log.info("Начало чтения");
-                    }
-
-                    public void afterRead(Comment o) {
-                        log.info("Конец чтения");
-                    }
-
-                    public void onReadError(Exception e) {
-                        log.info("Ошибка чтения");
-                    }
-                }
+        return stepMetrics.instrument(
+                new StepBuilder("migrationCommentStep", jobRepository)
+                    .<Comment, CommentDto>chunk(CHUNK_SIZE, platformTransactionManager)
+                    .reader(reader)
+                    .processor(processor)
+                    .writer(writer)
+                    .allowStartIfComplete(true)
             )
-            .listener(new ItemWriteListener<Comment>() {
-                public void beforeWrite(List<Comment> list) {
-                    log.info("Начало записи");
-                }
-
-                public void afterWrite(List<Comment> list) {
-                    log.info("Конец записи");
-                }
-
-                public void onWriteError(Exception e, List<Comment> list) {
-                    log.info("Ошибка записи");
-                }
-            })
-            .listener(new ItemProcessListener<Comment,Comment>() {
-                public void beforeProcess(Comment o) {
-                    log.info("Начало обработки");
-                }
-
-                public void afterProcess(Comment o, Comment o2) {
-                    log.info("Конец обработки");
-                }
-
-                public void onProcessError(Comment o, Exception e) {
-                    log.info("Ошибка обработки");
-                }
-            })
-            .listener(new ChunkListener() {
-                public void beforeChunk(ChunkContext chunkContext) {
-                    log.info("Начало пачки");
-                }
-
-                public void afterChunk(ChunkContext chunkContext) {
-                    log.info("Конец пачки");
-                }
-
-                public void afterChunkError(ChunkContext chunkContext) {
-                    log.info("Ошибка пачки");
-                }
-            })
+            // todo вместо log.info на каждый элемент - метрики и сводка, см. StepMetricsListener
 //          .taskExecutor(new SimpleAsyncTaskExecutor())
             .build();
     }
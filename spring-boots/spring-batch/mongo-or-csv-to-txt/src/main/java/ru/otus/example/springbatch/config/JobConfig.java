@@ -13,6 +13,7 @@ import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
+import ru.otus.example.springbatch.listener.JobMetricsListener;
 
 
 @RequiredArgsConstructor
@@ -24,6 +25,8 @@ public class JobConfig {
 
     private final JobRepository jobRepository;
 
+    private final JobMetricsListener jobMetricsListener;
+
     @Bean
     public Job importUserJob(
         Step transformPersonsStep, // todo Step with Chunk
@@ -48,6 +51,8 @@ public class JobConfig {
                     }
                 }
             )
+            // Сводка по шагам: кол-во элементов, эл/с, время чтения/обработки/записи/commit
+            .listener(jobMetricsListener)
             .build();
     }
 }
\ No newline at end of file
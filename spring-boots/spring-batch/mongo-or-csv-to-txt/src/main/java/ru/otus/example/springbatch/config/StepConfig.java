@@ -1,12 +1,9 @@
 package ru.otus.example.springbatch.config;
 
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.batch.core.*;
+import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.repository.JobRepository;
-import org.springframework.batch.core.scope.context.ChunkContext;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.core.step.tasklet.MethodInvokingTaskletAdapter;
 import org.springframework.batch.item.ItemProcessor;
@@ -26,13 +23,12 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.lang.NonNull;
 import org.springframework.transaction.PlatformTransactionManager;
+import ru.otus.example.springbatch.listener.StepMetrics;
 import ru.otus.example.springbatch.model.Person;
 import ru.otus.example.springbatch.service.CleanUpService;
 import ru.otus.example.springbatch.service.HappyBirthdayService;
 
-import java.util.List;
 import java.util.Map;
 
 import static org.springframework.data.domain.Sort.Direction.DESC;
@@ -51,7 +47,7 @@ public class StepConfig {
 
     private final PlatformTransactionManager platformTransactionManager;
 
-    private final Logger logger = LoggerFactory.getLogger("Batch");
+    private final StepMetrics stepMetrics;
 
     // todo ItemReader ====================================
     // todo по умолчанию будем брать из embedded mongo
@@ -139,72 +135,14 @@ public class StepConfig {
         ItemProcessor<Person, Person> itemProcessor, // обрабатывает
         FlatFileItemWriter<Person> writer // записывает
     ) {
-        return new StepBuilder("transformPersonsStep", jobRepository)
-            .<Person, Person>chunk(CHUNK_SIZE, platformTransactionManager)
-            .reader(reader)
-            .processor(itemProcessor)
-            .writer(writer)
-            // todo Listener-ы можно врезаться в нужный момент
-            .listener(
-                new ItemReadListener<>() {
-                    public void beforeRead() {
-                        logger.info("Начало чтения");
-                    }
-
-                    public void afterRead(@NonNull Person o) {
-                        logger.info("Конец чтения");
-                    }
-
-                    public void onReadError(@NonNull Exception e) {
-                        logger.info("Ошибка чтения");
-                    }
-                }
-            )
-            .listener(
-                new ItemWriteListener<Person>() {
-                    public void beforeWrite(@NonNull List<Person> list) {
-                        logger.info("Начало записи");
-                    }
-
-                    public void afterWrite(@NonNull List<Person> list) {
-                        logger.info("Конец записи");
-                    }
-
-                    public void onWriteError(@NonNull Exception e, @NonNull List<Person> list) {
-                        logger.info("Ошибка записи");
-                    }
-                }
-            )
-            .listener(
-                new ItemProcessListener<>() {
-                    public void beforeProcess(@NonNull Person o) {
-                        logger.info("Начало обработки");
-                    }
-
-                    public void afterProcess(@NonNull Person o, Person o2) {
-                        logger.info("Конец обработки");
-                    }
-
-                    public void onProcessError(@NonNull Person o, @NonNull Exception e) {
-                        logger.info("Ошибка обработки");
-                    }
-                }
-            )
-            .listener(
-                new ChunkListener() {
-                    public void beforeChunk(@NonNull ChunkContext chunkContext) {
-                        logger.info("Начало пачки");
-                    }
-
-                    public void afterChunk(@NonNull ChunkContext chunkContext) {
-                        logger.info("Конец пачки");
-                    }
-
-                    public void afterChunkError(@NonNull ChunkContext chunkContext) {
-                        logger.info("Ошибка пачки");
-                    }
-                }
+        return stepMetrics.instrument(
+                new StepBuilder("transformPersonsStep", jobRepository)
+                    .<Person, Person>chunk(CHUNK_SIZE, platformTransactionManager)
+                    .reader(reader)
+                    .processor(itemProcessor)
+                    .writer(writer)
             )
+            // todo Listener-ы можно врезаться в нужный момент - вместо log.info на каждый элемент метрики, см. StepMetricsListener
 //                .taskExecutor(new SimpleAsyncTaskExecutor())
             .build();
     }
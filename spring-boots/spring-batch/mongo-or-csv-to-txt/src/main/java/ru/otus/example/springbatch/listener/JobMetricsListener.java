@@ -0,0 +1,69 @@
+package ru.otus.example.springbatch.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static ru.otus.example.springbatch.listener.StepMetricsListener.COMMIT_MS_KEY;
+import static ru.otus.example.springbatch.listener.StepMetricsListener.ITEMS_PER_SECOND_KEY;
+import static ru.otus.example.springbatch.listener.StepMetricsListener.PROCESS_MS_KEY;
+import static ru.otus.example.springbatch.listener.StepMetricsListener.READ_MS_KEY;
+import static ru.otus.example.springbatch.listener.StepMetricsListener.WRITE_MS_KEY;
+
+/**
+ * Сводка по JobExecution - одна строка на шаг после завершения job.
+ * Метрики chunk-шагов берёт из ExecutionContext, куда их положил {@link StepMetricsListener}.
+ */
+@Component
+public class JobMetricsListener implements JobExecutionListener {
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    @Override
+    public void afterJob(@NonNull JobExecution jobExecution) {
+        logger.info(
+            "Job {} [{}] за {} мс",
+            jobExecution.getJobInstance().getJobName(),
+            jobExecution.getStatus(),
+            millis(jobExecution.getStartTime(), jobExecution.getEndTime())
+        );
+
+        for (StepExecution step : jobExecution.getStepExecutions()) {
+            final ExecutionContext context = step.getExecutionContext();
+
+            // todo tasklet-шаги без StepMetricsListener - только статус и время
+            if (!context.containsKey(ITEMS_PER_SECOND_KEY)) {
+                logger.info(
+                    "  {} [{}] {} мс",
+                    step.getStepName(), step.getStatus(), millis(step.getStartTime(), step.getEndTime())
+                );
+                continue;
+            }
+
+            logger.info(
+                "  {} [{}] {} мс: read={} write={} filter={} skip={} rollback={}, {} эл/с, "
+                    + "чтение={} мс обработка={} мс запись={} мс commit={} мс",
+                step.getStepName(), step.getStatus(), millis(step.getStartTime(), step.getEndTime()),
+                step.getReadCount(), step.getWriteCount(), step.getFilterCount(), step.getSkipCount(),
+                step.getRollbackCount(), "%.1f".formatted(context.getDouble(ITEMS_PER_SECOND_KEY)),
+                context.getLong(READ_MS_KEY), context.getLong(PROCESS_MS_KEY),
+                context.getLong(WRITE_MS_KEY), context.getLong(COMMIT_MS_KEY)
+            );
+        }
+    }
+
+    private static long millis(LocalDateTime start, LocalDateTime end) {
+        if (start == null) {
+            return 0;
+        }
+        return Duration.between(start, end == null ? LocalDateTime.now() : end).toMillis();
+    }
+}
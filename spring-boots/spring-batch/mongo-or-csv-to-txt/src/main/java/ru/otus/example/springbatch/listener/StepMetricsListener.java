@@ -0,0 +1,258 @@
+package ru.otus.example.springbatch.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Инструментирующий listener одного chunk-шага.
+ * <p>
+ * Вместо log.info на каждый элемент копит время чтения/обработки/записи, время commit-а пачки,
+ * количество элементов и пропусков в Micrometer-метриках (тег step = имя шага).
+ * Итоги выполнения шага кладёт в ExecutionContext шага - их собирает {@link JobMetricsListener}.
+ * <p>
+ * Экземпляр на шаг, создаётся через {@link StepMetrics#instrument}.
+ */
+public class StepMetricsListener<I, O> implements StepExecutionListener, ChunkListener,
+    ItemReadListener<I>, ItemProcessListener<I, O>, ItemWriteListener<O> {
+
+    public static final String READ_MS_KEY = "metrics.readMs";
+
+    public static final String PROCESS_MS_KEY = "metrics.processMs";
+
+    public static final String WRITE_MS_KEY = "metrics.writeMs";
+
+    public static final String COMMIT_MS_KEY = "metrics.commitMs";
+
+    public static final String ITEMS_PER_SECOND_KEY = "metrics.itemsPerSecond";
+
+    // todo индексы в массиве отметок времени текущего потока
+    private static final int READ = 0;
+
+    private static final int PROCESS = 1;
+
+    private static final int WRITE = 2;
+
+    private static final int CHUNK = 3;
+
+    private static final int WRITE_END = 4;
+
+    private final Logger logger = LoggerFactory.getLogger("Batch");
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean itemLogging;
+
+    // todo отметки времени своего потока - listener корректен и при .taskExecutor(...) на шаге
+    private final ThreadLocal<long[]> marks = ThreadLocal.withInitial(() -> new long[5]);
+
+    private final LongAdder readNanos = new LongAdder();
+
+    private final LongAdder processNanos = new LongAdder();
+
+    private final LongAdder writeNanos = new LongAdder();
+
+    private final LongAdder commitNanos = new LongAdder();
+
+    private volatile double itemsPerSecond;
+
+    private volatile long stepStartNanos;
+
+    private String stepName;
+
+    private Timer readTimer;
+
+    private Timer processTimer;
+
+    private Timer writeTimer;
+
+    private Timer chunkTimer;
+
+    private Timer commitTimer;
+
+    private Counter chunkErrors;
+
+    public StepMetricsListener(MeterRegistry meterRegistry, boolean itemLogging) {
+        this.meterRegistry = meterRegistry;
+        this.itemLogging = itemLogging;
+    }
+
+    @Override
+    public void beforeStep(@NonNull StepExecution stepExecution) {
+        // todo meter-ы регистрируем один раз на шаг, а не на каждый элемент
+        if (stepName == null) {
+            stepName = stepExecution.getStepName();
+            readTimer = timer("batch.step.read", "Время чтения элемента");
+            processTimer = timer("batch.step.process", "Время обработки элемента");
+            writeTimer = timer("batch.step.write", "Время записи пачки");
+            chunkTimer = timer("batch.step.chunk", "Полное время пачки, включая commit");
+            commitTimer = timer("batch.step.commit", "Время от конца записи до завершения commit-а пачки");
+            chunkErrors = Counter.builder("batch.step.chunk.errors")
+                .tag("step", stepName)
+                .register(meterRegistry);
+            Gauge.builder("batch.step.throughput", this, listener -> listener.itemsPerSecond)
+                .description("Записано элементов в секунду за последнее выполнение шага")
+                .baseUnit("items/s")
+                .tag("step", stepName)
+                .strongReference(true)
+                .register(meterRegistry);
+        }
+
+        readNanos.reset();
+        processNanos.reset();
+        writeNanos.reset();
+        commitNanos.reset();
+        stepStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public ExitStatus afterStep(@NonNull StepExecution stepExecution) {
+        final long durationNanos = System.nanoTime() - stepStartNanos;
+        final double seconds = durationNanos / 1_000_000_000.0;
+        itemsPerSecond = seconds > 0 ? stepExecution.getWriteCount() / seconds : 0;
+
+        counter("batch.step.items", "read").increment(stepExecution.getReadCount());
+        counter("batch.step.items", "written").increment(stepExecution.getWriteCount());
+        counter("batch.step.items", "filtered").increment(stepExecution.getFilterCount());
+        counter("batch.step.skips", "read").increment(stepExecution.getReadSkipCount());
+        counter("batch.step.skips", "process").increment(stepExecution.getProcessSkipCount());
+        counter("batch.step.skips", "write").increment(stepExecution.getWriteSkipCount());
+
+        final ExecutionContext context = stepExecution.getExecutionContext();
+        context.putLong(READ_MS_KEY, TimeUnit.NANOSECONDS.toMillis(readNanos.sum()));
+        context.putLong(PROCESS_MS_KEY, TimeUnit.NANOSECONDS.toMillis(processNanos.sum()));
+        context.putLong(WRITE_MS_KEY, TimeUnit.NANOSECONDS.toMillis(writeNanos.sum()));
+        context.putLong(COMMIT_MS_KEY, TimeUnit.NANOSECONDS.toMillis(commitNanos.sum()));
+        context.putDouble(ITEMS_PER_SECOND_KEY, itemsPerSecond);
+
+        return null;
+    }
+
+    @Override
+    public void beforeChunk(@NonNull ChunkContext chunkContext) {
+        final long[] threadMarks = marks.get();
+        threadMarks[CHUNK] = System.nanoTime();
+        threadMarks[WRITE_END] = 0;
+        logItem("Начало пачки");
+    }
+
+    @Override
+    public void afterChunk(@NonNull ChunkContext chunkContext) {
+        final long now = System.nanoTime();
+        final long[] threadMarks = marks.get();
+        chunkTimer.record(now - threadMarks[CHUNK], TimeUnit.NANOSECONDS);
+
+        // todo afterChunk вызывается уже после commit-а транзакции пачки
+        if (threadMarks[WRITE_END] != 0) {
+            final long commit = now - threadMarks[WRITE_END];
+            commitTimer.record(commit, TimeUnit.NANOSECONDS);
+            commitNanos.add(commit);
+        }
+        logItem("Конец пачки");
+    }
+
+    @Override
+    public void afterChunkError(@NonNull ChunkContext chunkContext) {
+        chunkErrors.increment();
+        logItem("Ошибка пачки");
+    }
+
+    @Override
+    public void beforeRead() {
+        marks.get()[READ] = System.nanoTime();
+        logItem("Начало чтения");
+    }
+
+    @Override
+    public void afterRead(@NonNull I item) {
+        record(READ, readTimer, readNanos);
+        logItem("Конец чтения");
+    }
+
+    @Override
+    public void onReadError(@NonNull Exception ex) {
+        record(READ, readTimer, readNanos);
+        logItem("Ошибка чтения");
+    }
+
+    @Override
+    public void beforeProcess(@NonNull I item) {
+        marks.get()[PROCESS] = System.nanoTime();
+        logItem("Начало обработки");
+    }
+
+    @Override
+    public void afterProcess(@NonNull I item, O result) {
+        record(PROCESS, processTimer, processNanos);
+        logItem("Конец обработки");
+    }
+
+    @Override
+    public void onProcessError(@NonNull I item, @NonNull Exception e) {
+        record(PROCESS, processTimer, processNanos);
+        logItem("Ошибка обработки");
+    }
+
+    @Override
+    public void beforeWrite(@NonNull Chunk<? extends O> items) {
+        marks.get()[WRITE] = System.nanoTime();
+        logItem("Начало записи");
+    }
+
+    @Override
+    public void afterWrite(@NonNull Chunk<? extends O> items) {
+        record(WRITE, writeTimer, writeNanos);
+        marks.get()[WRITE_END] = System.nanoTime();
+        logItem("Конец записи");
+    }
+
+    @Override
+    public void onWriteError(@NonNull Exception exception, @NonNull Chunk<? extends O> items) {
+        record(WRITE, writeTimer, writeNanos);
+        logItem("Ошибка записи");
+    }
+
+    private void record(int mark, Timer timer, LongAdder total) {
+        final long elapsed = System.nanoTime() - marks.get()[mark];
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        total.add(elapsed);
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .tag("step", stepName)
+            .register(meterRegistry);
+    }
+
+    private Counter counter(String name, String kind) {
+        return Counter.builder(name)
+            .tag("step", stepName)
+            .tag("kind", kind)
+            .register(meterRegistry);
+    }
+
+    private void logItem(String message) {
+        // todo по умолчанию выключено - логирование каждого элемента само съедает пропускную способность
+        if (itemLogging) {
+            logger.info("[{}] {}", stepName, message);
+        }
+    }
+}
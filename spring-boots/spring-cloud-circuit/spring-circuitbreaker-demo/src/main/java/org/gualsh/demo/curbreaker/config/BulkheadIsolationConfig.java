@@ -0,0 +1,119 @@
+package org.gualsh.demo.curbreaker.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Изоляция зависимостей через Bulkhead: у каждой зависимости свой бюджет одновременных вызовов.
+ *
+ * <h3>Образовательный момент:</h3>
+ * <p>
+ * Circuit Breaker реагирует на ошибки, но не на медленные ответы в пределах таймаута:
+ * медленный email сервис может занять все рабочие потоки, и тогда страдают вызовы
+ * внешнего API, которые сами по себе быстрые. Bulkhead ограничивает ресурсы каждой зависимости.
+ * </p>
+ *
+ * <p><strong>Два вида Bulkhead (настраиваются в application.yml):</strong></p>
+ * <ul>
+ *   <li><strong>Семафор</strong> (resilience4j.bulkhead) - лимит одновременных вызовов
+ *   в потоке вызывающего. Подходит для reactive и быстрых блокирующих вызовов
+ *   (externalApi, см. CircuitBreakerConfig)</li>
+ *   <li><strong>Пул потоков</strong> (resilience4j.thread-pool-bulkhead) - блокирующий вызов
+ *   выполняется в собственном ограниченном пуле с очередью, вызывающий поток сразу освобождается.
+ *   Подходит для медленных блокирующих клиентов (emailService/SMTP)</li>
+ * </ul>
+ *
+ * <p><strong>Метрики:</strong></p>
+ * <ul>
+ *   <li>resilience4j.bulkhead.available.concurrent.calls - свободные разрешения семафора</li>
+ *   <li>resilience4j.bulkhead.queue.depth / queue.capacity - очередь пула потоков</li>
+ *   <li>resilience4j.bulkhead.rejected - отклоненные вызовы (тег kind: semaphore, thread-pool)</li>
+ * </ul>
+ * <p>Первые две группы публикует автоконфигурация resilience4j-micrometer, счетчик отказов
+ * регистрирует MeterBinder {@link #bulkheadRejectionMetrics}.</p>
+ *
+ * @see Bulkhead
+ * @see ThreadPoolBulkhead
+ */
+@Slf4j
+@Configuration
+public class BulkheadIsolationConfig {
+
+    private static final String REJECTED_METRIC = "resilience4j.bulkhead.rejected";
+
+    /**
+     * Bulkhead (пул потоков) для email сервиса.
+     *
+     * <p><strong>Образовательный момент:</strong></p>
+     * <p>
+     * SMTP клиент блокирующий и медленный. Отдельный пул из нескольких потоков с короткой
+     * очередью ограничивает, сколько потоков email может занять; при заполненной очереди
+     * вызов сразу получает BulkheadFullException вместо ожидания.
+     * </p>
+     *
+     * @param registry ThreadPoolBulkheadRegistry из автоконфигурации
+     * @return Bulkhead с пулом потоков для email сервиса
+     */
+    @Bean(name = "emailServiceBulkhead")
+    public ThreadPoolBulkhead emailServiceBulkhead(ThreadPoolBulkheadRegistry registry) {
+        return registry.bulkhead("emailService");
+    }
+
+    /**
+     * Счетчик отклоненных вызовов для всех Bulkhead, в том числе созданных позже.
+     *
+     * <p>Spring Boot привязывает MeterBinder к реестру метрик один раз, поэтому подписки
+     * на события Bulkhead не дублируются.</p>
+     *
+     * @param bulkheadRegistry   BulkheadRegistry из автоконфигурации
+     * @param threadPoolRegistry ThreadPoolBulkheadRegistry из автоконфигурации
+     * @return MeterBinder счетчика отказов
+     */
+    @Bean
+    public MeterBinder bulkheadRejectionMetrics(BulkheadRegistry bulkheadRegistry,
+                                                ThreadPoolBulkheadRegistry threadPoolRegistry) {
+        return meterRegistry -> {
+            bulkheadRegistry.getAllBulkheads().forEach(bulkhead -> bindRejections(meterRegistry, bulkhead));
+            bulkheadRegistry.getEventPublisher()
+                .onEntryAdded(added -> bindRejections(meterRegistry, added.getAddedEntry()));
+            threadPoolRegistry.getAllBulkheads().forEach(bulkhead -> bindRejections(meterRegistry, bulkhead));
+            threadPoolRegistry.getEventPublisher()
+                .onEntryAdded(added -> bindRejections(meterRegistry, added.getAddedEntry()));
+
+            log.info("Метрики отказов настроены для {} Bulkhead и {} ThreadPoolBulkhead",
+                bulkheadRegistry.getAllBulkheads().size(), threadPoolRegistry.getAllBulkheads().size());
+        };
+    }
+
+    private static void bindRejections(MeterRegistry meterRegistry, Bulkhead bulkhead) {
+        Counter rejected = rejectedCounter(meterRegistry, bulkhead.getName(), "semaphore");
+        bulkhead.getEventPublisher().onCallRejected(rejection -> {
+            log.warn("🚧 Bulkhead [{}] отклонил вызов - все разрешения заняты", rejection.getBulkheadName());
+            rejected.increment();
+        });
+    }
+
+    private static void bindRejections(MeterRegistry meterRegistry, ThreadPoolBulkhead bulkhead) {
+        Counter rejected = rejectedCounter(meterRegistry, bulkhead.getName(), "thread-pool");
+        bulkhead.getEventPublisher().onCallRejected(rejection -> {
+            log.warn("🚧 ThreadPoolBulkhead [{}] отклонил вызов - очередь заполнена", rejection.getBulkheadName());
+            rejected.increment();
+        });
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String name, String kind) {
+        return Counter.builder(REJECTED_METRIC)
+            .description("Вызовы, отклоненные Bulkhead")
+            .tag("name", name)
+            .tag("kind", kind)
+            .register(meterRegistry);
+    }
+}
@@ -1,5 +1,7 @@
 package org.gualsh.demo.curbreaker.config;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.retry.Retry;
@@ -7,6 +9,10 @@ import io.github.resilience4j.retry.RetryRegistry;
 import io.github.resilience4j.timelimiter.TimeLimiter;
 import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.curbreaker.resilience.AdaptiveTimeLimiter;
+import org.gualsh.demo.curbreaker.resilience.AdaptiveTimeoutProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ContextRefreshedEvent;
@@ -74,11 +80,66 @@ public class CircuitBreakerConfig {
         return registry.timeLimiter("externalApi");
     }
 
+    /**
+     * Настройки адаптивного таймаута внешнего API из application.yml.
+     *
+     * @return настройки адаптивного таймаута
+     */
+    @Bean(name = "externalApiAdaptiveTimeoutProperties")
+    @ConfigurationProperties(prefix = "adaptive-timeout.external-api")
+    public AdaptiveTimeoutProperties externalApiAdaptiveTimeoutProperties() {
+        return new AdaptiveTimeoutProperties();
+    }
+
+    /**
+     * Адаптивный TimeLimiter для внешнего API.
+     *
+     * <p><strong>Образовательный момент:</strong></p>
+     * <p>
+     * Таймаут следует за p99 задержки внешнего API вместо фиксированного значения.
+     * Отдельный экземпляр "externalApiAdaptive" берет остальные настройки у "externalApi",
+     * но не меняет таймаут аннотационных методов с @TimeLimiter(name = "externalApi").
+     * Bean реализует MeterBinder, поэтому gauge текущего таймаута регистрируется автоматически.
+     * </p>
+     *
+     * @param registry   TimeLimiterRegistry из автоконфигурации
+     * @param properties настройки адаптивного таймаута
+     * @return адаптивный TimeLimiter для внешнего API
+     */
+    @Bean(name = "externalApiAdaptiveTimeLimiter")
+    public AdaptiveTimeLimiter externalApiAdaptiveTimeLimiter(
+        TimeLimiterRegistry registry,
+        @Qualifier("externalApiAdaptiveTimeoutProperties") AdaptiveTimeoutProperties properties
+    ) {
+        TimeLimiter base = registry.timeLimiter("externalApi");
+        return new AdaptiveTimeLimiter(
+            registry.timeLimiter("externalApiAdaptive", base.getTimeLimiterConfig()), properties, registry);
+    }
+
     @Bean(name = "externalApiRetry")
     public Retry externalApiRetry(RetryRegistry registry) {
         return registry.retry("externalApi");
     }
 
+    /**
+     * Bulkhead для внешнего API.
+     *
+     * <p><strong>Образовательный момент:</strong></p>
+     * <p>
+     * Reactive вызовы не занимают потоки, поэтому без ограничения медленный API
+     * может накопить неограниченное число одновременных запросов. Bulkhead (семафор)
+     * ограничивает их количество; в reactive цепочке лишний вызов сразу получает
+     * BulkheadFullException, без ожидания.
+     * </p>
+     *
+     * @param registry BulkheadRegistry из автоконфигурации
+     * @return Bulkhead для внешнего API
+     */
+    @Bean(name = "externalApiBulkhead")
+    public Bulkhead externalApiBulkhead(BulkheadRegistry registry) {
+        return registry.bulkhead("externalApi");
+    }
+
     /**
      * Circuit Breaker для работы с базой данных.
      *
@@ -1,13 +1,18 @@
 package org.gualsh.demo.curbreaker.controller;
 
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.gualsh.demo.curbreaker.model.ApiResponse;
+import org.gualsh.demo.curbreaker.service.EmailService;
 import org.gualsh.demo.curbreaker.service.ExternalApiService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -41,6 +46,7 @@ import java.util.Map;
  * </ul>
  *
  * @see ExternalApiService
+ * @see EmailService
  */
 @Slf4j
 @RestController
@@ -49,6 +55,7 @@ import java.util.Map;
 public class DemoController {
 
     private final ExternalApiService externalApiService;
+    private final EmailService emailService;
 
     /**
      * Получение поста из внешнего API (асинхронно).
@@ -116,6 +123,43 @@ public class DemoController {
             });
     }
 
+    /**
+     * Отправка письма через email сервис.
+     *
+     * <p><strong>Образовательный момент:</strong></p>
+     * <p>
+     * Медленный SMTP вызов выполняется в пуле потоков Bulkhead "emailService", поэтому
+     * поток запроса не блокируется. Если пул и очередь заняты или Circuit Breaker открыт,
+     * ответ 503 приходит сразу, а не после ожидания SMTP.
+     * </p>
+     *
+     * @param to      адресат
+     * @param subject тема письма
+     * @return идентификатор письма или описание ошибки
+     */
+    @PostMapping("/email/send")
+    public Mono<ResponseEntity<Map<String, Object>>> sendEmail(@RequestParam String to,
+                                                               @RequestParam String subject) {
+        log.info("Запрос отправки письма для {}", to);
+
+        return emailService.sendEmail(to, subject)
+            .map(messageId -> ResponseEntity.ok(Map.<String, Object>of(
+                "to", to,
+                "messageId", messageId,
+                "success", true
+            )))
+            .onErrorResume(throwable -> {
+                // Отказ Bulkhead или Circuit Breaker - сервис перегружен, а не сломан
+                boolean rejected = throwable instanceof BulkheadFullException
+                    || throwable instanceof CallNotPermittedException;
+                Map<String, Object> response = Map.of(
+                    "to", to,
+                    "result", "Ошибка: " + throwable.getMessage(),
+                    "success", false
+                );
+                return Mono.just(ResponseEntity.status(rejected ? 503 : 500).body(response));
+            });
+    }
 
     /**
      * Тестирование различных сценариев Circuit Breaker.
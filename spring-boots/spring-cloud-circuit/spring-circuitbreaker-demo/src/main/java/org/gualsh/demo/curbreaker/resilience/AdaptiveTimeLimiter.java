@@ -0,0 +1,217 @@
+package org.gualsh.demo.curbreaker.resilience;
+
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * TimeLimiter с таймаутом, который следует за фактическими задержками вызовов.
+ *
+ * <h3>Образовательный момент:</h3>
+ * <p>
+ * Статический таймаут всегда компромисс: слишком маленький дает ложные сбои при обычных
+ * колебаниях задержки, слишком большой держит запросы и ресурсы во время инцидента.
+ * Здесь таймаут равен перцентилю задержки (по умолчанию p99) за скользящее окно,
+ * умноженному на запас, в пределах нижней и верхней границы.
+ * </p>
+ *
+ * <p><strong>Как это работает:</strong></p>
+ * <ul>
+ *   <li>{@link #decorate(Mono)} ограничивает одну попытку вызова текущим TimeLimiter
+ *   и записывает ее задержку в {@link SlidingLatencyHistogram}</li>
+ *   <li>Попытка, прерванная по таймауту, записывается с задержкой, равной таймауту: если
+ *   сервис стал медленнее таймаута, перцентиль и таймаут растут до верхней границы</li>
+ *   <li>Таймаут пересчитывается раз в отрезок окна. Конфигурация TimeLimiter неизменяема,
+ *   поэтому при изменении создается новый TimeLimiter и заменяется в registry
+ *   (метрики resilience4j.timelimiter.* переходят на него)</li>
+ * </ul>
+ *
+ * <p><strong>Метрики:</strong></p>
+ * <ul>
+ *   <li>resilience4j.timelimiter.adaptive.timeout - текущий таймаут</li>
+ *   <li>resilience4j.timelimiter.adaptive.latency - перцентиль задержки за окно</li>
+ * </ul>
+ *
+ * <p><strong>Пример использования:</strong></p>
+ * <pre>{@code
+ * webClient.get().uri("/posts/{id}", id).retrieve().bodyToMono(ApiResponse.class)
+ *     .transformDeferred(adaptiveTimeLimiter::decorate)
+ *     .transformDeferred(RetryOperator.of(retry));
+ * }</pre>
+ *
+ * @see SlidingLatencyHistogram
+ * @see AdaptiveTimeoutProperties
+ */
+@Slf4j
+public class AdaptiveTimeLimiter implements MeterBinder {
+
+    private final String name;
+
+    private final TimeLimiterConfig baseConfig;
+
+    private final AdaptiveTimeoutProperties properties;
+
+    private final TimeLimiterRegistry registry;
+
+    private final SlidingLatencyHistogram histogram;
+
+    private final LongSupplier nanoClock;
+
+    private final long recomputeIntervalNanos;
+
+    private final AtomicLong recomputeAt;
+
+    private volatile TimeLimiter timeLimiter;
+
+    /**
+     * @param initial    исходный TimeLimiter: имя и настройки, кроме таймаута
+     * @param properties настройки адаптивного таймаута
+     * @param registry   registry, в котором заменяется TimeLimiter при изменении таймаута;
+     *                   null - без registry
+     */
+    public AdaptiveTimeLimiter(TimeLimiter initial, AdaptiveTimeoutProperties properties,
+                               TimeLimiterRegistry registry) {
+        this(initial, properties, registry, System::nanoTime);
+    }
+
+    AdaptiveTimeLimiter(TimeLimiter initial, AdaptiveTimeoutProperties properties,
+                        TimeLimiterRegistry registry, LongSupplier nanoClock) {
+        if (properties.getMinTimeout().compareTo(properties.getMaxTimeout()) > 0) {
+            throw new IllegalArgumentException("min-timeout больше max-timeout: "
+                + properties.getMinTimeout() + " > " + properties.getMaxTimeout());
+        }
+        this.name = initial.getName();
+        this.baseConfig = initial.getTimeLimiterConfig();
+        this.properties = properties;
+        this.registry = registry;
+        this.histogram = new SlidingLatencyHistogram(properties.getMaxTimeout(), properties.getWindow(),
+            properties.getWindowSegments(), nanoClock);
+        this.nanoClock = nanoClock;
+        this.recomputeIntervalNanos = Math.max(1, properties.getWindow().toNanos() / properties.getWindowSegments());
+        this.recomputeAt = new AtomicLong(nanoClock.getAsLong() + recomputeIntervalNanos);
+
+        Duration timeout = clamp(baseConfig.getTimeoutDuration());
+        this.timeLimiter = timeout.equals(baseConfig.getTimeoutDuration()) ? initial : replace(timeout);
+    }
+
+    /**
+     * Ограничивает одну попытку вызова текущим таймаутом и записывает ее задержку.
+     *
+     * <p>Для повторных попыток применяется внутри Retry: каждая попытка получает
+     * таймаут, актуальный на момент подписки.</p>
+     *
+     * @param source вызов
+     * @param <T>    тип результата
+     * @return вызов с таймаутом
+     */
+    public <T> Mono<T> decorate(Mono<T> source) {
+        return Mono.defer(() -> {
+            long start = nanoClock.getAsLong();
+            return source
+                .transform(TimeLimiterOperator.of(timeLimiter))
+                .doOnSuccess(value -> record(Duration.ofNanos(nanoClock.getAsLong() - start)))
+                // Другие ошибки не говорят о задержке сервиса и не записываются
+                .doOnError(TimeoutException.class,
+                    error -> record(Duration.ofNanos(nanoClock.getAsLong() - start)));
+        });
+    }
+
+    /**
+     * Записывает задержку вызова, выполненного без {@link #decorate(Mono)}.
+     *
+     * @param latency задержка
+     */
+    public void record(Duration latency) {
+        histogram.record(latency);
+        recomputeIfDue();
+    }
+
+    /**
+     * @return текущий таймаут
+     */
+    public Duration getCurrentTimeout() {
+        return timeLimiter.getTimeLimiterConfig().getTimeoutDuration();
+    }
+
+    /**
+     * @return текущий TimeLimiter (меняется при пересчете таймаута)
+     */
+    public TimeLimiter getTimeLimiter() {
+        return timeLimiter;
+    }
+
+    /**
+     * @return перцентиль задержки за окно, от которого считается таймаут
+     */
+    public Duration getLatencyPercentile() {
+        return histogram.percentile(properties.getPercentile());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("resilience4j.timelimiter.adaptive.timeout", this,
+                limiter -> limiter.getCurrentTimeout().toNanos() / 1e9)
+            .description("Текущий адаптивный таймаут")
+            .tag("name", name)
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("resilience4j.timelimiter.adaptive.latency", this,
+                limiter -> limiter.getLatencyPercentile().toNanos() / 1e9)
+            .description("Перцентиль задержки за окно, от которого считается таймаут")
+            .tag("name", name)
+            .tag("percentile", String.valueOf(properties.getPercentile()))
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    private void recomputeIfDue() {
+        long now = nanoClock.getAsLong();
+        long due = recomputeAt.get();
+        // Пересчитывает только один поток из тех, что одновременно застали срок
+        if (now - due < 0 || !recomputeAt.compareAndSet(due, now + recomputeIntervalNanos)) {
+            return;
+        }
+        if (histogram.count() < properties.getMinimumSamples()) {
+            return;
+        }
+        Duration latency = histogram.percentile(properties.getPercentile());
+        Duration timeout = clamp(Duration.ofNanos((long) (latency.toNanos() * properties.getMultiplier())));
+        Duration previous = getCurrentTimeout();
+        if (timeout.toMillis() != previous.toMillis()) {
+            timeLimiter = replace(timeout);
+            log.info("⏱️ Адаптивный таймаут [{}]: {} ms -> {} ms (p{} задержки {} ms)", name,
+                previous.toMillis(), timeout.toMillis(), properties.getPercentile() * 100, latency.toMillis());
+        }
+    }
+
+    private TimeLimiter replace(Duration timeout) {
+        TimeLimiter replacement = TimeLimiter.of(name, TimeLimiterConfig.from(baseConfig)
+            .timeoutDuration(timeout)
+            .build());
+        if (registry != null) {
+            registry.replace(name, replacement);
+        }
+        return replacement;
+    }
+
+    private Duration clamp(Duration timeout) {
+        if (timeout.compareTo(properties.getMinTimeout()) < 0) {
+            return properties.getMinTimeout();
+        }
+        if (timeout.compareTo(properties.getMaxTimeout()) > 0) {
+            return properties.getMaxTimeout();
+        }
+        return timeout;
+    }
+}
@@ -0,0 +1,49 @@
+package org.gualsh.demo.curbreaker.resilience;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Настройки {@link AdaptiveTimeLimiter}.
+ *
+ * <p>Таймаут = перцентиль задержки за окно × multiplier, в пределах [min-timeout, max-timeout].</p>
+ */
+@Data
+public class AdaptiveTimeoutProperties {
+
+    /**
+     * Перцентиль задержки, от которого считается таймаут.
+     */
+    private double percentile = 0.99;
+
+    /**
+     * Запас над перцентилем.
+     */
+    private double multiplier = 2.0;
+
+    /**
+     * Нижняя граница таймаута: защищает от ложных таймаутов, когда сервис отвечает очень быстро.
+     */
+    private Duration minTimeout = Duration.ofMillis(200);
+
+    /**
+     * Верхняя граница таймаута; с нее же начинается работа, пока задержек мало.
+     */
+    private Duration maxTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Длина скользящего окна задержек.
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Число отрезков окна; таймаут пересчитывается при смене отрезка.
+     */
+    private int windowSegments = 6;
+
+    /**
+     * Минимум задержек в окне для пересчета; при меньшем числе остается прежний таймаут.
+     */
+    private int minimumSamples = 50;
+}
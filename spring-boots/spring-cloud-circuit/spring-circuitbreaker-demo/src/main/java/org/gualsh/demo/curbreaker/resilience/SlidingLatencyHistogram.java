@@ -0,0 +1,158 @@
+package org.gualsh.demo.curbreaker.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Гистограмма задержек за скользящее временное окно.
+ *
+ * <h3>Образовательный момент:</h3>
+ * <p>
+ * Хранить все задержки окна и сортировать их для расчета перцентиля дорого. Гистограмма
+ * раскладывает задержки по корзинам с геометрическим шагом {@value #BUCKET_RATIO}: запись -
+ * один атомарный инкремент, перцентиль считается по счетчикам корзин с точностью до шага (~10%).
+ * </p>
+ *
+ * <p><strong>Скользящее окно:</strong></p>
+ * <p>
+ * Окно разбито на несколько отрезков, у каждого свой набор счетчиков. Когда текущий отрезок
+ * истекает, самый старый очищается и становится текущим, поэтому старые задержки
+ * перестают влиять на перцентиль целиком, а не по одной.
+ * </p>
+ */
+public class SlidingLatencyHistogram {
+
+    private static final double BUCKET_RATIO = 1.1;
+
+    private static final long MIN_TRACKABLE_NANOS = Duration.ofMillis(1).toNanos();
+
+    /**
+     * Верхние границы корзин; последняя корзина принимает все задержки больше максимума.
+     */
+    private final long[] bucketBounds;
+
+    private final AtomicLongArray[] segments;
+
+    private final long segmentNanos;
+
+    private final LongSupplier nanoClock;
+
+    private volatile int current;
+
+    private volatile long rotateAt;
+
+    /**
+     * @param maxTrackable максимальная различимая задержка, все задержки больше попадают в одну корзину
+     * @param window       длина скользящего окна
+     * @param segments     число отрезков окна
+     * @param nanoClock    источник времени в наносекундах
+     */
+    public SlidingLatencyHistogram(Duration maxTrackable, Duration window, int segments, LongSupplier nanoClock) {
+        if (segments < 1) {
+            throw new IllegalArgumentException("Число отрезков окна должно быть положительным: " + segments);
+        }
+        this.bucketBounds = bucketBounds(Math.max(maxTrackable.toNanos(), MIN_TRACKABLE_NANOS));
+        this.segments = new AtomicLongArray[segments];
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new AtomicLongArray(bucketBounds.length);
+        }
+        this.segmentNanos = Math.max(1, window.toNanos() / segments);
+        this.nanoClock = nanoClock;
+        this.rotateAt = nanoClock.getAsLong() + segmentNanos;
+    }
+
+    /**
+     * Записывает задержку одного вызова.
+     *
+     * @param latency задержка
+     */
+    public void record(Duration latency) {
+        rotateIfNeeded();
+        int bucket = Arrays.binarySearch(bucketBounds, latency.toNanos());
+        segments[current].incrementAndGet(bucket >= 0 ? bucket : Math.min(-bucket - 1, bucketBounds.length - 1));
+    }
+
+    /**
+     * Число задержек в окне.
+     *
+     * @return количество записей
+     */
+    public long count() {
+        rotateIfNeeded();
+        long count = 0;
+        for (long bucketCount : snapshot()) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    /**
+     * Перцентиль задержки в окне: верхняя граница корзины, в которую он попадает.
+     *
+     * @param percentile перцентиль от 0 до 1, например 0.99
+     * @return задержка или {@link Duration#ZERO}, если окно пустое
+     */
+    public Duration percentile(double percentile) {
+        rotateIfNeeded();
+        long[] counts = snapshot();
+        long total = Arrays.stream(counts).sum();
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Duration.ofNanos(bucketBounds[bucket]);
+            }
+        }
+        return Duration.ofNanos(bucketBounds[bucketBounds.length - 1]);
+    }
+
+    private long[] snapshot() {
+        long[] counts = new long[bucketBounds.length];
+        for (AtomicLongArray segment : segments) {
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                counts[bucket] += segment.get(bucket);
+            }
+        }
+        return counts;
+    }
+
+    private void rotateIfNeeded() {
+        if (nanoClock.getAsLong() - rotateAt < 0) {
+            return;
+        }
+        synchronized (this) {
+            long now = nanoClock.getAsLong();
+            // После долгого простоя очищается не больше, чем все окно
+            for (int i = 0; i < segments.length && now - rotateAt >= 0; i++) {
+                int next = (current + 1) % segments.length;
+                AtomicLongArray segment = segments[next];
+                for (int bucket = 0; bucket < segment.length(); bucket++) {
+                    segment.set(bucket, 0);
+                }
+                current = next;
+                rotateAt += segmentNanos;
+            }
+            if (now - rotateAt >= 0) {
+                rotateAt = now + segmentNanos;
+            }
+        }
+    }
+
+    private static long[] bucketBounds(long maxTrackableNanos) {
+        int count = (int) Math.ceil(Math.log((double) maxTrackableNanos / MIN_TRACKABLE_NANOS)
+            / Math.log(BUCKET_RATIO)) + 1;
+        long[] bounds = new long[count];
+        double bound = MIN_TRACKABLE_NANOS;
+        for (int i = 0; i < count; i++) {
+            bounds[i] = (long) bound;
+            bound *= BUCKET_RATIO;
+        }
+        return bounds;
+    }
+}
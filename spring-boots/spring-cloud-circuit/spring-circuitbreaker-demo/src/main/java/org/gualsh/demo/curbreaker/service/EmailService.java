@@ -0,0 +1,94 @@
+package org.gualsh.demo.curbreaker.service;
+
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.curbreaker.exception.ExternalServiceException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Сервис отправки email через медленный блокирующий SMTP клиент (симуляция).
+ *
+ * <h3>Образовательный момент:</h3>
+ * <p>
+ * Блокирующий вызов выполняется в пуле потоков ThreadPoolBulkhead "emailService",
+ * а не в потоке вызывающего. Поэтому медленный SMTP занимает только несколько потоков
+ * своего пула: лишние вызовы получают отказ, а потоки, обслуживающие запросы к внешнему API,
+ * остаются свободными.
+ * </p>
+ *
+ * <p><strong>Порядок защиты:</strong></p>
+ * <ol>
+ *   <li>ThreadPoolBulkhead - внешний слой: при заполненной очереди отказ без занятия потока
+ *   и без учета в Circuit Breaker</li>
+ *   <li>CircuitBreaker - внутри потока пула: при открытом состоянии вызов SMTP не выполняется</li>
+ * </ol>
+ *
+ * @see ThreadPoolBulkhead
+ */
+@Slf4j
+@Service
+public class EmailService {
+
+    private final ThreadPoolBulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration smtpDelay;
+
+    /**
+     * @param bulkhead       пул потоков для email сервиса
+     * @param circuitBreaker Circuit Breaker для email сервиса
+     * @param smtpDelay      время ответа симулированного SMTP сервера
+     */
+    public EmailService(
+        @Qualifier("emailServiceBulkhead") ThreadPoolBulkhead bulkhead,
+        @Qualifier("emailServiceCircuitBreaker") CircuitBreaker circuitBreaker,
+        @Value("${external-services.email.simulated-delay:2s}") Duration smtpDelay
+    ) {
+        this.bulkhead = bulkhead;
+        this.circuitBreaker = circuitBreaker;
+        this.smtpDelay = smtpDelay;
+    }
+
+    /**
+     * Отправляет письмо.
+     *
+     * <p>Вызывающий поток не блокируется. BulkheadFullException (очередь заполнена)
+     * и CallNotPermittedException (Circuit Breaker открыт) приходят как ошибка Mono.</p>
+     *
+     * @param to      адресат
+     * @param subject тема письма
+     * @return Mono с идентификатором отправленного письма
+     */
+    public Mono<String> sendEmail(String to, String subject) {
+        // executeSupplier ставит задачу в очередь пула или сразу бросает BulkheadFullException
+        return Mono.fromCompletionStage(() -> bulkhead.executeSupplier(
+                () -> circuitBreaker.executeSupplier(() -> deliver(to, subject))))
+            .doOnNext(messageId -> log.info("Письмо для {} отправлено: {}", to, messageId))
+            .doOnError(error -> log.warn("Письмо для {} не отправлено: {}", to,
+                error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName()));
+    }
+
+    /**
+     * Симуляция блокирующего SMTP вызова.
+     *
+     * @param to      адресат
+     * @param subject тема письма
+     * @return идентификатор письма
+     */
+    String deliver(String to, String subject) {
+        log.debug("SMTP отправка письма '{}' для {}", subject, to);
+        try {
+            Thread.sleep(smtpDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExternalServiceException("SMTP отправка прервана", e);
+        }
+        return UUID.randomUUID().toString();
+    }
+}
@@ -1,14 +1,15 @@
 package org.gualsh.demo.curbreaker.service;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
 import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
 import io.github.resilience4j.reactor.retry.RetryOperator;
-import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
 import io.github.resilience4j.retry.annotation.Retry;
 import io.github.resilience4j.timelimiter.annotation.TimeLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.gualsh.demo.curbreaker.exception.ExternalServiceException;
 import org.gualsh.demo.curbreaker.model.ApiResponse;
+import org.gualsh.demo.curbreaker.resilience.AdaptiveTimeLimiter;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -45,7 +46,7 @@ import java.util.concurrent.ThreadLocalRandom;
  *
  * // Программный подход
  * Mono<ApiResponse> response1 = apiService.getPostAsync(1L);
- * ApiResponse response2 = apiService.getPost(1L);
+ * ApiResponse response2 = apiService.getPost(1L); // та же цепочка, block() на вызывающем потоке
  *
  * // Аннотационный подход
  * CompletableFuture<ApiResponse> response3 = apiService.getPostWithAnnotation(1L);
@@ -62,8 +63,9 @@ public class ExternalApiService {
 
     private final WebClient webClient;
     private final io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker;
-    private final io.github.resilience4j.timelimiter.TimeLimiter timeLimiter;
+    private final AdaptiveTimeLimiter timeLimiter;
     private final io.github.resilience4j.retry.Retry retry;
+    private final io.github.resilience4j.bulkhead.Bulkhead bulkhead;
 
     /**
      * Конструктор с явным указанием @Qualifier для Circuit Breaker.
@@ -83,18 +85,22 @@ public class ExternalApiService {
      *
      * @param webClient      настроенный WebClient для HTTP вызовов
      * @param circuitBreaker Circuit Breaker для внешнего API
+     * @param timeLimiter    адаптивное ограничение времени попытки вызова внешнего API
+     * @param retry          повторные попытки для внешнего API
+     * @param bulkhead       ограничение числа одновременных вызовов внешнего API
      */
     public ExternalApiService(
         WebClient webClient,
         @Qualifier("externalApiCircuitBreaker") io.github.resilience4j.circuitbreaker.CircuitBreaker circuitBreaker,
-        @Qualifier("externalApiTimeLimiter") io.github.resilience4j.timelimiter.TimeLimiter timeLimiter,
-        @Qualifier("externalApiRetry") io.github.resilience4j.retry.Retry retry
-
+        @Qualifier("externalApiAdaptiveTimeLimiter") AdaptiveTimeLimiter timeLimiter,
+        @Qualifier("externalApiRetry") io.github.resilience4j.retry.Retry retry,
+        @Qualifier("externalApiBulkhead") io.github.resilience4j.bulkhead.Bulkhead bulkhead
     ) {
         this.webClient = webClient;
         this.circuitBreaker = circuitBreaker;
         this.timeLimiter = timeLimiter;
         this.retry = retry;
+        this.bulkhead = bulkhead;
     }
 
     // ===============================
@@ -106,9 +112,19 @@ public class ExternalApiService {
      *
      * <p><strong>Образовательный момент:</strong></p>
      * <p>
-     * Иногда требуется синхронный API. В этом случае мы блокируем reactive stream
-     * и используем CircuitBreaker.executeSupplier для синхронного выполнения.
-     * Fallback обрабатывается через try-catch, так как executeSupplier не имеет recover().
+     * Иногда требуется синхронный API. Синхронная версия - это reactive цепочка
+     * {@link #getPostAsync(Long)}, заблокированная один раз на вызывающем потоке.
+     * Retry, TimeLimiter, CircuitBreaker и Bulkhead применяются к Mono операторами Reactor.
+     * </p>
+     *
+     * <p><strong>Почему не CompletableFuture.supplyAsync:</strong></p>
+     * <p>
+     * TimeLimiter.executeFutureSupplier требует Future, и раньше запрос с block() выполнялся
+     * в supplyAsync на ForkJoinPool.commonPool(). Каждый медленный вызов занимал поток общего пула
+     * (их всего число ядер - 1), и при медленном API общий пул переставал обслуживать
+     * parallel streams и другие CompletableFuture приложения, а пропускная способность
+     * ограничивалась размером пула. Операторы Reactor ждут ответа без занятого потока:
+     * таймаут и задержки retry - это таймеры Reactor.
      * </p>
      *
      * <p><strong>Важно:</strong></p>
@@ -121,53 +137,10 @@ public class ExternalApiService {
      * @return данные поста или fallback
      */
     public ApiResponse getPost(Long id) {
-        log.info("Синхронный запрос поста с ID: {} (программный подход с Retry + TimeLimiter + CircuitBreaker)", id);
+        log.info("Синхронный запрос поста с ID: {} (программный подход с Retry + TimeLimiter + CircuitBreaker + Bulkhead)", id);
 
-        try {
-            // Комбинируем все три паттерна: CircuitBreaker, TimeLimiter и Retry
-            // CircuitBreaker
-            return circuitBreaker.executeSupplier(() -> {
-                    try {
-                        // TimeLimiter
-                        return timeLimiter.executeFutureSupplier(() ->
-                            CompletableFuture.supplyAsync(() ->
-                                // Retry
-                                retry.executeSupplier(() -> {
-                                        try {
-                                            log.debug("Выполняю HTTP запрос для поста {}", id);
-                                            return webClient.get()
-                                                .uri("/posts/{id}", id)
-                                                .retrieve()
-                                                .bodyToMono(ApiResponse.class)
-                                                .block(); // Блокируем для синхронного API
-                                        } catch (WebClientResponseException e) {
-                                            log.error("HTTP ошибка при получении поста {}: {} - {}",
-                                                id, e.getStatusCode(), e.getResponseBodyAsString());
-                                            throw new ExternalServiceException(
-                                                "HTTP ошибка: " + e.getStatusCode(),
-                                                e,
-                                                e.getResponseBodyAsString()
-                                            );
-                                        } catch (Exception e) {
-                                            log.error("Техническая ошибка при получении поста {}: {}",
-                                                id, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
-                                            throw new ExternalServiceException("Техническая ошибка", e);
-                                        }
-                                    }
-                                )
-                            )
-                        );
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            );
-        } catch (Exception e) {
-            // Fallback при любых ошибках (включая Circuit Breaker, TimeLimiter, Retry)
-            log.warn("Fallback для поста {} после исчерпания всех попыток: {}",
-                id, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
-            return createFallbackPost(id);
-        }
+        // Блокируется только вызывающий поток; fallback уже внутри цепочки
+        return getPostAsync(id).block();
     }
 
     /**
@@ -184,7 +157,8 @@ public class ExternalApiService {
      * <ul>
      *   <li>onErrorResume для graceful fallback</li>
      *   <li>doOnError для логирования</li>
-     *   <li>timeout для предотвращения долгих ожиданий</li>
+     *   <li>TimeLimiter для предотвращения долгих ожиданий</li>
+     *   <li>Bulkhead ограничивает число одновременных вызовов</li>
      *   <li>Правильная обработка HTTP ошибок</li>
      * </ul>
      *
@@ -192,28 +166,52 @@ public class ExternalApiService {
      * @return Mono с данными поста или fallback
      */
     public Mono<ApiResponse> getPostAsync(Long id) {
-        log.info("Запрос поста с ID: {} (программный подход с Retry + TimeLimiter + CircuitBreaker)", id);
+        log.info("Запрос поста с ID: {} (программный подход с Retry + TimeLimiter + CircuitBreaker + Bulkhead)", id);
 
+        return fetchPost(id)
+            .doOnSubscribe(subscription -> log.debug("Подписка на получение поста {}", id))
+            .doOnNext(response -> log.info("Успешно получен пост: {}", response.getTitle()))
+            .doOnError(error -> log.error("Ошибка при получении поста {}: {}", id, error.getMessage()))
+            .onErrorResume(error -> handleError(id, error));
+    }
+
+    /**
+     * HTTP запрос поста с resilience операторами, без fallback.
+     *
+     * <p><strong>Порядок операторов:</strong></p>
+     * <ol>
+     *   <li>TimeLimiter - самый внутренний: адаптивный таймаут одной попытки
+     *   (p99 задержки × запас), по таймауту попытка повторяется</li>
+     *   <li>Retry - повторяет попытки</li>
+     *   <li>CircuitBreaker - учитывает итог вызова</li>
+     *   <li>Bulkhead - внешний слой: отказ из-за переполнения не засчитывается
+     *   Circuit Breaker как сбой внешнего API</li>
+     * </ol>
+     *
+     * @param id идентификатор поста
+     * @return Mono с данными поста
+     */
+    private Mono<ApiResponse> fetchPost(Long id) {
         return webClient.get()
             .uri("/posts/{id}", id)
             .retrieve()
             .bodyToMono(ApiResponse.class)
-            // Применяем операторы в правильном порядке:
-            // 1. Retry - самый внутренний (ближе к HTTP вызову)
+            // HTTP ошибки приводим к ExternalServiceException - ее записывает Circuit Breaker
+            .onErrorMap(WebClientResponseException.class, e -> new ExternalServiceException(
+                "HTTP ошибка: " + e.getStatusCode(),
+                e,
+                e.getResponseBodyAsString()
+            ))
+            .transformDeferred(timeLimiter::decorate)
             .transformDeferred(RetryOperator.of(retry))
-            // 2. TimeLimiter - средний слой
-            .transformDeferred(TimeLimiterOperator.of(timeLimiter))
-            // 3. CircuitBreaker - внешний слой
             .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
-            .doOnSubscribe(subscription -> log.debug("Подписка на получение поста {}", id))
-            .doOnNext(response -> log.info("Успешно получен пост: {}", response.getTitle()))
-            .doOnError(error -> log.error("Ошибка при получении поста {}: {}", id, error.getMessage()))
-            .onErrorResume(this::handleError);
+            .transformDeferred(BulkheadOperator.of(bulkhead));
     }
 
-    private Mono<ApiResponse> handleError(Throwable error) {
-        log.warn("Применяем fallback из-за ошибки: {}", error.getMessage());
-        return Mono.just(createFallbackPost(null));
+    private Mono<ApiResponse> handleError(Long id, Throwable error) {
+        log.warn("Применяем fallback для поста {} из-за ошибки: {}",
+            id, error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+        return Mono.just(createFallbackPost(id));
     }
 
     // ===============================
@@ -0,0 +1,160 @@
+package org.gualsh.demo.curbreaker.resilience;
+
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Тесты для {@link AdaptiveTimeLimiter}.
+ */
+@DisplayName("AdaptiveTimeLimiter Tests")
+class AdaptiveTimeLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveTimeoutProperties properties;
+
+    private TimeLimiterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AdaptiveTimeoutProperties();
+        properties.setMultiplier(2.0);
+        properties.setMinTimeout(Duration.ofMillis(100));
+        properties.setMaxTimeout(Duration.ofSeconds(5));
+        properties.setWindow(Duration.ofSeconds(60));
+        properties.setWindowSegments(6);
+        properties.setMinimumSamples(10);
+        registry = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+            .timeoutDuration(Duration.ofSeconds(5))
+            .build());
+    }
+
+    @Test
+    @DisplayName("Должен начинать с исходного таймаута, ограниченного max-timeout")
+    void shouldStartWithClampedInitialTimeout() {
+        // Arrange
+        TimeLimiter initial = registry.timeLimiter("api", TimeLimiterConfig.custom()
+            .timeoutDuration(Duration.ofSeconds(30))
+            .build());
+
+        // Act
+        AdaptiveTimeLimiter limiter = new AdaptiveTimeLimiter(initial, properties, registry, clock::get);
+
+        // Assert
+        assertThat(limiter.getCurrentTimeout()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(registry.timeLimiter("api").getTimeLimiterConfig().getTimeoutDuration())
+            .isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Должен устанавливать таймаут p99 × multiplier и заменять TimeLimiter в registry")
+    void shouldAdaptTimeoutToPercentile() {
+        // Arrange
+        AdaptiveTimeLimiter limiter = new AdaptiveTimeLimiter(registry.timeLimiter("api"), properties, registry,
+            clock::get);
+        for (int i = 0; i < 100; i++) {
+            limiter.record(Duration.ofMillis(200));
+        }
+
+        // Act
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        limiter.record(Duration.ofMillis(200));
+
+        // Assert: p99 = 200 ms с точностью до корзины гистограммы (10%)
+        assertThat(limiter.getCurrentTimeout().toMillis()).isCloseTo(400L, within(40L));
+        assertThat(registry.timeLimiter("api")).isSameAs(limiter.getTimeLimiter());
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать таймаут снизу min-timeout и сверху max-timeout")
+    void shouldClampAdaptedTimeout() {
+        // Arrange
+        AdaptiveTimeLimiter limiter = new AdaptiveTimeLimiter(registry.timeLimiter("api"), properties, registry,
+            clock::get);
+
+        // Act
+        recordSegment(limiter, Duration.ofMillis(5));
+        Duration fastTimeout = limiter.getCurrentTimeout();
+        // Медленные вызовы вытесняют быстрые по мере сдвига окна
+        for (int i = 0; i < 6; i++) {
+            recordSegment(limiter, Duration.ofSeconds(4));
+        }
+
+        // Assert
+        assertThat(fastTimeout).isEqualTo(Duration.ofMillis(100));
+        assertThat(limiter.getCurrentTimeout()).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Должен сохранять таймаут, пока задержек в окне меньше minimum-samples")
+    void shouldKeepTimeoutUntilMinimumSamples() {
+        // Arrange
+        AdaptiveTimeLimiter limiter = new AdaptiveTimeLimiter(registry.timeLimiter("api"), properties, registry,
+            clock::get);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            limiter.record(Duration.ofMillis(10));
+        }
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        limiter.record(Duration.ofMillis(10));
+
+        // Assert
+        assertThat(limiter.getCurrentTimeout()).isEqualTo(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("Должен записывать прерванную по таймауту попытку, чтобы таймаут мог вырасти")
+    void shouldRecordTimedOutAttempts() {
+        // Arrange
+        properties.setMinimumSamples(1);
+        TimeLimiter initial = registry.timeLimiter("api", TimeLimiterConfig.custom()
+            .timeoutDuration(Duration.ofMillis(100))
+            .build());
+        AdaptiveTimeLimiter limiter = new AdaptiveTimeLimiter(initial, properties, registry, System::nanoTime);
+
+        // Act & Assert
+        // block() оборачивает checked TimeoutException в RuntimeException
+        assertThatThrownBy(() -> limiter.decorate(Mono.delay(Duration.ofSeconds(1))).block())
+            .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(limiter.getLatencyPercentile()).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    @DisplayName("Должен публиковать gauge текущего таймаута")
+    void shouldPublishTimeoutGauge() {
+        // Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveTimeLimiter limiter = new AdaptiveTimeLimiter(registry.timeLimiter("api"), properties, registry,
+            clock::get);
+
+        // Act
+        limiter.bindTo(meterRegistry);
+
+        // Assert
+        assertThat(meterRegistry.get("resilience4j.timelimiter.adaptive.timeout").tag("name", "api").gauge().value())
+            .isEqualTo(5.0);
+    }
+
+    private void recordSegment(AdaptiveTimeLimiter limiter, Duration latency) {
+        for (int i = 0; i < 20; i++) {
+            limiter.record(latency);
+        }
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        limiter.record(latency);
+    }
+}
@@ -0,0 +1,194 @@
+package org.gualsh.demo.curbreaker.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import org.gualsh.demo.curbreaker.resilience.AdaptiveTimeLimiter;
+import org.gualsh.demo.curbreaker.resilience.AdaptiveTimeoutProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Демонстрация изоляции зависимостей: медленный email сервис не должен ухудшать
+ * задержку запросов к внешнему API.
+ *
+ * <p>Общий пул из {@value #WORKERS} потоков играет роль потоков Tomcat. В него одновременно
+ * поступают {@value #EMAILS} запросов на отправку письма (SMTP отвечает за
+ * {@code SMTP_DELAY}) и {@value #API_CALLS} запросов к внешнему API (стаб отвечает за
+ * {@code API_DELAY}). Без изоляции письма занимают все рабочие потоки, и запросы к API ждут
+ * в очереди. С ThreadPoolBulkhead рабочий поток только ставит письмо в пул email сервиса,
+ * лишние письма сразу отклоняются, а задержка API остается близкой к базовой.</p>
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=BulkheadIsolationBenchmarkTest -Dbenchmark=true}</p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Bulkhead isolation benchmark")
+class BulkheadIsolationBenchmarkTest {
+
+    private static final Duration API_DELAY = Duration.ofMillis(50);
+
+    private static final Duration SMTP_DELAY = Duration.ofMillis(500);
+
+    private static final int WORKERS = 8;
+
+    private static final int EMAILS = 40;
+
+    private static final int API_CALLS = 40;
+
+    private static DisposableServer server;
+
+    private static WebClient webClient;
+
+    @BeforeAll
+    static void startServer() {
+        server = HttpServer.create()
+            .port(0)
+            .route(routes -> routes.get("/posts/{id}", (request, response) -> response
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .sendString(Mono.just("{\"id\":" + request.param("id") + ",\"userId\":1,"
+                        + "\"title\":\"title\",\"body\":\"body\"}")
+                    .delayElement(API_DELAY))))
+            .bindNow();
+        webClient = WebClient.builder()
+            .baseUrl("http://localhost:" + server.port())
+            .build();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Задержка внешнего API при перегрузке email: без изоляции vs ThreadPoolBulkhead")
+    void slowEmailDoesNotDegradeExternalApi() throws Exception {
+        ExternalApiService apiService = new ExternalApiService(
+            webClient,
+            CircuitBreaker.ofDefaults("externalApi"),
+            new AdaptiveTimeLimiter(TimeLimiter.ofDefaults("externalApi"), new AdaptiveTimeoutProperties(), null),
+            Retry.ofDefaults("externalApi"),
+            Bulkhead.of("externalApi", BulkheadConfig.custom().maxConcurrentCalls(50).build()));
+        ThreadPoolBulkhead emailBulkhead = ThreadPoolBulkhead.of("emailService", ThreadPoolBulkheadConfig.custom()
+            .coreThreadPoolSize(2)
+            .maxThreadPoolSize(4)
+            .queueCapacity(10)
+            .build());
+        EmailService emailService = new EmailService(emailBulkhead, CircuitBreaker.ofDefaults("emailService"),
+            SMTP_DELAY);
+
+        System.out.printf("workers: %d, api delay: %d ms, smtp delay: %d ms, emails: %d, api calls: %d%n",
+            WORKERS, API_DELAY.toMillis(), SMTP_DELAY.toMillis(), EMAILS, API_CALLS);
+        System.out.printf("%-22s %12s %12s %14s %14s%n",
+            "variant", "api p50 ms", "api max ms", "emails sent", "emails reject");
+
+        // Прогрев: загрузка классов, соединения, JIT
+        run("warmup", apiService, null, true);
+
+        Result baseline = run("baseline (no email)", apiService, null, false);
+        Result shared = run("shared workers", apiService, counters -> {
+            emailService.deliver("user@example.com", "subject");
+            counters.sent.incrementAndGet();
+        }, false);
+        Result isolated = run("thread-pool bulkhead", apiService, counters -> emailService
+            .sendEmail("user@example.com", "subject")
+            .subscribe(messageId -> counters.sent.incrementAndGet(), error -> counters.rejected.incrementAndGet()),
+            false);
+        emailBulkhead.close();
+
+        assertThat(isolated.rejected()).isPositive();
+        assertThat(isolated.apiMaxMs()).isLessThan(shared.apiMaxMs());
+        assertThat(isolated.apiP50Ms()).isLessThan(Math.max(baseline.apiP50Ms() * 3, SMTP_DELAY.toMillis()));
+    }
+
+    private static Result run(String variant, ExternalApiService apiService, EmailCall email, boolean warmup)
+        throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        EmailCounters counters = new EmailCounters();
+        try {
+            List<Future<?>> emails = new ArrayList<>();
+            List<Future<Long>> apiCalls = new ArrayList<>();
+            // Письма и запросы к API приходят вперемешку, письма - чуть раньше
+            for (int i = 0; i < Math.max(EMAILS, API_CALLS); i++) {
+                if (email != null && i < EMAILS) {
+                    emails.add(workers.submit(() -> {
+                        email.send(counters);
+                        return null;
+                    }));
+                }
+                if (i < API_CALLS) {
+                    long id = i + 1;
+                    long submitted = System.nanoTime();
+                    apiCalls.add(workers.submit(() -> {
+                        apiService.getPost(id);
+                        return System.nanoTime() - submitted;
+                    }));
+                }
+            }
+
+            List<Long> latencies = new ArrayList<>();
+            for (Future<Long> call : apiCalls) {
+                latencies.add(Duration.ofNanos(call.get()).toMillis());
+            }
+            for (Future<?> sent : emails) {
+                sent.get();
+            }
+            // Письма, принятые пулом email сервиса, отправляются уже после освобождения рабочих потоков
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (email != null && counters.sent.get() + counters.rejected.get() < EMAILS
+                && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            latencies.sort(Long::compare);
+            Result result = new Result(latencies.get(latencies.size() / 2), latencies.get(latencies.size() - 1),
+                counters.sent.get(), counters.rejected.get());
+            if (!warmup) {
+                System.out.printf("%-22s %12d %12d %14d %14d%n", variant, result.apiP50Ms(), result.apiMaxMs(),
+                    result.sent(), result.rejected());
+            }
+            return result;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EmailCall {
+
+        void send(EmailCounters counters);
+    }
+
+    private static final class EmailCounters {
+
+        private final AtomicInteger sent = new AtomicInteger();
+
+        private final AtomicInteger rejected = new AtomicInteger();
+    }
+
+    private record Result(long apiP50Ms, long apiMaxMs, int sent, int rejected) {
+    }
+}
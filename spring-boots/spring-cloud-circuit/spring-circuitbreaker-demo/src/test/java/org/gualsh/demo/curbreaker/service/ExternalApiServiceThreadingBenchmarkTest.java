@@ -0,0 +1,231 @@
+package org.gualsh.demo.curbreaker.service;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.gualsh.demo.curbreaker.model.ApiResponse;
+import org.gualsh.demo.curbreaker.resilience.AdaptiveTimeLimiter;
+import org.gualsh.demo.curbreaker.resilience.AdaptiveTimeoutProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение прежней синхронной реализации getPost (block() внутри CompletableFuture.supplyAsync
+ * на ForkJoinPool.commonPool() ради TimeLimiter) с reactive цепочкой Resilience4j операторов
+ * на медленном локальном стабе.
+ *
+ * <p>Для каждого варианта печатаются время, пропускная способность, число fallback ответов,
+ * прирост пика потоков JVM и пик занятых потоков общего пула. При parallelism общего пула
+ * меньше 2 CompletableFuture создает поток на каждую задачу, поэтому на маленьких машинах
+ * прежний вариант упирается в потоки, а на больших - в размер общего пула.</p>
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=ExternalApiServiceThreadingBenchmarkTest -Dbenchmark=true}; размер общего пула
+ * можно задать через {@code -DargLine="-Djava.util.concurrent.ForkJoinPool.common.parallelism=3"}
+ * (при 3 потоках: прежний вариант ~16 req/s и 12 из 100 fallback по таймауту, reactive ~180 req/s
+ * без дополнительных потоков).</p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("ExternalApiService threading benchmark")
+class ExternalApiServiceThreadingBenchmarkTest {
+
+    private static final Duration STUB_DELAY = Duration.ofMillis(200);
+
+    private static final int REQUESTS = 100;
+
+    /**
+     * Потоки, вызывающие синхронный API (аналог потоков Tomcat).
+     */
+    private static final int CALLERS = 50;
+
+    private static DisposableServer server;
+
+    private static WebClient webClient;
+
+    @BeforeAll
+    static void startServer() {
+        server = HttpServer.create()
+            .port(0)
+            .route(routes -> routes.get("/posts/{id}", (request, response) -> response
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .sendString(Mono.just("{\"id\":" + request.param("id") + ",\"userId\":1,"
+                        + "\"title\":\"title\",\"body\":\"body\"}")
+                    .delayElement(STUB_DELAY))))
+            .bindNow();
+        webClient = WebClient.builder()
+            .baseUrl("http://localhost:" + server.port())
+            .build();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Потоки и пропускная способность: supplyAsync + block() vs reactive операторы")
+    void compareThreadUsage() throws Exception {
+        TimeLimiter timeLimiter = TimeLimiter.of("benchmark", TimeLimiterConfig.custom()
+            .timeoutDuration(Duration.ofSeconds(5))
+            .cancelRunningFuture(true)
+            .build());
+        ExternalApiService service = new ExternalApiService(
+            webClient,
+            CircuitBreaker.ofDefaults("benchmark"),
+            new AdaptiveTimeLimiter(timeLimiter, new AdaptiveTimeoutProperties(), null),
+            Retry.ofDefaults("benchmark"),
+            Bulkhead.of("benchmark", BulkheadConfig.custom().maxConcurrentCalls(REQUESTS).build()));
+
+        System.out.printf("commonPool parallelism: %d, stub delay: %d ms, requests: %d%n",
+            ForkJoinPool.getCommonPoolParallelism(), STUB_DELAY.toMillis(), REQUESTS);
+        System.out.printf("%-28s %10s %10s %10s %14s %16s%n",
+            "variant", "elapsed ms", "req/s", "fallbacks", "peak threads +", "commonPool busy");
+
+        // Прогрев: загрузка классов, соединения, JIT
+        measure("warmup", id -> legacyGetPost(timeLimiter, id), true);
+        measure("warmup", service::getPost, true);
+
+        Result legacy = measure("supplyAsync + block()", id -> legacyGetPost(timeLimiter, id), false);
+        Result blocking = measure("reactive, block() caller", service::getPost, false);
+        Result reactive = measureReactive(service);
+
+        assertThat(reactive.fallbacks()).isZero();
+        assertThat(blocking.fallbacks()).isZero();
+        assertThat(reactive.peakThreads()).isLessThanOrEqualTo(legacy.peakThreads());
+        assertThat(reactive.commonPoolBusy()).isZero();
+    }
+
+    /**
+     * Прежняя реализация getPost: TimeLimiter требует Future, поэтому запрос с block()
+     * выполняется в supplyAsync на общем пуле.
+     */
+    private static ApiResponse legacyGetPost(TimeLimiter timeLimiter, long id) {
+        try {
+            return timeLimiter.executeFutureSupplier(() -> CompletableFuture.supplyAsync(() -> webClient.get()
+                .uri("/posts/{id}", id)
+                .retrieve()
+                .bodyToMono(ApiResponse.class)
+                .block()));
+        } catch (Exception e) {
+            return ApiResponse.builder().id(id).title("Внешний сервис временно недоступен").build();
+        }
+    }
+
+    private static Result measure(String variant, LongFunction<ApiResponse> call, boolean warmup) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try (CommonPoolSampler sampler = new CommonPoolSampler()) {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            int baseline = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+
+            List<Future<ApiResponse>> futures = LongStream.rangeClosed(1, REQUESTS)
+                .mapToObj(id -> callers.submit(() -> call.apply(id)))
+                .toList();
+            int fallbacks = 0;
+            for (Future<ApiResponse> future : futures) {
+                if (!"title".equals(future.get().getTitle())) {
+                    fallbacks++;
+                }
+            }
+
+            return report(variant, start, fallbacks, threads.getPeakThreadCount() - baseline, sampler.peak(), warmup);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private static Result measureReactive(ExternalApiService service) {
+        try (CommonPoolSampler sampler = new CommonPoolSampler()) {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            int baseline = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+
+            Long fallbacks = Flux.range(1, REQUESTS)
+                .flatMap(id -> service.getPostAsync((long) id), REQUESTS)
+                .filter(post -> !"title".equals(post.getTitle()))
+                .count()
+                .block();
+
+            return report("reactive, flatMap", start, fallbacks != null ? fallbacks.intValue() : 0,
+                threads.getPeakThreadCount() - baseline, sampler.peak(), false);
+        }
+    }
+
+    private static Result report(String variant, long start, int fallbacks, int peakThreads, int commonPoolBusy,
+                                 boolean warmup) {
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        Result result = new Result(elapsedMs, fallbacks, peakThreads, commonPoolBusy);
+        if (!warmup) {
+            System.out.printf("%-28s %10d %10.1f %10d %14d %16d%n", variant, elapsedMs,
+                REQUESTS * 1000.0 / Math.max(1, elapsedMs), fallbacks, peakThreads, commonPoolBusy);
+        }
+        return result;
+    }
+
+    private record Result(long elapsedMs, int fallbacks, int peakThreads, int commonPoolBusy) {
+    }
+
+    /**
+     * Раз в 5 мс снимает число занятых потоков общего пула.
+     */
+    private static final class CommonPoolSampler implements AutoCloseable {
+
+        private final AtomicInteger peak = new AtomicInteger();
+
+        private final Thread thread;
+
+        CommonPoolSampler() {
+            thread = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peak.accumulateAndGet(ForkJoinPool.commonPool().getActiveThreadCount(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "common-pool-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int peak() {
+            return peak.get();
+        }
+
+        @Override
+        public void close() {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.gualsh.demo.gw.config.gateway.balancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Состояние одного backend: запросы в работе, EWMA задержки, ошибки подряд и исключение.
+ *
+ * <p>Счетчики обновляются атомарно, EWMA - под монитором backend (одно умножение на ответ).
+ * Чтение для выбора backend блокировок не берет.
+ */
+public final class Backend {
+
+    private final String id;
+
+    private final URI uri;
+
+    private final int weight;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile double ewmaNanos;
+
+    private long lastSampleNanos;
+
+    private volatile boolean ejected;
+
+    private volatile long ejectedUntilNanos;
+
+    volatile Timer successTimer;
+
+    volatile Timer failureTimer;
+
+    volatile Counter ejectionCounter;
+
+    Backend(String id, URI uri, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("Вес backend " + id + " должен быть больше 0: " + weight);
+        }
+        this.id = id;
+        this.uri = uri;
+        this.weight = weight;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return запросов в работе
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return EWMA задержки ответа в наносекундах
+     */
+    public double getEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    /**
+     * @return 1, если backend сейчас исключен из балансировки, иначе 0
+     */
+    double ejectedGauge() {
+        return ejected ? 1 : 0;
+    }
+
+    boolean isEjected(long now) {
+        if (ejected && now - ejectedUntilNanos >= 0) {
+            // Время исключения вышло: backend снова получает трафик и заново набирает ошибки
+            ejected = false;
+        }
+        return ejected;
+    }
+
+    void eject(long until) {
+        ejectedUntilNanos = until;
+        ejected = true;
+        consecutiveFailures.set(0);
+        Counter counter = ejectionCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * Стоимость для power of two choices: ожидаемое время ожидания на единицу веса.
+     * +1 к задержке дает новым backend (EWMA = 0) учитывать очередь запросов.
+     */
+    double cost() {
+        return (ewmaNanos + 1) * (inFlight.get() + 1) / weight;
+    }
+
+    /**
+     * Стоимость для least outstanding requests.
+     */
+    double outstanding() {
+        return (inFlight.get() + 1) / (double) weight;
+    }
+
+    void start() {
+        inFlight.incrementAndGet();
+    }
+
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Завершает запрос и учитывает его задержку.
+     *
+     * @return число ошибок подряд после этого ответа
+     */
+    int complete(long now, long latencyNanos, boolean success, double decayNanos) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            // Peak EWMA: рост задержки учитывается сразу, снижение - с затуханием по времени
+            double decay = Math.exp(-(now - lastSampleNanos) / decayNanos);
+            lastSampleNanos = now;
+            ewmaNanos = latencyNanos > ewmaNanos ? latencyNanos : ewmaNanos * decay + latencyNanos * (1 - decay);
+        }
+        Timer timer = success ? successTimer : failureTimer;
+        if (timer != null) {
+            timer.record(latencyNanos, TimeUnit.NANOSECONDS);
+        }
+        if (success) {
+            consecutiveFailures.set(0);
+            return 0;
+        }
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return id + "(" + uri + ")";
+    }
+}
@@ -0,0 +1,228 @@
+package org.gualsh.demo.gw.config.gateway.balancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.gw.config.gateway.balancer.LoadBalancerProperties.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Выбор backend с учетом задержки, нагрузки, весов и ошибок.
+ *
+ * <p><strong>Образовательный момент:</strong>
+ * Round-robin и выбор по признакам запроса (User-Agent) не видят, что один backend
+ * отвечает в 10 раз медленнее или перестал отвечать. Здесь по каждому backend считаются
+ * EWMA задержки и число запросов в работе:
+ * <ul>
+ * <li><b>POWER_OF_TWO_CHOICES</b> - берутся два случайных backend (вероятность пропорциональна весу),
+ * запрос уходит тому, у кого меньше EWMA × (запросов в работе + 1) / вес. Выбор из двух,
+ * а не из всех, не дает всем экземплярам Gateway одновременно перегрузить один "лучший" backend</li>
+ * <li><b>LEAST_OUTSTANDING_REQUESTS</b> - backend с наименьшим числом запросов в работе на единицу веса</li>
+ * </ul>
+ *
+ * <p><strong>Исключение выбросов (outlier ejection):</strong>
+ * после consecutive-failures ошибок подряд backend на ejection-time не получает трафик.
+ * Исключается не больше max-ejection-percent backend; если исключены все доступные, выбор идет из всех.
+ *
+ * <p><strong>Метрики</strong> (тег backend):
+ * {@code gateway.backend.requests} (таймер, тег outcome), {@code gateway.backend.requests.active},
+ * {@code gateway.backend.latency.ewma}, {@code gateway.backend.ejected}, {@code gateway.backend.ejections}.
+ */
+@Slf4j
+public class LatencyAwareLoadBalancer implements MeterBinder {
+
+    private final List<Backend> backends;
+
+    private final Strategy strategy;
+
+    private final double decayNanos;
+
+    private final int consecutiveFailures;
+
+    private final long ejectionNanos;
+
+    private final int maxEjected;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param properties настройки балансировки
+     */
+    public LatencyAwareLoadBalancer(LoadBalancerProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    LatencyAwareLoadBalancer(LoadBalancerProperties properties, LongSupplier nanoClock) {
+        if (properties.getBackends().isEmpty()) {
+            throw new IllegalArgumentException("gateway.load-balancer.backends не может быть пустым");
+        }
+        this.backends = properties.getBackends().stream()
+            .map(backend -> new Backend(backend.getId(), backend.getUri(), backend.getWeight()))
+            .toList();
+        this.strategy = properties.getStrategy();
+        this.decayNanos = properties.getDecayTime().toNanos();
+        this.consecutiveFailures = properties.getConsecutiveFailures();
+        this.ejectionNanos = properties.getEjectionTime().toNanos();
+        this.maxEjected = backends.size() * properties.getMaxEjectionPercent() / 100;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Выбирает backend и учитывает запрос как находящийся в работе. Каждый вызов должен
+     * завершаться {@link #complete} или {@link #cancel}.
+     *
+     * @return выбранный backend
+     */
+    public Backend choose() {
+        long now = nanoClock.getAsLong();
+        List<Backend> available = new ArrayList<>(backends.size());
+        for (Backend backend : backends) {
+            if (!backend.isEjected(now)) {
+                available.add(backend);
+            }
+        }
+        if (available.isEmpty()) {
+            available = backends;
+        }
+
+        Backend chosen = switch (strategy) {
+            case POWER_OF_TWO_CHOICES -> powerOfTwoChoices(available);
+            case LEAST_OUTSTANDING_REQUESTS -> leastOutstanding(available);
+        };
+        chosen.start();
+        return chosen;
+    }
+
+    /**
+     * Учитывает завершенный запрос.
+     *
+     * @param backend    backend из {@link #choose()}
+     * @param startNanos время отправки запроса ({@link #now()})
+     * @param success    false для 5xx и ошибок соединения
+     */
+    public void complete(Backend backend, long startNanos, boolean success) {
+        long now = nanoClock.getAsLong();
+        int failures = backend.complete(now, now - startNanos, success, decayNanos);
+        if (failures >= consecutiveFailures) {
+            tryEject(backend, now);
+        }
+    }
+
+    /**
+     * Учитывает отмененный запрос: задержка неизвестна и в EWMA не попадает.
+     *
+     * @param backend backend из {@link #choose()}
+     */
+    public void cancel(Backend backend) {
+        backend.cancel();
+    }
+
+    /**
+     * @return текущее время часов балансировщика в наносекундах
+     */
+    public long now() {
+        return nanoClock.getAsLong();
+    }
+
+    public List<Backend> getBackends() {
+        return backends;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Backend backend : backends) {
+            String id = backend.getId();
+            backend.successTimer = requestTimer(registry, id, "SUCCESS");
+            backend.failureTimer = requestTimer(registry, id, "FAILURE");
+            Gauge.builder("gateway.backend.requests.active", backend, Backend::getInFlight)
+                .description("Запросы к backend в работе")
+                .tag("backend", id)
+                .register(registry);
+            TimeGauge.builder("gateway.backend.latency.ewma", backend, TimeUnit.NANOSECONDS, Backend::getEwmaNanos)
+                .description("EWMA задержки ответа backend")
+                .tag("backend", id)
+                .register(registry);
+            Gauge.builder("gateway.backend.ejected", backend, Backend::ejectedGauge)
+                .description("1, если backend исключен из балансировки")
+                .tag("backend", id)
+                .register(registry);
+            backend.ejectionCounter = Counter.builder("gateway.backend.ejections")
+                .description("Исключения backend из балансировки")
+                .tag("backend", id)
+                .register(registry);
+        }
+    }
+
+    private Backend powerOfTwoChoices(List<Backend> available) {
+        if (available.size() == 1) {
+            return available.get(0);
+        }
+        Backend first = pickWeighted(available, null);
+        Backend second = pickWeighted(available, first);
+        return first.cost() <= second.cost() ? first : second;
+    }
+
+    private Backend leastOutstanding(List<Backend> available) {
+        // Обход со случайного места: при равной нагрузке трафик не уходит всегда первому backend
+        int offset = ThreadLocalRandom.current().nextInt(available.size());
+        Backend best = null;
+        for (int i = 0; i < available.size(); i++) {
+            Backend candidate = available.get((offset + i) % available.size());
+            if (best == null || candidate.outstanding() < best.outstanding()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static Backend pickWeighted(List<Backend> candidates, Backend excluded) {
+        int total = 0;
+        for (Backend candidate : candidates) {
+            if (candidate != excluded) {
+                total += candidate.getWeight();
+            }
+        }
+        int point = ThreadLocalRandom.current().nextInt(total);
+        for (Backend candidate : candidates) {
+            if (candidate == excluded) {
+                continue;
+            }
+            point -= candidate.getWeight();
+            if (point < 0) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Недостижимо: сумма весов " + total);
+    }
+
+    private synchronized void tryEject(Backend backend, long now) {
+        if (backend.isEjected(now)) {
+            return;
+        }
+        long ejected = backends.stream().filter(candidate -> candidate.isEjected(now)).count();
+        if (ejected >= maxEjected) {
+            log.warn("Backend {} не исключен: уже исключено {} из {}", backend, ejected, backends.size());
+            return;
+        }
+        backend.eject(now + ejectionNanos);
+        log.warn("Backend {} исключен из балансировки на {} ms после {} ошибок подряд", backend,
+            TimeUnit.NANOSECONDS.toMillis(ejectionNanos), consecutiveFailures);
+    }
+
+    private static Timer requestTimer(MeterRegistry registry, String backend, String outcome) {
+        return Timer.builder("gateway.backend.requests")
+            .description("Время ответа backend")
+            .tag("backend", backend)
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+}
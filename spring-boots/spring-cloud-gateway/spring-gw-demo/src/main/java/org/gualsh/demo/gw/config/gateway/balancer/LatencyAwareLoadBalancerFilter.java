@@ -0,0 +1,91 @@
+package org.gualsh.demo.gw.config.gateway.balancer;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+/**
+ * Gateway фильтр, направляющий запрос на backend из {@link LatencyAwareLoadBalancer}.
+ *
+ * <p>Выполняется сразу после RouteToRequestUrlFilter, когда URL запроса уже собран из uri маршрута
+ * и пути после stripPrefix: схема, хост и порт заменяются на адрес backend. Время до завершения
+ * цепочки (ответ backend и запись тела клиенту) учитывается в EWMA выбранного backend;
+ * 5xx и ошибки соединения считаются ошибками для исключения выбросов.
+ *
+ * <p><strong>Пример использования:</strong>
+ * <pre>{@code
+ * .route("load-balanced-route", r -> r
+ *     .path("/balanced/**")
+ *     .filters(f -> f
+ *         .stripPrefix(1)
+ *         .filter(latencyAwareLoadBalancerFilter)
+ *     )
+ *     .uri("https://httpbin.org") // заменяется адресом выбранного backend
+ * )
+ * }</pre>
+ */
+public class LatencyAwareLoadBalancerFilter implements GatewayFilter, Ordered {
+
+    /**
+     * Атрибут обмена с выбранным {@link Backend}.
+     */
+    public static final String BACKEND_ATTR = LatencyAwareLoadBalancerFilter.class.getName() + ".backend";
+
+    public static final String SELECTED_BACKEND_HEADER = "X-Selected-Backend";
+
+    private final LatencyAwareLoadBalancer loadBalancer;
+
+    /**
+     * @param loadBalancer балансировщик backend маршрута
+     */
+    public LatencyAwareLoadBalancerFilter(LatencyAwareLoadBalancer loadBalancer) {
+        this.loadBalancer = loadBalancer;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (requestUrl == null) {
+            return chain.filter(exchange);
+        }
+
+        Backend backend = loadBalancer.choose();
+        URI backendUri = backend.getUri();
+        URI balancedUrl = UriComponentsBuilder.fromUri(requestUrl)
+            .scheme(backendUri.getScheme())
+            .host(backendUri.getHost())
+            .port(backendUri.getPort())
+            .build(true)
+            .toUri();
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, balancedUrl);
+        exchange.getAttributes().put(BACKEND_ATTR, backend);
+        ServerWebExchange balanced = exchange.mutate()
+            .request(request -> request.header(SELECTED_BACKEND_HEADER, backend.getId()))
+            .build();
+
+        long start = loadBalancer.now();
+        return chain.filter(balanced)
+            .doOnSuccess(ignored -> loadBalancer.complete(backend, start, !isServerError(balanced)))
+            .doOnError(error -> loadBalancer.complete(backend, start, false))
+            .doOnCancel(() -> loadBalancer.cancel(backend));
+    }
+
+    @Override
+    public int getOrder() {
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1;
+    }
+
+    private static boolean isServerError(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && status.is5xxServerError();
+    }
+}
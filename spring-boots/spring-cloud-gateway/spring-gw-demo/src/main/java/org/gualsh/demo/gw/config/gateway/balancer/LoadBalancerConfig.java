@@ -0,0 +1,38 @@
+package org.gualsh.demo.gw.config.gateway.balancer;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация балансировки маршрута load-balanced-route по задержке и нагрузке backend.
+ *
+ * <p>LatencyAwareLoadBalancer реализует MeterBinder, поэтому Spring Boot сам регистрирует
+ * его метрики в MeterRegistry приложения.
+ */
+@Configuration
+@EnableConfigurationProperties(LoadBalancerProperties.class)
+public class LoadBalancerConfig {
+
+    /**
+     * Bean балансировщика backend.
+     *
+     * @param properties настройки gateway.load-balancer
+     * @return экземпляр LatencyAwareLoadBalancer
+     */
+    @Bean
+    public LatencyAwareLoadBalancer latencyAwareLoadBalancer(LoadBalancerProperties properties) {
+        return new LatencyAwareLoadBalancer(properties);
+    }
+
+    /**
+     * Bean Gateway фильтра, направляющего запрос на выбранный backend.
+     *
+     * @param loadBalancer балансировщик backend
+     * @return экземпляр LatencyAwareLoadBalancerFilter
+     */
+    @Bean
+    public LatencyAwareLoadBalancerFilter latencyAwareLoadBalancerFilter(LatencyAwareLoadBalancer loadBalancer) {
+        return new LatencyAwareLoadBalancerFilter(loadBalancer);
+    }
+}
@@ -0,0 +1,79 @@
+package org.gualsh.demo.gw.config.gateway.balancer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки балансировки маршрута load-balanced-route ({@code gateway.load-balancer}).
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public class LoadBalancerProperties {
+
+    /**
+     * Алгоритм выбора backend.
+     */
+    private Strategy strategy = Strategy.POWER_OF_TWO_CHOICES;
+
+    /**
+     * Время затухания EWMA задержки: через decay-time вклад старых ответов уменьшается в e раз.
+     */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /**
+     * Сколько ошибок подряд (5xx или ошибка соединения) исключают backend из балансировки.
+     */
+    private int consecutiveFailures = 5;
+
+    /**
+     * На сколько backend исключается из балансировки.
+     */
+    private Duration ejectionTime = Duration.ofSeconds(30);
+
+    /**
+     * Максимальная доля исключенных backend в процентах: остальные принимают трафик в любом случае.
+     */
+    private int maxEjectionPercent = 50;
+
+    /**
+     * Backend сервисы маршрута.
+     */
+    private List<BackendProperties> backends = new ArrayList<>();
+
+    public enum Strategy {
+        /**
+         * Из двух случайных (с учетом весов) backend выбирается тот, у кого меньше
+         * EWMA задержки × (запросов в работе + 1) / вес.
+         */
+        POWER_OF_TWO_CHOICES,
+
+        /**
+         * Backend с наименьшим числом запросов в работе на единицу веса.
+         */
+        LEAST_OUTSTANDING_REQUESTS
+    }
+
+    @Data
+    public static class BackendProperties {
+
+        /**
+         * Имя backend в метриках и заголовке X-Selected-Backend.
+         */
+        private String id;
+
+        /**
+         * Схема, хост и порт backend; путь запроса сохраняется.
+         */
+        private URI uri;
+
+        /**
+         * Статический вес: при равной задержке доля трафика пропорциональна весу.
+         */
+        private int weight = 1;
+    }
+}
@@ -1,10 +1,17 @@
 package org.gualsh.demo.gw.config.gateway.body;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.gualsh.demo.gw.config.gateway.body.factory.RequestBodyModifier;
 import org.gualsh.demo.gw.config.gateway.body.factory.ResponseBodyModifier;
+import org.gualsh.demo.gw.config.gateway.body.stream.StreamingBodyProperties;
+import org.gualsh.demo.gw.config.gateway.body.stream.StreamingJsonBodyFilters;
+import org.gualsh.demo.gw.config.gateway.body.stream.StreamingJsonBodyTransformer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
 /**
  * Конфигурация для модификаторов тела запросов и ответов.
  *
@@ -23,8 +30,14 @@ import org.springframework.context.annotation.Configuration;
  *     .uri("https://httpbin.org")
  * )
  * }</pre>
+ *
+ * <p><strong>Образовательный момент:</strong>
+ * RequestBodyModifier и ResponseBodyModifier получают тело целиком в виде String, что подходит
+ * только для небольших тел (и ограничено spring.codec.max-in-memory-size). Маршруты используют
+ * потоковый вариант {@link StreamingJsonBodyFilters}, который не собирает тело в памяти.
  */
 @Configuration
+@EnableConfigurationProperties(StreamingBodyProperties.class)
 public class BodyModifierConfig {
 
     /**
@@ -50,4 +63,23 @@ public class BodyModifierConfig {
     public ResponseBodyModifier responseBodyModifier() {
         return new ResponseBodyModifier();
     }
+
+    /**
+     * Bean с фабричными методами Gateway фильтров потоковой модификации тела.
+     *
+     * <p>Поля из masked-fields маскируются только в ответах: тело запроса (например, пароль
+     * при входе) должно дойти до backend без изменений.
+     *
+     * @param objectMapper ObjectMapper приложения
+     * @param properties   настройки потоковой модификации
+     * @return экземпляр StreamingJsonBodyFilters
+     */
+    @Bean
+    public StreamingJsonBodyFilters streamingJsonBodyFilters(ObjectMapper objectMapper,
+                                                             StreamingBodyProperties properties) {
+        return new StreamingJsonBodyFilters(
+            new StreamingJsonBodyTransformer(objectMapper, properties.getMaxBufferedSize(), List.of()),
+            new StreamingJsonBodyTransformer(objectMapper, properties.getMaxBufferedSize(),
+                properties.getMaskedFields()));
+    }
 }
@@ -0,0 +1,16 @@
+package org.gualsh.demo.gw.config.gateway.body.stream;
+
+import java.util.Map;
+
+/**
+ * Обертка, в которую {@link StreamingJsonBodyTransformer} помещает исходное JSON тело.
+ *
+ * <p>Результат: {@code {<leading...>, "<dataField>": <тело>, <trailing...>}}. Значения
+ * полей сериализуются через ObjectMapper, порядок полей сохраняется в порядке итерации map.
+ *
+ * @param dataField имя поля с исходным телом
+ * @param leading   поля до тела
+ * @param trailing  поля после тела
+ */
+public record JsonEnvelope(String dataField, Map<String, ?> leading, Map<String, ?> trailing) {
+}
@@ -0,0 +1,28 @@
+package org.gualsh.demo.gw.config.gateway.body.stream;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки потоковой модификации JSON тела ({@code gateway.streaming-body}).
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.streaming-body")
+public class StreamingBodyProperties {
+
+    /**
+     * Сколько байт тела парсер может держать в памяти, ожидая окончания одного JSON токена
+     * (например, очень длинной строки). При превышении обработка завершается DataBufferLimitException.
+     */
+    private DataSize maxBufferedSize = DataSize.ofMegabytes(1);
+
+    /**
+     * Поля, значения которых в теле ответа заменяются на "***" на любом уровне вложенности.
+     * Тело запроса не маскируется.
+     */
+    private List<String> maskedFields = new ArrayList<>();
+}
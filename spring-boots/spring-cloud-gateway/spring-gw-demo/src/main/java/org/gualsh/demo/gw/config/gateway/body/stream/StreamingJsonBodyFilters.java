@@ -0,0 +1,165 @@
+package org.gualsh.demo.gw.config.gateway.body.stream;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Gateway фильтры потоковой модификации JSON тела запроса и ответа.
+ *
+ * <p><strong>Образовательный момент:</strong>
+ * В отличие от {@code modifyRequestBody}/{@code modifyResponseBody}, тело не декодируется
+ * в String: фильтры подменяют {@code getBody()} запроса и {@code writeWith()} ответа
+ * на поток из {@link StreamingJsonBodyTransformer}. Длина тела заранее неизвестна, поэтому
+ * Content-Length удаляется и тело уходит с Transfer-Encoding: chunked.
+ *
+ * <p><strong>Пример использования:</strong>
+ * <pre>{@code
+ * .route("transform-route", r -> r
+ *     .path("/transform/**")
+ *     .filters(f -> f
+ *         .stripPrefix(1)
+ *         .filter(streamingJsonBodyFilters.requestFilter("transform-route"))
+ *         .filter(streamingJsonBodyFilters.responseFilter("transform-route"))
+ *     )
+ *     .uri("https://httpbin.org")
+ * )
+ * }</pre>
+ *
+ * <p>Модифицируется только JSON тело (или тело без Content-Type). Сжатый ответ
+ * (Content-Encoding) передается без изменений.
+ */
+public class StreamingJsonBodyFilters {
+
+    /**
+     * Порядок фильтра ответа: раньше кэша ответов (WRITE_RESPONSE_FILTER_ORDER - 1) и NettyWriteResponseFilter.
+     */
+    public static final int RESPONSE_FILTER_ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+    private final StreamingJsonBodyTransformer requestTransformer;
+
+    private final StreamingJsonBodyTransformer responseTransformer;
+
+    /**
+     * @param requestTransformer  преобразователь тела запроса; обычно без маскирования полей,
+     *                            иначе backend получит "***" вместо переданных значений
+     * @param responseTransformer преобразователь тела ответа
+     */
+    public StreamingJsonBodyFilters(StreamingJsonBodyTransformer requestTransformer,
+                                    StreamingJsonBodyTransformer responseTransformer) {
+        this.requestTransformer = requestTransformer;
+        this.responseTransformer = responseTransformer;
+    }
+
+    /**
+     * Фильтр, оборачивающий тело запроса: {@code {"originalRequest": ..., "metadata": {...}}}.
+     *
+     * @param modifiedBy значение metadata.modifiedBy
+     * @return Gateway фильтр
+     */
+    public GatewayFilter requestFilter(String modifiedBy) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!isJson(request.getHeaders())) {
+                return chain.filter(exchange);
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(request.getHeaders());
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+            if (headers.getContentType() == null) {
+                headers.setContentType(MediaType.APPLICATION_JSON);
+            }
+            JsonEnvelope envelope = new JsonEnvelope("originalRequest", Map.of(),
+                Map.of("metadata", metadata(exchange, "modifiedBy", modifiedBy)));
+
+            ServerHttpRequest decorated = new ServerHttpRequestDecorator(request) {
+                @Override
+                public HttpHeaders getHeaders() {
+                    return headers;
+                }
+
+                @Override
+                public Flux<DataBuffer> getBody() {
+                    return requestTransformer.transform(super.getBody(), exchange.getResponse().bufferFactory(), envelope);
+                }
+            };
+            return chain.filter(exchange.mutate().request(decorated).build());
+        };
+    }
+
+    /**
+     * Фильтр, оборачивающий тело ответа:
+     * {@code {"success": ..., "data": ..., "metadata": {...}}}.
+     *
+     * <p>Порядок фильтра ({@link #RESPONSE_FILTER_ORDER}) меньше, чем у NettyWriteResponseFilter: иначе ответ
+     * будет записан через исходный, а не подмененный ServerHttpResponse. Он меньше и порядка кэша ответов
+     * (ResponseCacheFilter): кэш хранит исходное тело backend, а обертка с timestamp и requestId создается
+     * заново для каждого ответа, в том числе взятого из кэша.
+     *
+     * @param processedBy значение metadata.processedBy
+     * @return Gateway фильтр
+     */
+    public GatewayFilter responseFilter(String processedBy) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpResponse decorated = new ServerHttpResponseDecorator(exchange.getResponse()) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    HttpHeaders headers = getDelegate().getHeaders();
+                    if (!isJson(headers) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                        return super.writeWith(body);
+                    }
+
+                    int statusCode = getStatusCode() != null ? getStatusCode().value() : 200;
+                    Map<String, Object> metadata = metadata(exchange, "processedBy", processedBy);
+                    metadata.put("statusCode", statusCode);
+                    JsonEnvelope envelope = new JsonEnvelope("data",
+                        Map.of("success", HttpStatusCode.valueOf(statusCode).is2xxSuccessful()),
+                        Map.of("metadata", metadata));
+
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    return super.writeWith(responseTransformer.transform(body, bufferFactory(), envelope));
+                }
+
+                @Override
+                public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                    return writeWith(Flux.from(body).flatMapSequential(publisher -> publisher));
+                }
+            };
+            return chain.filter(exchange.mutate().response(decorated).build());
+        }, RESPONSE_FILTER_ORDER);
+    }
+
+    private static boolean isJson(HttpHeaders headers) {
+        MediaType contentType = headers.getContentType();
+        return contentType == null
+            || MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+            || "json".equals(contentType.getSubtypeSuffix());
+    }
+
+    private static Map<String, Object> metadata(ServerWebExchange exchange, String byField, String by) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put(byField, by);
+        metadata.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        metadata.put("requestId", exchange.getRequest().getHeaders().getFirst("X-Request-ID"));
+        return metadata;
+    }
+}
@@ -0,0 +1,142 @@
+package org.gualsh.demo.gw.config.gateway.cache;
+
+import io.netty.buffer.ByteBuf;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Закэшированный ответ: статус, заголовки и тело в буфере из пула Netty.
+ *
+ * <p>Буфер освобождается, когда ответ удален из кэша и все начатые отдачи закончились.
+ * Для этого у записи собственный счетчик ссылок: после возврата буфера в пул объект ByteBuf
+ * переиспользуется, и проверка его refCnt уже ничего не гарантирует.
+ */
+final class CachedResponse {
+
+    private final HttpStatusCode status;
+
+    private final HttpHeaders headers;
+
+    private final ByteBuf body;
+
+    private final List<String> varyNames;
+
+    private final List<String> varyValues;
+
+    private final long storedAtNanos;
+
+    private final Duration ttl;
+
+    // 1 - ссылка кэша, остальные - отдачи в процессе
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    CachedResponse(HttpStatusCode status, HttpHeaders headers, ByteBuf body, List<String> varyNames,
+                   List<String> varyValues, long storedAtNanos, Duration ttl) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.varyNames = varyNames;
+        this.varyValues = varyValues;
+        this.storedAtNanos = storedAtNanos;
+        this.ttl = ttl;
+    }
+
+    HttpStatusCode status() {
+        return status;
+    }
+
+    HttpHeaders headers() {
+        return headers;
+    }
+
+    /**
+     * @return true, если запрос совпадает с исходным по заголовкам из Vary ответа
+     */
+    boolean matches(HttpHeaders requestHeaders) {
+        return varyValues.equals(varyValues(varyNames, requestHeaders));
+    }
+
+    /**
+     * Значения заголовков запроса, перечисленных в Vary, в порядке перечисления.
+     */
+    static List<String> varyValues(List<String> varyNames, HttpHeaders requestHeaders) {
+        List<String> values = new ArrayList<>(varyNames.size());
+        for (String name : varyNames) {
+            values.add(String.join(",", requestHeaders.getOrEmpty(name)));
+        }
+        return values;
+    }
+
+    long storedAtNanos() {
+        return storedAtNanos;
+    }
+
+    Duration ttl() {
+        return ttl;
+    }
+
+    int bodySize() {
+        return body.readableBytes();
+    }
+
+    /**
+     * Вес записи для ограничения размера кэша: тело, заголовки и накладные расходы объекта.
+     */
+    int weight() {
+        int weight = body.capacity() + 128;
+        for (var header : headers.entrySet()) {
+            weight += header.getKey().length();
+            for (String value : header.getValue()) {
+                weight += value.length();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Создает буфер тела для записи в ответ.
+     *
+     * @return буфер или null, если запись уже удалена из кэша и буфер освобожден
+     */
+    DataBuffer bodyFor(DataBufferFactory bufferFactory) {
+        if (!tryRetain()) {
+            return null;
+        }
+        try {
+            if (bufferFactory instanceof NettyDataBufferFactory nettyFactory) {
+                // Без копирования: буфер освободит запись ответа
+                return nettyFactory.wrap(body.retainedDuplicate());
+            }
+            byte[] bytes = new byte[body.readableBytes()];
+            body.getBytes(body.readerIndex(), bytes);
+            return bufferFactory.wrap(bytes);
+        } finally {
+            release();
+        }
+    }
+
+    void release() {
+        if (references.decrementAndGet() == 0) {
+            body.release();
+        }
+    }
+
+    private boolean tryRetain() {
+        int current;
+        do {
+            current = references.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(current, current + 1));
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package org.gualsh.demo.gw.config.gateway.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кэша ответов Gateway.
+ *
+ * <p>ResponseCacheFilter - GlobalFilter: Gateway применяет его ко всем маршрутам без явного
+ * подключения. Отключается через {@code gateway.response-cache.enabled=false}.
+ */
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    /**
+     * Bean глобального фильтра кэширования ответов.
+     *
+     * @param properties настройки gateway.response-cache
+     * @return экземпляр ResponseCacheFilter
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "gateway.response-cache", name = "enabled", matchIfMissing = true)
+    public ResponseCacheFilter responseCacheFilter(ResponseCacheProperties properties) {
+        return new ResponseCacheFilter(properties);
+    }
+}
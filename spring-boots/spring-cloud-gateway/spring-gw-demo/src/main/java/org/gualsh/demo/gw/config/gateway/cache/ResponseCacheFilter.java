@@ -0,0 +1,484 @@
+package org.gualsh.demo.gw.config.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Глобальный фильтр кэширования GET ответов с объединением одновременных промахов.
+ *
+ * <p><strong>Образовательный момент:</strong>
+ * Без кэша каждый GET проксируется к backend, даже если ответ тот же и backend разрешил его
+ * кэшировать. Здесь:
+ * <ul>
+ * <li><b>Ключ</b> - маршрут, метод, путь и query, плюс значения заголовков запроса из Vary ответа
+ * (Vary запоминается по ключу без заголовков)</li>
+ * <li><b>Cache-Control</b> - кэшируются только 200 ответы без no-store/private/no-cache и Set-Cookie;
+ * время жизни - s-maxage, max-age или default-ttl. Запрос с no-store или Authorization идет
+ * мимо кэша, с no-cache/max-age=0 - к backend, а ответ обновляет кэш</li>
+ * <li><b>Хранилище</b> - Caffeine, ограниченный суммарным размером max-size; тело лежит в буфере
+ * из пула Netty и отдается без копирования</li>
+ * <li><b>Объединение запросов</b> - пока первый промах идет к backend, одновременные запросы
+ * того же ключа ждут его ответ (до collapse-timeout), а не создают свои запросы к backend</li>
+ * </ul>
+ *
+ * <p>Фильтр выполняется до фильтров маршрута: попадание в кэш не доходит до rate limiter
+ * и других фильтров маршрута. Ответ отмечается заголовком X-Gateway-Cache: HIT, MISS или COLLAPSED.
+ *
+ * <p><strong>Порядок относительно других фильтров:</strong>
+ * <ul>
+ * <li>Журнал запросов (AccessLogGlobalFilter) выполняется раньше: ответы из кэша тоже попадают в журнал
+ * и получают X-Request-ID</li>
+ * <li>Потоковая модификация тела ответа (StreamingJsonBodyFilters) выполняется раньше: в кэш попадает
+ * исходное тело backend, а обертка с metadata строится для каждого ответа заново</li>
+ * </ul>
+ *
+ * <p><strong>Метрики:</strong>
+ * {@code gateway.response.cache.requests} (тег result: hit, miss, collapsed, bypass),
+ * {@code gateway.response.cache.entries}, {@code gateway.response.cache.size},
+ * {@code gateway.response.cache.evictions}.
+ */
+@Slf4j
+public class ResponseCacheFilter implements GlobalFilter, Ordered, MeterBinder {
+
+    public static final String CACHE_STATUS_HEADER = "X-Gateway-Cache";
+
+    private static final Set<String> NOT_STORED_HEADERS = Set.of(
+        "connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade", "proxy-authenticate",
+        "content-length", CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+
+    private static final int INITIAL_CAPTURE_SIZE = 4096;
+
+    enum Result {
+        HIT, MISS, COLLAPSED, BYPASS
+    }
+
+    private final Cache<String, CachedResponse> cache;
+
+    private final Cache<String, List<String>> varyIndex;
+
+    private final ConcurrentMap<String, Sinks.One<CachedResponse>> pending = new ConcurrentHashMap<>();
+
+    private final int maxEntryBytes;
+
+    private final Duration defaultTtl;
+
+    private final Duration collapseTimeout;
+
+    private final Map<Result, Counter> requestCounters = new ConcurrentHashMap<>();
+
+    private volatile Counter evictionCounter;
+
+    /**
+     * @param properties настройки кэша ответов
+     */
+    public ResponseCacheFilter(ResponseCacheProperties properties) {
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxEntrySize().toBytes());
+        this.defaultTtl = properties.getDefaultTtl();
+        this.collapseTimeout = properties.getCollapseTimeout();
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxSize().toBytes())
+            .weigher((String key, CachedResponse response) -> response.weight())
+            .expireAfter(new TtlExpiry())
+            .removalListener(this::onRemoval)
+            // Буферы освобождаются сразу в потоке, удалившем запись, а не в ForkJoinPool
+            .executor(Runnable::run)
+            .build();
+        this.varyIndex = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Map<String, String> requestDirectives = cacheControl(request.getHeaders());
+        if (request.getMethod() != HttpMethod.GET
+            || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+            || requestDirectives.containsKey("no-store")) {
+            count(Result.BYPASS);
+            return chain.filter(exchange);
+        }
+
+        String baseKey = baseKey(exchange);
+        List<String> varyNames = varyIndex.getIfPresent(baseKey);
+        String key = key(baseKey, varyNames, request.getHeaders());
+
+        if (requestDirectives.containsKey("no-cache") || "0".equals(requestDirectives.get("max-age"))) {
+            count(Result.MISS);
+            return proxy(exchange, chain, baseKey, null);
+        }
+
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null && cached.matches(request.getHeaders())) {
+            Mono<Void> hit = writeCached(exchange, cached, Result.HIT);
+            if (hit != null) {
+                return hit;
+            }
+        }
+
+        Sinks.One<CachedResponse> leader = Sinks.one();
+        Sinks.One<CachedResponse> inFlight = pending.putIfAbsent(key, leader);
+        if (inFlight != null) {
+            return inFlight.asMono()
+                .timeout(collapseTimeout, Mono.empty())
+                .filter(response -> response.matches(request.getHeaders()))
+                .mapNotNull(response -> writeCached(exchange, response, Result.COLLAPSED))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    // Ответ первого запроса не закэширован или не подходит по Vary
+                    count(Result.MISS);
+                    return proxy(exchange, chain, baseKey, null);
+                }))
+                .flatMap(Function.identity());
+        }
+
+        count(Result.MISS);
+        return proxy(exchange, chain, baseKey, leader)
+            .doFinally(signal -> {
+                pending.remove(key, leader);
+                leader.tryEmitEmpty();
+            });
+    }
+
+    @Override
+    public int getOrder() {
+        // Раньше NettyWriteResponseFilter: иначе тело запишется мимо подмененного ответа
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Result result : Result.values()) {
+            requestCounters.put(result, Counter.builder("gateway.response.cache.requests")
+                .description("Запросы через кэш ответов Gateway")
+                .tag("result", result.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+        }
+        evictionCounter = Counter.builder("gateway.response.cache.evictions")
+            .description("Ответы, вытесненные из кэша по размеру")
+            .register(registry);
+        Gauge.builder("gateway.response.cache.entries", cache, Cache::estimatedSize)
+            .description("Ответов в кэше")
+            .register(registry);
+        Gauge.builder("gateway.response.cache.size", this, ResponseCacheFilter::weightedSize)
+            .description("Суммарный размер ответов в кэше")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    /**
+     * Удаляет все ответы из кэша.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    long weightedSize() {
+        return cache.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0))
+            .orElse(0L);
+    }
+
+    private Mono<Void> proxy(ServerWebExchange exchange, GatewayFilterChain chain, String baseKey,
+                             Sinks.One<CachedResponse> leader) {
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        ServerHttpResponse decorated = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                Capture capture = startCapture(getDelegate(), baseKey, requestHeaders, leader);
+                getHeaders().set(CACHE_STATUS_HEADER, Result.MISS.name());
+                if (capture == null) {
+                    return super.writeWith(body);
+                }
+                return super.writeWith(Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(capture::store)
+                    .doOnError(error -> capture.discard())
+                    .doOnCancel(capture::discard));
+            }
+            // writeAndFlushWith (text/event-stream и другие потоковые ответы) не кэшируется
+        };
+        return chain.filter(exchange.mutate().response(decorated).build());
+    }
+
+    private Capture startCapture(ServerHttpResponse response, String baseKey, HttpHeaders requestHeaders,
+                                 Sinks.One<CachedResponse> leader) {
+        HttpHeaders headers = response.getHeaders();
+        HttpStatusCode status = response.getStatusCode() != null ? response.getStatusCode() : HttpStatus.OK;
+        Map<String, String> directives = cacheControl(headers);
+        List<String> vary = varyNames(headers);
+        if (status.value() != HttpStatus.OK.value()
+            || headers.containsKey(HttpHeaders.SET_COOKIE)
+            || vary.contains("*")
+            || directives.containsKey("no-store")
+            || directives.containsKey("private")
+            || directives.containsKey("no-cache")
+            || MediaType.TEXT_EVENT_STREAM.isCompatibleWith(headers.getContentType())
+            || headers.getContentLength() > maxEntryBytes) {
+            return null;
+        }
+        Duration ttl = ttl(directives);
+        if (ttl.isZero() || ttl.isNegative()) {
+            return null;
+        }
+        int initialCapacity = headers.getContentLength() >= 0
+            ? (int) headers.getContentLength() : Math.min(INITIAL_CAPTURE_SIZE, maxEntryBytes);
+        return new Capture(status, headers, baseKey, vary, requestHeaders, ttl, leader, initialCapacity);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached, Result result) {
+        ServerHttpResponse response = exchange.getResponse();
+        DataBuffer body = cached.bodyFor(response.bufferFactory());
+        if (body == null) {
+            // Запись вытеснена между поиском и отдачей
+            return null;
+        }
+        count(result);
+        response.setStatusCode(cached.status());
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.setContentLength(body.readableByteCount());
+        headers.set(HttpHeaders.AGE, String.valueOf(
+            TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cached.storedAtNanos())));
+        headers.set(CACHE_STATUS_HEADER, result.name());
+        return response.writeWith(Mono.just(body));
+    }
+
+    private void onRemoval(String key, CachedResponse response, RemovalCause cause) {
+        if (response != null) {
+            response.release();
+        }
+        Counter counter = evictionCounter;
+        if (cause == RemovalCause.SIZE && counter != null) {
+            counter.increment();
+        }
+    }
+
+    private Duration ttl(Map<String, String> directives) {
+        String maxAge = directives.containsKey("s-maxage") ? directives.get("s-maxage") : directives.get("max-age");
+        if (maxAge == null) {
+            return defaultTtl;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(maxAge));
+        } catch (NumberFormatException e) {
+            return Duration.ZERO;
+        }
+    }
+
+    private void count(Result result) {
+        Counter counter = requestCounters.get(result);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private static String baseKey(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        ServerHttpRequest request = exchange.getRequest();
+        String query = request.getURI().getRawQuery();
+        return (route != null ? route.getId() : "") + ' ' + request.getMethod().name() + ' '
+            + request.getURI().getRawPath() + (query != null ? '?' + query : "");
+    }
+
+    /**
+     * Ключ записи: ключ запроса и значения заголовков из Vary, если ответ их указал.
+     */
+    private static String key(String baseKey, List<String> varyNames, HttpHeaders requestHeaders) {
+        if (varyNames == null || varyNames.isEmpty()) {
+            return baseKey;
+        }
+        return baseKey + '\n' + String.join("\n", CachedResponse.varyValues(varyNames, requestHeaders));
+    }
+
+    /**
+     * Директивы Cache-Control в нижнем регистре; значение без кавычек или пустая строка.
+     */
+    private static Map<String, String> cacheControl(HttpHeaders headers) {
+        List<String> values = headers.get(HttpHeaders.CACHE_CONTROL);
+        if (values == null) {
+            return Map.of();
+        }
+        Map<String, String> directives = new HashMap<>();
+        for (String value : values) {
+            for (String directive : value.split(",")) {
+                int eq = directive.indexOf('=');
+                String name = (eq < 0 ? directive : directive.substring(0, eq)).trim().toLowerCase(Locale.ROOT);
+                String argument = eq < 0 ? "" : directive.substring(eq + 1).trim().replace("\"", "");
+                if (!name.isEmpty()) {
+                    directives.put(name, argument);
+                }
+            }
+        }
+        return directives;
+    }
+
+    private static List<String> varyNames(HttpHeaders headers) {
+        List<String> names = new ArrayList<>();
+        for (String value : headers.getOrEmpty(HttpHeaders.VARY)) {
+            for (String name : value.split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim().toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Копия тела ответа в буфер из пула по мере записи клиенту.
+     */
+    private final class Capture {
+
+        private final HttpStatusCode status;
+
+        private final HttpHeaders responseHeaders;
+
+        private final String baseKey;
+
+        private final List<String> varyNames;
+
+        private final HttpHeaders requestHeaders;
+
+        private final Duration ttl;
+
+        private final Sinks.One<CachedResponse> leader;
+
+        private ByteBuf body;
+
+        private Capture(HttpStatusCode status, HttpHeaders responseHeaders, String baseKey, List<String> varyNames,
+                        HttpHeaders requestHeaders, Duration ttl, Sinks.One<CachedResponse> leader,
+                        int initialCapacity) {
+            this.status = status;
+            this.responseHeaders = responseHeaders;
+            this.baseKey = baseKey;
+            this.varyNames = varyNames;
+            this.requestHeaders = requestHeaders;
+            this.ttl = ttl;
+            this.leader = leader;
+            this.body = PooledByteBufAllocator.DEFAULT.directBuffer(initialCapacity, maxEntryBytes);
+        }
+
+        synchronized void append(DataBuffer chunk) {
+            if (body == null) {
+                return;
+            }
+            if (chunk.readableByteCount() > body.maxWritableBytes()) {
+                // Тело больше max-entry-size: ответ уходит клиенту, но не кэшируется
+                discard();
+                return;
+            }
+            try (DataBuffer.ByteBufferIterator buffers = chunk.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    ByteBuffer buffer = buffers.next();
+                    body.writeBytes(buffer);
+                }
+            }
+        }
+
+        void store() {
+            ByteBuf stored = take();
+            if (stored == null) {
+                return;
+            }
+            // Буфер рос по мере чтения: лишняя емкость не должна занимать место в кэше
+            stored.capacity(stored.readableBytes());
+
+            HttpHeaders headers = new HttpHeaders();
+            responseHeaders.forEach((name, values) -> {
+                if (!NOT_STORED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    headers.addAll(name, values);
+                }
+            });
+            List<String> varyValues = CachedResponse.varyValues(varyNames, requestHeaders);
+            CachedResponse response = new CachedResponse(status, headers, stored, varyNames, varyValues,
+                System.nanoTime(), ttl);
+
+            varyIndex.put(baseKey, varyNames);
+            String key = key(baseKey, varyNames, requestHeaders);
+            cache.put(key, response);
+            log.debug("Response cached: {} ({} bytes, ttl {})", key, response.bodySize(), ttl);
+            if (leader != null) {
+                leader.tryEmitValue(response);
+            }
+        }
+
+        synchronized ByteBuf take() {
+            ByteBuf taken = body;
+            body = null;
+            return taken;
+        }
+
+        void discard() {
+            ByteBuf discarded = take();
+            if (discarded != null) {
+                discarded.release();
+            }
+        }
+    }
+
+    /**
+     * Время жизни записи из Cache-Control ответа; чтение его не продлевает.
+     */
+    private static final class TtlExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return response.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                      long currentDuration) {
+            return response.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.gualsh.demo.gw.config.gateway.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки кэша ответов Gateway ({@code gateway.response-cache}).
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * Включает глобальный фильтр кэширования ответов.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Максимальный суммарный размер кэша: тела ответов и заголовки.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Ответы с телом больше этого размера проксируются без кэширования.
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    /**
+     * Время жизни ответа без max-age/s-maxage в Cache-Control. 0 - такие ответы не кэшируются.
+     */
+    private Duration defaultTtl = Duration.ZERO;
+
+    /**
+     * Сколько одновременные запросы того же ключа ждут ответ первого запроса,
+     * прежде чем пойти к backend самостоятельно.
+     */
+    private Duration collapseTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,31 @@
+package org.gualsh.demo.gw.config.gateway.filter;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки журнала запросов Gateway ({@code gateway.access-log}).
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class AccessLogProperties {
+
+    /**
+     * Доля успешных быстрых запросов, попадающих в журнал: 1.0 - все, 0 - ни одного.
+     * Ошибки (5xx, исключения) и медленные запросы записываются всегда.
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * Запросы дольше этого порога записываются независимо от sample-rate.
+     */
+    private Duration slowThreshold = Duration.ofSeconds(1);
+
+    /**
+     * Префикс сгенерированных X-Request-ID. Если не задан, выбирается случайно при старте,
+     * чтобы идентификаторы разных экземпляров Gateway не пересекались.
+     */
+    private String nodeId;
+}
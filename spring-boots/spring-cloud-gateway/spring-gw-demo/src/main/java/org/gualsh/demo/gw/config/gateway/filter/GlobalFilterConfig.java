@@ -1,6 +1,7 @@
 package org.gualsh.demo.gw.config.gateway.filter;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,11 +13,9 @@ import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
 @Slf4j
 @Configuration
+@EnableConfigurationProperties(AccessLogProperties.class)
 public class GlobalFilterConfig {
     /**
      * Глобальный фильтр для логирования запросов.
@@ -31,59 +30,19 @@ public class GlobalFilterConfig {
      * <li>Сбора метрик</li>
      * </ul>
      * <p>
-     * Order(-1) гарантирует выполнение до других фильтров.
+     * Порядок задает сам фильтр ({@link AccessLogGlobalFilter#ORDER}): Gateway берет порядок глобального
+     * фильтра из {@code Ordered} или {@code @Order} на классе, а {@code @Order} на методе бина не учитывает.
+     * <p>
+     * Фильтр работает в event loop Netty на каждом запросе, поэтому журнал выборочный
+     * (gateway.access-log.sample-rate), а X-Request-ID генерируется счетчиком вместо UUID.
      *
+     * @param properties настройки gateway.access-log
      * @return глобальный фильтр для логирования
+     * @see AccessLogGlobalFilter
      */
     @Bean
-    @Order(-1) // гарантирует выполнение до других фильтров
-    public GlobalFilter loggingGlobalFilter() {
-        // Response
-        // HttpHeaders headersResponse() = exchange.getResponse().getHeaders();
-
-        // Request
-        // HttpHeaders headersRequest = exchange.getRequest().getHeaders();
-
-        return (exchange, chain) -> {
-            String requestId = exchange.getRequest().getHeaders().getFirst("X-Request-ID");
-            if (requestId == null) {
-                requestId = java.util.UUID.randomUUID().toString();
-            }
-
-            // Создаем final переменные для использования в lambda
-            final String finalRequestId = requestId;
-            final String method = exchange.getRequest().getMethod().name();
-            final String path = exchange.getRequest().getPath().value();
-            final String remoteAddress = exchange.getRequest().getRemoteAddress() != null ?
-                exchange.getRequest().getRemoteAddress().getAddress().getHostAddress() : "unknown";
-
-            log.info("Request started: {} {} from {} with ID: {}",
-                method, path, remoteAddress, finalRequestId);
-
-            // Добавляем request ID в заголовки для трассировки
-            ServerWebExchange modifiedExchange = exchange.mutate()
-                .request(exchange.getRequest().mutate()
-                    .header("X-Request-ID", finalRequestId)
-                    .header("X-Gateway-Timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
-                    .build())
-                .build();
-
-            long startTime = System.currentTimeMillis();
-
-            return chain.filter(modifiedExchange)
-                .doOnSuccess(aVoid -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    int statusCode = modifiedExchange.getResponse().getStatusCode() != null ?
-                        modifiedExchange.getResponse().getStatusCode().value() : 200;
-                    log.info("Request completed: {} {} -> {} in {}ms with ID: {}",
-                        method, path, statusCode, duration, finalRequestId);
-                })
-                .doOnError(error -> {
-                    long duration = System.currentTimeMillis() - startTime;
-                    log.error("Request failed: {} {} in {}ms with ID: {} - Error: {}",
-                        method, path, duration, finalRequestId, error.getMessage());
-                });
-        };
+    public GlobalFilter loggingGlobalFilter(AccessLogProperties properties) {
+        return new AccessLogGlobalFilter(properties, new CorrelationIdGenerator(properties.getNodeId()));
     }
 
     /**
@@ -0,0 +1,254 @@
+package org.gualsh.demo.gw.config.gateway.limiter;
+
+import jakarta.validation.constraints.Min;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limiter в памяти процесса с той же семантикой, что у {@link RedisRateLimiter}.
+ *
+ * <p><strong>Образовательный момент:</strong>
+ * RedisRateLimiter на каждый запрос выполняет Lua скрипт в Redis: сетевой round-trip на запрос,
+ * и без Redis маршрут не работает. Для одного экземпляра Gateway (локальная разработка, offline
+ * установка) лимит можно считать в памяти. Цена: у каждого экземпляра свой лимит, при N экземплярах
+ * суммарно пропускается до N × replenishRate.
+ *
+ * <p><strong>Алгоритм (Token Bucket без блокировок):</strong>
+ * <ul>
+ * <li>Состояние ключа - один AtomicLong: "теоретическое время", когда корзина снова станет полной
+ * (GCRA). Пополнение непрерывное: токен каждые 1s / replenishRate</li>
+ * <li>Запрос на requestedTokens сдвигает это время на requestedTokens интервалов; если оно уходит
+ * дальше, чем на burstCapacity интервалов вперед, запрос отклоняется. Обновление - один CAS</li>
+ * <li>Ключи разнесены по {@value #SHARDS} картам. Раз в eviction-interval при обращении к карте
+ * из нее удаляются полные корзины: для них отсутствие ключа и полная корзина неразличимы</li>
+ * </ul>
+ *
+ * <p>Заголовки ответа совпадают с RedisRateLimiter: X-RateLimit-Remaining, X-RateLimit-Replenish-Rate,
+ * X-RateLimit-Burst-Capacity, X-RateLimit-Requested-Tokens. В отличие от RedisRateLimiter,
+ * корзина считается для пары (маршрут, ключ), а не только для ключа.
+ *
+ * <p><strong>Пример использования:</strong>
+ * <pre>{@code
+ * .route("in-memory-rate-limited-service", r -> r
+ *     .path("/rate-limited-local/**")
+ *     .filters(f -> f.requestRateLimiter(config -> config
+ *         .setRateLimiter(inMemoryRateLimiter)
+ *         .setKeyResolver(keyResolver)))
+ *     .uri("https://httpbin.org")
+ * )
+ * }</pre>
+ * В application.yml: {@code rate-limiter: "#{@inMemoryRateLimiter}"} и аргументы
+ * {@code in-memory-rate-limiter.replenishRate}, {@code .burstCapacity}, {@code .requestedTokens}.
+ */
+@Slf4j
+public class InMemoryRateLimiter extends AbstractRateLimiter<InMemoryRateLimiter.Config> {
+
+    /**
+     * Префикс аргументов фильтра RequestRateLimiter в application.yml.
+     */
+    public static final String CONFIGURATION_PROPERTY_NAME = "in-memory-rate-limiter";
+
+    private static final int SHARDS = 16;
+
+    private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final Config defaultConfig;
+
+    private final LongSupplier nanoClock;
+
+    @SuppressWarnings("unchecked")
+    private final Map<String, AtomicLong>[] shards = new Map[SHARDS];
+
+    private final AtomicLong[] lastEviction = new AtomicLong[SHARDS];
+
+    private long evictionIntervalNanos = Duration.ofMinutes(1).toNanos();
+
+    private boolean includeHeaders = true;
+
+    /**
+     * @param replenishRate        токенов в секунду
+     * @param burstCapacity        емкость корзины
+     * @param requestedTokens      стоимость одного запроса в токенах
+     * @param configurationService сервис привязки аргументов маршрутов из application.yml; может быть null
+     */
+    public InMemoryRateLimiter(int replenishRate, int burstCapacity, int requestedTokens,
+                               ConfigurationService configurationService) {
+        this(replenishRate, burstCapacity, requestedTokens, configurationService, System::nanoTime);
+    }
+
+    InMemoryRateLimiter(int replenishRate, int burstCapacity, int requestedTokens,
+                        ConfigurationService configurationService, LongSupplier nanoClock) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.defaultConfig = new Config()
+            .setReplenishRate(replenishRate)
+            .setBurstCapacity(burstCapacity)
+            .setRequestedTokens(requestedTokens);
+        this.nanoClock = nanoClock;
+        long now = nanoClock.getAsLong();
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+            lastEviction[i] = new AtomicLong(now);
+        }
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = loadConfiguration(routeId);
+        return Mono.fromSupplier(() -> tryConsume(routeId + ':' + id, config));
+    }
+
+    /**
+     * Период удаления полных (неактивных) корзин.
+     *
+     * @param evictionInterval период
+     */
+    public void setEvictionInterval(Duration evictionInterval) {
+        this.evictionIntervalNanos = evictionInterval.toNanos();
+    }
+
+    public void setIncludeHeaders(boolean includeHeaders) {
+        this.includeHeaders = includeHeaders;
+    }
+
+    /**
+     * @return число ключей в памяти
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, AtomicLong> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Настройки маршрута, затем настройки из {@code spring.cloud.gateway.default-filters},
+     * затем параметры конструктора.
+     */
+    Config loadConfiguration(String routeId) {
+        Config routeConfig = getConfig().get(routeId);
+        if (routeConfig == null) {
+            routeConfig = getConfig().get(RouteDefinitionRouteLocator.DEFAULT_FILTERS);
+        }
+        return routeConfig != null ? routeConfig : defaultConfig;
+    }
+
+    private Response tryConsume(String key, Config config) {
+        long now = nanoClock.getAsLong();
+        int shardIndex = (key.hashCode() & Integer.MAX_VALUE) % SHARDS;
+        Map<String, AtomicLong> shard = shards[shardIndex];
+        evictIfDue(shardIndex, now);
+
+        long interval = Math.max(1, NANOS_PER_SECOND / config.getReplenishRate());
+        long burst = interval * config.getBurstCapacity();
+        long cost = interval * config.getRequestedTokens();
+        // Новая корзина полная: время полного пополнения уже наступило
+        AtomicLong fullAt = shard.computeIfAbsent(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long current = fullAt.get();
+            long start = current - now > 0 ? current : now;
+            long next = start + cost;
+            if (next - now > burst) {
+                return response(false, (burst - (start - now)) / interval, config);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return response(true, (burst - (next - now)) / interval, config);
+            }
+        }
+    }
+
+    private void evictIfDue(int shardIndex, long now) {
+        long last = lastEviction[shardIndex].get();
+        if (now - last < evictionIntervalNanos || !lastEviction[shardIndex].compareAndSet(last, now)) {
+            return;
+        }
+        // Гонка с параллельным запросом к удаляемой корзине может пропустить не больше одного лишнего запроса
+        int before = shards[shardIndex].size();
+        shards[shardIndex].values().removeIf(fullAt -> now - fullAt.get() >= 0);
+        log.debug("In-memory rate limiter: shard {} evicted {} idle keys", shardIndex,
+            before - shards[shardIndex].size());
+    }
+
+    private Response response(boolean allowed, long tokensLeft, Config config) {
+        if (!includeHeaders) {
+            return new Response(allowed, Map.of());
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put(RedisRateLimiter.REMAINING_HEADER, String.valueOf(tokensLeft));
+        headers.put(RedisRateLimiter.REPLENISH_RATE_HEADER, String.valueOf(config.getReplenishRate()));
+        headers.put(RedisRateLimiter.BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()));
+        headers.put(RedisRateLimiter.REQUESTED_TOKENS_HEADER, String.valueOf(config.getRequestedTokens()));
+        return new Response(allowed, headers);
+    }
+
+    /**
+     * Настройки лимита маршрута, те же, что у {@link RedisRateLimiter.Config}.
+     */
+    @Validated
+    public static class Config {
+
+        /**
+         * Токенов в секунду.
+         */
+        @Min(1)
+        private int replenishRate;
+
+        /**
+         * Емкость корзины: сколько токенов можно потратить разом.
+         */
+        @Min(0)
+        private int burstCapacity = 1;
+
+        /**
+         * Стоимость одного запроса в токенах.
+         */
+        @Min(1)
+        private int requestedTokens = 1;
+
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+
+        public Config setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+            return this;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public Config setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+            return this;
+        }
+
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+
+        public Config setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Config{replenishRate=" + replenishRate + ", burstCapacity=" + burstCapacity
+                + ", requestedTokens=" + requestedTokens + '}';
+        }
+    }
+}
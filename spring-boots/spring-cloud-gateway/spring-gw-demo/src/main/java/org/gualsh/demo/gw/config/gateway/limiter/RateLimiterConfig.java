@@ -1,12 +1,16 @@
 package org.gualsh.demo.gw.config.gateway.limiter;
 
 import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class RateLimiterConfig {
+    // @Primary: автоконфигурация RequestRateLimiterGatewayFilterFactory ожидает один RateLimiter по умолчанию
     @Bean
+    @Primary
     public RedisRateLimiter redisRateLimiter() {
         // Алгоритм работы (Token Bucket)
         //   1. Корзина токенов вмещает максимум 20 токенов
@@ -19,4 +23,15 @@ public class RateLimiterConfig {
             10   // requestedTokens - каждый запрос "стоит" 1 токен
         );
     }
+
+    @Bean
+    public InMemoryRateLimiter inMemoryRateLimiter(ConfigurationService configurationService) {
+        // Тот же Token Bucket, но корзины хранятся в памяти экземпляра Gateway, без Redis
+        return new InMemoryRateLimiter(
+            10, // replenishRate - 10 токенов в секунду
+            20, // burstCapacity - максимум 20 токенов в корзине
+            10, // requestedTokens - каждый запрос "стоит" 10 токенов: 1 запрос в секунду, 2 подряд
+            configurationService
+        );
+    }
 }
@@ -0,0 +1,80 @@
+package org.gualsh.demo.gw.config.gateway.route;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * RoutePredicateHandlerMapping, который проверяет предикаты только маршрутов-кандидатов из {@link RouteIndex}.
+ *
+ * <p>Поведение совпадает со стандартным: кандидаты проверяются в порядке объявления маршрутов,
+ * выбирается первый подходящий, ошибка предиката пропускает маршрут. Индекс строится при первом
+ * запросе и перестраивается после обновления маршрутов (RefreshRoutesResultEvent).
+ */
+@Slf4j
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+    implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private final RouteLocator routeLocator;
+
+    private volatile Mono<RouteIndex> index;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                               GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.index = buildIndex();
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (event.isSuccess()) {
+            index = buildIndex();
+        }
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        return index
+            .flatMapMany(routeIndex -> Flux.fromIterable(routeIndex.candidates(exchange.getRequest())))
+            .concatMap(route -> Mono.just(route)
+                .filterWhen(candidate -> {
+                    exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, candidate.getId());
+                    return candidate.getPredicate().apply(exchange);
+                })
+                .doOnError(error -> log.error("Error applying predicate for route: {}", route.getId(), error))
+                .onErrorResume(error -> Mono.empty()))
+            .next()
+            .map(route -> {
+                log.debug("Route matched: {}", route.getId());
+                validateRoute(route, exchange);
+                return route;
+            });
+    }
+
+    private Mono<RouteIndex> buildIndex() {
+        return routeLocator.getRoutes()
+            .collectList()
+            .map(routes -> {
+                RouteIndex routeIndex = new RouteIndex(routes);
+                log.info("Route index built: {} routes, {} with indexed predicates",
+                    routeIndex.size(), routeIndex.indexedSize());
+                return routeIndex;
+            })
+            // Ошибка загрузки маршрутов не кэшируется: следующий запрос попробует снова
+            .cache(routeIndex -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+}
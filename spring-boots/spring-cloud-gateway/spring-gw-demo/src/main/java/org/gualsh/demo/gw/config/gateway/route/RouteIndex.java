@@ -0,0 +1,263 @@
+package org.gualsh.demo.gw.config.gateway.route;
+
+import org.springframework.cloud.gateway.handler.predicate.HostRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Индекс маршрутов для быстрого отбора кандидатов по пути, Host и HTTP методу.
+ *
+ * <p><strong>Образовательный момент:</strong>
+ * RoutePredicateHandlerMapping проверяет предикаты маршрутов по очереди, пока не найдет первый
+ * подходящий: при сотнях маршрутов каждый запрос проходит сотни предикатов Path. Индекс заранее
+ * разбирает конфигурацию предикатов Path, Host и Method и по запросу возвращает только маршруты,
+ * которые могут подойти:
+ * <ul>
+ * <li>Path - префиксное дерево по литеральным сегментам шаблона до первого сегмента
+ * с переменной или wildcard: {@code /api/v1/{id}/**} регистрируется в узле {@code api/v1}</li>
+ * <li>Host - хэш точных имен хостов; шаблоны с {@code *} и переменными не индексируются</li>
+ * <li>Method - хэш по HTTP методу</li>
+ * </ul>
+ * Каждому узлу и ключу соответствует BitSet с позициями маршрутов, кандидаты получаются
+ * объединением и пересечением BitSet-ов. Полные предикаты кандидатов затем проверяются
+ * в исходном порядке, поэтому индекс только сокращает перебор и не меняет выбор маршрута.
+ *
+ * <p>Индекс консервативен: маршрут без известных предикатов, с {@code or()} или
+ * {@code negate()} в дереве предикатов считается кандидатом для любого запроса.
+ */
+public final class RouteIndex {
+
+    private final List<Route> routes;
+
+    private final Node pathRoot = new Node();
+
+    private final Map<String, BitSet> byHost = new HashMap<>();
+
+    private final BitSet anyHost = new BitSet();
+
+    private final Map<HttpMethod, BitSet> byMethod = new HashMap<>();
+
+    private final BitSet anyMethod = new BitSet();
+
+    private final int indexedRoutes;
+
+    public RouteIndex(List<Route> routes) {
+        this.routes = List.copyOf(routes);
+        int indexed = 0;
+        for (int position = 0; position < this.routes.size(); position++) {
+            Constraints constraints = Constraints.of(this.routes.get(position));
+            if (constraints.indexed()) {
+                indexed++;
+            }
+            indexPath(position, constraints.pathPatterns);
+            indexHost(position, constraints.hosts);
+            indexMethod(position, constraints.methods);
+        }
+        this.indexedRoutes = indexed;
+    }
+
+    /**
+     * Маршруты, которые могут подойти запросу, в исходном порядке.
+     */
+    public List<Route> candidates(ServerHttpRequest request) {
+        // Как PathRoutePredicateFactory: полный путь, включая context path (spring.webflux.base-path)
+        BitSet candidates = pathCandidates(PathContainer.parsePath(request.getURI().getRawPath()));
+        candidates.and(hostCandidates(request.getHeaders()));
+        candidates.and(methodCandidates(request.getMethod()));
+
+        List<Route> result = new ArrayList<>(candidates.cardinality());
+        for (int position = candidates.nextSetBit(0); position >= 0;
+             position = candidates.nextSetBit(position + 1)) {
+            result.add(routes.get(position));
+        }
+        return result;
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * @return число маршрутов, для которых удалось разобрать хотя бы один предикат Path, Host или Method
+     */
+    public int indexedSize() {
+        return indexedRoutes;
+    }
+
+    private BitSet pathCandidates(PathContainer path) {
+        Node node = pathRoot;
+        BitSet candidates = (BitSet) node.routes.clone();
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment) || segment.valueToMatch().isEmpty()) {
+                continue;
+            }
+            node = node.children.get(segment.valueToMatch().toLowerCase(Locale.ROOT));
+            if (node == null) {
+                break;
+            }
+            candidates.or(node.routes);
+        }
+        return candidates;
+    }
+
+    private BitSet hostCandidates(HttpHeaders headers) {
+        String header = headers.getFirst(HttpHeaders.HOST);
+        if (header == null || byHost.isEmpty()) {
+            return anyHost;
+        }
+        BitSet candidates = (BitSet) anyHost.clone();
+        // Host предикат сравнивает заголовок с портом или без порта в зависимости от настройки
+        orInto(candidates, byHost.get(header));
+        InetSocketAddress host = headers.getHost();
+        if (host != null) {
+            orInto(candidates, byHost.get(host.getHostString()));
+        }
+        return candidates;
+    }
+
+    private BitSet methodCandidates(HttpMethod method) {
+        BitSet exact = byMethod.get(method);
+        if (exact == null) {
+            return anyMethod;
+        }
+        BitSet candidates = (BitSet) anyMethod.clone();
+        candidates.or(exact);
+        return candidates;
+    }
+
+    private void indexPath(int position, List<String> patterns) {
+        if (patterns == null) {
+            pathRoot.routes.set(position);
+            return;
+        }
+        for (String pattern : patterns) {
+            Node node = pathRoot;
+            for (String segment : pattern.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (!isLiteral(segment)) {
+                    break;
+                }
+                node = node.children.computeIfAbsent(segment.toLowerCase(Locale.ROOT), key -> new Node());
+            }
+            node.routes.set(position);
+        }
+    }
+
+    private void indexHost(int position, List<String> hosts) {
+        if (hosts == null || !hosts.stream().allMatch(RouteIndex::isExactHost)) {
+            anyHost.set(position);
+            return;
+        }
+        for (String host : hosts) {
+            byHost.computeIfAbsent(host, key -> new BitSet()).set(position);
+        }
+    }
+
+    private void indexMethod(int position, HttpMethod[] methods) {
+        if (methods == null || methods.length == 0) {
+            anyMethod.set(position);
+            return;
+        }
+        for (HttpMethod method : methods) {
+            byMethod.computeIfAbsent(method, key -> new BitSet()).set(position);
+        }
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}' || c == '%' || c == '\\' || c == ';') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isExactHost(String pattern) {
+        return !pattern.isEmpty()
+            && pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0 && pattern.indexOf('{') < 0
+            && !pattern.startsWith(".") && !pattern.endsWith(".") && !pattern.contains("..");
+    }
+
+    private static void orInto(BitSet target, BitSet source) {
+        if (source != null) {
+            target.or(source);
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private final BitSet routes = new BitSet();
+    }
+
+    /**
+     * Ограничения маршрута, извлеченные из конфигурации его предикатов; null - ограничения нет.
+     */
+    private static final class Constraints {
+
+        private static final String METHODS_PREFIX = "Methods: [";
+
+        private List<String> pathPatterns;
+
+        private List<String> hosts;
+
+        private HttpMethod[] methods;
+
+        static Constraints of(Route route) {
+            Constraints constraints = new Constraints();
+            // Visitor обходит только листья дерева предикатов и не различает and/or/negate,
+            // поэтому маршруты с or() и negate() не индексируются (их toString: "(a || b)", "!a", "!(a)")
+            String description = String.valueOf(route.getPredicate());
+            if (description.contains("||") || description.contains("!")) {
+                return constraints;
+            }
+            route.getPredicate().accept(predicate -> {
+                Object config = predicate.getConfig();
+                if (config instanceof PathRoutePredicateFactory.Config path && constraints.pathPatterns == null
+                    && path.getPatterns() != null && !path.getPatterns().isEmpty()) {
+                    constraints.pathPatterns = List.copyOf(path.getPatterns());
+                } else if (config instanceof HostRoutePredicateFactory.Config host && constraints.hosts == null
+                    && host.getPatterns() != null && !host.getPatterns().isEmpty()) {
+                    constraints.hosts = List.copyOf(host.getPatterns());
+                } else if (config == null && constraints.methods == null) {
+                    // Предикат Method не отдает конфигурацию, но описывает ее в toString: "Methods: [GET, POST]"
+                    constraints.methods = parseMethods(predicate.toString());
+                }
+            });
+            return constraints;
+        }
+
+        private static HttpMethod[] parseMethods(String description) {
+            if (description == null || !description.startsWith(METHODS_PREFIX) || !description.endsWith("]")) {
+                return null;
+            }
+            String list = description.substring(METHODS_PREFIX.length(), description.length() - 1);
+            return Arrays.stream(list.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .map(HttpMethod::valueOf)
+                .toArray(HttpMethod[]::new);
+        }
+
+        boolean indexed() {
+            return pathPatterns != null || hosts != null || methods != null;
+        }
+    }
+}
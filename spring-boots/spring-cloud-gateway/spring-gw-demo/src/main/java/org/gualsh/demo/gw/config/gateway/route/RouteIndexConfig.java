@@ -0,0 +1,38 @@
+package org.gualsh.demo.gw.config.gateway.route;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Конфигурация индексированного поиска маршрутов.
+ *
+ * <p>GatewayAutoConfiguration создает RoutePredicateHandlerMapping с {@code @ConditionalOnMissingBean},
+ * поэтому bean этого типа заменяет стандартный перебор маршрутов. Отключается через
+ * {@code gateway.route-index.enabled=false}.
+ */
+@Configuration
+public class RouteIndexConfig {
+
+    /**
+     * Bean поиска маршрута по индексу.
+     *
+     * @param webHandler обработчик цепочки фильтров Gateway
+     * @param routeLocator кэширующий RouteLocator со всеми маршрутами (yml и программными)
+     * @param globalCorsProperties настройки spring.cloud.gateway.globalcors
+     * @param environment окружение для настроек management порта
+     * @return экземпляр IndexedRoutePredicateHandlerMapping
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "gateway.route-index", name = "enabled", matchIfMissing = true)
+    public IndexedRoutePredicateHandlerMapping routePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                                                           RouteLocator routeLocator,
+                                                                           GlobalCorsProperties globalCorsProperties,
+                                                                           Environment environment) {
+        return new IndexedRoutePredicateHandlerMapping(webHandler, routeLocator, globalCorsProperties, environment);
+    }
+}
@@ -1,8 +1,9 @@
 package org.gualsh.demo.gw.config.gateway.route;
 
 import lombok.extern.slf4j.Slf4j;
-import org.gualsh.demo.gw.config.gateway.body.factory.RequestBodyModifier;
-import org.gualsh.demo.gw.config.gateway.body.factory.ResponseBodyModifier;
+import org.gualsh.demo.gw.config.gateway.balancer.LatencyAwareLoadBalancerFilter;
+import org.gualsh.demo.gw.config.gateway.body.stream.StreamingJsonBodyFilters;
+import org.gualsh.demo.gw.config.gateway.limiter.InMemoryRateLimiter;
 import org.gualsh.demo.gw.config.gateway.retry.RetryLogger;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
@@ -14,7 +15,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
@@ -30,11 +30,12 @@ public class RouteLocatorConfig {
     @Bean
     public RouteLocator customRouteLocator(
         RouteLocatorBuilder builder,
-        RequestBodyModifier requestBodyModifier,
-        ResponseBodyModifier responseBodyModifier,
+        StreamingJsonBodyFilters streamingJsonBodyFilters,
         @Qualifier("requestInfoFilter") GatewayFilter requestInfoFilter,
         @Qualifier("authenticationFilter") GatewayFilter authenticationFilter,
         RedisRateLimiter redisRateLimiter,
+        InMemoryRateLimiter inMemoryRateLimiter,
+        LatencyAwareLoadBalancerFilter latencyAwareLoadBalancerFilter,
         RetryLogger retryLogger
     ) {
         // В Spring Cloud Gateway маршруты обрабатываются В ТОМ ПОРЯДКЕ, В КОТОРОМ ОНИ ОПРЕДЕЛЕНЫ.
@@ -65,24 +66,12 @@ public class RouteLocatorConfig {
             )
 
             // Маршрут с модификацией тела запроса (ПРОГРАММНАЯ НАСТРОЙКА)
+            // Тело не собирается в String: JSON токены переписываются по мере поступления буферов
             .route("modify-request-route", r -> r
                 .path("/modify-request/**")
                 .filters(f -> f
                     .stripPrefix(1)
-                    .modifyRequestBody(String.class, String.class,
-                        (exchange, body) -> {
-                            if (body == null || body.trim().isEmpty()) {
-                                body = "{}";
-                            }
-                            String modifiedBody = "{\n" +
-                                "  \"originalRequest\": " + body + ",\n" +
-                                "  \"metadata\": {\n" +
-                                "    \"modifiedBy\": \"Gateway\",\n" +
-                                "    \"timestamp\": \"" + java.time.LocalDateTime.now() + "\"\n" +
-                                "  }\n" +
-                                "}";
-                            return Mono.just(modifiedBody);
-                        })
+                    .filter(streamingJsonBodyFilters.requestFilter("Gateway"))
                 )
                 .uri("https://httpbin.org")
             )
@@ -92,37 +81,18 @@ public class RouteLocatorConfig {
                 .path("/modify-response/**")
                 .filters(f -> f
                     .stripPrefix(1)
-                    .modifyResponseBody(String.class, String.class,
-                        (exchange, body) -> {
-                            if (body == null || body.trim().isEmpty()) {
-                                body = "{}";
-                            }
-                            String modifiedBody = "{\n" +
-                                "  \"success\": true,\n" +
-                                "  \"data\": " + body + ",\n" +
-                                "  \"metadata\": {\n" +
-                                "    \"processedBy\": \"Gateway\",\n" +
-                                "    \"timestamp\": \"" + java.time.LocalDateTime.now() + "\"\n" +
-                                "  }\n" +
-                                "}";
-                            return Mono.just(modifiedBody);
-                        })
+                    .filter(streamingJsonBodyFilters.responseFilter("Gateway"))
                 )
                 .uri("https://httpbin.org")
             )
 
-            // Маршрут с кастомной логикой балансировки
+            // Маршрут с балансировкой по задержке и нагрузке backend (gateway.load-balancer)
             .route("load-balanced-route", r -> r
                 .path("/balanced/**")
                 .filters(f -> f
                     .stripPrefix(1)
-                    .filter((exchange, chain) -> {
-                            // Кастомная логика выбора backend
-                            String backend = selectBackend(exchange);
-                            exchange.getAttributes().put("backend", backend);
-                            return chain.filter(exchange);
-                        }
-                    )
+                    // Выбранный backend передается в заголовке X-Selected-Backend
+                    .filter(latencyAwareLoadBalancerFilter)
                     .filter((exchange, chain) -> {
                         // Кастомная логика ДО отправки запроса
                         ServerHttpRequest request = exchange.getRequest().mutate()
@@ -136,10 +106,8 @@ public class RouteLocatorConfig {
                             });
                     })
                     //.filter(customFilterBean) // Использование готового бина
-
-                    .addRequestHeader("X-Selected-Backend", "#{exchange.attributes['backend']}")
                 )
-                .uri("https://httpbin.org")
+                .uri("https://httpbin.org") // заменяется адресом выбранного backend
             )
 
             // Маршрут с трансформацией данных
@@ -147,10 +115,10 @@ public class RouteLocatorConfig {
                 .path("/transform/**")
                 .filters(f -> f
                         .stripPrefix(1)
-                        .modifyRequestBody(String.class, String.class, requestBodyModifier)
-                        // или напрямую .modifyRequestBody(String.class, String.class, new RequestBodyModifier())
-                        .modifyResponseBody(String.class, String.class, responseBodyModifier)
-                    // или напрямую .modifyResponseBody(String.class, String.class, new ResponseBodyModifier())
+                        .filter(streamingJsonBodyFilters.requestFilter("transform-route"))
+                        // для небольших тел можно .modifyRequestBody(String.class, String.class, new RequestBodyModifier())
+                        .filter(streamingJsonBodyFilters.responseFilter("transform-route"))
+                    // для небольших тел можно .modifyResponseBody(String.class, String.class, new ResponseBodyModifier())
                 )
                 .uri("https://httpbin.org")
             )
@@ -207,6 +175,24 @@ public class RouteLocatorConfig {
                 .uri("https://httpbin.org")
             )
 
+            // Тот же лимит без Redis: корзины в памяти этого экземпляра Gateway
+            .route("in-memory-rate-limited-service", r -> r
+                .path("/rate-limited-local/**")
+                .filters(f -> f
+                    .requestRateLimiter(config -> config
+                        .setRateLimiter(inMemoryRateLimiter)
+                        .setKeyResolver(exchange ->
+                            Mono.just(exchange.getRequest()
+                                .getRemoteAddress()
+                                .getAddress()
+                                .getHostAddress())
+                        )
+                    )
+                    .stripPrefix(1)
+                )
+                .uri("https://httpbin.org")
+            )
+
             // Маршрут с Circuit Breaker
             // Состояния Circuit Breaker'а
             // CLOSED
@@ -335,24 +321,4 @@ public class RouteLocatorConfig {
 
             .build();
     }
-
-    /**
-     * Кастомная логика выбора backend сервера.
-     *
-     * <p><strong>Этот метод демонстрирует как можно реализовать кастомную логику
-     * балансировки нагрузки на основе различных факторов.</strong>
-     *
-     * @param exchange текущий обмен запросом
-     * @return выбранный backend
-     */
-    private String selectBackend(ServerWebExchange exchange) {
-        // Простая логика выбора backend на основе user-agent
-        String userAgent = exchange.getRequest().getHeaders().getFirst("User-Agent");
-        if (userAgent != null && userAgent.contains("Mobile")) {
-            return "mobile-backend";
-        } else if (userAgent != null && userAgent.contains("Bot")) {
-            return "bot-backend";
-        }
-        return "default-backend";
-    }
 }
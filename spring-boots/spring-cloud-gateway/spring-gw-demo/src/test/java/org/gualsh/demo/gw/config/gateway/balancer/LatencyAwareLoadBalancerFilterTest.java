@@ -0,0 +1,103 @@
+package org.gualsh.demo.gw.config.gateway.balancer;
+
+import org.gualsh.demo.gw.config.gateway.balancer.LoadBalancerProperties.BackendProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+/**
+ * Тесты для {@link LatencyAwareLoadBalancerFilter}.
+ */
+@DisplayName("LatencyAwareLoadBalancerFilter Tests")
+class LatencyAwareLoadBalancerFilterTest {
+
+    private final LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer(properties());
+
+    private final LatencyAwareLoadBalancerFilter filter = new LatencyAwareLoadBalancerFilter(balancer);
+
+    private final Backend backend = balancer.getBackends().get(0);
+
+    @Test
+    @DisplayName("Должен заменять адрес запроса на backend, сохраняя путь и параметры")
+    void shouldRewriteRequestUrl() {
+        // Arrange
+        MockServerWebExchange exchange = exchange();
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+        // Act
+        filter.filter(exchange, next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        }).block();
+
+        // Assert
+        assertThat((URI) exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR))
+            .isEqualTo(URI.create("http://backend.local:9090/get?name=%D1%82%D0%B5%D1%81%D1%82"));
+        assertThat(forwarded.get().getRequest().getHeaders().getFirst("X-Selected-Backend")).isEqualTo("backend");
+        assertThat(backend.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен считать 5xx и ошибки соединения ошибками backend")
+    void shouldCountFailures() {
+        // Act
+        for (int i = 0; i < 2; i++) {
+            MockServerWebExchange exchange = exchange();
+            filter.filter(exchange, next -> {
+                next.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                return Mono.empty();
+            }).block();
+        }
+        assertThatThrownBy(() -> filter.filter(exchange(), next -> Mono.error(new IllegalStateException("connect")))
+            .block()).isInstanceOf(IllegalStateException.class);
+
+        // Assert: третья ошибка подряд исключает backend
+        assertThat(backend.ejectedGauge()).isEqualTo(1);
+        assertThat(backend.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен пропускать запрос без URL маршрута")
+    void shouldSkipWithoutRequestUrl() {
+        // Arrange
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/get"));
+
+        // Act
+        filter.filter(exchange, next -> Mono.empty()).block();
+
+        // Assert
+        assertThat(exchange.<URI>getAttribute(GATEWAY_REQUEST_URL_ATTR)).isNull();
+        assertThat(backend.getInFlight()).isZero();
+    }
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/balanced/get"));
+        // Как после RouteToRequestUrlFilter и stripPrefix(1)
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR,
+            URI.create("https://httpbin.org/get?name=%D1%82%D0%B5%D1%81%D1%82"));
+        return exchange;
+    }
+
+    private static LoadBalancerProperties properties() {
+        BackendProperties backend = new BackendProperties();
+        backend.setId("backend");
+        backend.setUri(URI.create("http://backend.local:9090"));
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setBackends(List.of(backend));
+        properties.setConsecutiveFailures(3);
+        properties.setMaxEjectionPercent(100);
+        return properties;
+    }
+}
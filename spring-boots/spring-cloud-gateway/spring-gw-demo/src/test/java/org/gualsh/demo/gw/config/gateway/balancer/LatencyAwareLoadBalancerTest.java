@@ -0,0 +1,181 @@
+package org.gualsh.demo.gw.config.gateway.balancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gualsh.demo.gw.config.gateway.balancer.LoadBalancerProperties.BackendProperties;
+import org.gualsh.demo.gw.config.gateway.balancer.LoadBalancerProperties.Strategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link LatencyAwareLoadBalancer}.
+ */
+@DisplayName("LatencyAwareLoadBalancer Tests")
+class LatencyAwareLoadBalancerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    @DisplayName("Должен направлять большую часть трафика на backend с меньшей задержкой")
+    void shouldPreferFasterBackend() {
+        // Arrange
+        LatencyAwareLoadBalancer balancer = balancer(Strategy.POWER_OF_TWO_CHOICES, backend("fast", 1),
+            backend("slow", 1), backend("medium", 1));
+        Map<String, Duration> latency = Map.of("fast", Duration.ofMillis(10), "slow", Duration.ofMillis(500),
+            "medium", Duration.ofMillis(100));
+
+        // Act
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3_000; i++) {
+            Backend backend = balancer.choose();
+            long start = balancer.now();
+            clock.addAndGet(latency.get(backend.getId()).toNanos());
+            balancer.complete(backend, start, true);
+            counts.merge(backend.getId(), 1, Integer::sum);
+        }
+
+        // Assert
+        assertThat(counts.get("fast")).isGreaterThan(1_800);
+        assertThat(counts.getOrDefault("slow", 0)).isLessThan(counts.get("medium"));
+    }
+
+    @Test
+    @DisplayName("Должен распределять трафик по весам при равной нагрузке")
+    void shouldHonorWeights() {
+        // Arrange
+        LatencyAwareLoadBalancer balancer = balancer(Strategy.LEAST_OUTSTANDING_REQUESTS, backend("heavy", 3),
+            backend("light", 1));
+        List<Backend> inFlight = new ArrayList<>();
+
+        // Act: 40 запросов в работе одновременно
+        for (int i = 0; i < 40; i++) {
+            inFlight.add(balancer.choose());
+        }
+
+        // Assert
+        assertThat(inFlight.stream().filter(b -> b.getId().equals("heavy")).count()).isBetween(29L, 31L);
+        assertThat(inFlight.stream().filter(b -> b.getId().equals("light")).count()).isBetween(9L, 11L);
+    }
+
+    @Test
+    @DisplayName("Должен учитывать запросы в работе и освобождать их при завершении и отмене")
+    void shouldTrackInFlightRequests() {
+        // Arrange
+        LatencyAwareLoadBalancer balancer = balancer(Strategy.POWER_OF_TWO_CHOICES, backend("a", 1),
+            backend("b", 1));
+
+        // Act
+        Backend first = balancer.choose();
+        Backend second = balancer.choose();
+
+        // Assert: при равной задержке второй запрос уходит на свободный backend
+        assertThat(second).isNotSameAs(first);
+        balancer.complete(first, balancer.now(), true);
+        balancer.cancel(second);
+        assertThat(balancer.getBackends()).allMatch(backend -> backend.getInFlight() == 0);
+    }
+
+    @Test
+    @DisplayName("Должен исключать backend после ошибок подряд и возвращать после ejection-time")
+    void shouldEjectAndRestoreFailingBackend() {
+        // Arrange
+        LatencyAwareLoadBalancer balancer = balancer(Strategy.POWER_OF_TWO_CHOICES, backend("ok", 1),
+            backend("broken", 1));
+        Backend broken = balancer.getBackends().get(1);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            broken.start();
+            balancer.complete(broken, balancer.now(), false);
+        }
+
+        // Assert
+        for (int i = 0; i < 100; i++) {
+            Backend chosen = balancer.choose();
+            assertThat(chosen.getId()).isEqualTo("ok");
+            balancer.cancel(chosen);
+        }
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertThat(IntStream.range(0, 100)
+            .mapToObj(i -> {
+                Backend chosen = balancer.choose();
+                balancer.cancel(chosen);
+                return chosen.getId();
+            }))
+            .contains("broken");
+    }
+
+    @Test
+    @DisplayName("Не должен исключать больше max-ejection-percent backend")
+    void shouldLimitEjectedBackends() {
+        // Arrange
+        LatencyAwareLoadBalancer balancer = balancer(Strategy.POWER_OF_TWO_CHOICES, backend("a", 1),
+            backend("b", 1));
+
+        // Act: ошибки на обоих backend
+        for (Backend backend : balancer.getBackends()) {
+            for (int i = 0; i < 5; i++) {
+                backend.start();
+                balancer.complete(backend, balancer.now(), false);
+            }
+        }
+
+        // Assert
+        assertThat(balancer.getBackends().stream().filter(backend -> backend.isEjected(clock.get())).count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен публиковать метрики по каждому backend")
+    void shouldExposeMetrics() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LatencyAwareLoadBalancer balancer = balancer(Strategy.POWER_OF_TWO_CHOICES, backend("a", 1),
+            backend("b", 1));
+        balancer.bindTo(registry);
+        Backend backend = balancer.getBackends().get(0);
+
+        // Act
+        backend.start();
+        long start = balancer.now();
+        clock.addAndGet(Duration.ofMillis(40).toNanos());
+        balancer.complete(backend, start, true);
+        backend.start();
+
+        // Assert
+        assertThat(registry.get("gateway.backend.requests").tags("backend", "a", "outcome", "SUCCESS").timer()
+            .count()).isEqualTo(1);
+        assertThat(registry.get("gateway.backend.requests.active").tag("backend", "a").gauge().value())
+            .isEqualTo(1);
+        assertThat(registry.get("gateway.backend.latency.ewma").tag("backend", "a").timeGauge()
+            .value(TimeUnit.MILLISECONDS)).isEqualTo(40);
+        assertThat(registry.get("gateway.backend.ejected").tag("backend", "b").gauge().value()).isZero();
+        assertThat(registry.get("gateway.backend.ejections").tag("backend", "b").counter().count()).isZero();
+    }
+
+    private LatencyAwareLoadBalancer balancer(Strategy strategy, BackendProperties... backends) {
+        LoadBalancerProperties properties = new LoadBalancerProperties();
+        properties.setStrategy(strategy);
+        properties.setBackends(List.of(backends));
+        return new LatencyAwareLoadBalancer(properties, clock::get);
+    }
+
+    private static BackendProperties backend(String id, int weight) {
+        BackendProperties backend = new BackendProperties();
+        backend.setId(id);
+        backend.setUri(URI.create("http://" + id + ".local:8080"));
+        backend.setWeight(weight);
+        return backend;
+    }
+}
@@ -0,0 +1,154 @@
+package org.gualsh.demo.gw.config.gateway.body.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение модификации тела через String (как в RequestBodyModifier/ResponseBodyModifier)
+ * с {@link StreamingJsonBodyTransformer} на телах 1 KB, 1 MB и 50 MB.
+ *
+ * <p>Тело приходит буферами по 8 KB из пула Netty, как от сервера. Для каждого варианта печатаются
+ * среднее время и выделенная память на одно тело (ThreadMXBean, вся обработка в вызывающем потоке).
+ * String вариант собирает тело, декодирует его, конкатенирует и снова кодирует: несколько копий
+ * размером с тело. Потоковый вариант выделяет память пропорционально размеру буфера
+ * (50 MB: ~620 MB против ~3 MB на тело), но тратит больше CPU на разбор токенов.
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=StreamingJsonBodyBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Streaming JSON body benchmark")
+class StreamingJsonBodyBenchmarkTest {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+    private final StreamingJsonBodyTransformer transformer =
+        new StreamingJsonBodyTransformer(new ObjectMapper(), DataSize.ofMegabytes(1), List.of("password"));
+
+    private final JsonEnvelope envelope = new JsonEnvelope("data", Map.of("success", true),
+        Map.of("metadata", Map.of("processedBy", "benchmark")));
+
+    @Test
+    @DisplayName("Время и выделенная память: String конкатенация vs потоковый парсер")
+    void compareBodyRewrite() {
+        System.out.printf("%-8s %-10s %12s %16s %14s%n", "body", "variant", "avg ms", "allocated/body", "output bytes");
+
+        for (DataSize size : List.of(DataSize.ofKilobytes(1), DataSize.ofMegabytes(1), DataSize.ofMegabytes(50))) {
+            byte[] body = json(size);
+            int iterations = (int) Math.max(3, Math.min(2_000, DataSize.ofMegabytes(200).toBytes() / body.length));
+
+            // Прогрев: загрузка классов, JIT
+            measure(body, Math.min(iterations, 200), this::concat);
+            measure(body, Math.min(iterations, 200), chunks -> transformer.transform(chunks, bufferFactory, envelope));
+
+            Result concat = measure(body, iterations, this::concat);
+            Result streaming = measure(body, iterations,
+                chunks -> transformer.transform(chunks, bufferFactory, envelope));
+            print(size, "concat", concat);
+            print(size, "streaming", streaming);
+
+            if (size.toMegabytes() >= 1) {
+                assertThat(streaming.allocatedBytes()).isLessThan(concat.allocatedBytes());
+            }
+        }
+    }
+
+    /**
+     * Прежний подход: тело целиком в String, результат конкатенацией.
+     */
+    private Flux<DataBuffer> concat(Flux<DataBuffer> chunks) {
+        return DataBufferUtils.join(chunks)
+            .map(joined -> {
+                String body = joined.toString(StandardCharsets.UTF_8);
+                DataBufferUtils.release(joined);
+                String modifiedBody = "{\n" +
+                    "  \"success\": true,\n" +
+                    "  \"data\": " + body + ",\n" +
+                    "  \"metadata\": {\n" +
+                    "    \"processedBy\": \"benchmark\",\n" +
+                    "    \"timestamp\": \"" + LocalDateTime.now() + "\"\n" +
+                    "  }\n" +
+                    "}";
+                return bufferFactory.wrap(modifiedBody.getBytes(StandardCharsets.UTF_8));
+            })
+            .flux();
+    }
+
+    private Result measure(byte[] body, int iterations, Function<Flux<DataBuffer>, Flux<DataBuffer>> rewrite) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long outputBytes = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++) {
+            Long written = rewrite.apply(chunks(body))
+                .reduce(0L, (total, buffer) -> {
+                    long readable = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return total + readable;
+                })
+                .block();
+            outputBytes = written != null ? written : 0;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Result(Duration.ofNanos(elapsed / iterations), allocated / iterations, outputBytes);
+    }
+
+    private Flux<DataBuffer> chunks(byte[] body) {
+        return Flux.range(0, (body.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+            .map(i -> {
+                int offset = i * CHUNK_SIZE;
+                DataBuffer buffer = bufferFactory.allocateBuffer(CHUNK_SIZE);
+                buffer.write(body, offset, Math.min(CHUNK_SIZE, body.length - offset));
+                return buffer;
+            });
+    }
+
+    private static byte[] json(DataSize size) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; json.length() < size.toBytes(); i++) {
+            json.append(i == 0 ? "" : ",")
+                .append("{\"id\":").append(i)
+                .append(",\"name\":\"Товар ").append(i)
+                .append("\",\"price\":").append(i % 1000).append(".99")
+                .append(",\"password\":\"p").append(i).append("\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void print(DataSize size, String variant, Result result) {
+        System.out.printf("%-8s %-10s %12.3f %16s %14d%n", size, variant, result.avg().toNanos() / 1e6,
+            humanReadable(result.allocatedBytes()), result.outputBytes());
+    }
+
+    private static String humanReadable(long bytes) {
+        return bytes >= 1 << 20 ? String.format("%.1f MB", bytes / (double) (1 << 20))
+            : String.format("%.1f KB", bytes / 1024.0);
+    }
+
+    private record Result(Duration avg, long allocatedBytes, long outputBytes) {
+    }
+}
@@ -0,0 +1,86 @@
+package org.gualsh.demo.gw.config.gateway.body.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gualsh.demo.gw.config.gateway.body.BodyModifierConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link StreamingJsonBodyFilters}, созданных как в {@link BodyModifierConfig}.
+ */
+@DisplayName("StreamingJsonBodyFilters Tests")
+class StreamingJsonBodyFiltersTest {
+
+    private static final String BODY = "{\"login\":\"admin\",\"password\":\"s3cr3t\",\"nested\":{\"secret\":\"k\"}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final StreamingJsonBodyFilters filters = new BodyModifierConfig()
+        .streamingJsonBodyFilters(objectMapper, properties());
+
+    @Test
+    @DisplayName("Должен передавать в backend тело запроса без маскирования полей")
+    void shouldNotMaskRequestBody() throws Exception {
+        // Arrange
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(BODY));
+        AtomicReference<String> upstreamBody = new AtomicReference<>();
+        GatewayFilterChain upstream = filtered -> DataBufferUtils.join(filtered.getRequest().getBody())
+            .map(buffer -> {
+                upstreamBody.set(buffer.toString(StandardCharsets.UTF_8));
+                DataBufferUtils.release(buffer);
+                return buffer;
+            })
+            .then();
+
+        // Act
+        filters.requestFilter("test").filter(exchange, upstream).block();
+
+        // Assert
+        JsonNode result = objectMapper.readTree(upstreamBody.get());
+        assertThat(result.get("originalRequest")).isEqualTo(objectMapper.readTree(BODY));
+        assertThat(result.get("metadata").get("modifiedBy").asText()).isEqualTo("test");
+    }
+
+    @Test
+    @DisplayName("Должен маскировать поля в теле ответа")
+    void shouldMaskResponseBody() throws Exception {
+        // Arrange
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/profile"));
+        GatewayFilterChain upstream = filtered -> {
+            filtered.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return filtered.getResponse().writeWith(Mono.just(
+                DefaultDataBufferFactory.sharedInstance.wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+        };
+
+        // Act
+        filters.responseFilter("test").filter(exchange, upstream).block();
+
+        // Assert
+        JsonNode data = objectMapper.readTree(exchange.getResponse().getBodyAsString().block()).get("data");
+        assertThat(data.get("login").asText()).isEqualTo("admin");
+        assertThat(data.get("password").asText()).isEqualTo("***");
+        assertThat(data.get("nested").get("secret").asText()).isEqualTo("***");
+    }
+
+    private static StreamingBodyProperties properties() {
+        StreamingBodyProperties properties = new StreamingBodyProperties();
+        properties.setMaskedFields(List.of("password", "secret"));
+        return properties;
+    }
+}
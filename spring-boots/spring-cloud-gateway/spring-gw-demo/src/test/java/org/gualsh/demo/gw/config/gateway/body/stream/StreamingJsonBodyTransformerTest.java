@@ -0,0 +1,160 @@
+package org.gualsh.demo.gw.config.gateway.body.stream;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты для {@link StreamingJsonBodyTransformer}.
+ */
+@DisplayName("StreamingJsonBodyTransformer Tests")
+class StreamingJsonBodyTransformerTest {
+
+    // BigDecimal при чтении результата, чтобы проверить точность чисел
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(new UnpooledByteBufAllocator(true));
+
+    private final StreamingJsonBodyTransformer transformer =
+        new StreamingJsonBodyTransformer(objectMapper, DataSize.ofBytes(64), List.of("password"));
+
+    private final List<DataBuffer> inputBuffers = new ArrayList<>();
+
+    private final JsonEnvelope envelope = envelope();
+
+    @Test
+    @DisplayName("Должен оборачивать тело, разрезанное на буферы посреди токенов и UTF-8 символов")
+    void shouldWrapBodySplitAcrossBuffers() throws Exception {
+        // Arrange
+        String body = "{\"name\":\"Привет, мир\",\"price\":12.3456789012345678901,\"tags\":[1,true,null]}";
+
+        // Act
+        JsonNode result = objectMapper.readTree(transform(body, 3));
+
+        // Assert
+        assertThat(result.get("success").asBoolean()).isTrue();
+        assertThat(result.get("data")).isEqualTo(objectMapper.readTree(body));
+        assertThat(result.get("data").get("price").decimalValue().toPlainString()).isEqualTo("12.3456789012345678901");
+        assertThat(result.get("metadata").get("processedBy").asText()).isEqualTo("test");
+        assertInputReleased();
+    }
+
+    @Test
+    @DisplayName("Должен маскировать значения полей на любом уровне вложенности")
+    void shouldMaskConfiguredFields() throws Exception {
+        // Arrange
+        String body = "{\"user\":{\"login\":\"admin\",\"password\":\"secret\"},\"password\":{\"hash\":[1,2]},"
+            + "\"after\":1}";
+
+        // Act
+        JsonNode data = objectMapper.readTree(transform(body, 5)).get("data");
+
+        // Assert
+        assertThat(data.get("user").get("login").asText()).isEqualTo("admin");
+        assertThat(data.get("user").get("password").asText()).isEqualTo("***");
+        assertThat(data.get("password").asText()).isEqualTo("***");
+        assertThat(data.get("after").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен заменять пустое тело на пустой объект")
+    void shouldReplaceEmptyBodyWithEmptyObject() throws Exception {
+        // Act
+        JsonNode result = objectMapper.readTree(transform("  ", 1));
+
+        // Assert
+        assertThat(result.get("data").isObject()).isTrue();
+        assertThat(result.get("data").size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен завершаться DecodingException для некорректного и неполного JSON")
+    void shouldFailOnInvalidJson() {
+        // Act & Assert
+        assertThatThrownBy(() -> transform("{\"a\":}", 2)).isInstanceOf(DecodingException.class);
+        assertThatThrownBy(() -> transform("{\"a\":1", 2)).isInstanceOf(DecodingException.class);
+        assertThatThrownBy(() -> transform("{\"a\":1} {\"b\":2}", 2)).isInstanceOf(DecodingException.class);
+        assertInputReleased();
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать размер незавершенного токена")
+    void shouldLimitBufferedToken() {
+        // Arrange: строка длиннее лимита в 64 байта, но каждый буфер меньше лимита
+        String body = "{\"text\":\"" + "x".repeat(200) + "\"}";
+
+        // Act & Assert
+        assertThatThrownBy(() -> transform(body, 16)).isInstanceOf(DataBufferLimitException.class);
+        assertInputReleased();
+    }
+
+    @Test
+    @DisplayName("Должен пропускать длинное тело из коротких токенов при маленьком лимите")
+    void shouldStreamLargeBodyOfShortTokens() throws Exception {
+        // Arrange
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 10_000; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append('}');
+        }
+        body.append(']');
+
+        // Act
+        JsonNode data = objectMapper.readTree(transform(body.toString(), 1024)).get("data");
+
+        // Assert
+        assertThat(data.size()).isEqualTo(10_000);
+        assertThat(data.get(9_999).get("id").asInt()).isEqualTo(9_999);
+        assertInputReleased();
+    }
+
+    private String transform(String body, int chunkSize) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> chunks = Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+            .map(i -> {
+                DataBuffer buffer = bufferFactory.allocateBuffer(chunkSize);
+                buffer.write(bytes, i * chunkSize, Math.min(chunkSize, bytes.length - i * chunkSize));
+                inputBuffers.add(buffer);
+                return buffer;
+            });
+        return DataBufferUtils.join(transformer.transform(chunks, bufferFactory, envelope))
+            .map(joined -> {
+                String result = joined.toString(StandardCharsets.UTF_8);
+                DataBufferUtils.release(joined);
+                return result;
+            })
+            .block();
+    }
+
+    private void assertInputReleased() {
+        assertThat(inputBuffers)
+            .allSatisfy(buffer -> assertThat(((NettyDataBuffer) buffer).getNativeBuffer().refCnt()).isZero());
+    }
+
+    private static JsonEnvelope envelope() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("processedBy", "test");
+        metadata.put("statusCode", 200);
+        return new JsonEnvelope("data", Map.of("success", true), Map.of("metadata", metadata));
+    }
+}
@@ -0,0 +1,167 @@
+package org.gualsh.demo.gw.config.gateway.cache;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gualsh.demo.gw.config.gateway.body.stream.StreamingJsonBodyFilters;
+import org.gualsh.demo.gw.config.gateway.body.stream.StreamingJsonBodyTransformer;
+import org.gualsh.demo.gw.config.gateway.filter.AccessLogGlobalFilter;
+import org.gualsh.demo.gw.config.gateway.filter.AccessLogProperties;
+import org.gualsh.demo.gw.config.gateway.filter.CorrelationIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты {@link ResponseCacheFilter} в цепочке Gateway вместе с журналом запросов
+ * и потоковой модификацией тела ответа.
+ *
+ * Цепочку собирает {@link FilteringWebHandler}, как в приложении: порядок фильтров
+ * определяется их {@code getOrder()}, а не порядком в списке.
+ */
+@DisplayName("ResponseCacheFilter Chain Tests")
+class ResponseCacheFilterChainTest {
+
+    private static final String UPSTREAM_BODY = "{\"n\":1}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("gateway.access");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private final ResponseCacheFilter cacheFilter = new ResponseCacheFilter(new ResponseCacheProperties());
+
+    private Level previousLevel;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = accessLogger.getLevel();
+        accessLogger.setLevel(Level.INFO);
+        accessLogger.setAdditive(false);
+        appender.start();
+        accessLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(appender);
+        accessLogger.setLevel(previousLevel);
+        accessLogger.setAdditive(true);
+        cacheFilter.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("Должен располагать журнал запросов и модификацию тела раньше кэша")
+    void shouldOrderFiltersAroundCache() {
+        assertThat(AccessLogGlobalFilter.ORDER).isLessThan(StreamingJsonBodyFilters.RESPONSE_FILTER_ORDER);
+        assertThat(StreamingJsonBodyFilters.RESPONSE_FILTER_ORDER).isLessThan(cacheFilter.getOrder());
+    }
+
+    @Test
+    @DisplayName("Должен кэшировать тело backend и оборачивать ответ из кэша заново")
+    void shouldCacheUpstreamBodyAndWrapEachResponse() throws Exception {
+        // Arrange
+        FilteringWebHandler handler = handler();
+
+        // Act
+        MockServerWebExchange first = execute(handler, "req-1");
+        MockServerWebExchange second = execute(handler, "req-2");
+
+        // Assert
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+            .isEqualTo("HIT");
+
+        JsonNode firstBody = objectMapper.readTree(first.getResponse().getBodyAsString().block());
+        JsonNode secondBody = objectMapper.readTree(second.getResponse().getBodyAsString().block());
+        assertThat(firstBody.get("data")).isEqualTo(objectMapper.readTree(UPSTREAM_BODY));
+        assertThat(secondBody.get("data")).isEqualTo(objectMapper.readTree(UPSTREAM_BODY));
+        // Обертка не попала в кэш: requestId взят из второго запроса
+        assertThat(firstBody.get("metadata").get("requestId").asText()).isEqualTo("req-1");
+        assertThat(secondBody.get("metadata").get("requestId").asText()).isEqualTo("req-2");
+    }
+
+    @Test
+    @DisplayName("Должен записывать в журнал запросы, обслуженные из кэша")
+    void shouldLogCacheHits() {
+        // Arrange
+        FilteringWebHandler handler = handler();
+
+        // Act
+        execute(handler, "req-1");
+        execute(handler, "req-2");
+
+        // Assert
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("req-1");
+        assertThat(appender.list.get(1).getFormattedMessage()).contains("req-2");
+    }
+
+    /**
+     * Глобальные фильтры переданы в обратном порядке: сортировка по getOrder() должна это исправить.
+     */
+    private FilteringWebHandler handler() {
+        AccessLogProperties accessLogProperties = new AccessLogProperties();
+        accessLogProperties.setSampleRate(1.0);
+        AccessLogGlobalFilter accessLogFilter =
+            new AccessLogGlobalFilter(accessLogProperties, new CorrelationIdGenerator("node"));
+        // Без Ordered: выполняется последним, как NettyRoutingFilter
+        GlobalFilter upstream = (exchange, chain) -> respond(exchange.getResponse());
+        return new FilteringWebHandler(List.of(upstream, cacheFilter, accessLogFilter));
+    }
+
+    private MockServerWebExchange execute(FilteringWebHandler handler, String requestId) {
+        StreamingJsonBodyFilters bodyFilters = new StreamingJsonBodyFilters(
+            new StreamingJsonBodyTransformer(objectMapper, DataSize.ofMegabytes(1), List.of()),
+            new StreamingJsonBodyTransformer(objectMapper, DataSize.ofMegabytes(1), List.of()));
+        Route route = Route.async()
+            .id("transform-route")
+            .uri("http://backend.test")
+            .predicate(exchange -> true)
+            .filter(bodyFilters.responseFilter("transform-route"))
+            .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/transform/items")
+            .header(AccessLogGlobalFilter.REQUEST_ID_HEADER, requestId));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        handler.handle(exchange).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    private Mono<Void> respond(ServerHttpResponse response) {
+        return Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            response.getHeaders().setCacheControl("public, max-age=60");
+            byte[] bytes = UPSTREAM_BODY.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        });
+    }
+}
@@ -0,0 +1,280 @@
+package org.gualsh.demo.gw.config.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link ResponseCacheFilter}.
+ */
+@DisplayName("ResponseCacheFilter Tests")
+class ResponseCacheFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    private ResponseCacheFilter filter = filter(new ResponseCacheProperties());
+
+    @AfterEach
+    void tearDown() {
+        filter.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("Должен отдавать повторный GET из кэша без запроса к backend")
+    void shouldServeRepeatedGetFromCache() {
+        // Arrange
+        GatewayFilterChain upstream = upstream("{\"n\":1}", headers -> headers.setCacheControl("public, max-age=60"));
+
+        // Act
+        MockServerWebExchange first = execute(get("/items?page=1"), upstream);
+        MockServerWebExchange second = execute(get("/items?page=1"), upstream);
+        MockServerWebExchange otherQuery = execute(get("/items?page=2"), upstream);
+
+        // Assert
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(first.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("MISS");
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+        assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.AGE)).isEqualTo("0");
+        assertThat(second.getResponse().getHeaders().getContentLength()).isEqualTo(7);
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("{\"n\":1}");
+        assertThat(otherQuery.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+            .isEqualTo("MISS");
+        assertThat(registry.get("gateway.response.cache.requests").tag("result", "hit").counter().count())
+            .isEqualTo(1);
+        assertThat(registry.get("gateway.response.cache.requests").tag("result", "miss").counter().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Не должен кэшировать ответы, которые Cache-Control, статус или Set-Cookie запрещают хранить")
+    void shouldNotCacheUncacheableResponses() {
+        List<Consumer<HttpHeaders>> uncacheable = List.of(
+            headers -> headers.setCacheControl("no-store"),
+            headers -> headers.setCacheControl("private, max-age=60"),
+            headers -> headers.setCacheControl("no-cache"),
+            headers -> { }, // нет max-age, default-ttl = 0
+            headers -> {
+                headers.setCacheControl("max-age=60");
+                headers.add(HttpHeaders.SET_COOKIE, "session=1");
+            },
+            headers -> {
+                headers.setCacheControl("max-age=60");
+                headers.set(HttpHeaders.VARY, "*");
+            });
+
+        for (int i = 0; i < uncacheable.size(); i++) {
+            // Arrange
+            upstreamCalls.set(0);
+            GatewayFilterChain upstream = upstream("body", uncacheable.get(i));
+
+            // Act
+            execute(get("/uncacheable/" + i), upstream);
+            execute(get("/uncacheable/" + i), upstream);
+
+            // Assert
+            assertThat(upstreamCalls).as("case %d", i).hasValue(2);
+        }
+
+        // Ошибка backend тоже не кэшируется
+        upstreamCalls.set(0);
+        GatewayFilterChain failing = exchange -> {
+            upstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+            exchange.getResponse().getHeaders().setCacheControl("max-age=60");
+            return exchange.getResponse().setComplete();
+        };
+        execute(get("/error"), failing);
+        execute(get("/error"), failing);
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Должен учитывать заголовки запроса из Vary ответа")
+    void shouldKeyOnVaryHeaders() {
+        // Arrange
+        GatewayFilterChain upstream = exchange -> {
+            String language = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_LANGUAGE);
+            return respond(exchange, "lang=" + language, headers -> {
+                headers.setCacheControl("max-age=60");
+                headers.set(HttpHeaders.VARY, "Accept-Language");
+            });
+        };
+
+        // Act
+        execute(get("/greeting").header(HttpHeaders.ACCEPT_LANGUAGE, "ru"), upstream);
+        MockServerWebExchange english = execute(get("/greeting").header(HttpHeaders.ACCEPT_LANGUAGE, "en"), upstream);
+        MockServerWebExchange russian = execute(get("/greeting").header(HttpHeaders.ACCEPT_LANGUAGE, "ru"), upstream);
+
+        // Assert
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(english.getResponse().getBodyAsString().block()).isEqualTo("lang=en");
+        assertThat(russian.getResponse().getBodyAsString().block()).isEqualTo("lang=ru");
+        assertThat(russian.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+    }
+
+    @Test
+    @DisplayName("Должен пропускать мимо кэша запросы с Authorization, no-store и не GET")
+    void shouldBypassCacheForPrivateRequests() {
+        // Arrange
+        GatewayFilterChain upstream = upstream("body", headers -> headers.setCacheControl("max-age=60"));
+
+        // Act
+        execute(get("/private").header(HttpHeaders.AUTHORIZATION, "Bearer token"), upstream);
+        execute(get("/private").header(HttpHeaders.AUTHORIZATION, "Bearer token"), upstream);
+        execute(get("/private").header(HttpHeaders.CACHE_CONTROL, "no-store"), upstream);
+        execute(MockServerHttpRequest.post("/private"), upstream);
+
+        // Assert
+        assertThat(upstreamCalls).hasValue(4);
+        assertThat(registry.get("gateway.response.cache.requests").tag("result", "bypass").counter().count())
+            .isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Должен обновлять запись по запросу с Cache-Control: no-cache")
+    void shouldRefreshOnNoCacheRequest() {
+        // Arrange
+        AtomicInteger version = new AtomicInteger();
+        GatewayFilterChain upstream = exchange -> respond(exchange, "v" + version.incrementAndGet(),
+            headers -> headers.setCacheControl("max-age=60"));
+
+        // Act
+        execute(get("/versioned"), upstream);
+        execute(get("/versioned").header(HttpHeaders.CACHE_CONTROL, "no-cache"), upstream);
+        MockServerWebExchange cached = execute(get("/versioned"), upstream);
+
+        // Assert
+        assertThat(cached.getResponse().getBodyAsString().block()).isEqualTo("v2");
+    }
+
+    @Test
+    @DisplayName("Должен объединять одновременные промахи по одному ключу в один запрос к backend")
+    void shouldCollapseConcurrentMisses() {
+        // Arrange: backend отвечает, только когда все запросы уже пришли
+        Sinks.Empty<Void> gate = Sinks.empty();
+        GatewayFilterChain upstream = exchange -> gate.asMono()
+            .then(respond(exchange, "slow", headers -> headers.setCacheControl("max-age=60")));
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            MockServerWebExchange exchange = MockServerWebExchange.from(get("/slow"));
+            exchanges.add(exchange);
+            done.add(filter.filter(exchange, upstream).toFuture());
+        }
+        gate.tryEmitEmpty();
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).join();
+
+        // Assert
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(exchanges).allSatisfy(exchange ->
+            assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo("slow"));
+        assertThat(exchanges.stream()
+            .map(exchange -> exchange.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)))
+            .containsExactly("MISS", "COLLAPSED", "COLLAPSED", "COLLAPSED", "COLLAPSED");
+        assertThat(registry.get("gateway.response.cache.requests").tag("result", "collapsed").counter().count())
+            .isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Должен отправлять ожидающие запросы к backend, если ответ первого не кэшируется")
+    void shouldFallBackWhenCollapsedResponseIsNotCacheable() {
+        // Arrange
+        Sinks.Empty<Void> gate = Sinks.empty();
+        GatewayFilterChain upstream = exchange -> gate.asMono()
+            .then(respond(exchange, "private", headers -> headers.setCacheControl("private")));
+
+        // Act
+        CompletableFuture<Void> first = filter.filter(MockServerWebExchange.from(get("/private-slow")), upstream)
+            .toFuture();
+        MockServerWebExchange waiting = MockServerWebExchange.from(get("/private-slow"));
+        CompletableFuture<Void> second = filter.filter(waiting, upstream).toFuture();
+        gate.tryEmitEmpty();
+        CompletableFuture.allOf(first, second).join();
+
+        // Assert
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(waiting.getResponse().getBodyAsString().block()).isEqualTo("private");
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать размер записи и суммарный размер кэша")
+    void shouldBoundCacheSize() {
+        // Arrange
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.setMaxSize(DataSize.ofKilobytes(16));
+        properties.setMaxEntrySize(DataSize.ofKilobytes(2));
+        filter = filter(properties);
+        String kilobyte = "x".repeat(1024);
+
+        // Act
+        for (int i = 0; i < 64; i++) {
+            execute(get("/kb/" + i), upstream(kilobyte, headers -> headers.setCacheControl("max-age=60")));
+        }
+        upstreamCalls.set(0);
+        GatewayFilterChain large = upstream("y".repeat(4096), headers -> headers.setCacheControl("max-age=60"));
+        execute(get("/large"), large);
+        execute(get("/large"), large);
+
+        // Assert
+        assertThat(filter.weightedSize()).isLessThanOrEqualTo(DataSize.ofKilobytes(16).toBytes());
+        assertThat(registry.get("gateway.response.cache.evictions").counter().count()).isPositive();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    private ResponseCacheFilter filter(ResponseCacheProperties properties) {
+        ResponseCacheFilter created = new ResponseCacheFilter(properties);
+        registry.clear();
+        created.bindTo(registry);
+        return created;
+    }
+
+    private MockServerWebExchange execute(MockServerHttpRequest.BaseBuilder<?> request, GatewayFilterChain upstream) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, upstream).block(Duration.ofSeconds(5));
+        return exchange;
+    }
+
+    private GatewayFilterChain upstream(String body, Consumer<HttpHeaders> headers) {
+        return exchange -> respond(exchange, body, headers);
+    }
+
+    private Mono<Void> respond(org.springframework.web.server.ServerWebExchange exchange, String body,
+                               Consumer<HttpHeaders> headers) {
+        return Mono.defer(() -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            headers.accept(response.getHeaders());
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        });
+    }
+
+    private static MockServerHttpRequest.BaseBuilder<?> get(String uri) {
+        return MockServerHttpRequest.get(uri);
+    }
+}
@@ -0,0 +1,232 @@
+package org.gualsh.demo.gw.config.gateway.filter;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Накладные расходы фильтра журнала запросов на один запрос.
+ *
+ * <p>Фильтр вызывается напрямую с пустой цепочкой, как его вызывает Gateway, поэтому измеряется
+ * только работа фильтра: генерация X-Request-ID, mutate запроса и запись в журнал. Из результата
+ * вычитается стоимость вызова цепочки без фильтра.
+ * Сравниваются:
+ * <ul>
+ * <li>прежний фильтр: UUID.randomUUID() и две строки на запрос синхронно в файл</li>
+ * <li>новый фильтр без выборки: синхронно и через AsyncAppender</li>
+ * <li>новый фильтр с выборкой 10% через AsyncAppender (как в application.yml)</li>
+ * </ul>
+ * Журнал пишется во временный файл. AsyncAppender с neverBlock=true при переполнении очереди
+ * отбрасывает события, поэтому при полной записи результат async ограничен скоростью диска.
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=AccessLogFilterBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Access log filter overhead benchmark")
+class AccessLogFilterBenchmarkTest {
+
+    private static final int REQUESTS = 200_000;
+
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    private static final org.slf4j.Logger LEGACY_LOG = LoggerFactory.getLogger("gateway.access.legacy");
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    private final List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+
+    private Level rootLevel;
+
+    @TempDir
+    Path logDir;
+
+    @BeforeEach
+    void setUp() {
+        // Без logback-test.xml корневой логгер пишет DEBUG в консоль - это исказило бы замер
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLevel = root.getLevel();
+        root.setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(rootLevel);
+        for (String name : List.of("gateway.access", "gateway.access.legacy")) {
+            Logger logger = context.getLogger(name);
+            logger.detachAndStopAllAppenders();
+            logger.setAdditive(true);
+            logger.setLevel(null);
+        }
+        appenders.forEach(Appender::stop);
+    }
+
+    @Test
+    @DisplayName("Накладные расходы на запрос: UUID и синхронный журнал vs счетчик, выборка и async")
+    void compareFilters() throws InterruptedException {
+        GlobalFilter legacy = AccessLogFilterBenchmarkTest::legacyFilter;
+        GlobalFilter full = filter(1.0);
+        GlobalFilter sampled = filter(0.1);
+
+        System.out.printf("%-8s %-28s %12s %14s%n", "threads", "filter", "req/s", "overhead ns");
+
+        for (int threads : List.of(1, Math.max(4, Runtime.getRuntime().availableProcessors()))) {
+            double baseline = nanosPerRequest(null, threads);
+
+            route("gateway.access.legacy", fileAppender("legacy.log"));
+            double legacySync = nanosPerRequest(legacy, threads);
+            print(threads, "legacy uuid, sync, 2 lines", legacySync, baseline);
+
+            route("gateway.access", fileAppender("sync.log"));
+            double fullSync = nanosPerRequest(full, threads);
+            print(threads, "counter, sync, 100%", fullSync, baseline);
+
+            route("gateway.access", asyncAppender(fileAppender("async.log")));
+            double fullAsync = nanosPerRequest(full, threads);
+            print(threads, "counter, async, 100%", fullAsync, baseline);
+
+            route("gateway.access", asyncAppender(fileAppender("sampled.log")));
+            double sampledAsync = nanosPerRequest(sampled, threads);
+            print(threads, "counter, async, 10%", sampledAsync, baseline);
+
+            assertThat(sampledAsync).isLessThan(legacySync);
+        }
+    }
+
+    /**
+     * Среднее время одного запроса: вызов фильтра (или цепочки без фильтра).
+     */
+    private static double nanosPerRequest(GlobalFilter filter, int threads) throws InterruptedException {
+        // Прогрев: загрузка классов и JIT
+        runThreads(filter, threads, 20_000);
+        long start = System.nanoTime();
+        runThreads(filter, threads, REQUESTS);
+        return (double) (System.nanoTime() - start) * threads / REQUESTS;
+    }
+
+    private static void runThreads(GlobalFilter filter, int threads, int requests) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                // Фильтр не меняет исходный exchange (mutate создает обертку), поэтому он общий для потока
+                MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/get"));
+                for (int i = 0; i < requests / threads; i++) {
+                    (filter != null ? filter.filter(exchange, CHAIN) : CHAIN.filter(exchange)).block();
+                }
+                done.countDown();
+            }, "benchmark-" + t);
+            thread.start();
+        }
+        done.await();
+    }
+
+    private static void print(int threads, String name, double nanos, double baseline) {
+        System.out.printf("%-8d %-28s %12.0f %14.0f%n", threads, name, threads * 1e9 / nanos, nanos - baseline);
+    }
+
+    private static GlobalFilter filter(double sampleRate) {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setSampleRate(sampleRate);
+        properties.setSlowThreshold(Duration.ofSeconds(1));
+        return new AccessLogGlobalFilter(properties, new CorrelationIdGenerator(null));
+    }
+
+    private void route(String loggerName, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger(loggerName);
+        logger.detachAndStopAllAppenders();
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(String fileName) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss} [%thread] %-5level %logger{36} - %msg%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(logDir.resolve(fileName).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        appenders.add(appender);
+        return appender;
+    }
+
+    private AsyncAppender asyncAppender(Appender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(8192);
+        appender.setDiscardingThreshold(0);
+        appender.setNeverBlock(true);
+        appender.addAppender(delegate);
+        appender.start();
+        appenders.add(appender);
+        return appender;
+    }
+
+    /**
+     * Прежняя реализация GlobalFilterConfig.loggingGlobalFilter для сравнения.
+     */
+    private static Mono<Void> legacyFilter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String requestId = exchange.getRequest().getHeaders().getFirst("X-Request-ID");
+        if (requestId == null) {
+            requestId = UUID.randomUUID().toString();
+        }
+        final String finalRequestId = requestId;
+        final String method = exchange.getRequest().getMethod().name();
+        final String path = exchange.getRequest().getPath().value();
+        final String remoteAddress = exchange.getRequest().getRemoteAddress() != null ?
+            exchange.getRequest().getRemoteAddress().getAddress().getHostAddress() : "unknown";
+
+        LEGACY_LOG.info("Request started: {} {} from {} with ID: {}", method, path, remoteAddress, finalRequestId);
+
+        ServerWebExchange modifiedExchange = exchange.mutate()
+            .request(exchange.getRequest().mutate()
+                .header("X-Request-ID", finalRequestId)
+                .header("X-Gateway-Timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .build())
+            .build();
+
+        long startTime = System.currentTimeMillis();
+
+        return chain.filter(modifiedExchange)
+            .doOnSuccess(aVoid -> {
+                long duration = System.currentTimeMillis() - startTime;
+                int statusCode = modifiedExchange.getResponse().getStatusCode() != null ?
+                    modifiedExchange.getResponse().getStatusCode().value() : 200;
+                LEGACY_LOG.info("Request completed: {} {} -> {} in {}ms with ID: {}",
+                    method, path, statusCode, duration, finalRequestId);
+            });
+    }
+}
@@ -0,0 +1,177 @@
+package org.gualsh.demo.gw.config.gateway.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты для {@link AccessLogGlobalFilter} и {@link CorrelationIdGenerator}.
+ */
+@DisplayName("AccessLogGlobalFilter Tests")
+class AccessLogGlobalFilterTest {
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("gateway.access");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private Level previousLevel;
+
+    @BeforeEach
+    void setUp() {
+        previousLevel = accessLogger.getLevel();
+        accessLogger.setLevel(Level.INFO);
+        accessLogger.setAdditive(false);
+        appender.start();
+        accessLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(appender);
+        accessLogger.setLevel(previousLevel);
+        accessLogger.setAdditive(true);
+    }
+
+    @Test
+    @DisplayName("Должен генерировать X-Request-ID, если его нет в запросе")
+    void shouldGenerateRequestId() {
+        // Arrange
+        AccessLogGlobalFilter filter = filter(1.0, Duration.ofSeconds(1));
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+        // Act
+        filter.filter(exchange(), next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        }).block();
+
+        // Assert
+        var headers = forwarded.get().getRequest().getHeaders();
+        assertThat(headers.getFirst(AccessLogGlobalFilter.REQUEST_ID_HEADER)).isEqualTo("node-1");
+        assertThat(headers.getFirst(AccessLogGlobalFilter.TIMESTAMP_HEADER)).isNotBlank();
+        assertThat(appender.list).singleElement()
+            .extracting(ILoggingEvent::getFormattedMessage)
+            .asString()
+            .contains("GET /get", "-> 200", "with ID: node-1");
+    }
+
+    @Test
+    @DisplayName("Должен сохранять X-Request-ID клиента")
+    void shouldKeepIncomingRequestId() {
+        // Arrange
+        AccessLogGlobalFilter filter = filter(1.0, Duration.ofSeconds(1));
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/get").header(AccessLogGlobalFilter.REQUEST_ID_HEADER, "client-42"));
+
+        // Act
+        filter.filter(exchange, next -> {
+            forwarded.set(next);
+            return Mono.empty();
+        }).block();
+
+        // Assert
+        assertThat(forwarded.get().getRequest().getHeaders().get(AccessLogGlobalFilter.REQUEST_ID_HEADER))
+            .containsExactly("client-42");
+    }
+
+    @Test
+    @DisplayName("Должен пропускать успешные запросы вне выборки, но записывать 5xx и ошибки")
+    void shouldSampleOnlySuccessfulRequests() {
+        // Arrange
+        AccessLogGlobalFilter filter = filter(0, Duration.ofSeconds(1));
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            filter.filter(exchange(), next -> Mono.empty()).block();
+        }
+        filter.filter(exchange(), next -> {
+            next.getResponse().setStatusCode(HttpStatus.BAD_GATEWAY);
+            return Mono.empty();
+        }).block();
+        assertThatThrownBy(() -> filter.filter(exchange(), next -> Mono.error(new IllegalStateException("connect")))
+            .block()).isInstanceOf(IllegalStateException.class);
+
+        // Assert
+        assertThat(appender.list).hasSize(2);
+        assertThat(appender.list.get(0).getFormattedMessage()).contains("-> 502");
+        assertThat(appender.list.get(1).getLevel()).isEqualTo(Level.ERROR);
+        assertThat(appender.list.get(1).getFormattedMessage()).contains("Error: connect");
+    }
+
+    @Test
+    @DisplayName("Должен записывать медленные запросы независимо от выборки")
+    void shouldAlwaysLogSlowRequests() {
+        // Arrange
+        AccessLogGlobalFilter filter = filter(0, Duration.ofMillis(20));
+
+        // Act
+        filter.filter(exchange(), next -> Mono.delay(Duration.ofMillis(50)).then()).block();
+
+        // Assert
+        assertThat(appender.list).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Должен записывать примерно sample-rate успешных запросов")
+    void shouldLogSampleRateFraction() {
+        // Arrange
+        AccessLogGlobalFilter filter = filter(0.25, Duration.ofSeconds(1));
+
+        // Act
+        for (int i = 0; i < 4000; i++) {
+            filter.filter(exchange(), next -> Mono.empty()).block();
+        }
+
+        // Assert
+        assertThat(appender.list.size()).isBetween(800, 1200);
+    }
+
+    @Test
+    @DisplayName("Должен генерировать уникальные идентификаторы с префиксом узла")
+    void shouldGenerateUniqueIds() {
+        // Arrange
+        CorrelationIdGenerator generator = new CorrelationIdGenerator(null);
+        Set<String> ids = new HashSet<>();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.next());
+        }
+
+        // Assert
+        assertThat(ids).hasSize(10_000);
+        assertThat(ids).allMatch(id -> id.matches("[0-9a-f]{8}-[0-9a-z]+"));
+        assertThat(new CorrelationIdGenerator(null).next()).isNotEqualTo(new CorrelationIdGenerator(null).next());
+    }
+
+    private static AccessLogGlobalFilter filter(double sampleRate, Duration slowThreshold) {
+        AccessLogProperties properties = new AccessLogProperties();
+        properties.setSampleRate(sampleRate);
+        properties.setSlowThreshold(slowThreshold);
+        return new AccessLogGlobalFilter(properties, new CorrelationIdGenerator("node"));
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/get"));
+    }
+}
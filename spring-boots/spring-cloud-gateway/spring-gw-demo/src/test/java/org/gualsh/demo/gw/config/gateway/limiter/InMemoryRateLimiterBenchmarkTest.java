@@ -0,0 +1,277 @@
+package org.gualsh.demo.gw.config.gateway.limiter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение {@link InMemoryRateLimiter} с {@link RedisRateLimiter} при 64 одновременных запросах:
+ * 10 000 случайных ключей и один "горячий" ключ.
+ *
+ * <p>RedisRateLimiter работает через Lettuce с локальным Redis-заменителем: сервер на loopback сокете
+ * разбирает протокол RESP и выполняет логику request_rate_limiter.lua в одном потоке, как Redis.
+ * Так измеряются клиент, сериализация и сетевой round-trip, но не сам Redis; с настоящим Redis на
+ * другой машине разница будет больше. Печатаются пропускная способность и p50/p99 задержки isAllowed.
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=InMemoryRateLimiterBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("In-memory vs Redis rate limiter benchmark")
+class InMemoryRateLimiterBenchmarkTest {
+
+    private static final String ROUTE = "benchmark";
+
+    private static final int CONCURRENCY = 64;
+
+    private static final int REQUESTS = 200_000;
+
+    private RespStandIn redis;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private RedisRateLimiter redisRateLimiter;
+
+    private InMemoryRateLimiter inMemoryRateLimiter;
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setUp() throws IOException {
+        redis = new RespStandIn();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redis.port()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        DefaultRedisScript script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(
+            new ClassPathResource("META-INF/scripts/request_rate_limiter.lua")));
+        script.setResultType(List.class);
+
+        redisRateLimiter = new RedisRateLimiter(new ReactiveStringRedisTemplate(connectionFactory),
+            (RedisScript<List<Long>>) script, null);
+        redisRateLimiter.getConfig().put(ROUTE, new RedisRateLimiter.Config()
+            .setReplenishRate(1_000).setBurstCapacity(2_000).setRequestedTokens(1));
+
+        inMemoryRateLimiter = new InMemoryRateLimiter(1_000, 2_000, 1, null);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        connectionFactory.destroy();
+        redis.close();
+    }
+
+    @Test
+    @DisplayName("Пропускная способность и задержка isAllowed: Redis vs память процесса")
+    void compareLimiters() {
+        System.out.printf("%-8s %-10s %12s %10s %10s %10s%n", "keys", "limiter", "req/s", "p50 us", "p99 us",
+            "allowed");
+
+        for (int keys : List.of(10_000, 1)) {
+            // Прогрев: загрузка классов, JIT, соединение Lettuce
+            run(redisRateLimiter, keys, 20_000);
+            run(inMemoryRateLimiter, keys, 20_000);
+
+            Result viaRedis = run(redisRateLimiter, keys, REQUESTS);
+            Result inMemory = run(inMemoryRateLimiter, keys, REQUESTS);
+            print(keys, "redis", viaRedis);
+            print(keys, "in-memory", inMemory);
+
+            assertThat(inMemory.throughput()).isGreaterThan(viaRedis.throughput());
+        }
+    }
+
+    private Result run(RateLimiter<?> limiter, int keys, int requests) {
+        long[] latencies = new long[requests];
+        AtomicLong allowed = new AtomicLong();
+        long start = System.nanoTime();
+
+        Flux.range(0, requests)
+            .flatMap(i -> {
+                String id = "client-" + ThreadLocalRandom.current().nextInt(keys);
+                long requestStart = System.nanoTime();
+                return limiter.isAllowed(ROUTE, id)
+                    .doOnNext(response -> {
+                        latencies[i] = System.nanoTime() - requestStart;
+                        if (response.isAllowed()) {
+                            allowed.incrementAndGet();
+                        }
+                    });
+            }, CONCURRENCY)
+            .blockLast(Duration.ofMinutes(5));
+
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(requests * 1e9 / elapsed, latencies[requests / 2], latencies[(int) (requests * 0.99)],
+            allowed.get());
+    }
+
+    private static void print(int keys, String limiter, Result result) {
+        System.out.printf("%-8d %-10s %12.0f %10.1f %10.1f %10d%n", keys, limiter, result.throughput(),
+            result.p50() / 1e3, result.p99() / 1e3, result.allowed());
+    }
+
+    private record Result(double throughput, long p50, long p99, long allowed) {
+    }
+
+    /**
+     * Однопоточный сервер RESP2 с командами, которые нужны RedisRateLimiter через Lettuce.
+     * EVAL/EVALSHA выполняют логику request_rate_limiter.lua на Java; остальные команды отвечают OK.
+     */
+    private static final class RespStandIn implements AutoCloseable {
+
+        private final ServerSocket serverSocket = new ServerSocket(0);
+
+        private final Map<String, double[]> buckets = new HashMap<>();
+
+        private final List<Socket> clients = new ArrayList<>();
+
+        private RespStandIn() throws IOException {
+            Thread acceptor = new Thread(this::accept, "resp-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            synchronized (clients) {
+                for (Socket client : clients) {
+                    client.close();
+                }
+            }
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket client = serverSocket.accept();
+                    client.setTcpNoDelay(true);
+                    synchronized (clients) {
+                        clients.add(client);
+                    }
+                    Thread worker = new Thread(() -> serve(client), "resp-stand-in-client");
+                    worker.setDaemon(true);
+                    worker.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket client) {
+            try (InputStream in = new BufferedInputStream(client.getInputStream());
+                 OutputStream out = new BufferedOutputStream(client.getOutputStream())) {
+                List<String> command;
+                while ((command = readCommand(in)) != null) {
+                    out.write(execute(command).getBytes(StandardCharsets.ISO_8859_1));
+                    // Конвейер Lettuce: ответы отправляются, когда прочитаны все пришедшие команды
+                    if (in.available() == 0) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException ignored) {
+                // Клиент отключился
+            }
+        }
+
+        private String execute(List<String> command) {
+            String name = command.get(0).toUpperCase();
+            return switch (name) {
+                // Lettuce после ошибки HELLO переходит на RESP2
+                case "HELLO" -> "-ERR unknown command 'HELLO'\r\n";
+                case "PING" -> "+PONG\r\n";
+                case "EVAL", "EVALSHA" -> tokenBucket(command);
+                default -> "+OK\r\n";
+            };
+        }
+
+        /**
+         * request_rate_limiter.lua: KEYS = tokens, timestamp; ARGV = rate, capacity, now, requested.
+         */
+        private String tokenBucket(List<String> command) {
+            int numKeys = Integer.parseInt(command.get(2));
+            String key = command.get(3);
+            List<String> args = command.subList(3 + numKeys, command.size());
+            double rate = Double.parseDouble(args.get(0));
+            double capacity = Double.parseDouble(args.get(1));
+            double now = args.get(2).isEmpty() ? System.currentTimeMillis() / 1000 : Double.parseDouble(args.get(2));
+            double requested = Double.parseDouble(args.get(3));
+
+            synchronized (buckets) {
+                double[] bucket = buckets.computeIfAbsent(key, k -> new double[] {capacity, 0});
+                double delta = Math.max(0, now - bucket[1]);
+                double filled = Math.min(capacity, bucket[0] + delta * rate);
+                boolean allowed = filled >= requested;
+                bucket[0] = allowed ? filled - requested : filled;
+                bucket[1] = now;
+                return "*2\r\n:" + (allowed ? 1 : 0) + "\r\n:" + (long) bucket[0] + "\r\n";
+            }
+        }
+
+        private static List<String> readCommand(InputStream in) throws IOException {
+            String header = readLine(in);
+            if (header == null) {
+                return null;
+            }
+            int count = Integer.parseInt(header.substring(1));
+            List<String> command = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = Integer.parseInt(readLine(in).substring(1));
+                byte[] bytes = in.readNBytes(length + 2);
+                command.add(new String(bytes, 0, length, StandardCharsets.ISO_8859_1));
+            }
+            return command;
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\n') {
+                if (b < 0) {
+                    return null;
+                }
+                if (b != '\r') {
+                    line.append((char) b);
+                }
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.gualsh.demo.gw.config.gateway.limiter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link InMemoryRateLimiter}.
+ */
+@DisplayName("InMemoryRateLimiter Tests")
+class InMemoryRateLimiterTest {
+
+    private static final String ROUTE = "route";
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    @DisplayName("Должен пропускать burstCapacity запросов подряд и отклонять следующий")
+    void shouldAllowBurstThenDeny() {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(10, 20, 1);
+
+        // Act
+        List<Response> responses = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            responses.add(allow(limiter, "client"));
+        }
+
+        // Assert
+        assertThat(responses.subList(0, 20)).allMatch(Response::isAllowed);
+        assertThat(remaining(responses.get(0))).isEqualTo(19);
+        assertThat(remaining(responses.get(19))).isZero();
+        assertThat(responses.get(20).isAllowed()).isFalse();
+        assertThat(remaining(responses.get(20))).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен пополнять корзину со скоростью replenishRate, но не выше burstCapacity")
+    void shouldReplenishTokens() {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(10, 20, 1);
+        for (int i = 0; i < 20; i++) {
+            allow(limiter, "client");
+        }
+
+        // Act & Assert: за 0.5 секунды добавляется 5 токенов
+        advance(Duration.ofMillis(500));
+        assertThat(remaining(allow(limiter, "client"))).isEqualTo(4);
+
+        // Act & Assert: за минуту корзина наполняется только до burstCapacity
+        advance(Duration.ofMinutes(1));
+        assertThat(remaining(allow(limiter, "client"))).isEqualTo(19);
+    }
+
+    @Test
+    @DisplayName("Должен списывать requestedTokens за запрос и возвращать те же заголовки, что RedisRateLimiter")
+    void shouldChargeRequestedTokens() {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(10, 20, 10);
+
+        // Act
+        Response first = allow(limiter, "client");
+        Response second = allow(limiter, "client");
+        Response third = allow(limiter, "client");
+
+        // Assert
+        assertThat(first.isAllowed()).isTrue();
+        assertThat(second.isAllowed()).isTrue();
+        assertThat(third.isAllowed()).isFalse();
+        assertThat(first.getHeaders())
+            .containsEntry(RedisRateLimiter.REMAINING_HEADER, "10")
+            .containsEntry(RedisRateLimiter.REPLENISH_RATE_HEADER, "10")
+            .containsEntry(RedisRateLimiter.BURST_CAPACITY_HEADER, "20")
+            .containsEntry(RedisRateLimiter.REQUESTED_TOKENS_HEADER, "10");
+    }
+
+    @Test
+    @DisplayName("Должен вести отдельные корзины для разных ключей и маршрутов")
+    void shouldIsolateKeysAndRoutes() {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(1, 1, 1);
+
+        // Act & Assert
+        assertThat(allow(limiter, "a").isAllowed()).isTrue();
+        assertThat(allow(limiter, "a").isAllowed()).isFalse();
+        assertThat(allow(limiter, "b").isAllowed()).isTrue();
+        assertThat(limiter.isAllowed("other-route", "a").block().isAllowed()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Должен брать настройки маршрута, затем defaultFilters")
+    void shouldLoadRouteConfiguration() {
+        // Arrange
+        InMemoryRateLimiter limiter = new InMemoryRateLimiter(1, 1, 1, null, clock::get);
+        limiter.getConfig().put(ROUTE, new InMemoryRateLimiter.Config()
+            .setReplenishRate(5).setBurstCapacity(3).setRequestedTokens(1));
+        limiter.getConfig().put(RouteDefinitionRouteLocator.DEFAULT_FILTERS, new InMemoryRateLimiter.Config()
+            .setReplenishRate(7).setBurstCapacity(7).setRequestedTokens(1));
+
+        // Act & Assert
+        assertThat(allow(limiter, "client").getHeaders())
+            .containsEntry(RedisRateLimiter.BURST_CAPACITY_HEADER, "3");
+        // Нет настроек маршрута: фильтр из default-filters со своими аргументами
+        assertThat(limiter.isAllowed("unknown", "client").block().getHeaders())
+            .containsEntry(RedisRateLimiter.BURST_CAPACITY_HEADER, "7");
+    }
+
+    @Test
+    @DisplayName("Должен удалять полные корзины неактивных ключей")
+    void shouldEvictIdleKeys() {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(10, 20, 1);
+        limiter.setEvictionInterval(Duration.ofSeconds(1));
+        for (int i = 0; i < 1_000; i++) {
+            allow(limiter, "client-" + i);
+        }
+        assertThat(limiter.size()).isEqualTo(1_000);
+
+        // Act: через 2 секунды корзины полные, каждый шард очищается при следующем обращении
+        advance(Duration.ofSeconds(2));
+        for (int i = 0; i < 100; i++) {
+            allow(limiter, "active-" + i);
+        }
+
+        // Assert
+        assertThat(limiter.size()).isBetween(100, 200);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять запросы без заголовков, если includeHeaders выключен")
+    void shouldOmitHeaders() {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(1, 1, 1);
+        limiter.setIncludeHeaders(false);
+
+        // Act
+        Response response = allow(limiter, "client");
+
+        // Assert
+        assertThat(response.isAllowed()).isTrue();
+        assertThat(response.getHeaders()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Не должен пропускать больше burstCapacity при конкурентных запросах к одному ключу")
+    void shouldNotOverAdmitUnderContention() throws Exception {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(1, 500, 1);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int allowed = 0;
+                for (int i = 0; i < 1_000; i++) {
+                    if (allow(limiter, "hot").isAllowed()) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            }));
+        }
+        start.countDown();
+        int allowed = 0;
+        for (Future<Integer> result : results) {
+            allowed += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert: часы стоят, пополнения нет
+        assertThat(allowed).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("Должен использовать параметры конструктора, если нет настроек маршрута и defaultFilters")
+    void shouldFallBackToConstructorConfiguration() {
+        // Arrange
+        InMemoryRateLimiter limiter = limiter(2, 4, 1);
+
+        // Act & Assert
+        assertThat(allow(limiter, "client").getHeaders())
+            .containsEntry(RedisRateLimiter.REPLENISH_RATE_HEADER, "2")
+            .containsEntry(RedisRateLimiter.BURST_CAPACITY_HEADER, "4");
+    }
+
+    private InMemoryRateLimiter limiter(int replenishRate, int burstCapacity, int requestedTokens) {
+        return new InMemoryRateLimiter(replenishRate, burstCapacity, requestedTokens, null, clock::get);
+    }
+
+    private static Response allow(InMemoryRateLimiter limiter, String id) {
+        return limiter.isAllowed(ROUTE, id).block();
+    }
+
+    private static long remaining(Response response) {
+        return Long.parseLong(response.getHeaders().get(RedisRateLimiter.REMAINING_HEADER));
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
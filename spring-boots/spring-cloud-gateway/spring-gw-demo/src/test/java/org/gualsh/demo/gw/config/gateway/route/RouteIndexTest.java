@@ -0,0 +1,188 @@
+package org.gualsh.demo.gw.config.gateway.route;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.AsyncPredicate;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.predicate.HostRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.MethodRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для {@link RouteIndex} и {@link IndexedRoutePredicateHandlerMapping}.
+ */
+@DisplayName("RouteIndex Tests")
+class RouteIndexTest {
+
+    @Test
+    @DisplayName("Должен отбирать маршруты по литеральному префиксу пути в исходном порядке")
+    void shouldNarrowByPathPrefix() {
+        // Arrange
+        RouteIndex index = new RouteIndex(List.of(
+            route("users", path("/api/v1/users/**")),
+            route("orders", path("/api/v1/orders/{id}")),
+            route("api", path("/api/**")),
+            route("catch-all", path("/**"))
+        ));
+
+        // Act & Assert
+        assertThat(ids(index, MockServerHttpRequest.get("/api/v1/users/42")))
+            .containsExactly("users", "api", "catch-all");
+        assertThat(ids(index, MockServerHttpRequest.get("/API/v1/orders/7")))
+            .containsExactly("orders", "api", "catch-all");
+        assertThat(ids(index, MockServerHttpRequest.get("/static/app.js")))
+            .containsExactly("catch-all");
+    }
+
+    @Test
+    @DisplayName("Должен считать кандидатами маршруты с or, negate и неизвестными предикатами")
+    void shouldKeepRoutesWithoutIndexedPredicates() {
+        // Arrange
+        RouteIndex index = new RouteIndex(List.of(
+            route("or", path("/admins/**").or(path("/root/**"))),
+            route("negate", path("/public/**").negate()),
+            route("custom", AsyncPredicate.from(exchange -> true)),
+            route("demo", path("/demo/**"))
+        ));
+
+        // Act
+        List<String> ids = ids(index, MockServerHttpRequest.get("/other"));
+
+        // Assert
+        assertThat(ids).containsExactly("or", "negate", "custom");
+        assertThat(index.indexedSize()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен отбирать маршруты по точному Host с портом и без")
+    void shouldNarrowByExactHost() {
+        // Arrange
+        RouteIndex index = new RouteIndex(List.of(
+            route("api-host", host("api.example.org")),
+            route("api-host-port", host("api.example.org:8080")),
+            route("wildcard", host("**.example.org")),
+            route("any", path("/**"))
+        ));
+
+        // Act & Assert
+        assertThat(ids(index, MockServerHttpRequest.get("/get").header("Host", "api.example.org:8080")))
+            .containsExactly("api-host", "api-host-port", "wildcard", "any");
+        assertThat(ids(index, MockServerHttpRequest.get("/get").header("Host", "web.example.org")))
+            .containsExactly("wildcard", "any");
+        assertThat(ids(index, MockServerHttpRequest.get("/get")))
+            .containsExactly("wildcard", "any");
+    }
+
+    @Test
+    @DisplayName("Должен отбирать маршруты по HTTP методу")
+    void shouldNarrowByMethod() {
+        // Arrange
+        RouteIndex index = new RouteIndex(List.of(
+            route("read", path("/items/**").and(method(HttpMethod.GET, HttpMethod.HEAD))),
+            route("write", path("/items/**").and(method(HttpMethod.POST))),
+            route("items", path("/items/**"))
+        ));
+
+        // Act & Assert
+        assertThat(ids(index, MockServerHttpRequest.get("/items/1"))).containsExactly("read", "items");
+        assertThat(ids(index, MockServerHttpRequest.post("/items"))).containsExactly("write", "items");
+        assertThat(ids(index, MockServerHttpRequest.delete("/items/1"))).containsExactly("items");
+    }
+
+    @Test
+    @DisplayName("Должен выбирать тот же маршрут, что и последовательная проверка всех предикатов")
+    void shouldMatchSameRouteAsSequentialLookup() {
+        // Arrange
+        Random random = new Random(42);
+        String[] segments = {"api", "v1", "v2", "users", "orders", "{id}", "*", "**"};
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder pattern = new StringBuilder();
+            for (int depth = random.nextInt(3) + 1; depth > 0; depth--) {
+                // Имена переменных в одном шаблоне должны различаться
+                pattern.append('/').append(segments[random.nextInt(segments.length - 1)].replace("id", "id" + depth));
+            }
+            if (random.nextBoolean()) {
+                pattern.append("/**");
+            }
+            AsyncPredicate<ServerWebExchange> predicate = path(pattern.toString());
+            switch (random.nextInt(4)) {
+                case 0 -> predicate = predicate.and(method(HttpMethod.POST));
+                case 1 -> predicate = predicate.and(host(random.nextBoolean() ? "a.local" : "*.local"));
+                case 2 -> predicate = predicate.or(host("b.local"));
+                default -> {
+                }
+            }
+            routes.add(route("route-" + i, predicate));
+        }
+        IndexedRoutePredicateHandlerMapping mapping = new IndexedRoutePredicateHandlerMapping(
+            new FilteringWebHandler(List.of()), () -> Flux.fromIterable(routes), new GlobalCorsProperties(),
+            new MockEnvironment());
+
+        for (int i = 0; i < 500; i++) {
+            StringBuilder path = new StringBuilder();
+            for (int depth = random.nextInt(4) + 1; depth > 0; depth--) {
+                path.append('/').append(segments[random.nextInt(5)]);
+            }
+            HttpMethod method = random.nextBoolean() ? HttpMethod.GET : HttpMethod.POST;
+            String host = List.of("a.local", "b.local", "c.local").get(random.nextInt(3));
+            MockServerHttpRequest.BaseBuilder<?> builder = MockServerHttpRequest.method(method, path.toString())
+                .header("Host", host);
+            if (random.nextInt(3) == 0) {
+                // spring.webflux.base-path: Path предикат сравнивает полный путь, включая context path
+                builder.contextPath("/" + path.toString().split("/")[1]);
+            }
+            MockServerHttpRequest request = builder.build();
+
+            // Act
+            Route expected = Flux.fromIterable(routes)
+                .concatMap(route -> Mono.just(route)
+                    .filterWhen(candidate -> candidate.getPredicate().apply(MockServerWebExchange.from(request))))
+                .next()
+                .block();
+            Route actual = mapping.lookupRoute(MockServerWebExchange.from(request)).block();
+
+            // Assert
+            assertThat(actual).as("%s %s", method, request.getURI()).isEqualTo(expected);
+        }
+    }
+
+    private static List<String> ids(RouteIndex index, MockServerHttpRequest.BaseBuilder<?> request) {
+        return index.candidates(request.build()).stream().map(Route::getId).toList();
+    }
+
+    private static Route route(String id, AsyncPredicate<ServerWebExchange> predicate) {
+        return Route.async().id(id).uri("http://backend.local").asyncPredicate(predicate).build();
+    }
+
+    private static AsyncPredicate<ServerWebExchange> path(String... patterns) {
+        return new PathRoutePredicateFactory().applyAsync(
+            new PathRoutePredicateFactory.Config().setPatterns(List.of(patterns)));
+    }
+
+    private static AsyncPredicate<ServerWebExchange> host(String... patterns) {
+        return new HostRoutePredicateFactory().applyAsync(
+            new HostRoutePredicateFactory.Config().setPatterns(List.of(patterns)));
+    }
+
+    private static AsyncPredicate<ServerWebExchange> method(HttpMethod... methods) {
+        MethodRoutePredicateFactory.Config config = new MethodRoutePredicateFactory.Config();
+        config.setMethods(methods);
+        return new MethodRoutePredicateFactory().applyAsync(config);
+    }
+}
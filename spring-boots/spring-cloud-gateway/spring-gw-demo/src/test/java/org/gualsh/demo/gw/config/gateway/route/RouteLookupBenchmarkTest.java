@@ -0,0 +1,138 @@
+package org.gualsh.demo.gw.config.gateway.route;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.AsyncPredicate;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.handler.predicate.MethodRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Время поиска маршрута стандартным RoutePredicateHandlerMapping и {@link IndexedRoutePredicateHandlerMapping}
+ * при 10, 100 и 1000 маршрутах.
+ *
+ * <p>Маршруты вида {@code /service-N/**} (каждый третий дополнительно ограничен методом GET) и последний
+ * {@code /**}. Запросы идут на случайный маршрут, 10% - на путь, который подходит только последнему.
+ * Поиск выполняется через {@code getHandler}, как в DispatcherHandler, с тем же RouteLocator.
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=RouteLookupBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Route lookup benchmark")
+class RouteLookupBenchmarkTest {
+
+    private final Logger rootLogger = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+
+    private Level rootLevel;
+
+    @BeforeEach
+    void setUp() {
+        // Без logback-test.xml корневой логгер пишет DEBUG в консоль - это исказило бы замер
+        rootLevel = rootLogger.getLevel();
+        rootLogger.setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rootLogger.setLevel(rootLevel);
+    }
+
+    @Test
+    @DisplayName("Время поиска маршрута: последовательный перебор vs индекс")
+    void compareLookup() {
+        System.out.printf("%-8s %-10s %12s %12s%n", "routes", "mapping", "ns/lookup", "lookups/s");
+
+        for (int size : List.of(10, 100, 1000)) {
+            RouteLocator routeLocator = routeLocator(size);
+            RoutePredicateHandlerMapping sequential = new RoutePredicateHandlerMapping(
+                new FilteringWebHandler(List.of()), routeLocator, new GlobalCorsProperties(), new MockEnvironment());
+            RoutePredicateHandlerMapping indexed = new IndexedRoutePredicateHandlerMapping(
+                new FilteringWebHandler(List.of()), routeLocator, new GlobalCorsProperties(), new MockEnvironment());
+            int lookups = Math.max(2_000, 2_000_000 / size);
+
+            // Прогрев: загрузка классов, JIT, построение индекса
+            run(sequential, size, lookups / 2);
+            run(indexed, size, lookups / 2);
+
+            double sequentialNanos = run(sequential, size, lookups);
+            double indexedNanos = run(indexed, size, lookups);
+            print(size, "sequential", sequentialNanos);
+            print(size, "indexed", indexedNanos);
+
+            if (size >= 100) {
+                assertThat(indexedNanos).isLessThan(sequentialNanos);
+            }
+        }
+    }
+
+    private static double run(RoutePredicateHandlerMapping mapping, int size, int lookups) {
+        long elapsed = 0;
+        for (int i = 0; i < lookups; i++) {
+            int target = ThreadLocalRandom.current().nextInt(size + size / 10 + 1);
+            String path = target < size ? "/service-" + target + "/items/" + i : "/unknown/" + i;
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+
+            long start = System.nanoTime();
+            mapping.getHandler(exchange).block();
+            elapsed += System.nanoTime() - start;
+
+            Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+            assertThat(route).isNotNull();
+        }
+        return (double) elapsed / lookups;
+    }
+
+    private static void print(int size, String mapping, double nanos) {
+        System.out.printf("%-8d %-10s %12.0f %12.0f%n", size, mapping, nanos, 1e9 / nanos);
+    }
+
+    private static RouteLocator routeLocator(int size) {
+        List<Route> routes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            AsyncPredicate<ServerWebExchange> predicate = path("/service-" + i + "/**");
+            if (i % 3 == 0) {
+                predicate = predicate.and(get());
+            }
+            routes.add(Route.async().id("service-" + i).uri("http://service-" + i + ".local")
+                .asyncPredicate(predicate).build());
+        }
+        routes.add(Route.async().id("fallback").uri("http://fallback.local").asyncPredicate(path("/**")).build());
+        // Как CachingRouteLocator: список маршрутов собран заранее
+        return () -> Flux.fromIterable(routes);
+    }
+
+    private static AsyncPredicate<ServerWebExchange> path(String pattern) {
+        return new PathRoutePredicateFactory().applyAsync(
+            new PathRoutePredicateFactory.Config().setPatterns(List.of(pattern)));
+    }
+
+    private static AsyncPredicate<ServerWebExchange> get() {
+        MethodRoutePredicateFactory.Config config = new MethodRoutePredicateFactory.Config();
+        config.setMethods(HttpMethod.GET);
+        return new MethodRoutePredicateFactory().applyAsync(config);
+    }
+}
@@ -0,0 +1,290 @@
+package org.gualsh.demo.restclient.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} с режимом stale-while-revalidate поверх Caffeine.
+ * <p>
+ * Обычный {@code expireAfterWrite} удаляет запись, и все одновременные вызовы после истечения
+ * идут во внешний API (cache stampede). Здесь у записи три состояния:
+ * <ul>
+ *     <li><b>fresh</b> (моложе {@code fresh-for}) - отдается из кеша</li>
+ *     <li><b>stale</b> (моложе {@code fresh-for + stale-for}) - отдается из кеша сразу,
+ *     а одно фоновое обновление на ключ перечитывает значение</li>
+ *     <li><b>expired</b> - запись удалена Caffeine, вызов считается промахом</li>
+ * </ul>
+ * Одновременные промахи по одному ключу схлопываются в один вызов загрузчика, остальные ждут его результат.
+ * Результат null (404 от API) кешируется как отрицательная запись на короткое {@code negative-ttl}.
+ * Ошибки не кешируются; если фоновое обновление упало, клиенты продолжают получать stale значение.
+ * <p>
+ * Схлопывание и фоновое обновление работают только через {@link #get(Object, Callable)},
+ * поэтому методы сервиса помечаются {@code @Cacheable(sync = true)}.
+ */
+@Slf4j
+public class StaleWhileRevalidateCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final Cache<Object, Entry> store;
+
+    private final long freshForNanos;
+
+    private final long negativeTtlNanos;
+
+    private final Executor refreshExecutor;
+
+    private final LongSupplier clock;
+
+    /**
+     * Выполняющиеся загрузки: и синхронные промахи, и фоновые обновления.
+     */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder staleHits = new LongAdder();
+
+    private final LongAdder negativeHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder puts = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder refreshFailures = new LongAdder();
+
+    /**
+     * @param name имя кеша
+     * @param maximumSize максимальное количество записей
+     * @param freshFor время, в течение которого запись считается свежей
+     * @param staleFor сколько после этого еще можно отдавать запись, обновляя ее в фоне
+     * @param negativeTtl время жизни отрицательной (null) записи
+     * @param refreshExecutor пул для фоновых обновлений
+     */
+    public StaleWhileRevalidateCache(String name, long maximumSize, Duration freshFor, Duration staleFor,
+                                     Duration negativeTtl, Executor refreshExecutor) {
+        this(name, maximumSize, freshFor, staleFor, negativeTtl, refreshExecutor, System::nanoTime);
+    }
+
+    StaleWhileRevalidateCache(String name, long maximumSize, Duration freshFor, Duration staleFor,
+                              Duration negativeTtl, Executor refreshExecutor, LongSupplier clock) {
+        super(true);
+        this.name = name;
+        this.freshForNanos = freshFor.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+        this.store = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(freshFor.plus(staleFor))
+            .ticker(clock::getAsLong)
+            .recordStats()
+            .build();
+    }
+
+    @Override
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @NonNull
+    public Object getNativeCache() {
+        return store;
+    }
+
+    /**
+     * Поиск без загрузчика (например, {@code @Cacheable} без sync): свежие и stale записи
+     * отдаются как есть, обновить их здесь нечем.
+     */
+    @Override
+    @Nullable
+    protected Object lookup(@NonNull Object key) {
+        Entry entry = store.getIfPresent(key);
+        if (entry == null || entry.isExpiredNegative(now(), negativeTtlNanos)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        long now = now();
+        Entry entry = store.getIfPresent(key);
+
+        if (entry != null && !entry.isExpiredNegative(now, negativeTtlNanos)) {
+            hits.increment();
+            if (entry.isNegative()) {
+                negativeHits.increment();
+            } else if (now - entry.writtenAt() >= freshForNanos) {
+                staleHits.increment();
+                refreshInBackground(key, valueLoader);
+            }
+            return (T) fromStoreValue(entry.value());
+        }
+
+        misses.increment();
+        return (T) fromStoreValue(loadCoalesced(key, valueLoader));
+    }
+
+    @Override
+    public void put(@NonNull Object key, @Nullable Object value) {
+        store.put(key, new Entry(toStoreValue(value), now()));
+        puts.increment();
+    }
+
+    @Override
+    public void evict(@NonNull Object key) {
+        store.invalidate(key);
+    }
+
+    @Override
+    public void clear() {
+        store.invalidateAll();
+    }
+
+    /**
+     * Промах: загружает значение в текущем потоке, если загрузка по ключу еще не идет,
+     * иначе ждет уже идущую (в том числе фоновое обновление).
+     */
+    private Object loadCoalesced(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> ours = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, ours);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            Object storeValue = toStoreValue(valueLoader.call());
+            store.put(key, new Entry(storeValue, now()));
+            puts.increment();
+            ours.complete(storeValue);
+            return storeValue;
+        } catch (Exception e) {
+            ours.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlight.remove(key, ours);
+        }
+    }
+
+    /**
+     * Запускает одно фоновое обновление на ключ. Ошибка обновления не удаляет stale запись.
+     */
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, refresh) != null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object storeValue = toStoreValue(valueLoader.call());
+                    store.put(key, new Entry(storeValue, now()));
+                    puts.increment();
+                    refreshes.increment();
+                    refresh.complete(storeValue);
+                } catch (Throwable e) {
+                    refreshFailures.increment();
+                    log.warn("Фоновое обновление ключа {} в кеше {} не удалось, отдается stale значение: {}",
+                        key, name, e.getMessage());
+                    refresh.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, refresh);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Пул обновлений переполнен - попробуем при следующем обращении
+            inFlight.remove(key, refresh);
+            refreshFailures.increment();
+        }
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    long size() {
+        return store.estimatedSize();
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    long evictionCount() {
+        return store.stats().evictionCount();
+    }
+
+    long putCount() {
+        return puts.sum();
+    }
+
+    long staleHitCount() {
+        return staleHits.sum();
+    }
+
+    long negativeHitCount() {
+        return negativeHits.sum();
+    }
+
+    long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    long refreshCount() {
+        return refreshes.sum();
+    }
+
+    long refreshFailureCount() {
+        return refreshFailures.sum();
+    }
+
+    /**
+     * Запись кеша: значение в store-представлении (null хранится как NullValue) и время записи.
+     */
+    private record Entry(Object value, long writtenAt) {
+
+        boolean isNegative() {
+            return value == NullValue.INSTANCE;
+        }
+
+        boolean isExpiredNegative(long now, long negativeTtlNanos) {
+            return isNegative() && now - writtenAt >= negativeTtlNanos;
+        }
+    }
+}
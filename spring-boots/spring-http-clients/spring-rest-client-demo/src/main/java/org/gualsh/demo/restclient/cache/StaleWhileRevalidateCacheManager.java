@@ -0,0 +1,56 @@
+package org.gualsh.demo.restclient.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * CacheManager, создающий {@link StaleWhileRevalidateCache} с общими настройками.
+ * <p>
+ * Кеши из {@code spring.cache.cache-names} создаются сразу (их видит actuator /caches и метрики),
+ * остальные - при первом обращении.
+ */
+public class StaleWhileRevalidateCacheManager implements CacheManager {
+
+    private final ConcurrentMap<String, StaleWhileRevalidateCache> caches = new ConcurrentHashMap<>();
+
+    private final long maximumSize;
+
+    private final Duration freshFor;
+
+    private final Duration staleFor;
+
+    private final Duration negativeTtl;
+
+    private final Executor refreshExecutor;
+
+    public StaleWhileRevalidateCacheManager(Collection<String> cacheNames, long maximumSize, Duration freshFor,
+                                            Duration staleFor, Duration negativeTtl, Executor refreshExecutor) {
+        this.maximumSize = maximumSize;
+        this.freshFor = freshFor;
+        this.staleFor = staleFor;
+        this.negativeTtl = negativeTtl;
+        this.refreshExecutor = refreshExecutor;
+        cacheNames.forEach(this::getCache);
+    }
+
+    @Override
+    @NonNull
+    public Cache getCache(@NonNull String name) {
+        return caches.computeIfAbsent(name, cacheName ->
+            new StaleWhileRevalidateCache(cacheName, maximumSize, freshFor, staleFor, negativeTtl, refreshExecutor));
+    }
+
+    @Override
+    @NonNull
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+}
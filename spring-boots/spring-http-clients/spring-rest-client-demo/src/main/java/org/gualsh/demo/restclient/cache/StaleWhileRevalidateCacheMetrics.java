@@ -0,0 +1,84 @@
+package org.gualsh.demo.restclient.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Метрики {@link StaleWhileRevalidateCache}.
+ * <p>
+ * Стандартные {@code cache.gets{result=hit|miss}}, {@code cache.puts}, {@code cache.evictions}, {@code cache.size}
+ * плюс специфичные для режима:
+ * <ul>
+ *     <li>{@code cache.gets{result=stale}} - попадания в stale запись (с запуском фонового обновления)</li>
+ *     <li>{@code cache.gets{result=negative}} - попадания в отрицательную запись (404)</li>
+ *     <li>{@code cache.coalesced} - вызовы, дождавшиеся чужой загрузки вместо своего запроса к API</li>
+ *     <li>{@code cache.refreshes{result=success|failure}} - фоновые обновления</li>
+ * </ul>
+ * Регистрируется Spring Boot для всех кешей через {@code CacheMeterBinderProvider}.
+ */
+public class StaleWhileRevalidateCacheMetrics extends CacheMeterBinder<StaleWhileRevalidateCache> {
+
+    public StaleWhileRevalidateCacheMetrics(StaleWhileRevalidateCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        return getCache() != null ? getCache().size() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        return getCache() != null ? getCache().hitCount() : 0;
+    }
+
+    @Override
+    protected Long missCount() {
+        return getCache() != null ? getCache().missCount() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return getCache() != null ? getCache().evictionCount() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        return getCache() != null ? getCache().putCount() : 0;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        StaleWhileRevalidateCache cache = getCache();
+        if (cache == null) {
+            return;
+        }
+
+        counter(registry, cache, "cache.gets", StaleWhileRevalidateCache::staleHitCount,
+            "Попадания в stale запись, отданную во время фонового обновления", "result", "stale");
+        counter(registry, cache, "cache.gets", StaleWhileRevalidateCache::negativeHitCount,
+            "Попадания в отрицательную запись (ресурс не найден)", "result", "negative");
+        counter(registry, cache, "cache.coalesced", StaleWhileRevalidateCache::coalescedCount,
+            "Промахи, дождавшиеся уже идущей загрузки того же ключа", null, null);
+        counter(registry, cache, "cache.refreshes", StaleWhileRevalidateCache::refreshCount,
+            "Фоновые обновления stale записей", "result", "success");
+        counter(registry, cache, "cache.refreshes", StaleWhileRevalidateCache::refreshFailureCount,
+            "Фоновые обновления stale записей", "result", "failure");
+    }
+
+    private void counter(MeterRegistry registry, StaleWhileRevalidateCache cache, String name,
+                         ToDoubleFunction<StaleWhileRevalidateCache> count, String description,
+                         String tagKey, String tagValue) {
+        FunctionCounter.Builder<StaleWhileRevalidateCache> builder = FunctionCounter.builder(name, cache, count)
+            .tags(getTagsWithCacheName())
+            .description(description);
+        if (tagKey != null) {
+            builder.tag(tagKey, tagValue);
+        }
+        builder.register(registry);
+    }
+}
@@ -0,0 +1,81 @@
+package org.gualsh.demo.restclient.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.restclient.cache.StaleWhileRevalidateCache;
+import org.gualsh.demo.restclient.cache.StaleWhileRevalidateCacheManager;
+import org.gualsh.demo.restclient.cache.StaleWhileRevalidateCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Конфигурация кеша в режиме stale-while-revalidate ({@code app.restclient.cache.mode=stale-while-revalidate}).
+ * <p>
+ * Собственный CacheManager отключает автоконфигурацию Caffeine из Spring Boot. Без этого режима
+ * используется стандартный CaffeineCacheManager из {@code spring.cache}.
+ * <p>
+ * Статистика доступна через actuator: список кешей - /actuator/caches,
+ * попадания/промахи/stale/схлопывания/обновления - /actuator/metrics/cache.gets и др.
+ */
+@Configuration
+@EnableConfigurationProperties({RestClientCacheProperties.class, CacheProperties.class})
+@ConditionalOnProperty(value = "app.restclient.cache.mode", havingValue = "stale-while-revalidate")
+@Slf4j
+public class CacheConfiguration {
+
+    /**
+     * Пул фоновых обновлений. Очередь ограничена: при ее переполнении обновление пропускается,
+     * а клиенты продолжают получать stale значение.
+     *
+     * @param properties настройки кеша
+     * @return пул обновлений
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor(RestClientCacheProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getRefreshThreads());
+        executor.setMaxPoolSize(properties.getRefreshThreads());
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * @param properties настройки кеша
+     * @param cacheProperties spring.cache (используются cache-names)
+     * @param cacheRefreshExecutor пул фоновых обновлений
+     * @return CacheManager с кешами stale-while-revalidate
+     */
+    @Bean
+    public CacheManager cacheManager(RestClientCacheProperties properties,
+                                     CacheProperties cacheProperties,
+                                     ThreadPoolTaskExecutor cacheRefreshExecutor) {
+        log.info("Кеш в режиме stale-while-revalidate: fresh-for={}, stale-for={}, negative-ttl={}",
+            properties.getFreshFor(), properties.getStaleFor(), properties.getNegativeTtl());
+
+        return new StaleWhileRevalidateCacheManager(
+            cacheProperties.getCacheNames(),
+            properties.getMaximumSize(),
+            properties.getFreshFor(),
+            properties.getStaleFor(),
+            properties.getNegativeTtl(),
+            cacheRefreshExecutor
+        );
+    }
+
+    /**
+     * Регистрирует метрики кешей stale-while-revalidate в actuator (cache.* с тегом cache).
+     *
+     * @return провайдер метрик
+     */
+    @Bean
+    public CacheMeterBinderProvider<StaleWhileRevalidateCache> staleWhileRevalidateCacheMeterBinderProvider() {
+        return (cache, tags) -> new StaleWhileRevalidateCacheMetrics(cache, tags);
+    }
+}
@@ -0,0 +1,67 @@
+package org.gualsh.demo.restclient.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки пула HTTP соединений Apache HttpClient 5 и режима HTTP/2.
+ * <p>
+ * Значения по умолчанию соответствуют прежним захардкоженным настройкам.
+ * Профиль {@code high-throughput} (application-high-throughput.yml) поднимает лимиты,
+ * включает TTL соединений и фоновую очистку. HTTP/2 включает отдельный профиль {@code http2}
+ * (application-http2.yml): он заменяет пул Apache, и настройки пула при нем не действуют.
+ *
+ * @see RestClientConfiguration
+ */
+@Data
+@ConfigurationProperties(prefix = "app.restclient.connection-pool")
+public class ConnectionPoolProperties {
+
+    /**
+     * Максимальное количество соединений в пуле.
+     */
+    private int maxTotal = 200;
+
+    /**
+     * Максимальное количество соединений на маршрут (хост) по умолчанию.
+     */
+    private int maxPerRoute = 50;
+
+    /**
+     * Лимиты соединений для конкретных базовых URL, например
+     * {@code "[https://jsonplaceholder.typicode.com]": 100}. Перекрывают {@link #maxPerRoute}.
+     */
+    private Map<String, Integer> perRoute = new LinkedHashMap<>();
+
+    /**
+     * Проверять соединение перед повторным использованием, если оно простаивало дольше.
+     */
+    @DurationUnit(ChronoUnit.MILLIS)
+    private Duration validateAfterInactivity = Duration.ofSeconds(30);
+
+    /**
+     * Максимальное время жизни соединения. После него соединение не переиспользуется,
+     * что позволяет балансировщикам перед API перераспределять нагрузку. 0 - без ограничения.
+     */
+    private Duration timeToLive = Duration.ZERO;
+
+    /**
+     * Период фоновой очистки: закрываются просроченные соединения и простаивающие дольше этого времени.
+     * 0 - фоновый поток очистки не запускается.
+     */
+    private Duration idleEviction = Duration.ZERO;
+
+    /**
+     * Использовать JDK HttpClient с HTTP/2 вместо Apache HttpClient.
+     * Apache HttpClient 5 в блокирующем (classic) API поддерживает только HTTP/1.1,
+     * а JDK HttpClient мультиплексирует запросы к одному хосту в одном HTTP/2 соединении
+     * (если сервер поддерживает h2, иначе откатывается на HTTP/1.1).
+     */
+    private boolean http2 = false;
+}
@@ -0,0 +1,51 @@
+package org.gualsh.demo.restclient.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки кеша ответов внешних API.
+ * <p>
+ * {@code mode=caffeine} - стандартный CaffeineCacheManager Spring Boot (spring.cache.caffeine.spec).
+ * {@code mode=stale-while-revalidate} - {@link org.gualsh.demo.restclient.cache.StaleWhileRevalidateCache}:
+ * stale записи отдаются во время фонового обновления, промахи по одному ключу схлопываются,
+ * 404 кешируются как отрицательные записи.
+ *
+ * @see CacheConfiguration
+ */
+@Data
+@ConfigurationProperties(prefix = "app.restclient.cache")
+public class RestClientCacheProperties {
+
+    /**
+     * Режим кеша: caffeine или stale-while-revalidate.
+     */
+    private String mode = "caffeine";
+
+    /**
+     * Максимальное количество записей в каждом кеше.
+     */
+    private long maximumSize = 1000;
+
+    /**
+     * Сколько запись считается свежей и отдается без обновления.
+     */
+    private Duration freshFor = Duration.ofMinutes(5);
+
+    /**
+     * Сколько после этого запись еще отдается, пока идет фоновое обновление.
+     */
+    private Duration staleFor = Duration.ofMinutes(10);
+
+    /**
+     * Время жизни отрицательной записи (ресурс не найден).
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    /**
+     * Количество потоков фоновых обновлений.
+     */
+    private int refreshThreads = 2;
+}
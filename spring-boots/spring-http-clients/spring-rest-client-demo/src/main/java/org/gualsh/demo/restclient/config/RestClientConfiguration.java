@@ -1,18 +1,37 @@
 package org.gualsh.demo.restclient.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.net.URI;
 import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Конфигурация для создания и настройки RestClient бинов.<p>
@@ -36,6 +55,7 @@ import java.time.Duration;
  *</ul>
  */
 @Configuration
+@EnableConfigurationProperties(ConnectionPoolProperties.class)
 @Slf4j
 public class RestClientConfiguration {
 
@@ -45,18 +65,58 @@ public class RestClientConfiguration {
     @Value("${external-api.httpbin.base-url}")
     private String httpBinBaseUrl;
 
-    @Value("${app.restclient.connection-pool.max-total:200}")
-    private Integer maxTotalConnections;
-
-    @Value("${app.restclient.connection-pool.max-per-route:50}")
-    private Integer maxConnectionsPerRoute;
-
     @Value("${app.restclient.default-timeouts.connection:5000}")
     private Integer defaultConnectionTimeout;
 
     @Value("${app.restclient.default-timeouts.socket:10000}")
     private Integer defaultSocketTimeout;
 
+    private final ConnectionPoolProperties poolProperties;
+
+    public RestClientConfiguration(ConnectionPoolProperties poolProperties) {
+        this.poolProperties = poolProperties;
+    }
+
+    /**
+     * Создает пул HTTP соединений.</br>
+     *
+     * <ul>
+     * Настройки переиспользования соединений (см. {@link ConnectionPoolProperties}):
+     * <li> max-total / max-per-route - общий лимит и лимит на хост по умолчанию</li>
+     * <li> per-route - отдельные лимиты для базовых URL, например для основного API</li>
+     * <li> time-to-live - после TTL соединение закрывается вместо переиспользования</li>
+     * <li> validate-after-inactivity - проверка "протухших" keep-alive соединений перед запросом</li>
+     *</ul>
+     * Пул вынесен в отдельный бин, чтобы по нему можно было снимать метрики.
+     *
+     * @return пул соединений
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager connectionManager() {
+        log.info("Создание пула соединений: max-total={}, max-per-route={}, per-route={}, ttl={}",
+            poolProperties.getMaxTotal(), poolProperties.getMaxPerRoute(),
+            poolProperties.getPerRoute(), poolProperties.getTimeToLive());
+
+        ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(defaultConnectionTimeout))
+            .setValidateAfterInactivity(TimeValue.of(poolProperties.getValidateAfterInactivity()));
+        if (!poolProperties.getTimeToLive().isZero()) {
+            connectionConfig.setTimeToLive(TimeValue.of(poolProperties.getTimeToLive()));
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(poolProperties.getMaxTotal())
+            .setMaxConnPerRoute(poolProperties.getMaxPerRoute())
+            .setDefaultConnectionConfig(connectionConfig.build())
+            .build();
+
+        // Отдельные лимиты для маршрутов, заданных базовым URL
+        poolProperties.getPerRoute().forEach((baseUrl, max) ->
+            connectionManager.setMaxPerRoute(route(baseUrl), max));
+
+        return connectionManager;
+    }
+
     /**
      * Создает настроенный HTTP клиент с пулом соединений.</br>
      *
@@ -64,33 +124,90 @@ public class RestClientConfiguration {
      * Apache HttpClient 5 выбран как реализация по умолчанию из-за:
      * <li> Высокой производительности и надежности </li>
      * <li> Продвинутых возможностей управления соединениями</li>
-     * <li> Поддержки HTTP/2</li>
      * <li> Гибких настроек таймаутов и retry логики</li>
      *</ul>
+     * Если задан idle-eviction, клиент запускает фоновый поток, который закрывает
+     * просроченные (TTL) и долго простаивающие соединения, не дожидаясь следующего запроса.
+     *
+     * @param connectionManager пул соединений
      * @return настроенный HttpClient
      */
     @Bean
-    public HttpClient httpClient() {
-        log.info("Создание HttpClient с пулом соединений: max-total={}, max-per-route={}",
-            maxTotalConnections, maxConnectionsPerRoute);
-
-        // Настройка пула соединений для оптимальной производительности
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
-        connectionManager.setMaxTotal(maxTotalConnections);
-        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
-        // Исправлено: используем TimeValue вместо Duration
-        connectionManager.setValidateAfterInactivity(org.apache.hc.core5.util.TimeValue.ofSeconds(30));
-
+    public HttpClient httpClient(PoolingHttpClientConnectionManager connectionManager) {
         // Настройка таймаутов по умолчанию
         RequestConfig requestConfig = RequestConfig.custom()
             .setConnectionRequestTimeout(Timeout.ofMilliseconds(defaultConnectionTimeout))
             .setResponseTimeout(Timeout.ofMilliseconds(defaultSocketTimeout))
             .build();
 
-        return HttpClientBuilder.create()
+        HttpClientBuilder builder = HttpClientBuilder.create()
             .setConnectionManager(connectionManager)
-            .setDefaultRequestConfig(requestConfig)
-            .build();
+            .setDefaultRequestConfig(requestConfig);
+
+        if (!poolProperties.getIdleEviction().isZero()) {
+            log.info("Включена фоновая очистка соединений: idle-eviction={}", poolProperties.getIdleEviction());
+            builder.evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(poolProperties.getIdleEviction()));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Метрики пула соединений: занятые (leased), свободные (available), ожидающие соединения
+     * запросы (pending) и лимит (max) - в целом по пулу (route=total) и по каждому маршруту
+     * из per-route и базовых URL внешних API.
+     * <p>
+     * Рост pending при leased == max - признак того, что пул мал для текущей нагрузки.
+     *
+     * @param connectionManager пул соединений
+     * @return MeterBinder, регистрируемый actuator-ом в MeterRegistry
+     */
+    @Bean
+    public MeterBinder connectionPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        return registry -> {
+            bindPoolStats(registry, "total", connectionManager, ConnPoolControl::getTotalStats);
+
+            Set<String> baseUrls = new LinkedHashSet<>(poolProperties.getPerRoute().keySet());
+            baseUrls.add(jsonPlaceholderBaseUrl);
+            baseUrls.add(httpBinBaseUrl);
+            baseUrls.forEach(baseUrl -> {
+                HttpRoute route = route(baseUrl);
+                bindPoolStats(registry, baseUrl, connectionManager, pool -> pool.getStats(route));
+            });
+        };
+    }
+
+    private static void bindPoolStats(MeterRegistry registry,
+                                      String routeTag,
+                                      PoolingHttpClientConnectionManager connectionManager,
+                                      Function<PoolingHttpClientConnectionManager, PoolStats> stats) {
+        Gauge.builder("httpclient.pool.leased", connectionManager, pool -> stats.apply(pool).getLeased())
+            .description("Соединения, выданные запросам")
+            .tag("route", routeTag)
+            .register(registry);
+        Gauge.builder("httpclient.pool.available", connectionManager, pool -> stats.apply(pool).getAvailable())
+            .description("Свободные keep-alive соединения")
+            .tag("route", routeTag)
+            .register(registry);
+        Gauge.builder("httpclient.pool.pending", connectionManager, pool -> stats.apply(pool).getPending())
+            .description("Запросы, ожидающие свободного соединения")
+            .tag("route", routeTag)
+            .register(registry);
+        Gauge.builder("httpclient.pool.max", connectionManager, pool -> stats.apply(pool).getMax())
+            .description("Лимит соединений")
+            .tag("route", routeTag)
+            .register(registry);
+    }
+
+    /**
+     * Маршрут пула для базового URL - так же, как его строит HttpClient (порт по схеме, secure для https).
+     */
+    static HttpRoute route(String baseUrl) {
+        URI uri = URI.create(baseUrl);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port), null, secure);
     }
 
     /**
@@ -115,6 +232,30 @@ public class RestClientConfiguration {
         return factory;
     }
 
+    /**
+     * Фабрика запросов на JDK HttpClient с HTTP/2 (app.restclient.connection-pool.http2=true).
+     * <p>
+     * По HTTP/2 все запросы к одному хосту мультиплексируются в одном TLS соединении,
+     * поэтому пул на десятки соединений не нужен. Если сервер не поддерживает h2,
+     * клиент работает по HTTP/1.1 со своим внутренним пулом.
+     *
+     * @return фабрика HTTP/2 запросов
+     */
+    @Bean
+    @ConditionalOnProperty(value = "app.restclient.connection-pool.http2", havingValue = "true")
+    public JdkClientHttpRequestFactory http2RequestFactory() {
+        log.info("Создание JDK HttpClient с HTTP/2");
+
+        java.net.http.HttpClient jdkHttpClient = java.net.http.HttpClient.newBuilder()
+            .version(java.net.http.HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(defaultConnectionTimeout))
+            .build();
+
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(jdkHttpClient);
+        factory.setReadTimeout(Duration.ofMillis(defaultSocketTimeout));
+        return factory;
+    }
+
     /**
      * Создает RestClient для работы с сервисом JSONPlaceholder API.</br>
      *
@@ -122,15 +263,17 @@ public class RestClientConfiguration {
      * Этот RestClient оптимизирован для работы с JSON данными.
      *
      * @param requestFactory фабрика HTTP запросов
+     * @param http2RequestFactory фабрика HTTP/2 запросов, если включена
      * @return настроенный RestClient для JSONPlaceholder
      */
     @Bean("jsonPlaceholderRestClient")
-    public RestClient jsonPlaceholderRestClient(HttpComponentsClientHttpRequestFactory requestFactory) {
+    public RestClient jsonPlaceholderRestClient(HttpComponentsClientHttpRequestFactory requestFactory,
+                                 ObjectProvider<JdkClientHttpRequestFactory> http2RequestFactory) {
 
         log.info("Создание RestClient для JSONPlaceholder API: {}", jsonPlaceholderBaseUrl);
 
         return RestClient.builder()
-            .requestFactory(requestFactory)
+            .requestFactory(effectiveRequestFactory(requestFactory, http2RequestFactory))
             .baseUrl(jsonPlaceholderBaseUrl)
             .defaultHeader("Content-Type", "application/json")
             .defaultHeader("Accept", "application/json")
@@ -146,14 +289,16 @@ public class RestClientConfiguration {
      * типов HTTP операций.
      *
      * @param requestFactory фабрика HTTP запросов
+     * @param http2RequestFactory фабрика HTTP/2 запросов, если включена
      * @return настроенный RestClient для HTTPBin
      */
     @Bean("httpBinRestClient")
-    public RestClient httpBinRestClient(HttpComponentsClientHttpRequestFactory requestFactory) {
+    public RestClient httpBinRestClient(HttpComponentsClientHttpRequestFactory requestFactory,
+                                 ObjectProvider<JdkClientHttpRequestFactory> http2RequestFactory) {
         log.info("Создание RestClient для HTTPBin API: {}", httpBinBaseUrl);
 
         return RestClient.builder()
-            .requestFactory(requestFactory)
+            .requestFactory(effectiveRequestFactory(requestFactory, http2RequestFactory))
             .baseUrl(httpBinBaseUrl)
             .defaultHeader("Accept", "application/json")
             .defaultHeader("User-Agent", "Spring-RestClient-Demo/1.0.0")
@@ -167,15 +312,28 @@ public class RestClientConfiguration {
      * без предварительно настроенного базового URL.
      *
      * @param requestFactory фабрика HTTP запросов
+     * @param http2RequestFactory фабрика HTTP/2 запросов, если включена
      * @return универсальный RestClient
      */
     @Bean("genericRestClient")
-    public RestClient genericRestClient(HttpComponentsClientHttpRequestFactory requestFactory) {
+    public RestClient genericRestClient(HttpComponentsClientHttpRequestFactory requestFactory,
+                                 ObjectProvider<JdkClientHttpRequestFactory> http2RequestFactory) {
         log.info("Создание универсального RestClient");
 
         return RestClient.builder()
-            .requestFactory(requestFactory)
+            .requestFactory(effectiveRequestFactory(requestFactory, http2RequestFactory))
             .defaultHeader("User-Agent", "Spring-RestClient-Demo/1.0.0")
             .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * HTTP/2 фабрика, если включена, иначе Apache HttpClient с пулом.
+     */
+    private static ClientHttpRequestFactory effectiveRequestFactory(
+        HttpComponentsClientHttpRequestFactory requestFactory,
+        ObjectProvider<JdkClientHttpRequestFactory> http2RequestFactory) {
+
+        JdkClientHttpRequestFactory http2 = http2RequestFactory.getIfAvailable();
+        return http2 != null ? http2 : requestFactory;
+    }
+}
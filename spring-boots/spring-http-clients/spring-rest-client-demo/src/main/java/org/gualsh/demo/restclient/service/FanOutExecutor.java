@@ -0,0 +1,207 @@
+package org.gualsh.demo.restclient.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Движок параллельного выполнения пачки однотипных блокирующих вызовов (fan-out).
+ * <p>
+ * Решает проблему {@code this::getUserByIdAsync}: вызов @Async метода изнутри того же бина
+ * идёт мимо прокси, и N запросов фактически выполняются последовательно в одном потоке.
+ * Здесь каждый ключ - отдельная задача на собственном пуле потоков:
+ * <ul>
+ *     <li><b>Ограниченный параллелизм</b> - не больше {@code max-concurrency} одновременных вызовов,
+ *     остальные ждут в очереди и не создают лишних соединений к внешнему API</li>
+ *     <li><b>Дедлайн на пачку</b> - по истечении {@code deadline} результат собирается из того, что успело
+ *     завершиться; ещё не начатые задачи отменяются и HTTP запрос не выполняют</li>
+ *     <li><b>Частичный результат</b> - ошибки и таймауты отдельных ключей не валят всю пачку,
+ *     см. {@link FanOutResult}</li>
+ *     <li><b>Метрики</b> - ширина fan-out, время пачки, время каждого вызова гистограммой по SLO границам
+ *     (хвостовая задержка), исходы вызовов, активные задачи и длина очереди</li>
+ * </ul>
+ * Пул собственный, а не общий {@code @Async} executor: @Async метод, ожидающий задачи
+ * на том же пуле, может его исчерпать и зависнуть. На Java 21+ пул можно заменить
+ * на {@code Executors.newVirtualThreadPerTaskExecutor()} с семафором на {@code max-concurrency}.
+ */
+@Component
+@Slf4j
+public class FanOutExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    private final Duration deadline;
+
+    private final DistributionSummary widthSummary;
+
+    private final Timer batchTimer;
+
+    private final Timer callTimer;
+
+    private final Counter successCounter;
+
+    private final Counter failureCounter;
+
+    private final Counter timeoutCounter;
+
+    /**
+     * @param meterRegistry реестр метрик
+     * @param maxConcurrency максимальное число одновременных вызовов
+     * @param deadline дедлайн на всю пачку
+     */
+    public FanOutExecutor(
+        MeterRegistry meterRegistry,
+        @Value("${app.restclient.fan-out.max-concurrency:16}") int maxConcurrency,
+        @Value("${app.restclient.fan-out.deadline:5s}") Duration deadline) {
+
+        this.deadline = deadline;
+        this.executor = new ThreadPoolExecutor(
+            maxConcurrency, maxConcurrency,
+            60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            daemonThreadFactory()
+        );
+        // Потоки не держим, пока нет пачек
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.widthSummary = DistributionSummary.builder("restclient.fanout.width")
+            .description("Количество ключей в одной пачке fan-out")
+            .register(meterRegistry);
+        this.batchTimer = Timer.builder("restclient.fanout.batch")
+            .description("Время выполнения пачки fan-out целиком")
+            .register(meterRegistry);
+        // Счетчики по фиксированным границам вместо процентилей на стороне клиента: они складываются
+        // между экземплярами, а процентили считает система мониторинга (histogram_quantile)
+        this.callTimer = Timer.builder("restclient.fanout.call")
+            .description("Время одного вызова внутри пачки fan-out")
+            .serviceLevelObjectives(Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+                Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5))
+            .register(meterRegistry);
+        this.successCounter = outcomeCounter(meterRegistry, "success");
+        this.failureCounter = outcomeCounter(meterRegistry, "failure");
+        this.timeoutCounter = outcomeCounter(meterRegistry, "timeout");
+
+        Gauge.builder("restclient.fanout.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Выполняющиеся в данный момент вызовы")
+            .register(meterRegistry);
+        Gauge.builder("restclient.fanout.queued", executor, pool -> pool.getQueue().size())
+            .description("Вызовы, ожидающие свободного места в пуле")
+            .register(meterRegistry);
+
+        log.info("FanOutExecutor: max-concurrency={}, deadline={}", maxConcurrency, deadline);
+    }
+
+    /**
+     * Параллельно выполняет {@code call} для каждого ключа.
+     * <p>
+     * Метод не блокирует вызывающий поток - возвращаемый CompletableFuture завершается,
+     * когда выполнены все вызовы или истёк дедлайн пачки. Завершается всегда успешно:
+     * ошибки отдельных ключей попадают в {@link FanOutResult#failures()}.
+     *
+     * @param keys ключи (дубликаты схлопываются, порядок сохраняется)
+     * @param call блокирующий вызов для одного ключа; null-результат считается "не найдено"
+     * @return CompletableFuture с частичным или полным результатом
+     */
+    public <K, V> CompletableFuture<FanOutResult<K, V>> execute(Collection<K> keys, Function<K, V> call) {
+        Set<K> uniqueKeys = new LinkedHashSet<>(keys);
+        widthSummary.record(uniqueKeys.size());
+        long start = System.nanoTime();
+
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : uniqueKeys) {
+            futures.put(key, CompletableFuture.supplyAsync(() -> timedCall(call, key), executor));
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+            // Ошибки отдельных вызовов разбираем ниже, по каждому ключу
+            .exceptionally(throwable -> null)
+            .completeOnTimeout(null, deadline.toMillis(), TimeUnit.MILLISECONDS)
+            .thenApply(ignored -> {
+                FanOutResult<K, V> result = collect(futures);
+                batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            });
+    }
+
+    private <K, V> V timedCall(Function<K, V> call, K key) {
+        long start = System.nanoTime();
+        try {
+            return call.apply(key);
+        } finally {
+            callTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <K, V> FanOutResult<K, V> collect(Map<K, CompletableFuture<V>> futures) {
+        Map<K, V> values = new LinkedHashMap<>();
+        Map<K, Throwable> failures = new LinkedHashMap<>();
+        List<K> timedOut = new ArrayList<>();
+
+        futures.forEach((key, future) -> {
+            if (!future.isDone()) {
+                // Задача из очереди после отмены не стартует; уже начатый вызов
+                // дорабатывает до своего read-timeout, но его результат не нужен
+                future.cancel(false);
+                timedOut.add(key);
+                timeoutCounter.increment();
+                return;
+            }
+            try {
+                V value = future.join();
+                if (value != null) {
+                    values.put(key, value);
+                }
+                successCounter.increment();
+            } catch (CompletionException e) {
+                failures.put(key, e.getCause() != null ? e.getCause() : e);
+                failureCounter.increment();
+            }
+        });
+
+        return new FanOutResult<>(values, failures, timedOut);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("restclient.fanout.calls")
+            .description("Исходы вызовов внутри пачек fan-out")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "fan-out-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package org.gualsh.demo.restclient.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат пачки {@link FanOutExecutor}.
+ * <p>
+ * Ключ попадает ровно в одну из групп: успешный (в {@code values}, если результат не null),
+ * завершившийся ошибкой или не успевший до дедлайна.
+ *
+ * @param values успешно полученные значения в порядке ключей
+ * @param failures ошибки по ключам
+ * @param timedOut ключи, не завершившиеся до дедлайна пачки
+ */
+public record FanOutResult<K, V>(Map<K, V> values, Map<K, Throwable> failures, List<K> timedOut) {
+
+    /**
+     * @return true, если все вызовы завершились без ошибок и до дедлайна
+     */
+    public boolean isComplete() {
+        return failures.isEmpty() && timedOut.isEmpty();
+    }
+}
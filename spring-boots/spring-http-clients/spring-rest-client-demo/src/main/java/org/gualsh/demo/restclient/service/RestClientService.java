@@ -2,8 +2,10 @@ package org.gualsh.demo.restclient.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.gualsh.demo.restclient.dto.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -103,21 +105,48 @@ public class RestClientService {
      */
     private final RestClient genericClient;
 
+    /**
+     * Параллельное выполнение пачек запросов (fan-out).
+     */
+    private final FanOutExecutor fanOutExecutor;
+
+    /**
+     * Этот же бин через Spring прокси. Вызов {@code this::getUserById} идет мимо прокси,
+     * и @Cacheable на нем не срабатывает; без Spring (unit тесты) - сам объект.
+     */
+    private RestClientService self = this;
+
     /**
      * Создает экземпляр сервиса с настроенными RestClient'ами.
      *
      * @param jsonPlaceholderClient RestClient для JSONPlaceholder API (инжектируется через @Qualifier)
      * @param httpBinClient RestClient для HTTPBin API (инжектируется через @Qualifier)
      * @param genericClient Общий RestClient для других запросов (инжектируется через @Qualifier)
+     * @param fanOutExecutor движок параллельного выполнения пачек запросов
      */
     public RestClientService(
         @Qualifier("jsonPlaceholderRestClient") RestClient jsonPlaceholderClient,
         @Qualifier("httpBinRestClient") RestClient httpBinClient,
-        @Qualifier("genericRestClient") RestClient genericClient) {
+        @Qualifier("genericRestClient") RestClient genericClient,
+        FanOutExecutor fanOutExecutor) {
 
         this.jsonPlaceholderClient = jsonPlaceholderClient;
         this.httpBinClient = httpBinClient;
         this.genericClient = genericClient;
+        this.fanOutExecutor = fanOutExecutor;
+    }
+
+    /**
+     * Внедряет прокси этого бина для вызова кешируемых методов изнутри сервиса.
+     * <p>
+     * {@code @Lazy}: прокси самого себя нельзя создать до завершения создания бина,
+     * поэтому внедряется ленивая ссылка, которая обращается к бину при первом вызове.
+     *
+     * @param self прокси RestClientService
+     */
+    @Autowired
+    void setSelf(@Lazy RestClientService self) {
+        this.self = self;
     }
 
 
@@ -139,7 +168,7 @@ public class RestClientService {
      * @return список пользователей или пустой список при ошибке
      * @throws RestClientException если запрос не удался после всех попыток повтора
      */
-    @Cacheable(value = USERS_CACHE, key = ALL_USERS_CACHE_KEY) // Кеширует результат запроса
+    @Cacheable(value = USERS_CACHE, key = ALL_USERS_CACHE_KEY, sync = true) // Кеширует результат запроса
     @Retryable( // Включает механизм повторных попыток при ошибках
         retryFor = {RestClientException.class},
         maxAttempts = 3,
@@ -213,6 +242,7 @@ public class RestClientService {
      * <ul>
      *     <li>Кеширование результата по динамическому ключу</li>
      *     <li>Обработку ошибки 404 (NOT_FOUND) без исключения</li>
+     *     <li>Отрицательное кеширование: null (404) кешируется, в режиме stale-while-revalidate - на negative-ttl</li>
      *     <li>Добавление идентификатора запроса в заголовки</li>
      * </ul>
      *
@@ -220,7 +250,7 @@ public class RestClientService {
      * @return объект пользователя или null если пользователь не найден
      * @throws RestClientResponseException если произошла ошибка при обращении к API (кроме 404)
      */
-    @Cacheable(value = USERS_CACHE, key = "#userId")
+    @Cacheable(value = USERS_CACHE, key = "#userId", sync = true)
     public User getUserById(Long userId) {
         log.info("Получение пользователя с ID: {}", userId);
         String requestId = generateRequestId();
@@ -232,8 +262,16 @@ public class RestClientService {
                 .header(REQUEST_ID_HEADER, requestId)
                 .retrieve()
                 .onStatus(status -> status.equals(HttpStatus.NOT_FOUND), (request, response) -> {
-                    log.warn("Пользователь с ID {} не найден (RequestId: {})", userId, requestId);
-                    // Не выбрасываем исключение для 404, возвращаем null
+                    // Без исключения тело 404 ("{}") разобралось бы в пустого User;
+                    // исключение перехватывается ниже и превращается в null
+                    throw new RestClientResponseException(
+                        "Пользователь не найден",
+                        response.getStatusCode(),
+                        response.getStatusText(),
+                        response.getHeaders(),
+                        null,
+                        null
+                    );
                 })
                 .body(User.class);
 
@@ -268,7 +306,7 @@ public class RestClientService {
      * @return список постов пользователя или пустой список, если посты не найдены
      * @throws RestClientException если произошла ошибка при обращении к API
      */
-    @Cacheable(value = POSTS_CACHE, key = "#userId")
+    @Cacheable(value = POSTS_CACHE, key = "#userId", sync = true)
     public List<Post> getUserPosts(Long userId) {
         log.info("Получение постов пользователя с ID: {}", userId);
         String requestId = generateRequestId();
@@ -753,58 +791,46 @@ public class RestClientService {
      *
      * Демонстрирует:
      * <ul>
-     *     <li>Композицию и оркестрацию множественных асинхронных операций</li>
-     *     <li>Использование Stream API для работы с коллекциями CompletableFuture</li>
-     *     <li>Применение методов allOf и join для ожидания завершения всех операций</li>
-     *     <li>Фильтрацию и преобразование результатов в итоговый список</li>
+     *     <li>Fan-out пачки запросов через {@link FanOutExecutor} с ограниченным параллелизмом</li>
+     *     <li>Дедлайн на всю пачку вместо ожидания самого медленного запроса</li>
+     *     <li>Частичный результат: ошибки и таймауты отдельных ID не валят всю пачку</li>
      *     <li>Обработку граничных случаев (пустые входные данные)</li>
      * </ul>
      *
-     * Метод позволяет существенно ускорить получение данных для множества пользователей,
-     * выполняя запросы параллельно, а не последовательно. Реальный выигрыш в производительности
-     * тем больше, чем больше пользователей запрашивается и чем выше задержка каждого запроса.
+     * Метод не помечен @Async: раньше он вызывал {@code this::getUserByIdAsync}, а вызов @Async метода
+     * изнутри того же бина идёт мимо прокси, и запросы выполнялись последовательно в одном потоке.
+     * Теперь каждый ID - отдельная задача FanOutExecutor, а вызывающий поток не блокируется.
+     * По той же причине getUserById вызывается через прокси {@code self}, иначе кеш не используется.
      *
      * @param userIds список ID пользователей для параллельного получения
-     * @return CompletableFuture, который будет содержать список найденных пользователей
+     * @return CompletableFuture со списком найденных пользователей в порядке ID
      */
-    @Async
     public CompletableFuture<List<User>> getMultipleUsersAsync(List<Long> userIds) {
         // ===Обработка граничных случаев===
-        // Проверяем наличие ID пользователей для получения
         if (userIds == null || userIds.isEmpty()) {
-            // Если список пуст, возвращаем сразу завершенный CompletableFuture с пустым списком
             return CompletableFuture.completedFuture(Collections.emptyList());
         }
 
-        // Логируем начало асинхронной операции получения нескольких пользователей
         log.info("Асинхронное получение {} пользователей", userIds.size());
-
-        // Генерируем уникальный идентификатор запроса для трассировки всей операции
         String requestId = generateRequestId();
 
-        // ===Создание и запуск параллельных запросов===
-        // Преобразуем каждый ID пользователя в асинхронный запрос
-        // и собираем все эти запросы в список CompletableFuture
-        List<CompletableFuture<User>> futures = userIds.stream()
-            .map(this::getUserByIdAsync) // Для каждого ID создаем отдельный асинхронный запрос
-            .toList();                   // Собираем все в список
-
-        // ===Ожидание завершения всех запросов и обработка результатов===
-        // CompletableFuture.allOf ожидает завершения всех переданных CompletableFuture
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-            // После завершения всех запросов, преобразуем результаты
-            .thenApply(v -> {
-                // Извлекаем результаты из каждого CompletableFuture
-                List<User> users = futures.stream()
-                    .map(CompletableFuture::join)  // join получает результат каждого CompletableFuture
-                    .filter(user -> user != null)   // Исключаем null-значения (не найденные пользователи)
-                    .toList();                      // Собираем в итоговый список
-
-                // Логируем результат с информацией о количестве найденных пользователей
+        // ===Fan-out: каждый ID - отдельный вызов на пуле FanOutExecutor===
+        // Через прокси: каждый ID проходит через кеш "users" (@Cacheable(sync = true) на getUserById)
+        return fanOutExecutor.execute(userIds, self::getUserById)
+            .thenApply(result -> {
+                // ===Частичный результат===
+                if (!result.failures().isEmpty()) {
+                    log.warn("Не удалось получить пользователей {} (RequestId: {})",
+                        result.failures().keySet(), requestId);
+                }
+                if (!result.timedOut().isEmpty()) {
+                    log.warn("Не дождались пользователей {} до дедлайна пачки (RequestId: {})",
+                        result.timedOut(), requestId);
+                }
+
+                List<User> users = List.copyOf(result.values().values());
                 log.info("Асинхронно получено {} пользователей из {} (RequestId: {})",
                     users.size(), userIds.size(), requestId);
-
-                // Возвращаем список пользователей как результат CompletableFuture
                 return users;
             });
     }
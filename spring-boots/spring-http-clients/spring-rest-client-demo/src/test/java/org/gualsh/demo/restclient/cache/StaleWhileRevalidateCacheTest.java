@@ -0,0 +1,193 @@
+package org.gualsh.demo.restclient.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit тесты для StaleWhileRevalidateCache.
+ *
+ * Время управляется вручную, фоновые обновления выполняются в вызывающем потоке,
+ * если не указано иное.
+ */
+@DisplayName("StaleWhileRevalidateCache Unit Tests")
+class StaleWhileRevalidateCacheTest {
+
+    private static final Duration FRESH_FOR = Duration.ofMinutes(5);
+
+    private static final Duration STALE_FOR = Duration.ofMinutes(10);
+
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Должен отдавать stale значение и обновлять его одним фоновым вызовом")
+    void shouldServeStaleAndRefreshOnce() {
+        // Arrange
+        StaleWhileRevalidateCache cache = cache(Runnable::run);
+        AtomicInteger calls = new AtomicInteger();
+        cache.get(1L, () -> "v" + calls.incrementAndGet());
+        advance(FRESH_FOR.plusSeconds(1));
+
+        // Act
+        String stale = cache.get(1L, () -> "v" + calls.incrementAndGet());
+        String refreshed = cache.get(1L, () -> "v" + calls.incrementAndGet());
+
+        // Assert
+        assertThat(stale).isEqualTo("v1");
+        assertThat(refreshed).isEqualTo("v2");
+        assertThat(calls).hasValue(2);
+        assertThat(cache.staleHitCount()).isEqualTo(1);
+        assertThat(cache.refreshCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен продолжать отдавать stale значение, если обновление упало")
+    void shouldKeepStaleValueWhenRefreshFails() {
+        // Arrange
+        StaleWhileRevalidateCache cache = cache(Runnable::run);
+        cache.get(1L, () -> "v1");
+        advance(FRESH_FOR.plusSeconds(1));
+
+        // Act
+        String value = cache.get(1L, () -> {
+            throw new IllegalStateException("API недоступен");
+        });
+
+        // Assert
+        assertThat(value).isEqualTo("v1");
+        assertThat(cache.get(1L, String.class)).isEqualTo("v1");
+        assertThat(cache.refreshFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен считать промахом запись старше fresh-for + stale-for")
+    void shouldReloadExpiredEntry() {
+        // Arrange
+        StaleWhileRevalidateCache cache = cache(Runnable::run);
+        cache.get(1L, () -> "v1");
+        advance(FRESH_FOR.plus(STALE_FOR).plusSeconds(1));
+
+        // Act
+        String value = cache.get(1L, () -> "v2");
+
+        // Assert
+        assertThat(value).isEqualTo("v2");
+        assertThat(cache.missCount()).isEqualTo(2);
+        assertThat(cache.staleHitCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен схлопывать одновременные промахи по одному ключу в один вызов")
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        // Arrange
+        StaleWhileRevalidateCache cache = cache(executor);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> cache.get(1L, () -> {
+            calls.incrementAndGet();
+            loaderStarted.countDown();
+            release.await();
+            return "v1";
+        })));
+        assertThat(loaderStarted.await(1, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.submit(() -> cache.get(1L, () -> {
+                calls.incrementAndGet();
+                return "v2";
+            })));
+        }
+        // Ждем, пока остальные вызовы встанут в ожидание загрузки
+        while (cache.coalescedCount() < 5) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertThat(result.get(1, TimeUnit.SECONDS)).isEqualTo("v1");
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(cache.coalescedCount()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Должен кешировать null (404) на negative-ttl")
+    void shouldCacheNegativeResultForNegativeTtl() {
+        // Arrange
+        StaleWhileRevalidateCache cache = cache(Runnable::run);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        Object first = cache.get(404L, () -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        Object cached = cache.get(404L, () -> {
+            calls.incrementAndGet();
+            return null;
+        });
+        advance(NEGATIVE_TTL.plusSeconds(1));
+        Object reloaded = cache.get(404L, () -> {
+            calls.incrementAndGet();
+            return "found";
+        });
+
+        // Assert
+        assertThat(first).isNull();
+        assertThat(cached).isNull();
+        assertThat(reloaded).isEqualTo("found");
+        assertThat(calls).hasValue(2);
+        assertThat(cache.negativeHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Не должен кешировать ошибки загрузки")
+    void shouldNotCacheErrors() {
+        // Arrange
+        StaleWhileRevalidateCache cache = cache(Runnable::run);
+
+        // Act & Assert
+        assertThatThrownBy(() -> cache.get(1L, () -> {
+            throw new IllegalStateException("API недоступен");
+        })).isInstanceOf(Cache.ValueRetrievalException.class);
+        assertThat(cache.get(1L, () -> "v1")).isEqualTo("v1");
+    }
+
+    private StaleWhileRevalidateCache cache(Executor refreshExecutor) {
+        return new StaleWhileRevalidateCache("users", 100, FRESH_FOR, STALE_FOR, NEGATIVE_TTL,
+            refreshExecutor, clock::get);
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,146 @@
+package org.gualsh.demo.restclient.config;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочное сравнение настроек пула соединений: запросов в секунду к WireMock
+ * с фиксированной задержкой ответа при одинаковом числе параллельных потоков.
+ * <p>
+ * Сравниваются: прежние лимиты (max-per-route меньше числа потоков - запросы ждут соединение),
+ * профиль high-throughput (per-route лимит под нагрузку, TTL) и JDK HttpClient с HTTP/2.
+ * <p>
+ * Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=ConnectionPoolBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Connection pool benchmark")
+class ConnectionPoolBenchmarkTest {
+
+    private static final int THREADS = 64;
+
+    private static final int REQUESTS = 5_000;
+
+    private static final int RESPONSE_DELAY_MS = 20;
+
+    private static WireMockServer wireMockServer;
+
+    @BeforeAll
+    static void startServer() {
+        wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig()
+            .dynamicPort()
+            .containerThreads(THREADS * 2));
+        wireMockServer.start();
+        wireMockServer.stubFor(get(urlEqualTo("/users/1"))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"id\":1,\"name\":\"Leanne Graham\"}")
+                .withFixedDelay(RESPONSE_DELAY_MS)));
+    }
+
+    @AfterAll
+    static void stopServer() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    @DisplayName("Запросов в секунду: default vs high-throughput vs HTTP/2")
+    void compareThroughput() throws Exception {
+        ConnectionPoolProperties defaults = new ConnectionPoolProperties();
+        defaults.setMaxPerRoute(16);
+
+        ConnectionPoolProperties highThroughput = new ConnectionPoolProperties();
+        highThroughput.setMaxTotal(400);
+        highThroughput.setPerRoute(Map.of(wireMockServer.baseUrl(), THREADS));
+        highThroughput.setValidateAfterInactivity(Duration.ofSeconds(10));
+        highThroughput.setTimeToLive(Duration.ofMinutes(5));
+        highThroughput.setIdleEviction(Duration.ofSeconds(30));
+
+        double defaultRps = run("default (max-per-route=16)", apacheFactory(defaults));
+        double highThroughputRps = run("high-throughput (per-route=" + THREADS + ")", apacheFactory(highThroughput));
+        run("http2 (JDK HttpClient)", configuration(highThroughput).http2RequestFactory());
+
+        assertThat(highThroughputRps).isGreaterThan(defaultRps);
+    }
+
+    private static double run(String name, ClientHttpRequestFactory requestFactory) throws Exception {
+        RestClient restClient = RestClient.builder()
+            .baseUrl(wireMockServer.baseUrl())
+            .requestFactory(requestFactory)
+            .build();
+
+        // Прогрев: установка соединений, JIT
+        execute(restClient, THREADS * 4);
+
+        long start = System.nanoTime();
+        int failures = execute(restClient, REQUESTS);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double rps = REQUESTS / seconds;
+
+        System.out.printf("%-40s %8.1f req/s, ошибок: %d%n", name, rps, failures);
+        return rps;
+    }
+
+    private static int execute(RestClient restClient, int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger failures = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        restClient.get().uri("/users/1").retrieve().body(String.class);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures.get();
+    }
+
+    private static HttpComponentsClientHttpRequestFactory apacheFactory(ConnectionPoolProperties properties) {
+        RestClientConfiguration configuration = configuration(properties);
+        PoolingHttpClientConnectionManager connectionManager = configuration.connectionManager();
+        configuration.connectionPoolMetrics(connectionManager).bindTo(new SimpleMeterRegistry());
+        return configuration.httpRequestFactory(configuration.httpClient(connectionManager));
+    }
+
+    private static RestClientConfiguration configuration(ConnectionPoolProperties properties) {
+        RestClientConfiguration configuration = new RestClientConfiguration(properties);
+        ReflectionTestUtils.setField(configuration, "jsonPlaceholderBaseUrl", wireMockServer.baseUrl());
+        ReflectionTestUtils.setField(configuration, "httpBinBaseUrl", wireMockServer.baseUrl());
+        ReflectionTestUtils.setField(configuration, "defaultConnectionTimeout", 5000);
+        ReflectionTestUtils.setField(configuration, "defaultSocketTimeout", 10000);
+        return configuration;
+    }
+}
@@ -1,6 +1,7 @@
 package org.gualsh.demo.restclient.config;
 
 import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +27,7 @@ import static org.assertj.core.api.Assertions.*;
     "external-api.httpbin.base-url=https://httpbin.org",
     "app.restclient.connection-pool.max-total=100",
     "app.restclient.connection-pool.max-per-route=25",
+    "app.restclient.connection-pool.per-route.[https\\://jsonplaceholder.typicode.com]=60",
     "app.restclient.default-timeouts.connection=3000",
     "app.restclient.default-timeouts.socket=5000"
 })
@@ -203,6 +205,29 @@ class RestClientConfigurationTest {
         }
     }
 
+    @Test
+    @DisplayName("Пул соединений должен использовать лимиты из конфигурации")
+    void shouldApplyConnectionPoolLimits() {
+        // Arrange
+        PoolingHttpClientConnectionManager connectionManager =
+            applicationContext.getBean(PoolingHttpClientConnectionManager.class);
+
+        // Act & Assert
+        assertThat(connectionManager.getMaxTotal()).isEqualTo(100);
+        assertThat(connectionManager.getDefaultMaxPerRoute()).isEqualTo(25);
+        assertThat(connectionManager.getMaxPerRoute(
+            RestClientConfiguration.route("https://jsonplaceholder.typicode.com"))).isEqualTo(60);
+        assertThat(connectionManager.getMaxPerRoute(
+            RestClientConfiguration.route("https://httpbin.org"))).isEqualTo(25);
+    }
+
+    @Test
+    @DisplayName("По умолчанию HTTP/2 фабрика не создается")
+    void shouldNotCreateHttp2FactoryByDefault() {
+        // Act & Assert
+        assertThat(applicationContext.containsBean("http2RequestFactory")).isFalse();
+    }
+
     // =================================
     // Тесты работы с Properties
     // =================================
@@ -0,0 +1,109 @@
+package org.gualsh.demo.restclient.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit тесты для FanOutExecutor.
+ *
+ * Проверяют параллельное выполнение, ограничение параллелизма,
+ * дедлайн пачки и частичный результат.
+ */
+@DisplayName("FanOutExecutor Unit Tests")
+class FanOutExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private FanOutExecutor fanOutExecutor;
+
+    @AfterEach
+    void tearDown() {
+        fanOutExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("Должен выполнять вызовы параллельно, а не последовательно")
+    void shouldExecuteCallsInParallel() {
+        // Arrange
+        fanOutExecutor = new FanOutExecutor(meterRegistry, 5, Duration.ofSeconds(5));
+
+        // Act
+        long start = System.nanoTime();
+        FanOutResult<Long, String> result = fanOutExecutor
+            .execute(List.of(1L, 2L, 3L, 4L, 5L), id -> sleepAndReturn(200, "user-" + id))
+            .join();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Assert
+        assertThat(result.isComplete()).isTrue();
+        assertThat(result.values()).containsKeys(1L, 2L, 3L, 4L, 5L);
+        // Последовательно было бы ~1000 мс
+        assertThat(elapsedMillis).isLessThan(800);
+        assertThat(meterRegistry.get("restclient.fanout.width").summary().totalAmount()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать число одновременных вызовов")
+    void shouldLimitConcurrency() {
+        // Arrange
+        fanOutExecutor = new FanOutExecutor(meterRegistry, 2, Duration.ofSeconds(5));
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        // Act
+        fanOutExecutor.execute(List.of(1, 2, 3, 4, 5, 6), id -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleepAndReturn(50, id);
+            inFlight.decrementAndGet();
+            return id;
+        }).join();
+
+        // Assert
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Должен вернуть частичный результат при ошибках и истечении дедлайна")
+    void shouldReturnPartialResult() {
+        // Arrange
+        fanOutExecutor = new FanOutExecutor(meterRegistry, 4, Duration.ofMillis(300));
+
+        // Act
+        CompletableFuture<FanOutResult<Integer, String>> future = fanOutExecutor.execute(
+            List.of(1, 2, 3, 4),
+            id -> switch (id) {
+                case 2 -> throw new IllegalStateException("boom");
+                case 3 -> sleepAndReturn(2_000, "slow");
+                case 4 -> null;
+                default -> "fast";
+            });
+        FanOutResult<Integer, String> result = future.join();
+
+        // Assert
+        assertThat(result.isComplete()).isFalse();
+        assertThat(result.values()).containsOnlyKeys(1);
+        assertThat(result.failures()).containsOnlyKeys(2);
+        assertThat(result.timedOut()).containsExactly(3);
+        assertThat(meterRegistry.get("restclient.fanout.calls").tag("outcome", "timeout").counter().count())
+            .isEqualTo(1);
+    }
+
+    private static <T> T sleepAndReturn(long millis, T value) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,96 @@
+package org.gualsh.demo.restclient.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gualsh.demo.restclient.dto.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Тесты кеширования при fan-out в {@link RestClientService#getMultipleUsersAsync(List)}.
+ *
+ * Сервис создается в Spring контексте, чтобы @Cacheable работал через прокси, как в приложении.
+ * HTTP запросы к JSONPlaceholder перехватывает MockRestServiceServer.
+ */
+@SpringJUnitConfig
+@DisplayName("RestClientService Fan-Out Cache Tests")
+class RestClientServiceFanOutCacheTest {
+
+    private static final String BASE_URL = "https://jsonplaceholder.test";
+
+    @Autowired
+    private RestClientService restClientService;
+
+    @Autowired
+    private MockRestServiceServer server;
+
+    @Test
+    @DisplayName("Должен брать пользователей повторной пачки из кеша без HTTP запросов")
+    void shouldServeRepeatedFanOutFromCache() {
+        // Arrange
+        for (long id = 1; id <= 3; id++) {
+            server.expect(ExpectedCount.once(), requestTo(BASE_URL + "/users/" + id))
+                .andRespond(withSuccess("{\"id\":" + id + ",\"name\":\"User " + id + "\"}",
+                    MediaType.APPLICATION_JSON));
+        }
+
+        // Act
+        List<User> first = restClientService.getMultipleUsersAsync(List.of(1L, 2L, 3L)).join();
+        List<User> second = restClientService.getMultipleUsersAsync(List.of(3L, 2L, 1L)).join();
+
+        // Assert
+        server.verify();
+        assertThat(first).extracting(User::getId).containsExactly(1L, 2L, 3L);
+        assertThat(second).extracting(User::getId).containsExactly(3L, 2L, 1L);
+    }
+
+    @Configuration
+    @EnableCaching
+    static class TestConfig {
+
+        private final RestClient.Builder builder = RestClient.builder().baseUrl(BASE_URL);
+
+        // Привязка до build(): сервер подменяет фабрику запросов билдера
+        private final MockRestServiceServer server = MockRestServiceServer.bindTo(builder)
+            .ignoreExpectOrder(true)
+            .build();
+
+        @Bean
+        MockRestServiceServer server() {
+            return server;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("users");
+        }
+
+        @Bean(destroyMethod = "destroy")
+        FanOutExecutor fanOutExecutor() {
+            return new FanOutExecutor(new SimpleMeterRegistry(), 4, Duration.ofSeconds(5));
+        }
+
+        @Bean
+        RestClientService restClientService(FanOutExecutor fanOutExecutor) {
+            RestClient client = builder.build();
+            return new RestClientService(client, client, client, fanOutExecutor);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.gualsh.demo.restclient.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.gualsh.demo.restclient.dto.CreateUserRequest;
 import org.gualsh.demo.restclient.dto.User;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -60,7 +62,8 @@ class RestClientServiceUnitTest {
     @BeforeEach
     void setUp() {
         // Вместо @InjectMocks - явное создание сервиса
-        restClientService = new RestClientService(jsonPlaceholderClient, httpBinClient, genericClient);
+        restClientService = new RestClientService(jsonPlaceholderClient, httpBinClient, genericClient,
+            new FanOutExecutor(new SimpleMeterRegistry(), 4, Duration.ofSeconds(2)));
     }
 
     // =================================
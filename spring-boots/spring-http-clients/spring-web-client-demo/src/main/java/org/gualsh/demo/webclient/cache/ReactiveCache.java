@@ -0,0 +1,87 @@
+package org.gualsh.demo.webclient.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Кеш результатов {@link Mono} поверх Caffeine {@link AsyncCache}.
+ *
+ * <p>{@code @Cacheable} на методе, возвращающем Mono, без асинхронной поддержки кеширует сам
+ * холодный Mono: каждое "попадание" заново выполняет HTTP запрос, а Mono с ошибкой остается
+ * в кеше до истечения TTL. Здесь кешируется значение:</p>
+ * <ul>
+ *   <li>в кеше хранится {@link CompletableFuture} значения; одновременные запросы по одному ключу
+ *   ждут один и тот же вызов загрузчика</li>
+ *   <li>ошибка и пустой Mono не кешируются: Caffeine удаляет future, завершившийся ошибкой
+ *   или null, и следующий запрос снова вызывает загрузчик</li>
+ *   <li>отмена подписки одного из ожидающих не отменяет общую загрузку</li>
+ * </ul>
+ *
+ * <p>TTL и размер задаются при создании кеша в {@link ReactiveCacheManager}.</p>
+ */
+@Slf4j
+public class ReactiveCache {
+
+    private final String name;
+
+    private final AsyncCache<Object, Object> cache;
+
+    public ReactiveCache(String name, AsyncCache<Object, Object> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    /**
+     * Возвращает значение из кеша или загружает его.
+     *
+     * @param key    ключ
+     * @param loader фабрика Mono, вызывается только при промахе
+     * @return Mono со значением
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(Object key, Supplier<? extends Mono<T>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<Object> future = cache.get(key, (k, executor) -> {
+                log.debug("Reactive cache {} miss for key {}", name, k);
+                return loader.get()
+                    .doOnError(error -> log.debug("Reactive cache {} load failed for key {}, not cached: {}",
+                        name, k, error.getMessage()))
+                    .map(Object.class::cast)
+                    .toFuture();
+            });
+            // suppressCancel: отмена одного подписчика не прерывает загрузку, которую ждут другие
+            return Mono.fromFuture(future, true).map(value -> (T) value);
+        });
+    }
+
+    /**
+     * Удаляет значение по ключу.
+     *
+     * @param key ключ
+     */
+    public void evict(Object key) {
+        cache.synchronous().invalidate(key);
+    }
+
+    /**
+     * Очищает кеш.
+     */
+    public void clear() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return нативный Caffeine кеш (для метрик и тестов)
+     */
+    public AsyncCache<Object, Object> getNativeCache() {
+        return cache;
+    }
+}
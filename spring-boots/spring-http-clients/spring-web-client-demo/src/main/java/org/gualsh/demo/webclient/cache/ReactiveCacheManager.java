@@ -0,0 +1,68 @@
+package org.gualsh.demo.webclient.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр именованных {@link ReactiveCache} с индивидуальными настройками Caffeine.
+ *
+ * <p>Каждый кеш регистрируется со своим TTL и размером (см. {@code CacheConfig}) и публикует
+ * стандартные метрики Caffeine ({@code cache.gets}, {@code cache.puts}, {@code cache.evictions}, ...)
+ * с тегами {@code cache} и {@code cache.manager=reactiveCacheManager}.</p>
+ */
+@Slf4j
+public class ReactiveCacheManager {
+
+    private static final String MANAGER_NAME = "reactiveCacheManager";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, ReactiveCache> caches = new ConcurrentHashMap<>();
+
+    public ReactiveCacheManager(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Регистрирует кеш.
+     *
+     * @param name    имя кеша
+     * @param caffeine настройки Caffeine (TTL, размер); статистика включается автоматически
+     * @return этот менеджер
+     */
+    public ReactiveCacheManager register(String name, Caffeine<Object, Object> caffeine) {
+        AsyncCache<Object, Object> cache = caffeine.recordStats().buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name, List.of(Tag.of("cache.manager", MANAGER_NAME)));
+        if (caches.putIfAbsent(name, new ReactiveCache(name, cache)) != null) {
+            throw new IllegalStateException("Reactive cache already registered: " + name);
+        }
+        log.info("Registered reactive cache: {}", name);
+        return this;
+    }
+
+    /**
+     * @param name имя кеша
+     * @return кеш
+     * @throws IllegalArgumentException если кеш не зарегистрирован
+     */
+    public ReactiveCache getCache(String name) {
+        ReactiveCache cache = caches.get(name);
+        if (cache == null) {
+            throw new IllegalArgumentException("Unknown reactive cache: " + name + ", registered: " + caches.keySet());
+        }
+        return cache;
+    }
+
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+}
@@ -0,0 +1,350 @@
+package org.gualsh.demo.webclient.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.config.ConcurrencyLimitProperties;
+import org.gualsh.demo.webclient.exception.CustomWebClientExceptions.ExternalApiException;
+import org.gualsh.demo.webclient.exception.CustomWebClientExceptions.ServiceUnavailableException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Адаптивное ограничение параллельности для fan-out запросов через WebClient.
+ *
+ * <p>Фиксированный {@code flatMap(..., 5)} либо недогружает быстрый сервер, либо добивает
+ * перегруженный. Здесь размер окна параллельных запросов подстраивается по AIMD с учетом задержки:</p>
+ * <ul>
+ *   <li>время ответа не выше {@code rtt-tolerance} x минимальное и окно используется хотя бы
+ *   наполовину - окно растет примерно на 1 за каждое окно успешных ответов (additive increase)</li>
+ *   <li>время ответа выше допустимого или ошибка перегрузки (5xx, 429, таймаут, ошибка соединения) -
+ *   окно умножается на {@code backoff-ratio}, не чаще одного раза за время ответа
+ *   (multiplicative decrease)</li>
+ *   <li>прочие ошибки (404, 400) и отмена на окно не влияют</li>
+ * </ul>
+ *
+ * <p>Минимальное время ответа медленно "дрейфует" вверх, чтобы лимитер подстраивался
+ * под устойчивое изменение задержки сервера, а не сжимал окно навсегда.</p>
+ *
+ * <p>Запросы сверх окна ждут в очереди без блокировки потока: слот выдается при завершении
+ * одного из выполняющихся запросов. Очередь длиннее {@code max-queue-size} отклоняется
+ * с {@link ServiceUnavailableException} без обращения к серверу.</p>
+ *
+ * <p>Метрики: {@code webclient.concurrency.limit}, {@code webclient.concurrency.inflight},
+ * {@code webclient.concurrency.queued}, {@code webclient.concurrency.rtt} и
+ * {@code webclient.concurrency.rejected} с тегом {@code name}.</p>
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double rttTolerance;
+
+    private final double backoffRatio;
+
+    private final int maxQueueSize;
+
+    private final LongSupplier clock;
+
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+
+    private final Timer rtt;
+
+    private final Counter rejected;
+
+    /**
+     * Текущее окно; дробная часть копит additive increase.
+     */
+    private double limit;
+
+    private int inFlight;
+
+    /**
+     * Минимальное наблюдаемое время ответа, 0 - еще не измерено.
+     */
+    private long minRttNanos;
+
+    private long lastDecreaseNanos;
+
+    /**
+     * @param name имя fan-out операции (тег метрик)
+     * @param properties настройки webclient.concurrency
+     * @param meterRegistry реестр метрик
+     */
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties,
+                                      MeterRegistry meterRegistry) {
+        this(name, properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties,
+                               MeterRegistry meterRegistry, LongSupplier clock) {
+        if (properties.getMinLimit() < 1 || properties.getMinLimit() > properties.getMaxLimit()
+            || properties.getInitialLimit() < properties.getMinLimit()
+            || properties.getInitialLimit() > properties.getMaxLimit()) {
+            throw new IllegalArgumentException("Invalid concurrency limits: min=" + properties.getMinLimit()
+                + ", initial=" + properties.getInitialLimit() + ", max=" + properties.getMaxLimit());
+        }
+        if (properties.getRttTolerance() < 1 || properties.getBackoffRatio() <= 0
+            || properties.getBackoffRatio() >= 1) {
+            throw new IllegalArgumentException("Invalid rttTolerance=" + properties.getRttTolerance()
+                + " or backoffRatio=" + properties.getBackoffRatio());
+        }
+        this.name = name;
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.rttTolerance = properties.getRttTolerance();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.maxQueueSize = properties.getMaxQueueSize();
+        this.clock = clock;
+        this.limit = properties.getInitialLimit();
+
+        this.rtt = Timer.builder("webclient.concurrency.rtt")
+            .description("Время выполнения запроса под адаптивным лимитом параллельности")
+            .tag("name", name)
+            .register(meterRegistry);
+        this.rejected = Counter.builder("webclient.concurrency.rejected")
+            .description("Запросы, отклоненные из-за переполнения очереди")
+            .tag("name", name)
+            .register(meterRegistry);
+        Gauge.builder("webclient.concurrency.limit", this, AdaptiveConcurrencyLimiter::limit)
+            .description("Текущий размер окна параллельных запросов")
+            .tag("name", name)
+            .register(meterRegistry);
+        Gauge.builder("webclient.concurrency.inflight", this, AdaptiveConcurrencyLimiter::inFlight)
+            .description("Выполняющиеся запросы")
+            .tag("name", name)
+            .register(meterRegistry);
+        Gauge.builder("webclient.concurrency.queued", this, AdaptiveConcurrencyLimiter::queued)
+            .description("Запросы, ожидающие свободного слота")
+            .tag("name", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Fan-out под адаптивным лимитом: замена {@code source.flatMap(mapper, concurrency)}.
+     *
+     * <p>flatMap подписывается не более чем на {@code max-limit} элементов, реальную
+     * параллельность ограничивает текущее окно лимитера.</p>
+     *
+     * @param source элементы для обработки
+     * @param mapper запрос для одного элемента
+     * @return результаты в порядке завершения
+     */
+    public <T, R> Flux<R> flatMap(Flux<T> source, Function<? super T, ? extends Mono<? extends R>> mapper) {
+        return source.flatMap(item -> execute(() -> mapper.apply(item)), maxLimit);
+    }
+
+    /**
+     * Выполняет запрос, когда в окне есть свободный слот.
+     *
+     * <p>Запрос создается при получении слота, поэтому время ожидания в очереди
+     * в его время ответа не входит.</p>
+     *
+     * @param call фабрика запроса
+     * @return результат запроса
+     */
+    public <T> Mono<T> execute(Supplier<? extends Mono<? extends T>> call) {
+        return Mono.usingWhen(
+            acquire(),
+            permit -> Mono.defer(call),
+            permit -> Mono.fromRunnable(() -> release(permit, Outcome.SUCCESS)),
+            (permit, error) -> Mono.fromRunnable(() -> release(permit, classify(error))),
+            permit -> Mono.fromRunnable(() -> release(permit, Outcome.IGNORED))
+        );
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            Permit granted = null;
+            Waiter waiter = null;
+            synchronized (this) {
+                if (queue.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    granted = new Permit(clock.getAsLong());
+                } else if (queue.size() < maxQueueSize) {
+                    waiter = new Waiter(sink);
+                    queue.addLast(waiter);
+                }
+            }
+
+            if (granted != null) {
+                sink.success(granted);
+            } else if (waiter != null) {
+                Waiter queued = waiter;
+                sink.onCancel(() -> cancel(queued));
+            } else {
+                rejected.increment();
+                log.warn("Concurrency limiter {} queue is full ({}), request rejected", name, maxQueueSize);
+                sink.error(new ServiceUnavailableException(
+                    "Client-side concurrency limit queue is full for " + name));
+            }
+        });
+    }
+
+    /**
+     * Отмена до выдачи слота убирает ожидающего из очереди; если слот уже выдан,
+     * но подписчик до него не дошел, слот возвращается.
+     */
+    private void cancel(Waiter waiter) {
+        boolean removed;
+        synchronized (this) {
+            removed = queue.remove(waiter);
+        }
+        if (!removed && waiter.permit != null) {
+            release(waiter.permit, Outcome.IGNORED);
+        }
+    }
+
+    private void release(Permit permit, Outcome outcome) {
+        if (!permit.released.compareAndSet(false, true)) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long rttNanos = now - permit.startNanos;
+
+        List<Waiter> granted;
+        synchronized (this) {
+            int inFlightBefore = inFlight--;
+            switch (outcome) {
+                case SUCCESS -> onSample(rttNanos, inFlightBefore, now);
+                case OVERLOAD -> decrease(now, rttNanos);
+                case IGNORED -> {
+                }
+            }
+            granted = drain(now);
+        }
+
+        if (outcome == Outcome.SUCCESS) {
+            rtt.record(rttNanos, TimeUnit.NANOSECONDS);
+        }
+        for (Waiter waiter : granted) {
+            waiter.sink.success(waiter.permit);
+        }
+    }
+
+    /**
+     * Выдает слоты ожидающим, пока окно позволяет. Вызывается под блокировкой,
+     * сами сигналы отправляются после ее освобождения.
+     */
+    private List<Waiter> drain(long now) {
+        List<Waiter> granted = new ArrayList<>();
+        while (!queue.isEmpty() && inFlight < (int) limit) {
+            Waiter waiter = queue.pollFirst();
+            waiter.permit = new Permit(now);
+            inFlight++;
+            granted.add(waiter);
+        }
+        return granted;
+    }
+
+    private void onSample(long rttNanos, int inFlightBefore, long now) {
+        if (minRttNanos == 0 || rttNanos < minRttNanos) {
+            minRttNanos = Math.max(1, rttNanos);
+        } else {
+            // Медленный дрейф вверх: ~0.1% на ответ
+            minRttNanos += Math.max(1, minRttNanos >> 10);
+        }
+
+        if (rttNanos > minRttNanos * rttTolerance) {
+            decrease(now, rttNanos);
+        } else if (inFlightBefore * 2 >= (int) limit) {
+            // Растем только если окно реально используется, иначе лимит "разбухнет" вхолостую
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private void decrease(long now, long rttNanos) {
+        // Одно сокращение за время ответа: запросы одного "залпа" видят одну и ту же перегрузку
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < rttNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        if ((int) previous != (int) limit) {
+            log.debug("Concurrency limiter {} decreased limit {} -> {}", name, (int) previous, (int) limit);
+        }
+    }
+
+    /**
+     * Признак перегрузки сервера; ошибки клиента (404, 400) ничего не говорят о его загрузке.
+     */
+    static Outcome classify(Throwable error) {
+        if (error instanceof WebClientResponseException ex) {
+            return isOverload(ex.getStatusCode().value()) ? Outcome.OVERLOAD : Outcome.IGNORED;
+        }
+        if (error instanceof ExternalApiException ex) {
+            return ex.getStatus() != null && isOverload(ex.getStatus().value()) ? Outcome.OVERLOAD : Outcome.IGNORED;
+        }
+        if (error instanceof TimeoutException || error instanceof WebClientRequestException) {
+            return Outcome.OVERLOAD;
+        }
+        return Outcome.IGNORED;
+    }
+
+    private static boolean isOverload(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    enum Outcome {
+        SUCCESS, OVERLOAD, IGNORED
+    }
+
+    private static final class Permit {
+
+        private final long startNanos;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final MonoSink<Permit> sink;
+
+        /**
+         * Выданный слот; пишется под блокировкой лимитера до отправки сигнала.
+         */
+        private volatile Permit permit;
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
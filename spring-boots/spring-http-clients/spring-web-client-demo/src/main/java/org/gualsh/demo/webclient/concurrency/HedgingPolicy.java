@@ -0,0 +1,232 @@
+package org.gualsh.demo.webclient.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.config.HedgingProperties;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged запросы для идемпотентных GET: снижение хвостовой задержки за счет дубля медленного запроса.
+ *
+ * <p>Если основной запрос не ответил за время, равное перцентилю ({@code webclient.hedging.percentile})
+ * времени ответа операции, отправляется такой же второй запрос. Побеждает первый ответ,
+ * проигравший запрос отменяется (Reactor отменяет подписку, соединение освобождается).</p>
+ *
+ * <ul>
+ *   <li>Перцентиль считается отдельно для каждой операции по окну последних ответов основного
+ *   запроса; пока измерений меньше {@code min-samples}, дубли не отправляются</li>
+ *   <li>Дополнительная нагрузка ограничена бюджетом: каждый основной запрос добавляет
+ *   {@code budget-ratio} токена, дубль тратит один; без токена дубль не отправляется</li>
+ *   <li>Ошибка основного запроса сразу возвращается вызывающему (повторы - задача retry),
+ *   ошибка дубля игнорируется - ждем основной</li>
+ * </ul>
+ *
+ * <p>Только для идемпотентных запросов: сервер может выполнить оба.</p>
+ *
+ * <p>Метрики с тегом {@code operation}: {@code webclient.hedging.issued} (отправленные дубли),
+ * {@code webclient.hedging.won} (дубль ответил первым), {@code webclient.hedging.skipped}
+ * (дубль нужен, но бюджет исчерпан) и {@code webclient.hedging.delay} (текущая задержка дубля, мс).</p>
+ */
+@Slf4j
+public class HedgingPolicy {
+
+    private static final long TOKEN = 1000;
+
+    private final HedgingProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Operation> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Бюджет дублей в тысячных долях токена, общий для всех операций.
+     */
+    private final AtomicLong budget = new AtomicLong();
+
+    private final long depositPerRequest;
+
+    private final long maxBudget;
+
+    public HedgingPolicy(HedgingProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getPercentile() <= 0 || properties.getPercentile() >= 1) {
+            throw new IllegalArgumentException("Percentile must be in (0, 1): " + properties.getPercentile());
+        }
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.depositPerRequest = Math.round(properties.getBudgetRatio() * TOKEN);
+        this.maxBudget = properties.getMaxBurst() * TOKEN;
+    }
+
+    /**
+     * Выполняет запрос с дублем после задержки, если hedging включен.
+     *
+     * @param operation имя операции: перцентиль и метрики считаются отдельно для каждой
+     * @param request фабрика идемпотентного запроса; вызывается для основного запроса и для дубля
+     * @return ответ, пришедший первым
+     */
+    public <T> Mono<T> hedge(String operation, Supplier<? extends Mono<T>> request) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(request);
+        }
+        Operation op = operations.computeIfAbsent(operation, this::createOperation);
+
+        return Mono.defer(() -> {
+            deposit();
+            long start = System.nanoTime();
+            Mono<T> primary = Mono.defer(request)
+                .doOnSuccess(value -> op.record(System.nanoTime() - start))
+                // Проигравший основной запрос все равно несет информацию о хвосте: он шел не меньше этого
+                .doOnCancel(() -> op.record(System.nanoTime() - start));
+
+            Duration delay = op.hedgeDelay();
+            if (delay == null) {
+                return primary;
+            }
+
+            Mono<Attempt<T>> hedged = Mono.delay(delay)
+                .flatMap(tick -> {
+                    if (!tryAcquire()) {
+                        op.skipped.increment();
+                        return Mono.never();
+                    }
+                    op.issued.increment();
+                    log.debug("Hedging {} after {} ms", operation, delay.toMillis());
+                    return Mono.defer(request)
+                        .map(value -> new Attempt<>(value, true))
+                        .onErrorResume(error -> {
+                            log.debug("Hedged request {} failed: {}", operation, error.getMessage());
+                            return Mono.never();
+                        });
+                });
+
+            return Mono.firstWithSignal(primary.map(value -> new Attempt<>(value, false)), hedged)
+                .doOnNext(attempt -> {
+                    if (attempt.hedged()) {
+                        op.won.increment();
+                    }
+                })
+                .map(Attempt::value);
+        });
+    }
+
+    private void deposit() {
+        budget.accumulateAndGet(depositPerRequest, (current, deposit) -> Math.min(maxBudget, current + deposit));
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            long current = budget.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (budget.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    private Operation createOperation(String operation) {
+        return new Operation(operation, properties, meterRegistry);
+    }
+
+    /**
+     * Записывает время ответа операции (используется в тестах для прогрева окна).
+     */
+    void record(String operation, Duration latency) {
+        operations.computeIfAbsent(operation, this::createOperation).record(latency.toNanos());
+    }
+
+    /**
+     * @return текущая задержка дубля операции или null, если дубли еще не отправляются
+     */
+    Duration hedgeDelay(String operation) {
+        Operation op = operations.get(operation);
+        return op != null ? op.hedgeDelay() : null;
+    }
+
+    private record Attempt<T>(T value, boolean hedged) {
+    }
+
+    /**
+     * Окно времен ответа и метрики одной операции.
+     */
+    private static final class Operation {
+
+        /**
+         * Перцентиль пересчитывается не на каждый запрос, а раз в столько ответов.
+         */
+        private static final int RECALCULATE_EVERY = 16;
+
+        private final long[] window;
+
+        private final int minSamples;
+
+        private final double percentile;
+
+        private final long minDelayNanos;
+
+        private final long maxDelayNanos;
+
+        private final Counter issued;
+
+        private final Counter won;
+
+        private final Counter skipped;
+
+        private int samples;
+
+        private int next;
+
+        private volatile long delayNanos = -1;
+
+        private Operation(String operation, HedgingProperties properties, MeterRegistry meterRegistry) {
+            this.window = new long[properties.getSampleWindow()];
+            this.minSamples = Math.min(properties.getMinSamples(), window.length);
+            this.percentile = properties.getPercentile();
+            this.minDelayNanos = properties.getMinDelay().toNanos();
+            this.maxDelayNanos = properties.getMaxDelay().toNanos();
+            this.issued = counter(meterRegistry, "webclient.hedging.issued", "Отправленные дублирующие запросы", operation);
+            this.won = counter(meterRegistry, "webclient.hedging.won", "Дублирующие запросы, ответившие первыми", operation);
+            this.skipped = counter(meterRegistry, "webclient.hedging.skipped", "Дубли, не отправленные из-за исчерпания бюджета", operation);
+            Gauge.builder("webclient.hedging.delay", this,
+                    op -> op.delayNanos < 0 ? Double.NaN : TimeUnit.NANOSECONDS.toMillis(op.delayNanos))
+                .description("Текущая задержка перед отправкой дубля, мс")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        }
+
+        private static Counter counter(MeterRegistry meterRegistry, String name, String description, String operation) {
+            return Counter.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .register(meterRegistry);
+        }
+
+        private synchronized void record(long latencyNanos) {
+            window[next] = latencyNanos;
+            next = (next + 1) % window.length;
+            samples++;
+            if (samples >= minSamples && (samples % RECALCULATE_EVERY == 0 || delayNanos < 0)) {
+                long[] sorted = Arrays.copyOf(window, Math.min(samples, window.length));
+                Arrays.sort(sorted);
+                long value = sorted[(int) Math.ceil(percentile * sorted.length) - 1];
+                delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, value));
+            }
+        }
+
+        private Duration hedgeDelay() {
+            long delay = delayNanos;
+            return delay < 0 ? null : Duration.ofNanos(delay);
+        }
+    }
+}
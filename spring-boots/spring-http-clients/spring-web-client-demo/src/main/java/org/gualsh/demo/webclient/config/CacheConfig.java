@@ -1,14 +1,14 @@
 package org.gualsh.demo.webclient.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.cache.ReactiveCacheManager;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Primary;
 
 import java.time.Duration;
 
@@ -18,58 +18,24 @@ import java.time.Duration;
  * <p>Настраивает различные кэши с индивидуальными политиками:</p>
  * <ul>
  *   <li>users - кэш пользователей (долгосрочное хранение)</li>
- *   <li>posts - кэш постов (среднесрочное хранение)</li>
  *   <li>weather - кэш погодных данных (краткосрочное хранение)</li>
  * </ul>
  *
  * <p>Caffeine обеспечивает высокую производительность и эффективное
  * управление памятью с поддержкой различных политик выселения.</p>
  *
+ * <p>Методы сервисов возвращают {@code Mono} и кешируются через {@link ReactiveCacheManager}
+ * (кешируются значения, а не Mono). Аннотаций Spring Cache в приложении нет, поэтому
+ * {@code @EnableCaching} не нужен; менеджеры Spring Cache ниже включаются свойствами
+ * {@code cache.*.enabled} и видны в {@code /actuator/caches}.</p>
+ *
  * @see Caffeine
  * @see CacheManager
  */
 @Slf4j
 @Configuration
-@EnableCaching
 public class CacheConfig {
 
-    /**
-     * Основной менеджер кэша с настройками по умолчанию.
-     *
-     * <p>Использует Caffeine с базовыми настройками производительности:</p>
-     * <ul>
-     *   <li>Максимум 1000 записей</li>
-     *   <li>Время жизни 5 минут</li>
-     *   <li>Статистика включена для мониторинга</li>
-     *   <li>Асинхронный режим для reactive операций</li>
-     * </ul>
-     *
-     * @return настроенный CacheManager
-     */
-    @Bean
-    @Primary
-    public CacheManager cacheManager() {
-        log.info("Configuring Caffeine Cache Manager with async support");
-
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-
-        // ВАЖНО: Включаем асинхронный режим для reactive операций
-        cacheManager.setAsyncCacheMode(true);
-
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .maximumSize(1000)
-            .expireAfterWrite(Duration.ofMinutes(5))
-            .recordStats() // Включаем статистику для мониторинга
-            .removalListener((key, value, cause) ->
-                log.debug("Cache entry removed: key={}, cause={}", key, cause))
-        );
-
-        // Предустановленные имена кэшей
-        cacheManager.setCacheNames(java.util.List.of("users", "posts", "weather"));
-
-        return cacheManager;
-    }
-
     /**
      * Специализированный кэш для пользователей.
      *
@@ -165,4 +131,33 @@ public class CacheConfig {
 
         return cacheManager;
     }
-}
\ No newline at end of file
+
+    /**
+     * Менеджер реактивных кешей для методов, возвращающих {@code Mono}.
+     *
+     * <p>Кеширует значения, объединяет одновременные загрузки одного ключа и не кеширует ошибки.
+     * У каждого кеша свой TTL:</p>
+     * <ul>
+     *   <li>users - 500 записей, 30 минут после записи, 10 минут без обращений</li>
+     *   <li>weather - 100 записей, 2 минуты</li>
+     * </ul>
+     *
+     * @param meterRegistry реестр метрик
+     * @return менеджер реактивных кешей
+     */
+    @Bean
+    public ReactiveCacheManager reactiveCacheManager(MeterRegistry meterRegistry) {
+        log.info("Configuring reactive cache manager");
+
+        return new ReactiveCacheManager(meterRegistry)
+            .register("users", Caffeine.newBuilder()
+                .maximumSize(500)
+                .expireAfterWrite(Duration.ofMinutes(30))
+                .expireAfterAccess(Duration.ofMinutes(10)))
+            .register("weather", Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(Duration.ofMinutes(2))
+                .removalListener((key, value, cause) ->
+                    log.debug("Weather cache entry removed: key={}, cause={}", key, cause)));
+    }
+}
@@ -0,0 +1,48 @@
+package org.gualsh.demo.webclient.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки адаптивного ограничения параллельности fan-out запросов ({@code webclient.concurrency}).
+ *
+ * <p>Окно параллельных запросов меняется между {@code min-limit} и {@code max-limit}:
+ * растет, пока время ответа близко к минимальному, и уменьшается при росте задержки или ошибках
+ * перегрузки.</p>
+ *
+ * @see org.gualsh.demo.webclient.concurrency.AdaptiveConcurrencyLimiter
+ */
+@Data
+@ConfigurationProperties(prefix = "webclient.concurrency")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * Начальный размер окна (прежнее фиксированное значение flatMap).
+     */
+    private int initialLimit = 5;
+
+    /**
+     * Нижняя граница окна.
+     */
+    private int minLimit = 1;
+
+    /**
+     * Верхняя граница окна.
+     */
+    private int maxLimit = 50;
+
+    /**
+     * Во сколько раз время ответа может превышать минимальное, прежде чем окно начнет сокращаться.
+     */
+    private double rttTolerance = 2.0;
+
+    /**
+     * Множитель окна при перегрузке (multiplicative decrease).
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * Максимальная длина очереди ожидающих запросов; сверх нее запросы отклоняются.
+     */
+    private int maxQueueSize = 1000;
+}
@@ -0,0 +1,87 @@
+package org.gualsh.demo.webclient.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import reactor.netty.http.HttpProtocol;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Настройки пула соединений Reactor Netty для WebClient ({@code webclient.connection-pool}).
+ *
+ * <p>Основные источники лишних переподключений:</p>
+ * <ul>
+ *   <li>FIFO выдача размазывает редкие запросы по всем соединениям пула: каждое простаивает
+ *   дольше max-idle-time и закрывается при следующей выдаче. LIFO отдает последнее возвращенное
+ *   соединение, и при той же нагрузке работают несколько "горячих" соединений</li>
+ *   <li>max-idle-time больше keep-alive таймаута сервера: пул держит соединения, которые сервер
+ *   уже закрыл</li>
+ *   <li>слишком короткий max-life-time принудительно пересоздает живые соединения</li>
+ * </ul>
+ */
+@Data
+@ConfigurationProperties(prefix = "webclient.connection-pool")
+public class ConnectionPoolProperties {
+
+    /**
+     * Максимум соединений на один удаленный адрес (для HTTP/2 - соединений, не потоков).
+     */
+    private int maxConnections = 100;
+
+    /**
+     * Сколько запросов может ждать свободное соединение; сверх этого запрос сразу завершается ошибкой.
+     * -1 - без ограничения.
+     */
+    private int pendingAcquireMaxCount = 200;
+
+    /**
+     * Сколько запрос ждет свободное соединение.
+     */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+    /**
+     * Соединение, простаивающее дольше, закрывается. Держать меньше keep-alive таймаута сервера.
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(20);
+
+    /**
+     * Максимальное время жизни соединения (балансировка при смене адресов за DNS).
+     */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    /**
+     * Период фоновой очистки простаивающих и просроченных соединений. 0 - очистка только при выдаче.
+     */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+
+    /**
+     * Порядок выдачи свободных соединений.
+     */
+    private LeasingStrategy leasingStrategy = LeasingStrategy.LIFO;
+
+    /**
+     * Публиковать метрики пула {@code reactor.netty.connection.provider.*} (тег remote.address).
+     */
+    private boolean metrics = true;
+
+    /**
+     * Протоколы HTTP клиента: HTTP11, H2C (HTTP/2 без TLS, prior knowledge) или H2 (HTTP/2 по TLS + ALPN).
+     * H2C подходит только для http:// адресов.
+     */
+    private List<HttpProtocol> protocols = List.of(HttpProtocol.HTTP11);
+
+    /**
+     * Порядок выдачи свободных соединений.
+     */
+    public enum LeasingStrategy {
+        /**
+         * Первым выдается давно простаивающее соединение (по умолчанию в Reactor Netty).
+         */
+        FIFO,
+        /**
+         * Первым выдается последнее возвращенное соединение.
+         */
+        LIFO
+    }
+}
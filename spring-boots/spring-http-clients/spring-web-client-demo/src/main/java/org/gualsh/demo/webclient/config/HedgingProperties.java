@@ -0,0 +1,61 @@
+package org.gualsh.demo.webclient.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Настройки hedged запросов ({@code webclient.hedging}).
+ *
+ * <p>Дублирующий запрос уходит, если основной не ответил за время, равное
+ * {@code percentile} времени ответа операции (в пределах {@code min-delay}..{@code max-delay}).
+ * Дополнительная нагрузка ограничена бюджетом: не больше {@code budget-ratio} дублей
+ * на один основной запрос.</p>
+ *
+ * @see org.gualsh.demo.webclient.concurrency.HedgingPolicy
+ */
+@Data
+@ConfigurationProperties(prefix = "webclient.hedging")
+public class HedgingProperties {
+
+    /**
+     * Включить hedging. По умолчанию выключен: дубли увеличивают нагрузку на внешний API.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Перцентиль времени ответа, после которого отправляется дубль.
+     */
+    private double percentile = 0.95;
+
+    /**
+     * Нижняя граница задержки дубля.
+     */
+    private Duration minDelay = Duration.ofMillis(10);
+
+    /**
+     * Верхняя граница задержки дубля.
+     */
+    private Duration maxDelay = Duration.ofSeconds(1);
+
+    /**
+     * Сколько ответов операции нужно измерить, прежде чем начать отправлять дубли.
+     */
+    private int minSamples = 50;
+
+    /**
+     * Размер окна последних измерений, по которому считается перцентиль.
+     */
+    private int sampleWindow = 512;
+
+    /**
+     * Доля дублей от основных запросов (0.1 - не больше 10% дополнительной нагрузки).
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * Сколько дублей можно отправить подряд из накопленного бюджета.
+     */
+    private int maxBurst = 10;
+}
@@ -0,0 +1,41 @@
+package org.gualsh.demo.webclient.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Настройки HTTP кеша ответов WebClient ({@code webclient.http-cache}).
+ *
+ * <p>В отличие от {@link CacheConfig} (кеш результатов методов по времени), этот кеш следует
+ * HTTP семантике: свежесть задает сервер через Cache-Control/Expires, а после ее истечения
+ * ответ перепроверяется условным запросом по ETag/Last-Modified.</p>
+ *
+ * @see org.gualsh.demo.webclient.filter.HttpCacheFilter
+ */
+@Data
+@ConfigurationProperties(prefix = "webclient.http-cache")
+public class HttpCacheProperties {
+
+    /**
+     * Включить HTTP кеш ответов.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Суммарный размер тел и заголовков в кеше; при превышении вытесняются редко используемые записи.
+     */
+    private DataSize maximumSize = DataSize.ofMegabytes(10);
+
+    /**
+     * Ответы больше этого размера не кешируются (но передаются вызывающему без изменений).
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(1);
+
+    /**
+     * Сколько хранить запись без обращений: устаревшая запись нужна для условного запроса.
+     */
+    private Duration retention = Duration.ofHours(1);
+}
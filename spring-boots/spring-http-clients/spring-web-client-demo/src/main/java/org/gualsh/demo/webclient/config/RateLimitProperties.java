@@ -0,0 +1,74 @@
+package org.gualsh.demo.webclient.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Настройки клиентского rate limiting ({@code webclient.rate-limit}).
+ *
+ * <p>Лимит действует отдельно на каждый базовый URL (схема, хост, порт).
+ * Значения верхнего уровня - лимиты по умолчанию, {@code hosts} переопределяет их
+ * для конкретного базового URL.</p>
+ *
+ * @see org.gualsh.demo.webclient.filter.RateLimitingFilter
+ */
+@Data
+@ConfigurationProperties(prefix = "webclient.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Включить ограничение скорости на клиенте.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Лимиты по умолчанию.
+     */
+    private Limit defaults = new Limit();
+
+    /**
+     * Лимиты для конкретных базовых URL, например {@code "[https://api.openweathermap.org]"}.
+     */
+    private Map<String, Limit> hosts = new LinkedHashMap<>();
+
+    /**
+     * Возвращает лимит для базового URL.
+     *
+     * @param baseUrl базовый URL (схема://хост[:порт])
+     * @return лимит из hosts или лимит по умолчанию
+     */
+    public Limit limitFor(String baseUrl) {
+        return hosts.getOrDefault(baseUrl, defaults);
+    }
+
+    /**
+     * Параметры token bucket.
+     */
+    @Data
+    public static class Limit {
+
+        /**
+         * Базовая скорость, запросов в секунду.
+         */
+        private double permitsPerSecond = 50;
+
+        /**
+         * Минимальная скорость, до которой лимит снижается при ответах 429.
+         */
+        private double minPermitsPerSecond = 1;
+
+        /**
+         * Количество запросов, выполняемых подряд без задержки после простоя.
+         */
+        private int burst = 50;
+
+        /**
+         * Максимальная задержка запроса; если ждать нужно дольше, запрос отклоняется.
+         */
+        private Duration maxDelay = Duration.ofSeconds(5);
+    }
+}
@@ -1,11 +1,17 @@
 package org.gualsh.demo.webclient.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.concurrency.AdaptiveConcurrencyLimiter;
+import org.gualsh.demo.webclient.concurrency.HedgingPolicy;
 import org.gualsh.demo.webclient.exception.CustomWebClientExceptions.*;
+import org.gualsh.demo.webclient.filter.HttpCacheFilter;
+import org.gualsh.demo.webclient.filter.RateLimitingFilter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
@@ -16,10 +22,10 @@ import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.web.reactive.function.client.*;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.resources.ConnectionProvider;
 
-import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -40,23 +46,23 @@ import java.util.concurrent.TimeUnit;
  */
 @Slf4j
 @Configuration
+@EnableConfigurationProperties({
+    RateLimitProperties.class,
+    ConcurrencyLimitProperties.class,
+    HedgingProperties.class,
+    HttpCacheProperties.class,
+    ConnectionPoolProperties.class
+})
 public class WebClientConfig {
 
-    @Value("${webclient.max-memory-size:2MB}")
+    /**
+     * Лимит на агрегированное тело (bodyToMono) и на один элемент потоково декодируемого
+     * JSON массива (bodyToFlux). Большие массивы читаются через bodyToFlux и лимитом
+     * на весь ответ не ограничиваются.
+     */
+    @Value("${webclient.max-memory-size:256KB}")
     private String maxMemorySize;
 
-    @Value("${webclient.connection-pool.max-connections:100}")
-    private int maxConnections;
-
-    @Value("${webclient.connection-pool.pending-acquire-timeout:45s}")
-    private Duration pendingAcquireTimeout;
-
-    @Value("${webclient.connection-pool.max-idle-time:20s}")
-    private Duration maxIdleTime;
-
-    @Value("${webclient.connection-pool.max-life-time:60s}")
-    private Duration maxLifeTime;
-
     /**
      * Создает основной WebClient bean с оптимизированными настройками.
      *
@@ -64,7 +70,7 @@ public class WebClientConfig {
      * <ul>
      *   <li>Connection pooling с ограничениями</li>
      *   <li>Таймауты чтения и записи</li>
-     *   <li>Увеличенный размер буфера памяти</li>
+     *   <li>Ограниченный размер буфера памяти (массивы декодируются потоково)</li>
      *   <li>Фильтры для логирования и обработки ошибок</li>
      * </ul>
      *
@@ -73,42 +79,26 @@ public class WebClientConfig {
      * 2. Таймауты предотвращают зависание приложения при проблемах с сетью
      * 3. Фильтры обеспечивают сквозную функциональность (логирование, ошибки)
      *
+     * @param connectionProvider пул соединений
+     * @param poolProperties     настройки webclient.connection-pool (протоколы HTTP)
      * @return настроенный экземпляр WebClient
      */
     @Bean
-    public WebClient webClient() {
-        log.info("Creating WebClient with connection pool max connections: {}", maxConnections);
-
-        // Настройка connection pool
-        // Connection pooling - критически важно для производительности
-        ConnectionProvider connectionProvider = ConnectionProvider.builder("custom")
-            .maxConnections(maxConnections)
-            .pendingAcquireTimeout(pendingAcquireTimeout)
-            .maxIdleTime(maxIdleTime)
-            .maxLifeTime(maxLifeTime)
-            .build();
+    public WebClient webClient(ConnectionProvider connectionProvider, ConnectionPoolProperties poolProperties) {
+        log.info("Creating WebClient with protocols: {}", poolProperties.getProtocols());
 
         // Настройка HTTP клиента с таймаутами
         HttpClient httpClient = HttpClient.create(connectionProvider)
+            .protocol(poolProperties.getProtocols().toArray(HttpProtocol[]::new))
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000) // Connection timeout
             .doOnConnected(conn ->
                 conn.addHandlerLast(new ReadTimeoutHandler(30, TimeUnit.SECONDS)) // Read timeout
                     .addHandlerLast(new WriteTimeoutHandler(30, TimeUnit.SECONDS))) // Write timeout
             .compress(true);
 
-        // Настройка стратегий обмена с увеличенным размером буфера
-        ExchangeStrategies strategies = ExchangeStrategies.builder()
-            .codecs(configurer -> {
-                configurer.defaultCodecs().maxInMemorySize(parseSize(maxMemorySize));
-                // Настройка Jackson кодеков
-                configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder());
-                configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder());
-            })
-            .build();
-
         return WebClient.builder()
             .clientConnector(new ReactorClientHttpConnector(httpClient))
-            .exchangeStrategies(strategies)
+            .exchangeStrategies(exchangeStrategies())
 
             .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
             .defaultHeader(HttpHeaders.USER_AGENT, "WebClient-Demo/1.0")
@@ -119,6 +109,52 @@ public class WebClientConfig {
             .build();
     }
 
+    /**
+     * Пул соединений Reactor Netty, общий для всех WebClient приложения.
+     *
+     * <p>Connection pooling - критически важно для производительности: лимиты пула и очереди
+     * ожидающих, LIFO/FIFO выдача, фоновая очистка простаивающих соединений и метрики пула
+     * по каждому удаленному адресу настраиваются в webclient.connection-pool.</p>
+     *
+     * @param properties настройки webclient.connection-pool
+     * @return пул соединений; закрывается вместе с контекстом
+     * @see ConnectionPoolProperties
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider webClientConnectionProvider(ConnectionPoolProperties properties) {
+        log.info("Creating connection pool: maxConnections={}, pendingAcquireMaxCount={}, leasing={}, metrics={}",
+            properties.getMaxConnections(), properties.getPendingAcquireMaxCount(),
+            properties.getLeasingStrategy(), properties.isMetrics());
+        return connectionProvider("webclient", properties);
+    }
+
+    /**
+     * Собирает пул соединений по настройкам.
+     *
+     * @param name       имя пула (тег name в метриках)
+     * @param properties настройки пула
+     * @return пул соединений
+     */
+    static ConnectionProvider connectionProvider(String name, ConnectionPoolProperties properties) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(name)
+            .maxConnections(properties.getMaxConnections())
+            .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+            .maxIdleTime(properties.getMaxIdleTime())
+            .maxLifeTime(properties.getMaxLifeTime())
+            // метрики с тегом remote.address: отдельные значения для каждого внешнего API
+            .metrics(properties.isMetrics());
+        if (!properties.getEvictionInterval().isZero()) {
+            builder.evictInBackground(properties.getEvictionInterval());
+        }
+        if (properties.getLeasingStrategy() == ConnectionPoolProperties.LeasingStrategy.LIFO) {
+            builder.lifo();
+        } else {
+            builder.fifo();
+        }
+        return builder.build();
+    }
+
     /**
      * Создает WebClient для JSONPlaceholder API.<p>
      * Для разных внешних API часто требуются разные настройки.
@@ -129,12 +165,16 @@ public class WebClientConfig {
      * - Специфичные заголовки
      * - Различные retry политики
      *
+     * @param httpCacheFilter        HTTP кеш ответов (ETag/Last-Modified, Cache-Control)
+     * @param rateLimitingFilter     клиентский rate limiter (свой бакет на каждый базовый URL)
      * @param jsonPlaceholderBaseUrl базовый URL для JSONPlaceholder
      * @return WebClient с предустановленным base URL
      */
     @Bean
     public WebClient jsonPlaceholderWebClient(
         WebClient webClient,
+        HttpCacheFilter httpCacheFilter,
+        RateLimitingFilter rateLimitingFilter,
         @Value("${external-api.jsonplaceholder.base-url}") String jsonPlaceholderBaseUrl
     ) {
 
@@ -143,6 +183,8 @@ public class WebClientConfig {
         return webClient
             .mutate() // копируем и создаём новый
             .baseUrl(jsonPlaceholderBaseUrl)
+            .filter(httpCacheFilter) // до rate limiter: ответ из кеша не тратит разрешения
+            .filter(rateLimitingFilter)
             .build();
     }
 
@@ -156,6 +198,8 @@ public class WebClientConfig {
      * - Специфичные заголовки
      * - Различные retry политики
      *
+     * @param httpCacheFilter HTTP кеш ответов (ETag/Last-Modified, Cache-Control)
+     * @param rateLimitingFilter клиентский rate limiter (свой бакет на каждый базовый URL)
      * @param weatherBaseUrl базовый URL для Weather API
      * @param weatherApiKey  API ключ для Weather сервиса
      * @return WebClient с предустановленными настройками для Weather API
@@ -163,6 +207,8 @@ public class WebClientConfig {
     @Bean
     public WebClient weatherWebClient(
         WebClient webClient,
+        HttpCacheFilter httpCacheFilter,
+        RateLimitingFilter rateLimitingFilter,
         @Value("${external-api.weather.base-url}") String weatherBaseUrl,
         @Value("${external-api.weather.api-key}") String weatherApiKey
     ) {
@@ -173,10 +219,79 @@ public class WebClientConfig {
             .mutate() // копируем и создаём новый
             .baseUrl(weatherBaseUrl)
             .defaultHeader("X-API-Key", weatherApiKey)
-            .filter(rateLimitingFilter())
+            .filter(httpCacheFilter)
+            .filter(rateLimitingFilter)
             .build();
     }
 
+    /**
+     * Фильтр для ограничения скорости запросов (rate limiting).
+     *
+     * <p>Token bucket на каждый базовый URL: запросы сверх лимита откладываются без блокировки
+     * потока, а при ответах 429/Retry-After скорость снижается. Один экземпляр на приложение,
+     * поэтому клиенты с одним базовым URL делят общий лимит.</p>
+     *
+     * @param properties    настройки webclient.rate-limit
+     * @param meterRegistry реестр метрик
+     * @return фильтр для rate limiting
+     * @see RateLimitingFilter
+     */
+    @Bean
+    public RateLimitingFilter rateLimitingFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new RateLimitingFilter(properties, meterRegistry);
+    }
+
+    /**
+     * HTTP кеш ответов с условной перепроверкой (If-None-Match/If-Modified-Since).
+     *
+     * <p>Один экземпляр на приложение; ключ записи - полный URL запроса, поэтому клиенты
+     * разных API не пересекаются. Размер ограничен в байтах (webclient.http-cache.maximum-size).</p>
+     *
+     * @param properties    настройки webclient.http-cache
+     * @param meterRegistry реестр метрик
+     * @return фильтр HTTP кеша
+     * @see HttpCacheFilter
+     */
+    @Bean
+    public HttpCacheFilter httpCacheFilter(HttpCacheProperties properties, MeterRegistry meterRegistry) {
+        return new HttpCacheFilter(properties, exchangeStrategies(), meterRegistry);
+    }
+
+    /**
+     * Адаптивный лимит параллельности для fan-out запросов к JSONPlaceholder API.
+     *
+     * <p>Окно растет, пока сервер отвечает быстро, и сокращается при росте задержки или 5xx/429.
+     * Для другой fan-out операции заводится свой экземпляр со своим именем.</p>
+     *
+     * @param properties    настройки webclient.concurrency
+     * @param meterRegistry реестр метрик
+     * @return лимитер с именем "jsonplaceholder"
+     * @see AdaptiveConcurrencyLimiter
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter jsonPlaceholderConcurrencyLimiter(
+        ConcurrencyLimitProperties properties,
+        MeterRegistry meterRegistry
+    ) {
+        return new AdaptiveConcurrencyLimiter("jsonplaceholder", properties, meterRegistry);
+    }
+
+    /**
+     * Политика hedged запросов для идемпотентных GET (включается webclient.hedging.enabled).
+     *
+     * <p>Один экземпляр на приложение: бюджет дублей общий для всех сервисов,
+     * перцентиль задержки считается по имени операции.</p>
+     *
+     * @param properties    настройки webclient.hedging
+     * @param meterRegistry реестр метрик
+     * @return политика hedging
+     * @see HedgingPolicy
+     */
+    @Bean
+    public HedgingPolicy hedgingPolicy(HedgingProperties properties, MeterRegistry meterRegistry) {
+        return new HedgingPolicy(properties, meterRegistry);
+    }
+
     /**
      * Фильтр для логирования запросов и ответов.<p>
      * Фильтры - это мощный механизм для добавления сквозной функциональности.
@@ -327,30 +442,6 @@ public class WebClientConfig {
         }
     }
 
-    /**
-     * Фильтр для ограничения скорости запросов (rate limiting).
-     *
-     * <p>Применяет exponential backoff при превышении лимитов.</p>
-     *
-     * @return фильтр для rate limiting
-     */
-    private ExchangeFilterFunction rateLimitingFilter() {
-        return ExchangeFilterFunction.ofResponseProcessor(clientResponse -> {
-            if (clientResponse.statusCode().value() == 429) { // Too Many Requests
-                log.warn("Rate limit exceeded, applying backoff");
-                return Mono.error(new WebClientResponseException(
-                    "Rate limit exceeded",
-                    429,
-                    "Too Many Requests",
-                    null,
-                    null,
-                    null
-                ));
-            }
-            return Mono.just(clientResponse);
-        });
-    }
-
     /**
      * Проверяет, является ли заголовок чувствительным для логирования.
      *
@@ -365,6 +456,21 @@ public class WebClientConfig {
             lowerCaseName.contains("password");
     }
 
+    /**
+     * Стратегии обмена: лимит буфера на тело или на элемент JSON массива и Jackson кодеки.
+     * Используются и WebClient, и HTTP кешем для ответов, собранных из кеша.
+     */
+    private ExchangeStrategies exchangeStrategies() {
+        return ExchangeStrategies.builder()
+            .codecs(configurer -> {
+                configurer.defaultCodecs().maxInMemorySize(parseSize(maxMemorySize));
+                // Настройка Jackson кодеков
+                configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder());
+                configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder());
+            })
+            .build();
+    }
+
     /**
      * Парсит строковое представление размера в байты.
      *
@@ -3,6 +3,7 @@ package org.gualsh.demo.webclient.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.gualsh.demo.webclient.dto.*;
+import org.gualsh.demo.webclient.pagination.PaginatedFetcher;
 import org.gualsh.demo.webclient.service.JsonPlaceholderService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -68,6 +69,34 @@ public class JsonPlaceholderController {
             .onErrorReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
     }
 
+    /**
+     * Потоково отдает всех пользователей в формате NDJSON.
+     *
+     * <p>Элементы JSON массива внешнего API декодируются по одному и сразу пишутся в ответ,
+     * ни тело внешнего ответа, ни список целиком в памяти не собираются.</p>
+     *
+     * @return Flux с пользователями в виде application/x-ndjson
+     */
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserDto> streamAllUsers() {
+        log.info("REST: Streaming all users");
+
+        return jsonPlaceholderService.streamAllUsers();
+    }
+
+    /**
+     * Потоково отдает все посты в формате NDJSON.
+     *
+     * @return Flux с постами в виде application/x-ndjson
+     * @see #streamAllUsers()
+     */
+    @GetMapping(value = "/posts/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostDto> streamAllPosts() {
+        log.info("REST: Streaming all posts");
+
+        return jsonPlaceholderService.streamAllPosts();
+    }
+
     /**
      * Получает пользователя по ID.
      *
@@ -142,6 +171,23 @@ public class JsonPlaceholderController {
             });
     }
 
+    /**
+     * Потоково отдает все посты, загружая страницы внешнего API параллельно.
+     *
+     * @param size  размер страницы внешнего API (по умолчанию 20)
+     * @param limit сколько постов отдать (по умолчанию все)
+     * @return Flux с постами в порядке страниц в виде application/x-ndjson
+     */
+    @GetMapping(value = "/posts/paged-stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PostDto> streamPostsPaginated(
+        @RequestParam(defaultValue = "20") @Min(1) int size,
+        @RequestParam(required = false) @Min(1) Long limit) {
+        log.info("REST: Streaming posts page by page: size={}, limit={}", size, limit);
+
+        return jsonPlaceholderService.streamAllPostsPaginated(size,
+            limit != null ? limit : PaginatedFetcher.UNLIMITED);
+    }
+
     /**
      * Создает новый пост.
      *
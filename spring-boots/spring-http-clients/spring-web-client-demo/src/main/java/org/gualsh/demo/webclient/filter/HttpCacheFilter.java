@@ -0,0 +1,419 @@
+package org.gualsh.demo.webclient.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.config.HttpCacheProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * HTTP кеш ответов на GET запросы по правилам Cache-Control, ETag и Last-Modified.
+ *
+ * <p>Кеш по времени отбрасывает запись по истечении TTL, и следующий запрос снова скачивает
+ * весь ответ, даже если он не изменился. Здесь запись живет дольше своей свежести:</p>
+ * <ul>
+ *   <li><b>свежая</b> (моложе {@code max-age} из Cache-Control или Expires) - ответ собирается
+ *   из кеша без обращения к серверу</li>
+ *   <li><b>устаревшая</b> - запрос уходит с If-None-Match/If-Modified-Since; на 304 Not Modified
+ *   тело берется из кеша, а свежесть обновляется по заголовкам 304</li>
+ *   <li>ответ 200 с {@code no-store}, {@code Vary: *} или без свежести и валидаторов не кешируется</li>
+ * </ul>
+ *
+ * <p>Тело кешируемого ответа копируется по мере чтения, поэтому потоковое декодирование
+ * (bodyToFlux) продолжает работать; ответы больше {@code max-entry-size} передаются как есть и
+ * не кешируются. Размер кеша ограничен в байтах: вес записи - размер тела и заголовков.</p>
+ *
+ * <p>POST/PUT/PATCH/DELETE на URL удаляют его запись. Запросы, в которых вызывающий код сам задал
+ * условные заголовки или {@code Cache-Control: no-store}, идут мимо кеша;
+ * {@code Cache-Control: no-cache} в запросе заставляет перепроверить свежую запись.</p>
+ *
+ * <p>Метрики: {@code webclient.http_cache.requests{outcome=hit|revalidated|miss|bypass}},
+ * {@code webclient.http_cache.size} (байт) и {@code webclient.http_cache.entries}.</p>
+ */
+@Slf4j
+public class HttpCacheFilter implements ExchangeFilterFunction {
+
+    /**
+     * Оценка накладных расходов записи сверх тела и заголовков.
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private static final Set<HttpMethod> SAFE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD,
+        HttpMethod.OPTIONS, HttpMethod.TRACE);
+
+    private final HttpCacheProperties properties;
+
+    private final ExchangeStrategies strategies;
+
+    private final LongSupplier clock;
+
+    private final Cache<String, Entry> store;
+
+    private final int maxEntryBytes;
+
+    private final Counter hits;
+
+    private final Counter revalidated;
+
+    private final Counter misses;
+
+    private final Counter bypassed;
+
+    /**
+     * @param properties настройки webclient.http-cache
+     * @param strategies кодеки, с которыми собираются ответы из кеша (те же, что у WebClient)
+     * @param meterRegistry реестр метрик
+     */
+    public HttpCacheFilter(HttpCacheProperties properties, ExchangeStrategies strategies,
+                           MeterRegistry meterRegistry) {
+        this(properties, strategies, meterRegistry, System::nanoTime);
+    }
+
+    HttpCacheFilter(HttpCacheProperties properties, ExchangeStrategies strategies,
+                    MeterRegistry meterRegistry, LongSupplier clock) {
+        this.properties = properties;
+        this.strategies = strategies;
+        this.clock = clock;
+        this.maxEntryBytes = (int) Math.min(Integer.MAX_VALUE, properties.getMaxEntrySize().toBytes());
+        this.store = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaximumSize().toBytes())
+            .weigher((String key, Entry entry) -> entry.weight(key))
+            .expireAfterAccess(properties.getRetention())
+            .build();
+
+        this.hits = outcomeCounter(meterRegistry, "hit");
+        this.revalidated = outcomeCounter(meterRegistry, "revalidated");
+        this.misses = outcomeCounter(meterRegistry, "miss");
+        this.bypassed = outcomeCounter(meterRegistry, "bypass");
+        Gauge.builder("webclient.http_cache.size", store,
+                cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+            .description("Размер тел и заголовков в HTTP кеше")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("webclient.http_cache.entries", store, Cache::estimatedSize)
+            .description("Записи в HTTP кеше")
+            .register(meterRegistry);
+    }
+
+    @Override
+    @NonNull
+    public Mono<ClientResponse> filter(@NonNull ClientRequest request, @NonNull ExchangeFunction next) {
+        if (!properties.isEnabled()) {
+            return next.exchange(request);
+        }
+        String key = request.url().toString();
+
+        if (!SAFE_METHODS.contains(request.method())) {
+            // Изменяющий запрос делает закешированное представление неактуальным
+            store.invalidate(key);
+            return next.exchange(request);
+        }
+        if (!HttpMethod.GET.equals(request.method()) || isBypass(request.headers())) {
+            bypassed.increment();
+            return next.exchange(request);
+        }
+
+        // Решение принимается при подписке: retry заново смотрит в кеш
+        return Mono.defer(() -> {
+            Entry entry = store.getIfPresent(key);
+            if (entry != null && !entry.matches(request.headers())) {
+                entry = null;
+            }
+
+            long now = clock.getAsLong();
+            boolean revalidationRequired = directives(request.headers().getCacheControl()).containsKey("no-cache");
+            if (entry != null && !revalidationRequired && entry.isFresh(now)) {
+                hits.increment();
+                log.debug("HTTP cache hit for {}", key);
+                return Mono.just(cachedResponse(entry, now));
+            }
+
+            Entry stale = entry != null && entry.hasValidators() ? entry : null;
+            ClientRequest actual = stale != null ? conditional(request, stale) : request;
+
+            return next.exchange(actual).flatMap(response -> {
+                if (stale != null && response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                    revalidated.increment();
+                    long received = clock.getAsLong();
+                    Entry refreshed = stale.revalidated(response.headers().asHttpHeaders(), received);
+                    store.put(key, refreshed);
+                    log.debug("HTTP cache revalidated {} (304 Not Modified)", key);
+                    return response.releaseBody().thenReturn(cachedResponse(refreshed, received));
+                }
+                misses.increment();
+                if (response.statusCode().value() == HttpStatus.OK.value()) {
+                    return Mono.just(storing(key, request.headers(), response));
+                }
+                return Mono.just(response);
+            });
+        });
+    }
+
+    /**
+     * Оборачивает тело ответа 200 так, чтобы оно копировалось по мере чтения
+     * и попадало в кеш после полного прочтения.
+     */
+    private ClientResponse storing(String key, HttpHeaders requestHeaders, ClientResponse response) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        Map<String, String> cacheControl = directives(headers.getCacheControl());
+        long freshForNanos = freshnessNanos(headers, cacheControl);
+        boolean hasValidators = headers.getETag() != null || headers.getFirst(HttpHeaders.LAST_MODIFIED) != null;
+        List<String> vary = headers.getVary();
+
+        if (cacheControl.containsKey("no-store") || vary.contains("*") || (freshForNanos <= 0 && !hasValidators)) {
+            return response;
+        }
+
+        Map<String, List<String>> varyValues = new LinkedHashMap<>();
+        for (String name : vary) {
+            varyValues.put(name.toLowerCase(Locale.ROOT), requestHeaders.getOrEmpty(name));
+        }
+        HttpHeaders storedHeaders = HttpHeaders.readOnlyHttpHeaders(copyOf(headers));
+
+        return response.mutate()
+            .body(body -> {
+                BodyCopy copy = new BodyCopy(maxEntryBytes);
+                return body
+                    .doOnNext(copy::append)
+                    .doOnComplete(() -> {
+                        if (copy.overflowed()) {
+                            log.debug("Response {} exceeds max-entry-size, not cached", key);
+                            return;
+                        }
+                        store.put(key, new Entry(storedHeaders, copy.toByteArray(), clock.getAsLong(),
+                            freshForNanos, varyValues));
+                    });
+            })
+            .build();
+    }
+
+    private ClientResponse cachedResponse(Entry entry, long now) {
+        long ageSeconds = TimeUnit.NANOSECONDS.toSeconds(now - entry.storedAtNanos());
+        return ClientResponse.create(HttpStatus.OK, strategies)
+            .headers(headers -> {
+                headers.addAll(entry.headers());
+                headers.set(HttpHeaders.AGE, Long.toString(ageSeconds));
+            })
+            .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(entry.body()))))
+            .build();
+    }
+
+    private static ClientRequest conditional(ClientRequest request, Entry entry) {
+        return ClientRequest.from(request)
+            .headers(headers -> {
+                String etag = entry.headers().getETag();
+                if (etag != null) {
+                    headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+                }
+                String lastModified = entry.headers().getFirst(HttpHeaders.LAST_MODIFIED);
+                if (lastModified != null) {
+                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                }
+            })
+            .build();
+    }
+
+    private static boolean isBypass(HttpHeaders headers) {
+        return headers.containsKey(HttpHeaders.IF_NONE_MATCH)
+            || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE)
+            || headers.containsKey(HttpHeaders.RANGE)
+            || directives(headers.getCacheControl()).containsKey("no-store");
+    }
+
+    /**
+     * Время свежести: max-age минус Age, иначе Expires минус Date; no-cache - сразу устаревший.
+     */
+    static long freshnessNanos(HttpHeaders headers, Map<String, String> cacheControl) {
+        if (cacheControl.containsKey("no-cache")) {
+            return 0;
+        }
+        String maxAge = cacheControl.get("max-age");
+        if (maxAge != null) {
+            try {
+                long age = parseAge(headers.getFirst(HttpHeaders.AGE));
+                return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(maxAge) - age));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        try {
+            long expires = headers.getExpires();
+            long date = headers.getDate();
+            if (expires > 0) {
+                long base = date > 0 ? date : System.currentTimeMillis();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expires - base));
+            }
+        } catch (IllegalArgumentException e) {
+            // Некорректная дата Expires означает "уже устарел"
+            return 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Разбирает Cache-Control в карту директив (имена в нижнем регистре, значения без кавычек).
+     */
+    static Map<String, String> directives(String cacheControl) {
+        Map<String, String> directives = new LinkedHashMap<>();
+        if (cacheControl == null || cacheControl.isBlank()) {
+            return directives;
+        }
+        for (String part : cacheControl.split(",")) {
+            String directive = part.trim();
+            if (directive.isEmpty()) {
+                continue;
+            }
+            int eq = directive.indexOf('=');
+            if (eq < 0) {
+                directives.put(directive.toLowerCase(Locale.ROOT), "");
+            } else {
+                String value = directive.substring(eq + 1).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                directives.put(directive.substring(0, eq).trim().toLowerCase(Locale.ROOT), value);
+            }
+        }
+        return directives;
+    }
+
+    private static long parseAge(String age) {
+        if (age == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(age.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static HttpHeaders copyOf(HttpHeaders headers) {
+        HttpHeaders copy = new HttpHeaders();
+        headers.forEach((name, values) -> copy.put(name, List.copyOf(values)));
+        return copy;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("webclient.http_cache.requests")
+            .description("GET запросы, прошедшие через HTTP кеш")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    long weightedSize() {
+        store.cleanUp();
+        return store.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    /**
+     * Запись кеша: заголовки и тело ответа 200, время получения, свежесть и значения Vary заголовков запроса.
+     */
+    private record Entry(HttpHeaders headers, byte[] body, long storedAtNanos, long freshForNanos,
+                         Map<String, List<String>> varyValues) {
+
+        boolean isFresh(long now) {
+            return now - storedAtNanos < freshForNanos;
+        }
+
+        boolean hasValidators() {
+            return headers.getETag() != null || headers.getFirst(HttpHeaders.LAST_MODIFIED) != null;
+        }
+
+        boolean matches(HttpHeaders requestHeaders) {
+            for (Map.Entry<String, List<String>> vary : varyValues.entrySet()) {
+                if (!Objects.equals(vary.getValue(), requestHeaders.getOrEmpty(vary.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 304 подтверждает тело и может обновить заголовки (ETag, Cache-Control, Expires, Date).
+         */
+        Entry revalidated(HttpHeaders notModifiedHeaders, long now) {
+            HttpHeaders merged = copyOf(headers);
+            notModifiedHeaders.forEach((name, values) -> {
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                    merged.put(name, List.copyOf(values));
+                }
+            });
+            long freshFor = freshnessNanos(merged, directives(merged.getCacheControl()));
+            return new Entry(HttpHeaders.readOnlyHttpHeaders(merged), body, now, freshFor, varyValues);
+        }
+
+        int weight(String key) {
+            long headerBytes = 0;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                headerBytes += header.getKey().length();
+                for (String value : header.getValue()) {
+                    headerBytes += value.length();
+                }
+            }
+            return (int) Math.min(Integer.MAX_VALUE, body.length + headerBytes + key.length() + ENTRY_OVERHEAD);
+        }
+    }
+
+    /**
+     * Копия тела, накапливаемая по мере чтения DataBuffer-ов; сами буферы не потребляются.
+     */
+    private static final class BodyCopy {
+
+        private final int limit;
+
+        private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private BodyCopy(int limit) {
+            this.limit = limit;
+        }
+
+        void append(DataBuffer buffer) {
+            if (bytes == null) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            if (bytes.size() + length > limit) {
+                bytes = null;
+                return;
+            }
+            byte[] chunk = new byte[length];
+            buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(chunk), 0, length);
+            bytes.writeBytes(chunk);
+        }
+
+        boolean overflowed() {
+            return bytes == null;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
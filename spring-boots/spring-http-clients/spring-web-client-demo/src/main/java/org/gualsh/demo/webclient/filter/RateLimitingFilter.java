@@ -0,0 +1,216 @@
+package org.gualsh.demo.webclient.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.config.RateLimitProperties;
+import org.gualsh.demo.webclient.exception.CustomWebClientExceptions.RateLimitExceededException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр клиентского rate limiting с отдельным {@link TokenBucket} на каждый базовый URL.
+ *
+ * <p>В отличие от реакции на 429 постфактум, лимит соблюдается до отправки запроса:</p>
+ * <ul>
+ *   <li>укладывается в лимит - запрос уходит сразу</li>
+ *   <li>превышает лимит - откладывается через {@code Mono.delay} на таймере Reactor,
+ *   поток при этом не блокируется</li>
+ *   <li>ждать пришлось бы дольше {@code max-delay} - отклоняется с {@link RateLimitExceededException}
+ *   без обращения к серверу</li>
+ * </ul>
+ *
+ * <p>На 429 фильтр снижает скорость бакета и учитывает Retry-After (секунды или HTTP-дата),
+ * на успешные ответы - постепенно возвращает ее к базовой.</p>
+ *
+ * <p>Метрики: {@code webclient.ratelimit.requests{base_url, outcome=permitted|delayed|rejected}},
+ * {@code webclient.ratelimit.delay}, {@code webclient.ratelimit.throttled} (ответы 429)
+ * и {@code webclient.ratelimit.rate} (текущая скорость бакета).</p>
+ */
+@Slf4j
+public class RateLimitingFilter implements ExchangeFilterFunction {
+
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+
+    private final RateLimitProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    public RateLimitingFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    @NonNull
+    public Mono<ClientResponse> filter(@NonNull ClientRequest request, @NonNull ExchangeFunction next) {
+        if (!properties.isEnabled()) {
+            return next.exchange(request);
+        }
+
+        String baseUrl = baseUrl(request.url());
+        Limiter limiter = limiters.computeIfAbsent(baseUrl, this::createLimiter);
+
+        // Резервируем при подписке: повтор запроса (retry) резервирует заново
+        return Mono.defer(() -> {
+            long delayNanos = limiter.bucket.reserve();
+
+            if (delayNanos == TokenBucket.REJECTED) {
+                limiter.rejected.increment();
+                log.warn("Client-side rate limit exceeded for {}, request {} {} rejected",
+                    baseUrl, request.method(), request.url());
+                return Mono.error(new RateLimitExceededException(
+                    "Client-side rate limit exceeded for " + baseUrl));
+            }
+
+            limiter.delay.record(delayNanos, TimeUnit.NANOSECONDS);
+            if (delayNanos == 0) {
+                limiter.permitted.increment();
+                return exchange(request, next, limiter);
+            }
+
+            limiter.delayed.increment();
+            log.debug("Delaying request {} {} by {} ms to respect rate limit",
+                request.method(), request.url(), TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            return Mono.delay(Duration.ofNanos(delayNanos))
+                .then(exchange(request, next, limiter));
+        });
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, Limiter limiter) {
+        return next.exchange(request)
+            .flatMap(clientResponse -> {
+                if (clientResponse.statusCode().value() == 429) { // Too Many Requests
+                    Duration retryAfter = parseRetryAfter(clientResponse.headers().asHttpHeaders());
+                    limiter.bucket.onThrottled(retryAfter);
+                    limiter.throttled.increment();
+                    log.warn("Rate limit exceeded for {}, retry after {}, new rate {} req/s",
+                        request.url(), retryAfter, String.format("%.2f", limiter.bucket.currentRate()));
+
+                    return clientResponse.releaseBody()
+                        .then(Mono.error(new WebClientResponseException(
+                            "Rate limit exceeded",
+                            429,
+                            "Too Many Requests",
+                            clientResponse.headers().asHttpHeaders(),
+                            null,
+                            null
+                        )));
+                }
+                if (clientResponse.statusCode().is2xxSuccessful()) {
+                    limiter.bucket.onSuccess();
+                }
+                return Mono.just(clientResponse);
+            });
+    }
+
+    private Limiter createLimiter(String baseUrl) {
+        RateLimitProperties.Limit limit = properties.limitFor(baseUrl);
+        log.info("Creating rate limiter for {}: {} req/s, burst {}, max delay {}",
+            baseUrl, limit.getPermitsPerSecond(), limit.getBurst(), limit.getMaxDelay());
+
+        TokenBucket bucket = new TokenBucket(
+            limit.getPermitsPerSecond(),
+            limit.getMinPermitsPerSecond(),
+            limit.getBurst(),
+            limit.getMaxDelay()
+        );
+        return new Limiter(bucket, baseUrl, meterRegistry);
+    }
+
+    /**
+     * Retry-After бывает в секундах ("120") или HTTP-датой ("Wed, 21 Oct 2015 07:28:00 GMT").
+     */
+    static Duration parseRetryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Duration retryAfter;
+        try {
+            retryAfter = Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                retryAfter = Duration.between(ZonedDateTime.now(date.getZone()), date);
+            } catch (DateTimeParseException ex) {
+                log.debug("Unparseable Retry-After header: {}", value);
+                return null;
+            }
+        }
+        if (retryAfter.isNegative()) {
+            return Duration.ZERO;
+        }
+        return retryAfter.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : retryAfter;
+    }
+
+    static String baseUrl(URI url) {
+        return url.getPort() == -1
+            ? url.getScheme() + "://" + url.getHost()
+            : url.getScheme() + "://" + url.getHost() + ":" + url.getPort();
+    }
+
+    /**
+     * Бакет базового URL и его метрики.
+     */
+    private static final class Limiter {
+
+        private final TokenBucket bucket;
+
+        private final Counter permitted;
+
+        private final Counter delayed;
+
+        private final Counter rejected;
+
+        private final Counter throttled;
+
+        private final Timer delay;
+
+        private Limiter(TokenBucket bucket, String baseUrl, MeterRegistry meterRegistry) {
+            this.bucket = bucket;
+            this.permitted = outcomeCounter(meterRegistry, baseUrl, "permitted");
+            this.delayed = outcomeCounter(meterRegistry, baseUrl, "delayed");
+            this.rejected = outcomeCounter(meterRegistry, baseUrl, "rejected");
+            this.throttled = Counter.builder("webclient.ratelimit.throttled")
+                .description("Ответы 429 Too Many Requests от сервера")
+                .tag("base_url", baseUrl)
+                .register(meterRegistry);
+            this.delay = Timer.builder("webclient.ratelimit.delay")
+                .description("Задержка запроса клиентским rate limiter")
+                .tag("base_url", baseUrl)
+                .register(meterRegistry);
+            Gauge.builder("webclient.ratelimit.rate", bucket, TokenBucket::currentRate)
+                .description("Текущая разрешенная скорость, запросов в секунду")
+                .tag("base_url", baseUrl)
+                .register(meterRegistry);
+        }
+
+        private static Counter outcomeCounter(MeterRegistry meterRegistry, String baseUrl, String outcome) {
+            return Counter.builder("webclient.ratelimit.requests")
+                .description("Запросы, прошедшие через клиентский rate limiter")
+                .tag("base_url", baseUrl)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+        }
+    }
+}
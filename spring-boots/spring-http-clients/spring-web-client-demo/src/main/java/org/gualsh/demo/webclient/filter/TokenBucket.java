@@ -0,0 +1,136 @@
+package org.gualsh.demo.webclient.filter;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket для клиентского ограничения скорости запросов.
+ *
+ * <p>Реализован как GCRA (generic cell rate algorithm): вместо счетчика токенов хранится одно
+ * число - теоретическое время прихода следующего запроса (TAT). Резервирование - один CAS,
+ * без блокировок и без фонового пополнения токенов.</p>
+ *
+ * <p>{@link #reserve()} не ждет, а возвращает задержку, после которой запрос укладывается в лимит.
+ * Ждать ее должен вызывающий код (в фильтре - на таймере Reactor, не блокируя поток).</p>
+ *
+ * <p>Скорость адаптивная:</p>
+ * <ul>
+ *   <li>429 от сервера - скорость уменьшается вдвое (не ниже минимальной),
+ *   а при наличии Retry-After бакет не выдает разрешений до указанного момента</li>
+ *   <li>каждый успешный ответ - скорость растет на 5% от базовой, пока не вернется к ней</li>
+ * </ul>
+ */
+public class TokenBucket {
+
+    /**
+     * Запрос не укладывается в лимит даже с максимальной задержкой.
+     */
+    public static final long REJECTED = -1;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long baseIntervalNanos;
+
+    private final long maxIntervalNanos;
+
+    private final int burst;
+
+    private final long maxDelayNanos;
+
+    private final LongSupplier clock;
+
+    /**
+     * Теоретическое время прихода следующего запроса при текущей скорости.
+     */
+    private final AtomicLong tat;
+
+    /**
+     * Текущий интервал между запросами (обратная величина скорости).
+     */
+    private final AtomicLong intervalNanos;
+
+    /**
+     * @param permitsPerSecond базовая скорость
+     * @param minPermitsPerSecond минимальная скорость при адаптации к 429
+     * @param burst сколько запросов можно выполнить подряд без задержки после простоя
+     * @param maxDelay максимальная задержка; запросы, которым нужно ждать дольше, отклоняются
+     */
+    public TokenBucket(double permitsPerSecond, double minPermitsPerSecond, int burst, Duration maxDelay) {
+        this(permitsPerSecond, minPermitsPerSecond, burst, maxDelay, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, double minPermitsPerSecond, int burst, Duration maxDelay,
+                LongSupplier clock) {
+        if (permitsPerSecond <= 0 || minPermitsPerSecond <= 0 || minPermitsPerSecond > permitsPerSecond) {
+            throw new IllegalArgumentException("Invalid rate: permitsPerSecond=" + permitsPerSecond
+                + ", minPermitsPerSecond=" + minPermitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be positive: " + burst);
+        }
+        this.baseIntervalNanos = (long) (NANOS_PER_SECOND / permitsPerSecond);
+        this.maxIntervalNanos = (long) (NANOS_PER_SECOND / minPermitsPerSecond);
+        this.burst = burst;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.clock = clock;
+        this.tat = new AtomicLong(clock.getAsLong());
+        this.intervalNanos = new AtomicLong(baseIntervalNanos);
+    }
+
+    /**
+     * Резервирует разрешение на один запрос.
+     *
+     * @return 0 - выполнять сразу, &gt; 0 - задержка в наносекундах, {@link #REJECTED} - лимит исчерпан
+     */
+    public long reserve() {
+        while (true) {
+            long now = clock.getAsLong();
+            long interval = intervalNanos.get();
+            long tolerance = (burst - 1) * interval;
+            long current = tat.get();
+
+            long delay = Math.max(0, current - tolerance - now);
+            if (delay > maxDelayNanos) {
+                return REJECTED;
+            }
+            if (tat.compareAndSet(current, Math.max(current, now) + interval)) {
+                return delay;
+            }
+        }
+    }
+
+    /**
+     * Сервер ответил 429: уменьшает скорость и, если известен Retry-After, откладывает все разрешения.
+     *
+     * @param retryAfter значение Retry-After или null
+     */
+    public void onThrottled(Duration retryAfter) {
+        long interval = intervalNanos.updateAndGet(current -> Math.min(maxIntervalNanos, current * 2));
+        if (retryAfter != null && !retryAfter.isNegative()) {
+            long resumeAt = clock.getAsLong() + retryAfter.toNanos() + (burst - 1) * interval;
+            tat.accumulateAndGet(resumeAt, Math::max);
+        }
+    }
+
+    /**
+     * Успешный ответ: постепенно возвращает скорость к базовой.
+     */
+    public void onSuccess() {
+        if (intervalNanos.get() == baseIntervalNanos) {
+            return;
+        }
+        double baseRate = (double) NANOS_PER_SECOND / baseIntervalNanos;
+        intervalNanos.updateAndGet(current -> {
+            double rate = (double) NANOS_PER_SECOND / current + baseRate * 0.05;
+            return Math.max(baseIntervalNanos, (long) (NANOS_PER_SECOND / rate));
+        });
+    }
+
+    /**
+     * @return текущая скорость, запросов в секунду
+     */
+    public double currentRate() {
+        return (double) NANOS_PER_SECOND / intervalNanos.get();
+    }
+}
@@ -0,0 +1,57 @@
+package org.gualsh.demo.webclient.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Одна страница ответа постраничного API.
+ *
+ * @param number номер страницы (начиная с 0)
+ * @param items  элементы страницы
+ * @param total  общее количество элементов, если API его сообщает, иначе null
+ * @param <T>    тип элемента
+ */
+public record Page<T>(int number, List<T> items, Long total) {
+
+    /**
+     * Заголовок с общим количеством элементов (json-server, JSONPlaceholder и многие REST API).
+     */
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    public Page {
+        items = items != null ? List.copyOf(items) : List.of();
+    }
+
+    /**
+     * Создает страницу из ответа, беря общее количество из заголовка.
+     *
+     * @param number      номер страницы
+     * @param entity      ответ со списком элементов
+     * @param totalHeader заголовок с общим количеством; если его нет или он некорректен - total = null
+     * @return страница
+     */
+    public static <T> Page<T> fromResponse(int number, ResponseEntity<List<T>> entity, String totalHeader) {
+        return new Page<>(number, entity.getBody(), parseTotal(entity.getHeaders().getFirst(totalHeader)));
+    }
+
+    /**
+     * @param pageSize размер страницы
+     * @return количество страниц по total или null, если total неизвестен
+     */
+    public Integer totalPages(int pageSize) {
+        return total != null ? (int) ((total + pageSize - 1) / pageSize) : null;
+    }
+
+    private static Long parseTotal(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            long total = Long.parseLong(value.trim());
+            return total >= 0 ? total : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
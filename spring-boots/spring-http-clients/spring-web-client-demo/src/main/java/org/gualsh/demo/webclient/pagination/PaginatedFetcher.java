@@ -0,0 +1,103 @@
+package org.gualsh.demo.webclient.pagination;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Параллельная загрузка всех страниц постраничного API с сохранением порядка.
+ *
+ * <p>Обход страниц по одной стоит сумму задержек всех запросов. Здесь:</p>
+ * <ol>
+ *   <li>загружается первая страница, из нее берется общее количество элементов
+ *   (заголовок или тело - решает {@link PageLoader})</li>
+ *   <li>остальные страницы загружаются параллельно, не больше {@code concurrency} одновременно</li>
+ *   <li>{@code flatMapSequential} отдает страницы строго по порядку номеров, буферизуя
+ *   пришедшие раньше времени</li>
+ * </ol>
+ *
+ * <p>Если API не сообщает total, страницы загружаются последовательно до первой неполной.</p>
+ *
+ * <p>Ранняя остановка: {@code maxItems} ограничивает, сколько страниц вообще запрашивать,
+ * а отмена подписки (например, {@code take}) отменяет еще выполняющиеся запросы.</p>
+ */
+public final class PaginatedFetcher {
+
+    /**
+     * Без ограничения на количество элементов.
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private PaginatedFetcher() {
+        // Утилитный класс - не должен создаваться
+    }
+
+    /**
+     * Загрузчик одной страницы.
+     *
+     * @param <T> тип элемента
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+
+        /**
+         * @param page номер страницы (начиная с 0)
+         * @param size размер страницы
+         * @return страница; total заполняется, если API его сообщает
+         */
+        Mono<Page<T>> load(int page, int size);
+    }
+
+    /**
+     * Загружает страницы по порядку номеров.
+     *
+     * @param loader      загрузчик страницы
+     * @param pageSize    размер страницы
+     * @param concurrency сколько страниц загружать одновременно
+     * @param maxItems    сколько элементов нужно вызывающему ({@link #UNLIMITED} - все)
+     * @return страницы в порядке номеров
+     */
+    public static <T> Flux<Page<T>> fetchPages(PageLoader<T> loader, int pageSize, int concurrency, long maxItems) {
+        if (pageSize < 1 || concurrency < 1 || maxItems < 1) {
+            throw new IllegalArgumentException("pageSize, concurrency and maxItems must be positive: "
+                + pageSize + ", " + concurrency + ", " + maxItems);
+        }
+        long neededPages = (maxItems - 1) / pageSize + 1;
+        int maxPages = (int) Math.min(Integer.MAX_VALUE, neededPages);
+
+        return loader.load(0, pageSize).flatMapMany(first -> {
+            Integer totalPages = first.totalPages(pageSize);
+            if (totalPages == null) {
+                return sequential(loader, first, pageSize, maxPages);
+            }
+            int lastPage = Math.min(totalPages, maxPages);
+            Flux<Page<T>> remaining = Flux.range(1, Math.max(0, lastPage - 1))
+                // prefetch = 1: в буфере не больше одной страницы от каждого запроса
+                .flatMapSequential(page -> loader.load(page, pageSize), concurrency, 1);
+            return Flux.concat(Mono.just(first), remaining);
+        });
+    }
+
+    /**
+     * Загружает элементы всех страниц по порядку.
+     *
+     * @param loader      загрузчик страницы
+     * @param pageSize    размер страницы
+     * @param concurrency сколько страниц загружать одновременно
+     * @param maxItems    сколько элементов отдать ({@link #UNLIMITED} - все)
+     * @return элементы в порядке страниц
+     */
+    public static <T> Flux<T> fetchItems(PageLoader<T> loader, int pageSize, int concurrency, long maxItems) {
+        Flux<T> items = fetchPages(loader, pageSize, concurrency, maxItems)
+            .concatMapIterable(Page::items);
+        return maxItems == UNLIMITED ? items : items.take(maxItems, true);
+    }
+
+    /**
+     * total неизвестен: следующая страница запрашивается, только если предыдущая полная.
+     */
+    private static <T> Flux<Page<T>> sequential(PageLoader<T> loader, Page<T> first, int pageSize, int maxPages) {
+        return Mono.just(first).expand(page -> page.items().size() < pageSize || page.number() + 1 >= maxPages
+            ? Mono.empty()
+            : loader.load(page.number() + 1, pageSize));
+    }
+}
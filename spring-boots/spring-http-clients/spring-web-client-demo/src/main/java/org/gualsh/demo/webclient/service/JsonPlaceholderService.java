@@ -1,10 +1,15 @@
 package org.gualsh.demo.webclient.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.cache.ReactiveCache;
+import org.gualsh.demo.webclient.cache.ReactiveCacheManager;
+import org.gualsh.demo.webclient.concurrency.AdaptiveConcurrencyLimiter;
+import org.gualsh.demo.webclient.concurrency.HedgingPolicy;
 import org.gualsh.demo.webclient.dto.*;
+import org.gualsh.demo.webclient.pagination.Page;
+import org.gualsh.demo.webclient.pagination.PaginatedFetcher;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -46,6 +51,11 @@ public class JsonPlaceholderService {
     private final WebClient jsonPlaceholderWebClient;
     private final int maxAttempts;
     private final long delay;
+    private final int streamingPrefetch;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final HedgingPolicy hedgingPolicy;
+    private final int paginationConcurrency;
+    private final ReactiveCache usersCache;
 
     /**
      * Конструктор сервиса с внедрением зависимостей.
@@ -53,16 +63,58 @@ public class JsonPlaceholderService {
      * @param jsonPlaceholderWebClient WebClient для JSONPlaceholder API
      * @param maxAttempts              максимальное количество попыток retry
      * @param delay                    задержка между попытками в миллисекундах
+     * @param streamingPrefetch        сколько элементов JSON массива запрашивать у декодера за раз
+     * @param concurrencyLimiter       адаптивный лимит параллельности HTTP запросов пользователей по ID
+     * @param hedgingPolicy            политика дублирования медленных GET запросов
+     * @param paginationConcurrency    сколько страниц загружать одновременно
+     * @param reactiveCacheManager     менеджер реактивных кешей
      */
     public JsonPlaceholderService(
         @Qualifier("jsonPlaceholderWebClient") WebClient jsonPlaceholderWebClient,
         @Value("${external-api.jsonplaceholder.max-attempts:3}") int maxAttempts,
-        @Value("${external-api.jsonplaceholder.delay:1000}") long delay
+        @Value("${external-api.jsonplaceholder.delay:1000}") long delay,
+        @Value("${webclient.streaming.prefetch:64}") int streamingPrefetch,
+        @Qualifier("jsonPlaceholderConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+        HedgingPolicy hedgingPolicy,
+        @Value("${webclient.pagination.concurrency:4}") int paginationConcurrency,
+        ReactiveCacheManager reactiveCacheManager
     ) {
         this.jsonPlaceholderWebClient = jsonPlaceholderWebClient;
         this.maxAttempts = maxAttempts;
         this.delay = delay;
-        log.info("JsonPlaceholderService initialized with maxAttempts: {}, delay: {}ms", maxAttempts, delay);
+        this.streamingPrefetch = streamingPrefetch;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.hedgingPolicy = hedgingPolicy;
+        this.paginationConcurrency = paginationConcurrency;
+        this.usersCache = reactiveCacheManager.getCache("users");
+        log.info("JsonPlaceholderService initialized with maxAttempts: {}, delay: {}ms, streamingPrefetch: {}",
+            maxAttempts, delay, streamingPrefetch);
+    }
+
+    /**
+     * Потоково получает всех пользователей: элементы JSON массива декодируются и отдаются по одному.
+     *
+     * @return Flux с пользователями
+     * @see #streamArray(String, Class)
+     */
+    public Flux<UserDto> streamAllUsers() {
+        log.debug("Streaming all users from JSONPlaceholder API");
+
+        return streamArray("/users", UserDto.class)
+            .doOnError(error -> log.error("Error streaming users: {}", error.getMessage()));
+    }
+
+    /**
+     * Потоково получает все посты: элементы JSON массива декодируются и отдаются по одному.
+     *
+     * @return Flux с постами
+     * @see #streamArray(String, Class)
+     */
+    public Flux<PostDto> streamAllPosts() {
+        log.debug("Streaming all posts from JSONPlaceholder API");
+
+        return streamArray("/posts", PostDto.class)
+            .doOnError(error -> log.error("Error streaming posts: {}", error.getMessage()));
     }
 
     /**
@@ -70,26 +122,26 @@ public class JsonPlaceholderService {
      *
      * <p>Демонстрирует использование:</p>
      * <ul>
-     *   <li>{@link ParameterizedTypeReference} для List&lt;UserDto&gt;</li>
-     *   <li>Spring Cache для кэширования результата</li>
+     *   <li>Потокового декодирования JSON массива без агрегации всего тела</li>
+     *   <li>{@link ReactiveCache} для кэширования результата (кэшируется список, а не Mono)</li>
      *   <li>Retry механизм на уровне WebClient</li>
      * </ul>
      *
      * @return Mono со списком пользователей
      */
-    @Cacheable(value = "users", key = "'all-users'")
     public Mono<List<UserDto>> getAllUsers() {
+        return usersCache.get("all-users", this::fetchAllUsers);
+    }
+
+    private Mono<List<UserDto>> fetchAllUsers() {
         log.debug("Fetching all users from JSONPlaceholder API");
 
         // Можно подумать о .timeout(Duration.ofSeconds(10)); // Response timeout
-        return jsonPlaceholderWebClient
-            .get()
-            .uri("/users")
-            .accept(MediaType.APPLICATION_JSON)
-            .retrieve()
-            .bodyToMono(
-                new ParameterizedTypeReference<List<UserDto>>() {}
-            )
+        // Тело не агрегируется целиком перед разбором (bodyToMono(List) упирался в max-memory-size):
+        // элементы декодируются потоково и собираются в список.
+        // retryWhen стоит после collectList - при повторе список собирается заново, без дублей
+        return streamArray("/users", UserDto.class)
+            .collectList()
             /*
              * Реализация механизма повторных попыток (retry) непосредственно в цепочке реактивных операций.
              *
@@ -118,11 +170,21 @@ public class JsonPlaceholderService {
     /**
      * Получает пользователя по ID с кэшированием и retry.
      *
+     * <p>Одновременные запросы одного пользователя выполняют один HTTP вызов;
+     * ошибки (в том числе 404) не кэшируются.</p>
+     *
+     * <p>HTTP вызов выполняется под {@link AdaptiveConcurrencyLimiter} внутри кэша: попадания
+     * в кэш отвечают за микросекунды и, попав в лимитер, занизили бы минимальное время ответа,
+     * после чего каждый настоящий запрос сокращал бы окно до {@code min-limit}.</p>
+     *
      * @param userId идентификатор пользователя
      * @return Mono с пользователем или ошибкой если не найден
      */
-    @Cacheable(value = "users", key = "#userId")
     public Mono<UserDto> getUserById(Long userId) {
+        return usersCache.get(userId, () -> concurrencyLimiter.execute(() -> fetchUserById(userId)));
+    }
+
+    private Mono<UserDto> fetchUserById(Long userId) {
         log.debug("Fetching user by ID: {}", userId);
 
         // Можно подумать о .timeout(Duration.ofSeconds(10)); // Response timeout
@@ -200,7 +262,9 @@ public class JsonPlaceholderService {
     /**
      * Получает все посты с пагинацией.
      *
-     * <p>Демонстрирует работу с query параметрами и pagination.</p>
+     * <p>Демонстрирует работу с query параметрами и pagination.
+     * Общее количество берется из заголовка X-Total-Count; если API его не вернул,
+     * total оценивается по текущей странице.</p>
      *
      * @param page номер страницы (начиная с 0)
      * @param size размер страницы
@@ -209,6 +273,49 @@ public class JsonPlaceholderService {
     public Mono<PagedResponseDto<PostDto>> getAllPostsPaginated(int page, int size) {
         log.debug("Fetching posts with pagination: page={}, size={}", page, size);
 
+        return loadPostsPage(page, size)
+            .map(postsPage -> {
+                List<PostDto> posts = postsPage.items();
+                long total = postsPage.total() != null
+                    ? postsPage.total()
+                    : (long) page * size + posts.size();
+                return PagedResponseDto.<PostDto>builder()
+                    .data(posts)
+                    .page(page)
+                    .size(size)
+                    .total(total)
+                    .totalPages((int) ((total + size - 1) / size))
+                    .hasNext(postsPage.total() != null ? (long) (page + 1) * size < total : posts.size() == size)
+                    .hasPrevious(page > 0)
+                    .timestamp(LocalDateTime.now())
+                    .build();
+            })
+            .doOnSuccess(response -> log.info("Successfully fetched {} posts on page {} of {}",
+                response.getData().size(), page, response.getTotalPages()));
+    }
+
+    /**
+     * Потоково получает все посты постранично: первая страница сообщает total,
+     * остальные загружаются параллельно и отдаются по порядку.
+     *
+     * @param size     размер страницы
+     * @param maxItems сколько постов нужно ({@link PaginatedFetcher#UNLIMITED} - все);
+     *                 лишние страницы не запрашиваются
+     * @return Flux с постами в порядке страниц
+     * @see PaginatedFetcher
+     */
+    public Flux<PostDto> streamAllPostsPaginated(int size, long maxItems) {
+        log.debug("Streaming posts page by page: size={}, maxItems={}, concurrency={}",
+            size, maxItems, paginationConcurrency);
+
+        return PaginatedFetcher.fetchItems(this::loadPostsPage, size, paginationConcurrency, maxItems)
+            .doOnError(error -> log.error("Error streaming paginated posts: {}", error.getMessage()));
+    }
+
+    /**
+     * Загружает одну страницу постов вместе с X-Total-Count.
+     */
+    private Mono<Page<PostDto>> loadPostsPage(int page, int size) {
         int start = page * size;
 
         // Можно подумать о .timeout(Duration.ofSeconds(10)); // Response timeout
@@ -221,20 +328,11 @@ public class JsonPlaceholderService {
                 .build())
             .accept(MediaType.APPLICATION_JSON)
             .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<List<PostDto>>() {
-            })
-            .map(posts -> PagedResponseDto.<PostDto>builder()
-                .data(posts)
-                .page(page)
-                .size(size)
-                .total((long) posts.size()) // В реальном API было бы из заголовков
-                .totalPages((posts.size() + size - 1) / size)
-                .hasNext(posts.size() == size)
-                .hasPrevious(page > 0)
-                .timestamp(LocalDateTime.now())
-                .build())
-            .doOnSuccess(response -> log.info("Successfully fetched {} posts on page {}",
-                response.getData().size(), page));
+            .toEntityList(PostDto.class)
+            .map(entity -> Page.fromResponse(page, entity, Page.TOTAL_COUNT_HEADER))
+            .retryWhen(Retry.backoff(2, Duration.ofMillis(500))
+                .filter(throwable -> throwable instanceof WebClientResponseException ex
+                    && ex.getStatusCode().is5xxServerError()));
     }
 
     /**
@@ -380,7 +478,9 @@ public class JsonPlaceholderService {
     /**
      * Выполняет множественные запросы параллельно.
      *
-     * <p>Демонстрирует композицию нескольких reactive операций.</p>
+     * <p>Демонстрирует композицию нескольких reactive операций.
+     * Задержка zip равна задержке самого медленного из двух запросов, поэтому оба
+     * выполняются через {@link HedgingPolicy}: медленный запрос дублируется.</p>
      *
      * @param userId идентификатор пользователя
      * @return Mono с объединенными данными пользователя и его постов
@@ -388,8 +488,11 @@ public class JsonPlaceholderService {
     public Mono<Map<String, Object>> getUserWithPosts(Long userId) {
         log.debug("Fetching user with posts for ID: {}", userId);
 
-        Mono<UserDto> userMono = getUserById(userId);
-        Mono<List<PostDto>> postsMono = getPostsByUserId(userId).collectList();
+        // Дублируется HTTP вызов внутри кэша: дубль, ждущий ту же загрузку в кэше, ничего бы не ускорил
+        Mono<UserDto> userMono = usersCache.get(userId,
+            () -> hedgingPolicy.hedge("jsonplaceholder.user", () -> fetchUserById(userId)));
+        Mono<List<PostDto>> postsMono = hedgingPolicy.hedge("jsonplaceholder.user-posts",
+            () -> getPostsByUserId(userId).collectList());
 
         return Mono.zip(userMono, postsMono)
             .map(tuple -> Map.of(
@@ -405,7 +508,10 @@ public class JsonPlaceholderService {
     /**
      * Выполняет batch операцию для получения нескольких пользователей.
      *
-     * <p>Демонстрирует параллельную обработку множественных запросов.</p>
+     * <p>Демонстрирует параллельную обработку множественных запросов.
+     * Параллельность HTTP вызовов не фиксирована: окно подстраивается {@link AdaptiveConcurrencyLimiter}
+     * в {@link #getUserById(Long)} по времени ответа и ошибкам сервера, пользователи из кэша
+     * возвращаются сразу, не занимая окно.</p>
      *
      * @param userIds список идентификаторов пользователей
      * @return Flux с пользователями
@@ -414,7 +520,34 @@ public class JsonPlaceholderService {
         log.debug("Fetching batch of {} users", userIds.size());
 
         return Flux.fromIterable(userIds)
-            .flatMap(this::getUserById, 5) // Параллельность = 5
+            .flatMap(this::getUserById)
             .doOnComplete(() -> log.info("Completed batch fetch for {} users", userIds.size()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Потоковое декодирование JSON массива верхнего уровня в Flux.
+     *
+     * <p>{@code bodyToFlux} для {@code application/json} разбирает тело неблокирующим парсером Jackson
+     * ({@code Jackson2Tokenizer}) по мере прихода DataBuffer-ов и отдает каждый элемент массива,
+     * как только он прочитан. В памяти одновременно находятся только текущий элемент и еще не
+     * запрошенные подписчиком, а не весь ответ. Лимит {@code webclient.max-memory-size}
+     * здесь действует на один элемент, а не на все тело.</p>
+     *
+     * <p>{@code limitRate} задает спрос на запрос: у декодера запрашивается не больше
+     * {@code webclient.streaming.prefetch} элементов вперед, медленный подписчик
+     * через backpressure притормаживает чтение из сокета.</p>
+     *
+     * @param path путь к ресурсу, возвращающему JSON массив
+     * @param elementType тип элемента массива
+     * @return Flux элементов массива
+     */
+    private <T> Flux<T> streamArray(String path, Class<T> elementType) {
+        return jsonPlaceholderWebClient
+            .get()
+            .uri(path)
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .bodyToFlux(elementType)
+            .limitRate(streamingPrefetch);
+    }
+}
@@ -1,11 +1,13 @@
 package org.gualsh.demo.webclient.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.cache.ReactiveCache;
+import org.gualsh.demo.webclient.cache.ReactiveCacheManager;
+import org.gualsh.demo.webclient.concurrency.HedgingPolicy;
 import org.gualsh.demo.webclient.dto.WeatherDto;
 import org.gualsh.demo.webclient.exception.CustomWebClientExceptions.*;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.retry.annotation.Backoff;
@@ -43,6 +45,8 @@ public class WeatherService {
     private final String apiKey;
     private final int maxAttempts;
     private final long delay;
+    private final HedgingPolicy hedgingPolicy;
+    private final ReactiveCache weatherCache;
 
     /**
      * Конструктор с внедрением зависимостей.
@@ -51,29 +55,35 @@ public class WeatherService {
      * @param apiKey API ключ для OpenWeatherMap
      * @param maxAttempts максимальное количество попыток
      * @param delay задержка между попытками
+     * @param hedgingPolicy политика дублирования медленных GET запросов
+     * @param reactiveCacheManager менеджер реактивных кешей
      */
     public WeatherService(
         @Qualifier("weatherWebClient") WebClient weatherWebClient,
         @Value("${external-api.weather.api-key}") String apiKey,
         @Value("${external-api.weather.max-attempts:2}") int maxAttempts,
-        @Value("${external-api.weather.delay:2000}") long delay) {
+        @Value("${external-api.weather.delay:2000}") long delay,
+        HedgingPolicy hedgingPolicy,
+        ReactiveCacheManager reactiveCacheManager) {
         this.weatherWebClient = weatherWebClient;
         this.apiKey = apiKey;
         this.maxAttempts = maxAttempts;
         this.delay = delay;
+        this.hedgingPolicy = hedgingPolicy;
+        this.weatherCache = reactiveCacheManager.getCache("weather");
         log.info("WeatherService initialized with maxAttempts: {}, delay: {}ms", maxAttempts, delay);
     }
 
     /**
      * Получает текущую погоду для города с кэшированием.
      *
-     * <p>Кэширует результат на 5 минут для снижения нагрузки на API
-     * и экономии лимитов запросов.</p>
+     * <p>Кэширует результат на 2 минуты для снижения нагрузки на API
+     * и экономии лимитов запросов. Одновременные запросы одного города
+     * выполняют один HTTP вызов, ошибки не кэшируются.</p>
      *
      * @param cityName название города
      * @return Mono с данными о погоде
      */
-    @Cacheable(value = "weather", key = "#cityName.toLowerCase()")
     @Retryable(
         value = {ServiceUnavailableException.class,
             GatewayTimeoutException.class,
@@ -84,41 +94,42 @@ public class WeatherService {
     public Mono<WeatherDto> getCurrentWeather(String cityName) {
         log.debug("Fetching current weather for city: {}", cityName);
 
-        return weatherWebClient
-            .get()
-            .uri(uriBuilder -> uriBuilder
-                .path("/weather")
-                .queryParam("q", cityName)
-                .queryParam("appid", apiKey)
-                .queryParam("units", "metric") // Цельсий
-                .build())
-            .accept(MediaType.APPLICATION_JSON)
-            .retrieve()
-            .onStatus(HttpStatus.NOT_FOUND::equals,
-                response -> {
-                    log.warn("City not found: {}", cityName);
-                    return Mono.error(new ResourceNotFoundException("City not found: " + cityName, cityName));
-                })
-            .onStatus(HttpStatus.UNAUTHORIZED::equals,
-                response -> {
-                    log.error("Invalid API key for weather service");
-                    return Mono.error(new AuthenticationException("Invalid API key"));
-                })
-            .onStatus(status -> status.value() == 429,
-                response -> {
-                    log.warn("Rate limit exceeded for weather API");
-                    return Mono.error(new RateLimitExceededException("Rate limit exceeded"));
-                })
-            .onStatus(HttpStatus.SERVICE_UNAVAILABLE::equals,
-                response -> Mono.error(new ServiceUnavailableException("Weather service unavailable")))
-            .onStatus(HttpStatus.GATEWAY_TIMEOUT::equals,
-                response -> Mono.error(new GatewayTimeoutException("Weather service timeout")))
-            .onStatus(HttpStatus.INTERNAL_SERVER_ERROR::equals,
-                response -> Mono.error(new InternalServerErrorException("Weather service internal error")))
-            .bodyToMono(WeatherDto.class)
+        // GET идемпотентен - медленный ответ можно продублировать
+        return weatherCache.get(cityName.toLowerCase(), () -> hedgingPolicy.hedge("weather.current", () -> weatherWebClient
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                    .path("/weather")
+                    .queryParam("q", cityName)
+                    .queryParam("appid", apiKey)
+                    .queryParam("units", "metric") // Цельсий
+                    .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .onStatus(HttpStatus.NOT_FOUND::equals,
+                    response -> {
+                        log.warn("City not found: {}", cityName);
+                        return Mono.error(new ResourceNotFoundException("City not found: " + cityName, cityName));
+                    })
+                .onStatus(HttpStatus.UNAUTHORIZED::equals,
+                    response -> {
+                        log.error("Invalid API key for weather service");
+                        return Mono.error(new AuthenticationException("Invalid API key"));
+                    })
+                .onStatus(status -> status.value() == 429,
+                    response -> {
+                        log.warn("Rate limit exceeded for weather API");
+                        return Mono.error(new RateLimitExceededException("Rate limit exceeded"));
+                    })
+                .onStatus(HttpStatus.SERVICE_UNAVAILABLE::equals,
+                    response -> Mono.error(new ServiceUnavailableException("Weather service unavailable")))
+                .onStatus(HttpStatus.GATEWAY_TIMEOUT::equals,
+                    response -> Mono.error(new GatewayTimeoutException("Weather service timeout")))
+                .onStatus(HttpStatus.INTERNAL_SERVER_ERROR::equals,
+                    response -> Mono.error(new InternalServerErrorException("Weather service internal error")))
+                .bodyToMono(WeatherDto.class))
             .doOnSuccess(weather -> log.info("Successfully fetched weather for {}: {}°C",
                 cityName, weather.getMain() != null ? weather.getMain().getTemp() : "N/A"))
-            .doOnError(error -> log.error("Error fetching weather for {}: {}", cityName, error.getMessage()));
+            .doOnError(error -> log.error("Error fetching weather for {}: {}", cityName, error.getMessage())));
     }
 
     /**
@@ -130,26 +141,25 @@ public class WeatherService {
      * @param lon долгота
      * @return Mono с данными о погоде
      */
-    @Cacheable(value = "weather", key = "'coords_' + #lat + '_' + #lon")
     public Mono<WeatherDto> getCurrentWeatherByCoordinates(double lat, double lon) {
         log.debug("Fetching weather by coordinates: lat={}, lon={}", lat, lon);
 
-        return weatherWebClient
-            .get()
-            .uri(uriBuilder -> uriBuilder
-                .path("/weather")
-                .queryParam("lat", lat)
-                .queryParam("lon", lon)
-                .queryParam("appid", apiKey)
-                .queryParam("units", "metric")
-                .build())
-            .accept(MediaType.APPLICATION_JSON)
-            .retrieve()
-            .bodyToMono(WeatherDto.class)
+        return weatherCache.get("coords_" + lat + "_" + lon, () -> hedgingPolicy.hedge("weather.coordinates", () -> weatherWebClient
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                    .path("/weather")
+                    .queryParam("lat", lat)
+                    .queryParam("lon", lon)
+                    .queryParam("appid", apiKey)
+                    .queryParam("units", "metric")
+                    .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(WeatherDto.class))
             .retryWhen(Retry.backoff(maxAttempts, Duration.ofMillis(delay)))
             .doOnSuccess(weather -> log.info("Successfully fetched weather by coordinates: {}°C",
                 kelvinToCelsius(weather.getMain().getTemp())))
-            .doOnError(error -> log.error("Error fetching weather by coordinates: {}", error.getMessage()));
+            .doOnError(error -> log.error("Error fetching weather by coordinates: {}", error.getMessage())));
     }
 
     /**
@@ -0,0 +1,131 @@
+package org.gualsh.demo.webclient.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit тесты для ReactiveCache и ReactiveCacheManager.
+ */
+@DisplayName("ReactiveCache Tests")
+class ReactiveCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private ReactiveCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReactiveCacheManager(new SimpleMeterRegistry())
+            .register("test", Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .ticker(nanos::get)
+                .expireAfterWrite(Duration.ofMinutes(1)))
+            .getCache("test");
+    }
+
+    @Test
+    @DisplayName("Должен кешировать значение, а не Mono")
+    void shouldCacheResolvedValue() {
+        // Act & Assert
+        StepVerifier.create(cache.get("key", this::load)).expectNext("value-1").verifyComplete();
+        StepVerifier.create(cache.get("key", this::load)).expectNext("value-1").verifyComplete();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы одного ключа должны ждать одну загрузку")
+    void shouldShareInFlightLoad() {
+        // Arrange
+        Sinks.One<String> response = Sinks.one();
+        Mono<String> first = cache.get("key", () -> {
+            loads.incrementAndGet();
+            return response.asMono();
+        });
+        Mono<String> second = cache.get("key", this::load);
+
+        // Act & Assert
+        StepVerifier.create(Mono.zip(first, second))
+            .then(() -> response.tryEmitValue("shared"))
+            .expectNextMatches(tuple -> tuple.getT1().equals("shared") && tuple.getT2().equals("shared"))
+            .verifyComplete();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Не должен кешировать ошибки и пустой результат")
+    void shouldNotCacheErrorsOrEmpty() {
+        // Act & Assert
+        StepVerifier.create(cache.get("key", () -> Mono.error(new IllegalStateException("boom"))))
+            .expectError(IllegalStateException.class)
+            .verify();
+        StepVerifier.create(cache.get("key", Mono::<String>empty)).verifyComplete();
+        StepVerifier.create(cache.get("key", this::load)).expectNext("value-1").verifyComplete();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Должен загружать значение заново после истечения TTL")
+    void shouldExpireAfterTtl() {
+        // Arrange
+        cache.get("key", this::load).block();
+
+        // Act
+        nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+        String beforeExpiry = cache.get("key", this::load).block();
+        nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+        String afterExpiry = cache.get("key", this::load).block();
+
+        // Assert
+        assertThat(beforeExpiry).isEqualTo("value-1");
+        assertThat(afterExpiry).isEqualTo("value-2");
+    }
+
+    @Test
+    @DisplayName("Отмена одного подписчика не должна прерывать общую загрузку")
+    void shouldNotCancelSharedLoad() {
+        // Arrange
+        Sinks.One<String> response = Sinks.one();
+        AtomicInteger cancelled = new AtomicInteger();
+        Mono<String> loader = response.asMono().doOnCancel(cancelled::incrementAndGet);
+
+        // Act
+        cache.get("key", () -> loader).subscribe().dispose();
+        response.tryEmitValue("value");
+
+        // Assert
+        assertThat(cancelled).hasValue(0);
+        StepVerifier.create(cache.get("key", this::load)).expectNext("value").verifyComplete();
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Неизвестный кеш должен приводить к ошибке")
+    void shouldRejectUnknownCache() {
+        ReactiveCacheManager manager = new ReactiveCacheManager(new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> manager.getCache("missing"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Mono<String> load() {
+        return Mono.fromSupplier(() -> "value-" + loads.incrementAndGet());
+    }
+}
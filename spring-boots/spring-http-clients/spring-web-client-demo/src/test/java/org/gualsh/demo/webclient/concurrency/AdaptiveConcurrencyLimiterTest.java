@@ -0,0 +1,212 @@
+package org.gualsh.demo.webclient.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gualsh.demo.webclient.config.ConcurrencyLimitProperties;
+import org.gualsh.demo.webclient.exception.CustomWebClientExceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit тесты для AdaptiveConcurrencyLimiter.
+ *
+ * Время управляется вручную, запросы завершаются явно через Sinks.
+ */
+@DisplayName("AdaptiveConcurrencyLimiter Tests")
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1);
+
+    private ConcurrencyLimitProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        properties.setMaxLimit(10);
+        properties.setMaxQueueSize(3);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Должен ставить запросы сверх окна в очередь и запускать их по мере освобождения слотов")
+    void shouldQueueRequestsBeyondLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        List<Sinks.One<String>> calls = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(() -> newCall(calls)).subscribe(results::add);
+        }
+
+        // Assert
+        assertThat(calls).hasSize(2);
+        assertThat(limiter.inFlight()).isEqualTo(2);
+        assertThat(limiter.queued()).isEqualTo(1);
+        assertThat(meterRegistry.get("webclient.concurrency.queued").gauge().value()).isEqualTo(1);
+
+        calls.get(0).tryEmitValue("first");
+        assertThat(calls).hasSize(3);
+        assertThat(limiter.queued()).isZero();
+
+        calls.get(1).tryEmitValue("second");
+        calls.get(2).tryEmitValue("third");
+        assertThat(results).containsExactly("first", "second", "third");
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен увеличивать окно, пока время ответа не растет")
+    void shouldIncreaseLimitWhileLatencyIsStable() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // Act: волны по 2 параллельных ответа за 10 мс
+        for (int wave = 0; wave < 10; wave++) {
+            runWave(limiter, limiter.limit(), Duration.ofMillis(10), null);
+        }
+
+        // Assert
+        assertThat(limiter.limit()).isGreaterThan(2);
+        assertThat(meterRegistry.get("webclient.concurrency.limit").gauge().value()).isEqualTo(limiter.limit());
+    }
+
+    @Test
+    @DisplayName("Должен сокращать окно при росте времени ответа")
+    void shouldDecreaseLimitWhenLatencyGrows() {
+        // Arrange
+        properties.setInitialLimit(8);
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        runWave(limiter, 8, Duration.ofMillis(10), null);
+        int before = limiter.limit();
+
+        // Act: сервер стал отвечать в 5 раз медленнее
+        for (int wave = 0; wave < 10; wave++) {
+            runWave(limiter, limiter.limit(), Duration.ofMillis(50), null);
+        }
+
+        // Assert
+        assertThat(limiter.limit()).isLessThan(before);
+    }
+
+    @Test
+    @DisplayName("Должен сокращать окно при 5xx и не реагировать на 404")
+    void shouldDecreaseLimitOnOverloadErrorsOnly() {
+        // Arrange
+        properties.setInitialLimit(8);
+        AdaptiveConcurrencyLimiter limiter = limiter();
+
+        // Act & Assert
+        runWave(limiter, 1, Duration.ofMillis(10), error(404));
+        assertThat(limiter.limit()).isEqualTo(8);
+
+        runWave(limiter, 1, Duration.ofMillis(10), error(503));
+        assertThat(limiter.limit()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять запросы при переполненной очереди")
+    void shouldRejectWhenQueueIsFull() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        List<Sinks.One<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            limiter.execute(() -> newCall(calls)).subscribe();
+        }
+
+        // Act & Assert
+        StepVerifier.create(limiter.execute(() -> Mono.just("overflow")))
+            .expectError(ServiceUnavailableException.class)
+            .verify();
+        assertThat(meterRegistry.get("webclient.concurrency.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен убирать отмененный запрос из очереди и освобождать слот отмененного выполнения")
+    void shouldReleaseOnCancel() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        List<Sinks.One<String>> calls = new ArrayList<>();
+        Disposable running = limiter.execute(() -> newCall(calls)).subscribe();
+        limiter.execute(() -> newCall(calls)).subscribe();
+        Disposable queued = limiter.execute(() -> newCall(calls)).subscribe();
+
+        // Act
+        queued.dispose();
+        running.dispose();
+
+        // Assert
+        assertThat(limiter.queued()).isZero();
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("flatMap должен обработать все элементы не превышая окно")
+    void shouldFanOutWithinLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        AtomicLong maxObserved = new AtomicLong();
+
+        // Act & Assert
+        StepVerifier.create(limiter.flatMap(Flux.range(1, 20), i -> Mono.fromSupplier(() -> {
+                maxObserved.accumulateAndGet(limiter.inFlight(), Math::max);
+                return i;
+            })))
+            .expectNextCount(20)
+            .verifyComplete();
+        assertThat(maxObserved.get()).isBetween(1L, 10L);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    /**
+     * Запускает пачку параллельных запросов и завершает их все через заданное время.
+     */
+    private void runWave(AdaptiveConcurrencyLimiter limiter, int size, Duration rtt, Throwable error) {
+        List<Sinks.One<String>> calls = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            limiter.execute(() -> newCall(calls)).subscribe(value -> { }, e -> { });
+        }
+        clock.addAndGet(rtt.toNanos());
+        for (Sinks.One<String> call : calls) {
+            if (error != null) {
+                call.tryEmitError(error);
+            } else {
+                call.tryEmitValue("ok");
+            }
+        }
+    }
+
+    private static Mono<String> newCall(List<Sinks.One<String>> calls) {
+        Sinks.One<String> call = Sinks.one();
+        calls.add(call);
+        return call.asMono();
+    }
+
+    private static WebClientResponseException error(int status) {
+        return WebClientResponseException.create(status, "error", HttpHeaders.EMPTY, null, null);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter() {
+        return new AdaptiveConcurrencyLimiter("test", properties, meterRegistry, clock::get);
+    }
+}
@@ -0,0 +1,170 @@
+package org.gualsh.demo.webclient.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gualsh.demo.webclient.config.HedgingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit тесты для HedgingPolicy.
+ */
+@DisplayName("HedgingPolicy Tests")
+class HedgingPolicyTest {
+
+    private static final String OPERATION = "test.get";
+
+    private HedgingProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setMinSamples(5);
+        properties.setMinDelay(Duration.ofMillis(10));
+        properties.setMaxDelay(Duration.ofMillis(500));
+        properties.setBudgetRatio(1.0);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Должен отправить дубль медленного запроса и отменить проигравший")
+    void shouldHedgeSlowRequestAndCancelLoser() {
+        // Arrange
+        HedgingPolicy policy = warmedUp(Duration.ofMillis(20));
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+        // Act & Assert
+        StepVerifier.create(policy.hedge(OPERATION, () -> calls.incrementAndGet() == 1
+                ? Mono.<String>never().doOnCancel(() -> primaryCancelled.set(true))
+                : Mono.just("hedged")))
+            .expectNext("hedged")
+            .expectComplete()
+            .verify(Duration.ofSeconds(2));
+
+        assertThat(calls).hasValue(2);
+        assertThat(primaryCancelled).isTrue();
+        assertThat(counter("webclient.hedging.issued")).isEqualTo(1);
+        assertThat(counter("webclient.hedging.won")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Не должен дублировать запрос, ответивший до задержки")
+    void shouldNotHedgeFastRequest() {
+        // Arrange
+        HedgingPolicy policy = warmedUp(Duration.ofMillis(200));
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        StepVerifier.create(policy.hedge(OPERATION, () -> Mono.just("v" + calls.incrementAndGet())))
+            .expectNext("v1")
+            .verifyComplete();
+
+        assertThat(calls).hasValue(1);
+        assertThat(counter("webclient.hedging.issued")).isZero();
+    }
+
+    @Test
+    @DisplayName("Не должен отправлять дубль при исчерпанном бюджете")
+    void shouldSkipHedgeWhenBudgetIsExhausted() {
+        // Arrange
+        properties.setBudgetRatio(0.1);
+        HedgingPolicy policy = warmedUp(Duration.ofMillis(20));
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        StepVerifier.create(policy.hedge(OPERATION, () -> {
+                calls.incrementAndGet();
+                return Mono.delay(Duration.ofMillis(100)).thenReturn("primary");
+            }))
+            .expectNext("primary")
+            .verifyComplete();
+
+        assertThat(calls).hasValue(1);
+        assertThat(counter("webclient.hedging.skipped")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен возвращать ответ основного запроса, если упал дубль")
+    void shouldIgnoreHedgeError() {
+        // Arrange
+        HedgingPolicy policy = warmedUp(Duration.ofMillis(20));
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        StepVerifier.create(policy.hedge(OPERATION, () -> calls.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofMillis(100)).thenReturn("primary")
+                : Mono.error(new IllegalStateException("hedge failed"))))
+            .expectNext("primary")
+            .verifyComplete();
+
+        assertThat(counter("webclient.hedging.issued")).isEqualTo(1);
+        assertThat(counter("webclient.hedging.won")).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен считать задержку дубля по перцентилю с учетом границ")
+    void shouldComputeDelayFromPercentile() {
+        // Arrange
+        properties.setMinSamples(100);
+        HedgingPolicy policy = new HedgingPolicy(properties, meterRegistry);
+        assertThat(policy.hedgeDelay(OPERATION)).isNull();
+
+        // Act
+        for (int i = 1; i <= 100; i++) {
+            policy.record(OPERATION, Duration.ofMillis(i));
+        }
+
+        // Assert
+        assertThat(policy.hedgeDelay(OPERATION)).isEqualTo(Duration.ofMillis(95));
+
+        properties.setMaxDelay(Duration.ofMillis(50));
+        HedgingPolicy capped = new HedgingPolicy(properties, new SimpleMeterRegistry());
+        for (int i = 1; i <= 100; i++) {
+            capped.record(OPERATION, Duration.ofMillis(i));
+        }
+        assertThat(capped.hedgeDelay(OPERATION)).isEqualTo(Duration.ofMillis(50));
+    }
+
+    @Test
+    @DisplayName("Выключенный hedging должен выполнять только основной запрос")
+    void shouldPassThroughWhenDisabled() {
+        // Arrange
+        properties.setEnabled(false);
+        HedgingPolicy policy = warmedUp(Duration.ofMillis(20));
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        StepVerifier.create(policy.hedge(OPERATION, () -> {
+                calls.incrementAndGet();
+                return Mono.delay(Duration.ofMillis(100)).thenReturn("primary");
+            }))
+            .expectNext("primary")
+            .verifyComplete();
+
+        assertThat(calls).hasValue(1);
+    }
+
+    private HedgingPolicy warmedUp(Duration latency) {
+        HedgingPolicy policy = new HedgingPolicy(properties, meterRegistry);
+        for (int i = 0; i < properties.getMinSamples(); i++) {
+            policy.record(OPERATION, latency);
+        }
+        return policy;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("operation", OPERATION).counter().count();
+    }
+}
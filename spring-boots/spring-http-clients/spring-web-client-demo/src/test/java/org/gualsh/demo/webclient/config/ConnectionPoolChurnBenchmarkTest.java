@@ -0,0 +1,160 @@
+package org.gualsh.demo.webclient.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение переподключений пула соединений: прежние настройки (FIFO, max-life-time 60s,
+ * без фоновой очистки) против настроек по умолчанию {@link ConnectionPoolProperties}
+ * (LIFO, max-life-time 5m, фоновая очистка).
+ *
+ * <p>Времена уменьшены в 60 раз (секунда бенчмарка - минута в проде): keep-alive стаба 1s,
+ * max-idle-time 20s -> 333ms, max-life-time 60s -> 1s, 5m -> 5s, eviction-interval 30s -> 500ms.
+ * Нагрузка: постоянный поток запросов с небольшой параллельностью и периодические всплески.
+ * При FIFO постоянный поток распределяется по всем соединениям, которые открыл всплеск,
+ * и каждое из них пересоздается по max-life-time; при LIFO он идет через несколько "горячих"
+ * соединений, а лишние закрываются фоновой очисткой.</p>
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=ConnectionPoolChurnBenchmarkTest -Dbenchmark=true}</p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Connection pool churn benchmark")
+class ConnectionPoolChurnBenchmarkTest {
+
+    private static final Duration SERVER_KEEP_ALIVE = Duration.ofSeconds(1);
+
+    private static final Duration DURATION = Duration.ofSeconds(6);
+
+    private static final int STEADY_CONCURRENCY = 4;
+
+    private static final Duration STEADY_GAP = Duration.ofMillis(10);
+
+    private static final int BURST = 32;
+
+    private static final Duration BURST_INTERVAL = Duration.ofSeconds(2);
+
+    private static final AtomicInteger opened = new AtomicInteger();
+
+    private static final AtomicInteger open = new AtomicInteger();
+
+    private static final AtomicInteger peakOpen = new AtomicInteger();
+
+    private static DisposableServer server;
+
+    @BeforeAll
+    static void startServer() {
+        server = HttpServer.create()
+            .port(0)
+            .idleTimeout(SERVER_KEEP_ALIVE)
+            // doOnConnection вызывается на каждый HTTP обмен, а инициализация канала - на каждое TCP соединение
+            .doOnChannelInit((observer, channel, address) -> {
+                opened.incrementAndGet();
+                peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                channel.closeFuture().addListener(future -> open.decrementAndGet());
+            })
+            .handle((request, response) -> response.sendString(
+                Mono.just("ok").delayElement(Duration.ofMillis(5))))
+            .bindNow();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Переподключения: прежний пул vs настроенный")
+    void compareConnectionChurn() {
+        ConnectionPoolProperties before = new ConnectionPoolProperties();
+        before.setLeasingStrategy(ConnectionPoolProperties.LeasingStrategy.FIFO);
+        before.setMaxIdleTime(Duration.ofMillis(333));
+        before.setMaxLifeTime(Duration.ofSeconds(1));
+        before.setEvictionInterval(Duration.ZERO);
+        before.setPendingAcquireMaxCount(-1);
+        before.setMetrics(false);
+
+        ConnectionPoolProperties after = new ConnectionPoolProperties();
+        after.setMaxIdleTime(Duration.ofMillis(333));
+        after.setMaxLifeTime(Duration.ofSeconds(5));
+        after.setEvictionInterval(Duration.ofMillis(500));
+        after.setMetrics(false);
+
+        System.out.printf("%8s %10s %12s %14s %10s %8s%n",
+            "profile", "requests", "connections", "conn/1000 req", "peak open", "errors");
+        Result beforeResult = run("before", before);
+        Result afterResult = run("after", after);
+
+        // Всплески открывают соединения в обоих профилях, сравнивается число подключений на запрос
+        assertThat(afterResult.churn()).isLessThan(beforeResult.churn());
+    }
+
+    private static Result run(String profile, ConnectionPoolProperties properties) {
+        ConnectionProvider provider = WebClientConfig.connectionProvider(profile, properties);
+        WebClient webClient = WebClient.builder()
+            .baseUrl("http://localhost:" + server.port())
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+            .build();
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        opened.set(0);
+        peakOpen.set(open.get());
+
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        Flux<String> steady = Flux.range(0, STEADY_CONCURRENCY)
+            .flatMap(worker -> Flux.range(0, Integer.MAX_VALUE)
+                .takeWhile(i -> System.nanoTime() < deadline)
+                .concatMap(i -> call(webClient, requests, errors).delayUntil(body -> Mono.delay(STEADY_GAP))));
+        Flux<String> bursts = Flux.interval(Duration.ZERO, BURST_INTERVAL)
+            .takeWhile(tick -> System.nanoTime() < deadline)
+            .concatMap(tick -> Flux.range(0, BURST).flatMap(i -> call(webClient, requests, errors), BURST));
+        try {
+            Flux.merge(steady, bursts).blockLast();
+        } finally {
+            provider.disposeLater().block();
+        }
+
+        Result result = new Result(requests.get(), opened.get(), peakOpen.get(), errors.get());
+        System.out.printf("%8s %10d %12d %14.1f %10d %8d%n", profile, result.requests(), result.connections(),
+            result.churn(), result.peakOpen(), result.errors());
+        return result;
+    }
+
+    private static Mono<String> call(WebClient webClient, AtomicInteger requests, AtomicInteger errors) {
+        return webClient.get()
+            .uri("/")
+            .retrieve()
+            .bodyToMono(String.class)
+            .doOnSuccess(body -> requests.incrementAndGet())
+            .onErrorResume(error -> {
+                errors.incrementAndGet();
+                return Mono.empty();
+            });
+    }
+
+    private record Result(int requests, int connections, int peakOpen, int errors) {
+
+        /**
+         * @return новых соединений на 1000 запросов
+         */
+        double churn() {
+            return requests == 0 ? 0 : connections * 1000.0 / requests;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.gualsh.demo.webclient.filter;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gualsh.demo.webclient.config.HttpCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для HttpCacheFilter с использованием WireMock.
+ */
+@DisplayName("HttpCacheFilter Tests")
+class HttpCacheFilterTest {
+
+    private static final String USER_JSON = "{\"id\":1,\"name\":\"Leanne Graham\"}";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private WireMockServer wireMockServer;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private HttpCacheProperties properties;
+
+    private HttpCacheFilter filter;
+
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(0);
+        wireMockServer.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new HttpCacheProperties();
+        createClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    @DisplayName("Должен отдавать свежий ответ из кеша без обращения к серверу")
+    void shouldServeFreshResponseFromCache() {
+        // Arrange
+        wireMockServer.stubFor(get(urlEqualTo("/users/1")).willReturn(okJson(USER_JSON)
+            .withHeader("Cache-Control", "max-age=60")
+            .withHeader("ETag", "\"v1\"")));
+
+        // Act & Assert
+        assertThat(fetch("/users/1")).isEqualTo(USER_JSON);
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(fetch("/users/1")).isEqualTo(USER_JSON);
+
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/users/1")));
+        assertThat(outcome("hit")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен перепроверять устаревшую запись по ETag и отдавать тело из кеша на 304")
+    void shouldRevalidateWithETag() {
+        // Arrange
+        wireMockServer.stubFor(get(urlEqualTo("/users/1")).willReturn(okJson(USER_JSON)
+            .withHeader("Cache-Control", "max-age=60")
+            .withHeader("ETag", "\"v1\"")));
+        wireMockServer.stubFor(get(urlEqualTo("/users/1"))
+            .withHeader("If-None-Match", equalTo("\"v1\""))
+            .willReturn(aResponse().withStatus(304)
+                .withHeader("Cache-Control", "max-age=120")
+                .withHeader("ETag", "\"v1\"")));
+        fetch("/users/1");
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+
+        // Act
+        String revalidated = fetch("/users/1");
+        clock.addAndGet(Duration.ofSeconds(100).toNanos());
+        String fresh = fetch("/users/1");
+
+        // Assert
+        assertThat(revalidated).isEqualTo(USER_JSON);
+        assertThat(fresh).isEqualTo(USER_JSON);
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/users/1")));
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/users/1"))
+            .withHeader("If-None-Match", equalTo("\"v1\"")));
+        assertThat(outcome("revalidated")).isEqualTo(1);
+        assertThat(outcome("hit")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Должен перепроверять по Last-Modified и заменять запись на новый ответ 200")
+    void shouldReplaceEntryWhenResourceChanged() {
+        // Arrange
+        String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+        wireMockServer.stubFor(get(urlEqualTo("/users/1")).willReturn(okJson(USER_JSON)
+            .withHeader("Cache-Control", "no-cache")
+            .withHeader("Last-Modified", lastModified)));
+        fetch("/users/1");
+        wireMockServer.stubFor(get(urlEqualTo("/users/1"))
+            .withHeader("If-Modified-Since", equalTo(lastModified))
+            .willReturn(okJson("{\"id\":1,\"name\":\"Changed\"}")
+                .withHeader("Cache-Control", "max-age=60")));
+
+        // Act & Assert
+        assertThat(fetch("/users/1")).contains("Changed");
+        assertThat(fetch("/users/1")).contains("Changed");
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    @DisplayName("Не должен кешировать no-store и ответы без свежести и валидаторов")
+    void shouldNotCacheUncacheableResponses() {
+        // Arrange
+        wireMockServer.stubFor(get(urlEqualTo("/no-store")).willReturn(okJson(USER_JSON)
+            .withHeader("Cache-Control", "no-store")
+            .withHeader("ETag", "\"v1\"")));
+        wireMockServer.stubFor(get(urlEqualTo("/plain")).willReturn(okJson(USER_JSON)));
+
+        // Act
+        fetch("/no-store");
+        fetch("/no-store");
+        fetch("/plain");
+        fetch("/plain");
+
+        // Assert
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/no-store")));
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/plain")));
+        assertThat(wireMockServer.findAll(getRequestedFor(urlEqualTo("/no-store"))
+            .withHeader("If-None-Match", matching(".*")))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("POST на URL должен удалять его запись из кеша")
+    void shouldInvalidateOnUnsafeMethod() {
+        // Arrange
+        wireMockServer.stubFor(get(urlEqualTo("/posts")).willReturn(okJson("[]")
+            .withHeader("Cache-Control", "max-age=60")));
+        wireMockServer.stubFor(post(urlEqualTo("/posts")).willReturn(aResponse().withStatus(201)));
+        fetch("/posts");
+
+        // Act
+        webClient.post().uri("/posts").bodyValue("{}").retrieve().toBodilessEntity().block();
+        fetch("/posts");
+
+        // Assert
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/posts")));
+    }
+
+    @Test
+    @DisplayName("Потоковое декодирование должно работать и с кешированным ответом")
+    void shouldStreamCachedArray() {
+        // Arrange
+        wireMockServer.stubFor(get(urlEqualTo("/users")).willReturn(okJson("[" + USER_JSON + "," + USER_JSON + "]")
+            .withHeader("Cache-Control", "max-age=60")));
+
+        // Act & Assert
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(webClient.get().uri("/users").retrieve().bodyToFlux(Map.class))
+                .expectNextCount(2)
+                .verifyComplete();
+        }
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/users")));
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать кеш по байтам и не кешировать слишком большие ответы")
+    void shouldBoundCacheByBytes() {
+        // Arrange
+        properties.setMaximumSize(DataSize.ofKilobytes(8));
+        properties.setMaxEntrySize(DataSize.ofKilobytes(4));
+        createClient();
+        String body = "\"" + "x".repeat(3000) + "\"";
+        for (int i = 0; i < 10; i++) {
+            wireMockServer.stubFor(get(urlEqualTo("/items/" + i)).willReturn(okJson(body)
+                .withHeader("Cache-Control", "max-age=60")));
+        }
+        wireMockServer.stubFor(get(urlEqualTo("/large")).willReturn(okJson("\"" + "x".repeat(5000) + "\"")
+            .withHeader("Cache-Control", "max-age=60")));
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            fetch("/items/" + i);
+        }
+        String large = fetch("/large");
+        fetch("/large");
+
+        // Assert
+        assertThat(large).hasSize(5002);
+        assertThat(filter.weightedSize()).isLessThanOrEqualTo(DataSize.ofKilobytes(8).toBytes());
+        wireMockServer.verify(2, getRequestedFor(urlEqualTo("/large")));
+    }
+
+    private String fetch(String path) {
+        return webClient.get().uri(path).retrieve().bodyToMono(String.class).block();
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("webclient.http_cache.requests").tag("outcome", outcome).counter().count();
+    }
+
+    private void createClient() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new HttpCacheFilter(properties, ExchangeStrategies.withDefaults(), meterRegistry, clock::get);
+        webClient = WebClient.builder()
+            .baseUrl(wireMockServer.baseUrl())
+            .filter(filter)
+            .build();
+    }
+}
@@ -0,0 +1,134 @@
+package org.gualsh.demo.webclient.filter;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gualsh.demo.webclient.config.RateLimitProperties;
+import org.gualsh.demo.webclient.exception.CustomWebClientExceptions.RateLimitExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тесты для RateLimitingFilter с использованием WireMock.
+ */
+@DisplayName("RateLimitingFilter Tests")
+class RateLimitingFilterTest {
+
+    private WireMockServer wireMockServer;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitProperties properties;
+
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(0);
+        wireMockServer.start();
+        wireMockServer.stubFor(get(urlEqualTo("/ok")).willReturn(aResponse().withStatus(200).withBody("ok")));
+
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RateLimitProperties();
+        properties.getDefaults().setPermitsPerSecond(20);
+        properties.getDefaults().setBurst(2);
+        properties.getDefaults().setMaxDelay(Duration.ofSeconds(1));
+
+        webClient = WebClient.builder()
+            .baseUrl(wireMockServer.baseUrl())
+            .filter(new RateLimitingFilter(properties, meterRegistry))
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    @DisplayName("Должен откладывать запросы сверх burst, а не отправлять их сразу")
+    void shouldDelayRequestsOverBurst() {
+        // When: 6 запросов при 20 req/s и burst 2 - последние 4 ждут по 50 мс каждый
+        long start = System.nanoTime();
+        StepVerifier.create(Flux.range(0, 6)
+                .flatMap(i -> webClient.get().uri("/ok").retrieve().bodyToMono(String.class)))
+            .expectNextCount(6)
+            .verifyComplete();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        // Then
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(180);
+        assertThat(count("permitted") + count("delayed")).isEqualTo(6);
+        assertThat(count("delayed")).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять запросы без обращения к серверу, если задержка больше max-delay")
+    void shouldRejectWhenDelayTooLong() {
+        // Given
+        properties.getDefaults().setMaxDelay(Duration.ofMillis(60));
+
+        // When: 10 одновременных запросов - burst 2 проходят сразу, третий ждет 50 мс,
+        // а тем, кому пришлось бы ждать дольше 60 мс, отказано
+        StepVerifier.create(Flux.range(0, 10)
+                .flatMap(i -> webClient.get().uri("/ok").retrieve().bodyToMono(String.class)
+                    .onErrorResume(RateLimitExceededException.class, e -> Mono.just("rejected")))
+                .filter("rejected"::equals)
+                .count())
+            .expectNextMatches(rejected -> rejected >= 5)
+            .verifyComplete();
+
+        // Then: отклоненные запросы до сервера не дошли
+        long rejected = (long) count("rejected");
+        wireMockServer.verify((int) (10 - rejected), getRequestedFor(urlEqualTo("/ok")));
+    }
+
+    @Test
+    @DisplayName("Должен снижать скорость после 429 с Retry-After")
+    void shouldAdaptRateOn429() {
+        // Given
+        wireMockServer.stubFor(get(urlEqualTo("/limited")).willReturn(aResponse()
+            .withStatus(429)
+            .withHeader(HttpHeaders.RETRY_AFTER, "0")));
+
+        // When
+        StepVerifier.create(webClient.get().uri("/limited").retrieve().bodyToMono(String.class))
+            .expectErrorMatches(error -> error instanceof WebClientResponseException ex
+                && ex.getStatusCode().value() == 429)
+            .verify();
+
+        // Then
+        assertThat(meterRegistry.get("webclient.ratelimit.throttled").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("webclient.ratelimit.rate").gauge().value()).isEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("Должен разбирать Retry-After в секундах и в формате HTTP-даты")
+    void shouldParseRetryAfter() {
+        HttpHeaders seconds = new HttpHeaders();
+        seconds.set(HttpHeaders.RETRY_AFTER, "7");
+        assertThat(RateLimitingFilter.parseRetryAfter(seconds)).isEqualTo(Duration.ofSeconds(7));
+
+        HttpHeaders pastDate = new HttpHeaders();
+        pastDate.set(HttpHeaders.RETRY_AFTER, "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertThat(RateLimitingFilter.parseRetryAfter(pastDate)).isEqualTo(Duration.ZERO);
+
+        assertThat(RateLimitingFilter.parseRetryAfter(new HttpHeaders())).isNull();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("webclient.ratelimit.requests").tag("outcome", outcome).counter().count();
+    }
+}
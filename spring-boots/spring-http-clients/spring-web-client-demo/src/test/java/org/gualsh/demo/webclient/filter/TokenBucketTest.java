@@ -0,0 +1,97 @@
+package org.gualsh.demo.webclient.filter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit тесты для TokenBucket.
+ *
+ * <p>Время управляется вручную через подменяемые часы.</p>
+ */
+@DisplayName("TokenBucket Unit Tests")
+class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    @DisplayName("Должен пропускать burst запросов сразу, а следующие - с задержкой по скорости")
+    void shouldAllowBurstThenDelay() {
+        // Given: 10 запросов в секунду, burst 3
+        TokenBucket bucket = new TokenBucket(10, 1, 3, Duration.ofSeconds(1), clock::get);
+
+        // When & Then
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(100).toNanos());
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(200).toNanos());
+    }
+
+    @Test
+    @DisplayName("Должен отклонять запрос, если ждать пришлось бы дольше max-delay")
+    void shouldRejectWhenDelayExceedsMax() {
+        // Given: 10 запросов в секунду, burst 1, ждем не больше 150 мс
+        TokenBucket bucket = new TokenBucket(10, 1, 1, Duration.ofMillis(150), clock::get);
+
+        // When & Then
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(100).toNanos());
+        assertThat(bucket.reserve()).isEqualTo(TokenBucket.REJECTED);
+
+        // После паузы бакет снова пропускает
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(bucket.reserve()).isZero();
+    }
+
+    @Test
+    @DisplayName("Должен снижать скорость на 429 и соблюдать Retry-After")
+    void shouldAdaptToThrottling() {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 1, 1, Duration.ofSeconds(10), clock::get);
+
+        // When
+        bucket.onThrottled(Duration.ofSeconds(2));
+
+        // Then: скорость вдвое ниже, следующий запрос - не раньше чем через 2 секунды
+        assertThat(bucket.currentRate()).isEqualTo(5.0);
+        assertThat(bucket.reserve()).isGreaterThanOrEqualTo(Duration.ofSeconds(2).toNanos());
+    }
+
+    @Test
+    @DisplayName("Должен возвращать скорость к базовой после успешных ответов")
+    void shouldRecoverRateOnSuccess() {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 1, 1, Duration.ofSeconds(10), clock::get);
+        bucket.onThrottled(null);
+        bucket.onThrottled(null);
+        assertThat(bucket.currentRate()).isEqualTo(2.5);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            bucket.onSuccess();
+        }
+
+        // Then
+        assertThat(bucket.currentRate()).isEqualTo(10.0);
+    }
+
+    @Test
+    @DisplayName("Не должен снижать скорость ниже минимальной")
+    void shouldNotGoBelowMinimumRate() {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 2, 1, Duration.ofSeconds(10), clock::get);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            bucket.onThrottled(null);
+        }
+
+        // Then
+        assertThat(bucket.currentRate()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,110 @@
+package org.gualsh.demo.webclient.pagination;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit тесты для PaginatedFetcher.
+ */
+@DisplayName("PaginatedFetcher Tests")
+class PaginatedFetcherTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final Set<Integer> requestedPages = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Test
+    @DisplayName("Должен отдавать страницы по порядку при параллельной загрузке")
+    void shouldEmitPagesInOrder() {
+        // Arrange: 95 элементов, более ранние страницы отвечают медленнее
+        PaginatedFetcher.PageLoader<Integer> loader = loader(95L, 95);
+
+        // Act & Assert
+        StepVerifier.create(PaginatedFetcher.fetchItems(loader, PAGE_SIZE, 3, PaginatedFetcher.UNLIMITED)
+                .collectList())
+            .expectNext(IntStream.range(0, 95).boxed().toList())
+            .verifyComplete();
+
+        assertThat(requestedPages).hasSize(10);
+        assertThat(maxInFlight.get()).isBetween(2, 3);
+    }
+
+    @Test
+    @DisplayName("Должен запрашивать только страницы, нужные для maxItems")
+    void shouldFetchOnlyNeededPages() {
+        // Arrange
+        PaginatedFetcher.PageLoader<Integer> loader = loader(1000L, 1000);
+
+        // Act & Assert
+        StepVerifier.create(PaginatedFetcher.fetchItems(loader, PAGE_SIZE, 4, 25))
+            .expectNextCount(25)
+            .verifyComplete();
+
+        assertThat(requestedPages).containsExactlyInAnyOrder(0, 1, 2);
+    }
+
+    @Test
+    @DisplayName("Без total должен загружать страницы последовательно до неполной")
+    void shouldFetchSequentiallyWithoutTotal() {
+        // Arrange
+        PaginatedFetcher.PageLoader<Integer> loader = loader(null, 35);
+
+        // Act & Assert
+        StepVerifier.create(PaginatedFetcher.fetchPages(loader, PAGE_SIZE, 4, PaginatedFetcher.UNLIMITED)
+                .map(Page::number))
+            .expectNext(0, 1, 2, 3)
+            .verifyComplete();
+
+        assertThat(maxInFlight).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Отмена подписки должна останавливать загрузку оставшихся страниц")
+    void shouldStopOnCancel() {
+        // Arrange
+        PaginatedFetcher.PageLoader<Integer> loader = loader(1000L, 1000);
+
+        // Act
+        List<Integer> items = PaginatedFetcher.fetchItems(loader, PAGE_SIZE, 2, PaginatedFetcher.UNLIMITED)
+            .take(15)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        // Assert
+        assertThat(items).hasSize(15);
+        assertThat(requestedPages.size()).isLessThan(10);
+    }
+
+    /**
+     * Загрузчик страниц из {@code available} последовательных чисел; задержка убывает с номером страницы,
+     * чтобы поздние страницы приходили раньше ранних.
+     */
+    private PaginatedFetcher.PageLoader<Integer> loader(Long total, int available) {
+        return (page, size) -> Mono.defer(() -> {
+            requestedPages.add(page);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            int from = Math.min(page * size, available);
+            int to = Math.min(from + size, available);
+            List<Integer> items = IntStream.range(from, to).boxed().toList();
+            return Mono.delay(Duration.ofMillis(Math.max(1, 30 - page * 3L)))
+                // Запрос завершен до того, как страница уйдет дальше по цепочке
+                .doOnNext(tick -> inFlight.decrementAndGet())
+                .thenReturn(new Page<>(page, items, total));
+        });
+    }
+}
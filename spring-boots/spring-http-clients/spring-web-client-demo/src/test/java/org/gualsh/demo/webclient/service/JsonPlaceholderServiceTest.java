@@ -1,10 +1,18 @@
 package org.gualsh.demo.webclient.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.webclient.cache.ReactiveCacheManager;
+import org.gualsh.demo.webclient.concurrency.AdaptiveConcurrencyLimiter;
+import org.gualsh.demo.webclient.concurrency.HedgingPolicy;
+import org.gualsh.demo.webclient.config.ConcurrencyLimitProperties;
+import org.gualsh.demo.webclient.config.HedgingProperties;
 import org.gualsh.demo.webclient.dto.CreatePostDto;
+import org.gualsh.demo.webclient.dto.PostDto;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -18,8 +26,13 @@ import org.springframework.web.reactive.function.client.WebClient;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Тесты для JsonPlaceholderService с использованием WireMock.
@@ -99,7 +112,8 @@ class JsonPlaceholderServiceTest {
             .build();
 
         // Создаем сервис с тестовым WebClient
-        jsonPlaceholderService = new JsonPlaceholderService(testWebClient, 3, 1000);
+        jsonPlaceholderService = new JsonPlaceholderService(testWebClient, 3, 1000, 64,
+            concurrencyLimiter(), hedgingPolicy(), 4, reactiveCacheManager());
     }
 
     /**
@@ -486,4 +500,150 @@ class JsonPlaceholderServiceTest {
 
         wireMockServer.verify(deleteRequestedFor(urlEqualTo("/posts/" + postId)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Тест потокового декодирования JSON массива.
+     *
+     * <p>Образовательный момент:</p>
+     * <p>Лимит maxInMemorySize у WebClient (1 КБ) меньше всего тела ответа (~40 КБ).
+     * bodyToMono(List) упал бы с DataBufferLimitException, а потоковый путь
+     * ограничивает только размер одного элемента массива.</p>
+     */
+    @Test
+    @DisplayName("Should stream JSON array larger than maxInMemorySize")
+    void shouldStreamArrayLargerThanMaxInMemorySize() {
+        // Given
+        String postsJson = IntStream.rangeClosed(1, 500)
+            .mapToObj(id -> "{\"id\":" + id + ",\"userId\":1,\"title\":\"title " + id
+                + "\",\"body\":\"body of post " + id + "\"}")
+            .collect(Collectors.joining(",", "[", "]"));
+
+        wireMockServer.stubFor(get(urlEqualTo("/posts"))
+            .willReturn(aResponse()
+                .withStatus(HttpStatus.OK.value())
+                .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .withBody(postsJson)));
+
+        WebClient smallBufferWebClient = WebClient.builder()
+            .baseUrl(wireMockServer.baseUrl())
+            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024))
+            .build();
+        JsonPlaceholderService service = new JsonPlaceholderService(smallBufferWebClient, 3, 1000, 16,
+            concurrencyLimiter(), hedgingPolicy(), 4, reactiveCacheManager());
+
+        // When & Then
+        StepVerifier.create(service.streamAllPosts())
+            .expectNextMatches(post -> post.getId().equals(1L))
+            .expectNextCount(498)
+            .expectNextMatches(post -> post.getId().equals(500L))
+            .verifyComplete();
+    }
+
+    /**
+     * Тест параллельной постраничной загрузки.
+     *
+     * <p>Образовательный момент:</p>
+     * <p>Первая страница сообщает X-Total-Count, остальные страницы запрашиваются
+     * параллельно, но посты приходят строго по порядку. Страницы, которые не нужны
+     * из-за ограничения maxItems, не запрашиваются вовсе.</p>
+     */
+    @Test
+    @DisplayName("Should fetch all pages using X-Total-Count and keep order")
+    void shouldStreamAllPagesInOrder() {
+        // Given: 5 страниц по 10 постов, первая отвечает медленнее остальных
+        for (int page = 0; page < 5; page++) {
+            int start = page * 10;
+            String postsJson = IntStream.range(start + 1, start + 11)
+                .mapToObj(id -> "{\"id\":" + id + ",\"userId\":1,\"title\":\"t\",\"body\":\"b\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+            wireMockServer.stubFor(get(urlEqualTo("/posts?_start=" + start + "&_limit=10"))
+                .willReturn(aResponse()
+                    .withStatus(HttpStatus.OK.value())
+                    .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .withHeader("X-Total-Count", "50")
+                    .withFixedDelay(page == 1 ? 200 : 0)
+                    .withBody(postsJson)));
+        }
+
+        // When & Then
+        StepVerifier.create(jsonPlaceholderService.streamAllPostsPaginated(10, Long.MAX_VALUE)
+                .map(PostDto::getId)
+                .collectList())
+            .expectNextMatches(ids -> ids.equals(LongStream.rangeClosed(1, 50).boxed().toList()))
+            .verifyComplete();
+
+        StepVerifier.create(jsonPlaceholderService.streamAllPostsPaginated(10, 15))
+            .expectNextCount(15)
+            .verifyComplete();
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/posts?_start=40&_limit=10")));
+
+        StepVerifier.create(jsonPlaceholderService.getAllPostsPaginated(1, 10))
+            .expectNextMatches(response -> response.getTotal() == 50
+                && response.getTotalPages() == 5
+                && response.getHasNext())
+            .verifyComplete();
+    }
+
+    /**
+     * Тест batch загрузки пользователей из кэша под адаптивным лимитом.
+     *
+     * <p>Образовательный момент:</p>
+     * <p>Лимитер стоит внутри загрузчика кэша: попадания в кэш не проходят через него.
+     * Иначе их время ответа (микросекунды) стало бы минимальным, и следующий настоящий
+     * HTTP запрос, заметно более медленный, сократил бы окно.</p>
+     */
+    @Test
+    @DisplayName("Should not lower concurrency limit on cache hits")
+    void shouldNotLowerConcurrencyLimitOnCacheHits() {
+        // Given
+        for (long id = 1; id <= 10; id++) {
+            wireMockServer.stubFor(get(urlEqualTo("/users/" + id))
+                .willReturn(aResponse()
+                    .withStatus(HttpStatus.OK.value())
+                    .withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .withFixedDelay(100)
+                    .withBody("{\"id\":" + id + ",\"username\":\"user" + id + "\"}")));
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JsonPlaceholderService service = new JsonPlaceholderService(testWebClient, 3, 1000, 64,
+            new AdaptiveConcurrencyLimiter("test", new ConcurrencyLimitProperties(), meterRegistry),
+            hedgingPolicy(), 4, reactiveCacheManager());
+        List<Long> cached = LongStream.rangeClosed(1, 5).boxed().toList();
+        List<Long> fresh = LongStream.rangeClosed(6, 10).boxed().toList();
+
+        StepVerifier.create(service.getUsersBatch(cached))
+            .expectNextCount(5)
+            .verifyComplete();
+        double warmLimit = meterRegistry.get("webclient.concurrency.limit").gauge().value();
+
+        // When: повторные batch из кэша, затем новые пользователи по HTTP
+        for (int i = 0; i < 20; i++) {
+            StepVerifier.create(service.getUsersBatch(cached))
+                .expectNextCount(5)
+                .verifyComplete();
+        }
+        StepVerifier.create(service.getUsersBatch(fresh))
+            .expectNextCount(5)
+            .verifyComplete();
+
+        // Then
+        for (long id = 1; id <= 10; id++) {
+            wireMockServer.verify(1, getRequestedFor(urlEqualTo("/users/" + id)));
+        }
+        assertThat(meterRegistry.get("webclient.concurrency.limit").gauge().value())
+            .isGreaterThanOrEqualTo(warmLimit);
+    }
+
+    private static AdaptiveConcurrencyLimiter concurrencyLimiter() {
+        return new AdaptiveConcurrencyLimiter("test", new ConcurrencyLimitProperties(), new SimpleMeterRegistry());
+    }
+
+    private static HedgingPolicy hedgingPolicy() {
+        return new HedgingPolicy(new HedgingProperties(), new SimpleMeterRegistry());
+    }
+
+    private static ReactiveCacheManager reactiveCacheManager() {
+        return new ReactiveCacheManager(new SimpleMeterRegistry())
+            .register("users", Caffeine.newBuilder());
+    }
+}
@@ -0,0 +1,165 @@
+package org.gualsh.demo.webclient.service;
+
+import org.gualsh.demo.webclient.dto.PostDto;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение пикового потребления heap при чтении большого JSON массива:
+ * агрегация всего тела (bodyToMono(List), лимит памяти снят) против потокового
+ * декодирования (bodyToFlux) без удержания элементов.
+ *
+ * <p>Тело генерируется сервером на лету чанками, чтобы сам сервер не держал payload в heap
+ * того же процесса. Пик считается по MemoryPoolMXBean heap-пулов после сброса и System.gc(),
+ * поэтому значения приблизительные, но порядок роста с размером payload виден.</p>
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=StreamingDecodeBenchmarkTest -Dbenchmark=true}</p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Streaming JSON decode heap benchmark")
+class StreamingDecodeBenchmarkTest {
+
+    private static final int[] POST_COUNTS = {10_000, 50_000, 200_000};
+
+    private static final int POSTS_PER_CHUNK = 100;
+
+    private static final String POST_BODY = "x".repeat(200);
+
+    private static DisposableServer server;
+
+    @BeforeAll
+    static void startServer() {
+        server = HttpServer.create()
+            .port(0)
+            .route(routes -> routes.get("/posts/{count}", (request, response) -> {
+                int count = Integer.parseInt(request.param("count"));
+                return response
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .sendString(postsJson(count));
+            }))
+            .bindNow();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+    }
+
+    @Test
+    @DisplayName("Пиковый heap: агрегация vs потоковое декодирование")
+    void comparePeakHeap() {
+        WebClient aggregatingClient = WebClient.builder()
+            .baseUrl("http://localhost:" + server.port())
+            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(-1))
+            .build();
+        WebClient streamingClient = WebClient.builder()
+            .baseUrl("http://localhost:" + server.port())
+            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(256 * 1024))
+            .build();
+
+        System.out.printf("%10s %12s %18s %18s%n", "posts", "payload MB", "aggregate peak MB", "streaming peak MB");
+
+        long lastAggregatePeak = 0;
+        long lastStreamingPeak = 0;
+        for (int count : POST_COUNTS) {
+            // Прогрев, чтобы в замер не попали загрузка классов и JIT
+            aggregate(aggregatingClient, 1_000);
+            stream(streamingClient, 1_000);
+
+            long aggregatePeak = measurePeakHeap(() -> assertThat(aggregate(aggregatingClient, count)).isEqualTo(count));
+            long streamingPeak = measurePeakHeap(() -> assertThat(stream(streamingClient, count)).isEqualTo(count));
+
+            System.out.printf("%10d %12.1f %18.1f %18.1f%n", count, payloadBytes(count) / 1048576.0,
+                aggregatePeak / 1048576.0, streamingPeak / 1048576.0);
+            lastAggregatePeak = aggregatePeak;
+            lastStreamingPeak = streamingPeak;
+        }
+
+        assertThat(lastStreamingPeak).isLessThan(lastAggregatePeak);
+    }
+
+    private static long aggregate(WebClient webClient, int count) {
+        List<PostDto> posts = webClient.get()
+            .uri("/posts/{count}", count)
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .bodyToMono(new ParameterizedTypeReference<List<PostDto>>() {
+            })
+            .block();
+        return posts != null ? posts.size() : 0;
+    }
+
+    private static long stream(WebClient webClient, int count) {
+        Long streamed = webClient.get()
+            .uri("/posts/{count}", count)
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .bodyToFlux(PostDto.class)
+            .limitRate(64)
+            .count()
+            .block();
+        return streamed != null ? streamed : 0;
+    }
+
+    private static long measurePeakHeap(Runnable action) {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+        System.gc();
+        long baseline = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        action.run();
+
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return Math.max(0, peak - baseline);
+    }
+
+    private static Flux<String> postsJson(int count) {
+        int chunks = (count + POSTS_PER_CHUNK - 1) / POSTS_PER_CHUNK;
+        return Flux.concat(
+            Mono.just("["),
+            Flux.range(0, chunks).map(chunk -> {
+                StringBuilder json = new StringBuilder();
+                int from = chunk * POSTS_PER_CHUNK + 1;
+                int to = Math.min(from + POSTS_PER_CHUNK - 1, count);
+                for (int id = from; id <= to; id++) {
+                    if (id > 1) {
+                        json.append(',');
+                    }
+                    json.append(post(id));
+                }
+                return json.toString();
+            }),
+            Mono.just("]")
+        );
+    }
+
+    private static String post(int id) {
+        return "{\"id\":" + id + ",\"userId\":1,\"title\":\"title " + id + "\",\"body\":\"" + POST_BODY + "\"}";
+    }
+
+    private static long payloadBytes(int count) {
+        return (long) count * (post(count).length() + 1);
+    }
+}
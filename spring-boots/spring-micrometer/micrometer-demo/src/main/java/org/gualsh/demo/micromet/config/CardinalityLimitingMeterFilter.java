@@ -0,0 +1,184 @@
+package org.gualsh.demo.micromet.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MeterFilter, ограничивающий число различных значений тега для заданных метрик.
+ * <p>
+ * Если значение тега берется из запроса (например, {@code /dynamic/{category}}), каждое новое
+ * значение создает новый временной ряд. Сканер или fuzzing-клиент может создать их миллионы
+ * и исчерпать память MeterRegistry и систему мониторинга. Фильтр пропускает первые N различных
+ * значений каждого тега метрики, а все последующие заменяет на {@value #OTHER}.
+ * </p>
+ * <p>
+ * Память ограничена: на каждую пару (метрика, ключ тега) хранится не больше N значений.
+ * Проверка значения - один поиск в ConcurrentHashMap, без блокировок.
+ * </p>
+ * <p>
+ * Число замененных значений публикуется счетчиком {@code metrics.tag.values.dropped}
+ * с тегом {@code meter}: рост счетчика означает, что лимит мал или метрику атакуют.
+ * </p>
+ * <p>
+ * Важно: MeterRegistry кэширует метрики по исходному (до фильтров) идентификатору, поэтому
+ * для значений из запроса кэш будет расти, даже если фильтр свернет их в {@value #OTHER}.
+ * Код, создающий метрики из внешних данных, должен заранее приводить значение через
+ * {@link #limit(String, String, String)}; сам фильтр страхует остальные места регистрации.
+ * </p>
+ *
+ * @see MeterFilter#maximumAllowableTags(String, String, int, MeterFilter)
+ */
+public class CardinalityLimitingMeterFilter implements MeterFilter, MeterBinder {
+
+    /**
+     * Значение тега, в которое сворачиваются значения сверх лимита.
+     */
+    public static final String OTHER = "OTHER";
+
+    private final int maxValuesPerTag;
+
+    /**
+     * Ограничиваемые метрики: имя метрики → значения по ключам тегов.
+     * Набор имен фиксирован в конструкторе, поэтому внешняя Map не изменяется.
+     */
+    private final Map<String, LimitedMeter> meters;
+
+    /**
+     * Создает фильтр для перечисленных метрик.
+     *
+     * @param maxValuesPerTag максимальное число различных значений каждого тега метрики
+     * @param meterNames имена метрик, теги которых ограничиваются
+     */
+    public CardinalityLimitingMeterFilter(int maxValuesPerTag, String... meterNames) {
+        if (maxValuesPerTag < 1) {
+            throw new IllegalArgumentException("maxValuesPerTag must be positive: " + maxValuesPerTag);
+        }
+        this.maxValuesPerTag = maxValuesPerTag;
+        Map<String, LimitedMeter> limited = new HashMap<>();
+        for (String meterName : meterNames) {
+            limited.put(meterName, new LimitedMeter());
+        }
+        this.meters = Map.copyOf(limited);
+    }
+
+    /**
+     * Заменяет значения тегов сверх лимита на {@value #OTHER}.
+     *
+     * @param id идентификатор регистрируемой метрики
+     * @return исходный идентификатор или идентификатор с замененными значениями
+     */
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        LimitedMeter meter = meters.get(id.getName());
+        if (meter == null) {
+            return id;
+        }
+        List<Tag> tags = null;
+        List<Tag> original = id.getTags();
+        for (int i = 0; i < original.size(); i++) {
+            Tag tag = original.get(i);
+            String value = meter.limit(tag.getKey(), tag.getValue());
+            if (tags == null && !value.equals(tag.getValue())) {
+                tags = new ArrayList<>(original.subList(0, i));
+            }
+            if (tags != null) {
+                tags.add(Tag.of(tag.getKey(), value));
+            }
+        }
+        return tags != null ? id.replaceTags(tags) : id;
+    }
+
+    /**
+     * Возвращает значение тега, под которым метрику можно зарегистрировать.
+     * <p>
+     * Пример использования перед созданием метрики из параметра запроса:
+     * <pre>{@code
+     * String tagValue = filter.limit("api.counters.dynamic", "category", category);
+     * Counter.builder("api.counters.dynamic").tag("category", tagValue).register(registry);
+     * }</pre>
+     * </p>
+     *
+     * @param meterName имя метрики
+     * @param tagKey ключ тега
+     * @param value исходное значение тега
+     * @return исходное значение или {@value #OTHER}, если лимит различных значений исчерпан
+     */
+    public String limit(String meterName, String tagKey, String value) {
+        LimitedMeter meter = meters.get(meterName);
+        return meter != null ? meter.limit(tagKey, value) : value;
+    }
+
+    /**
+     * Регистрирует счетчики замененных значений для каждой ограничиваемой метрики.
+     *
+     * @param registry регистр метрик
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters.forEach((meterName, meter) ->
+            FunctionCounter.builder("metrics.tag.values.dropped", meter.dropped, LongAdder::sum)
+                .tag("meter", meterName)
+                .description("Tag values replaced with " + OTHER + " because of the cardinality limit")
+                .register(registry));
+    }
+
+    /**
+     * Допустимые значения тегов одной метрики.
+     */
+    private final class LimitedMeter {
+
+        private final Map<String, TagValues> tags = new ConcurrentHashMap<>();
+
+        private final LongAdder dropped = new LongAdder();
+
+        String limit(String tagKey, String value) {
+            TagValues values = tags.computeIfAbsent(tagKey, key -> new TagValues());
+            if (values.admit(value)) {
+                return value;
+            }
+            dropped.increment();
+            return OTHER;
+        }
+    }
+
+    /**
+     * Не больше maxValuesPerTag значений одного тега.
+     */
+    private final class TagValues {
+
+        private final Map<String, Boolean> values = new ConcurrentHashMap<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        boolean admit(String value) {
+            if (values.containsKey(value) || OTHER.equals(value)) {
+                return true;
+            }
+            // Сначала занимаем место, потом добавляем: размер никогда не превышает лимит
+            int current;
+            do {
+                current = size.get();
+                if (current >= maxValuesPerTag) {
+                    return values.containsKey(value);
+                }
+            } while (!size.compareAndSet(current, current + 1));
+            if (values.putIfAbsent(value, Boolean.TRUE) != null) {
+                // Другой поток успел добавить то же значение - место не нужно
+                size.decrementAndGet();
+            }
+            return true;
+        }
+    }
+}
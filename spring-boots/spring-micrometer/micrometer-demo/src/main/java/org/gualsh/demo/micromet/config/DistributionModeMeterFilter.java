@@ -0,0 +1,149 @@
+package org.gualsh.demo.micromet.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MeterFilter, выбирающий способ публикации распределений для таймеров и DistributionSummary.
+ * <p>
+ * Метрики в коде объявлены с {@code publishPercentiles(...)}: процентили считаются на стороне
+ * приложения. Каждая запись обновляет HdrHistogram в нескольких временных окнах, каждый таймер
+ * держит эти гистограммы в памяти, а опубликованные процентили нельзя сложить между экземплярами
+ * приложения: p99 кластера не равен среднему или максимуму p99 отдельных экземпляров.
+ * </p>
+ * <p>
+ * Фильтр позволяет заменить их на агрегируемые гистограммы, не меняя код метрик:
+ * <ul>
+ *   <li>{@link DistributionMode#PERCENTILES} - как объявлено в коде, фильтр ничего не меняет;</li>
+ *   <li>{@link DistributionMode#SLO} - счетчики по фиксированным границам (SLO buckets),
+ *       процентили на стороне приложения отключаются;</li>
+ *   <li>{@link DistributionMode#HISTOGRAM} - логарифмическая сетка границ Micrometer, ограниченная
+ *       диапазоном от первой до последней заданной границы.</li>
+ * </ul>
+ * Счетчики по одинаковым границам складываются между экземплярами, а процентили считает
+ * система мониторинга, например {@code histogram_quantile(0.99, sum by (le) (rate(..._bucket[5m])))}.
+ * Память таймера - массив счетчиков на каждую границу, запись - бинарный поиск границы
+ * и атомарный инкремент.
+ * </p>
+ * <p>
+ * Границы задаются для каждой метрики отдельно; метрики без границ фильтр не трогает.
+ * </p>
+ */
+public class DistributionModeMeterFilter implements MeterFilter {
+
+    /**
+     * Способ публикации распределения.
+     */
+    public enum DistributionMode {
+
+        /**
+         * Процентили, объявленные в коде метрики, считаются на стороне приложения.
+         */
+        PERCENTILES,
+
+        /**
+         * Счетчики по фиксированным границам SLO.
+         */
+        SLO,
+
+        /**
+         * Логарифмическая гистограмма Micrometer в диапазоне заданных границ.
+         */
+        HISTOGRAM
+    }
+
+    private static final double[] NO_PERCENTILES = new double[0];
+
+    private final DistributionMode mode;
+
+    /**
+     * Границы по имени метрики: для таймеров в наносекундах, для DistributionSummary в базовых единицах.
+     */
+    private final Map<String, double[]> boundariesByMeter = new ConcurrentHashMap<>();
+
+    /**
+     * Создает фильтр с указанным режимом.
+     *
+     * @param mode способ публикации распределений
+     */
+    public DistributionModeMeterFilter(DistributionMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Задает границы для таймера.
+     *
+     * @param meterName имя таймера
+     * @param boundaries границы по возрастанию
+     * @return этот фильтр для цепочки вызовов
+     */
+    public DistributionModeMeterFilter timer(String meterName, Duration... boundaries) {
+        return boundaries(meterName, Arrays.stream(boundaries).mapToDouble(Duration::toNanos).toArray());
+    }
+
+    /**
+     * Задает границы для DistributionSummary.
+     *
+     * @param meterName имя метрики
+     * @param boundaries границы по возрастанию в базовых единицах метрики
+     * @return этот фильтр для цепочки вызовов
+     */
+    public DistributionModeMeterFilter summary(String meterName, double... boundaries) {
+        return boundaries(meterName, boundaries);
+    }
+
+    /**
+     * Возвращает режим фильтра.
+     *
+     * @return способ публикации распределений
+     */
+    public DistributionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Заменяет процентили на гистограмму для метрик с заданными границами.
+     *
+     * @param id идентификатор метрики
+     * @param config конфигурация распределения, объявленная в коде и предыдущими фильтрами
+     * @return конфигурация для выбранного режима
+     */
+    @Override
+    public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+        double[] boundaries = boundariesByMeter.get(id.getName());
+        if (boundaries == null || mode == DistributionMode.PERCENTILES) {
+            return config;
+        }
+        // Пустой массив, а не null: при merge null заменился бы процентилями из кода
+        DistributionStatisticConfig.Builder builder = DistributionStatisticConfig.builder()
+            .percentiles(NO_PERCENTILES);
+        if (mode == DistributionMode.SLO) {
+            builder.percentilesHistogram(false)
+                .serviceLevelObjectives(boundaries);
+        } else {
+            builder.percentilesHistogram(true)
+                .minimumExpectedValue(boundaries[0])
+                .maximumExpectedValue(boundaries[boundaries.length - 1]);
+        }
+        return builder.build().merge(config);
+    }
+
+    private DistributionModeMeterFilter boundaries(String meterName, double[] boundaries) {
+        if (boundaries.length == 0) {
+            throw new IllegalArgumentException("At least one boundary is required for " + meterName);
+        }
+        for (int i = 1; i < boundaries.length; i++) {
+            if (boundaries[i] <= boundaries[i - 1]) {
+                throw new IllegalArgumentException("Boundaries must be ascending for " + meterName);
+            }
+        }
+        boundariesByMeter.put(meterName, boundaries.clone());
+        return this;
+    }
+}
@@ -116,4 +116,56 @@ public class MicrometerConfig {
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Ограничивает число различных значений тегов у метрик, теги которых приходят из запросов.
+     * <p>
+     * Счетчик {@code api.counters.dynamic} получает тег category из пути запроса
+     * {@code /api/counters/dynamic/{category}}: без лимита каждый новый путь создает новый счетчик.
+     * Значения сверх лимита сворачиваются в {@value CardinalityLimitingMeterFilter#OTHER}.
+     * </p>
+     *
+     * @param maxTagValues максимальное число различных значений тега
+     * @return MeterFilter и MeterBinder со счетчиком отброшенных значений
+     */
+    @Bean
+    public CardinalityLimitingMeterFilter dynamicMetersCardinalityLimit(
+        @Value("${metrics.cardinality.max-tag-values:100}") int maxTagValues) {
+        return new CardinalityLimitingMeterFilter(maxTagValues, "api.counters.dynamic");
+    }
+
+    /**
+     * Настраивает способ публикации распределений бизнес-метрик и метрик демо-контроллеров.
+     * <p>
+     * Метрики объявлены в коде с процентилями на стороне приложения, в том числе через
+     * {@code @Timed(percentiles = ...)}. В режимах SLO и HISTOGRAM вместо них публикуются счетчики
+     * по границам, которые можно агрегировать между экземплярами. Границы подобраны под время
+     * и суммы, которые имитирует демо. Новую метрику с процентилями нужно добавить сюда.
+     * </p>
+     *
+     * @param mode режим из свойства metrics.distribution.mode
+     * @return MeterFilter с границами гистограмм для каждой метрики
+     */
+    @Bean
+    public DistributionModeMeterFilter distributionModeMeterFilter(
+        @Value("${metrics.distribution.mode:SLO}") DistributionModeMeterFilter.DistributionMode mode) {
+        return new DistributionModeMeterFilter(mode)
+            .timer("business.orders.processing.time",
+                Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofMillis(2500))
+            .timer("business.payment.processing.time",
+                Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500))
+            .summary("business.orders.amount", 100, 250, 500, 750, 1000, 2500)
+            .timer("api.counters.operation.timer",
+                Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+                Duration.ofSeconds(1))
+            .summary("api.counters.value.summary", 1, 5, 10, 25, 50, 100)
+            .timer("api.counters.process.time",
+                Duration.ofMillis(250), Duration.ofMillis(300), Duration.ofMillis(400), Duration.ofMillis(500),
+                Duration.ofSeconds(1))
+            .timer("api.status.request",
+                Duration.ofMillis(50), Duration.ofMillis(75), Duration.ofMillis(100), Duration.ofMillis(250))
+            .timer("scheduler.maintenance.time",
+                Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5), Duration.ofSeconds(10));
+    }
+}
@@ -7,6 +7,7 @@ import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.gualsh.demo.micromet.config.CardinalityLimitingMeterFilter;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -71,14 +72,22 @@ public class CountersController {
      */
     private final AtomicInteger activeRequests = new AtomicInteger(0);
 
+    /**
+     * Ограничение числа различных значений тега category у динамических счетчиков.
+     * Категория приходит из пути запроса, поэтому без лимита число счетчиков не ограничено.
+     */
+    private final CardinalityLimitingMeterFilter cardinalityLimit;
+
     /**
      * Создает новый экземпляр контроллера со счетчиками.
      * Инициализирует все необходимые счетчики и метрики через MeterRegistry.
      *
      * @param meterRegistry регистр метрик для регистрации счетчиков
+     * @param cardinalityLimit ограничение числа значений тегов динамических счетчиков
      */
-    public CountersController(MeterRegistry meterRegistry) {
+    public CountersController(MeterRegistry meterRegistry, CardinalityLimitingMeterFilter cardinalityLimit) {
         this.meterRegistry = meterRegistry;
+        this.cardinalityLimit = cardinalityLimit;
 
         // Инициализируем счетчики
         this.successCounter = Counter.builder("api.counters.success")
@@ -247,6 +256,12 @@ public class CountersController {
      * Такой подход полезен, когда необходимо отслеживать метрики для динамического
      * набора сущностей или категорий, которые заранее неизвестны.
      * </p>
+     * <p>
+     * Значение тега берется из запроса, поэтому число категорий ограничено
+     * (metrics.cardinality.max-tag-values): остальные учитываются в категории
+     * {@value CardinalityLimitingMeterFilter#OTHER}. Значение приводится до регистрации,
+     * чтобы MeterRegistry не кэшировал счетчик под каждой исходной категорией.
+     * </p>
      *
      * @param category категория запроса, используется как тег в счетчике и включается в ответ
      * @return ResponseEntity с информацией о созданном счетчике и его категории
@@ -255,9 +270,10 @@ public class CountersController {
     public ResponseEntity<Map<String, Object>> createDynamicCounter(@PathVariable String category) {
         log.info("Creating dynamic counter for category: {}", category);
 
-        // Создаем счетчик динамически на основе параметра
+        // Создаем счетчик динамически на основе параметра, не больше лимита категорий
+        String tagValue = cardinalityLimit.limit("api.counters.dynamic", "category", category);
         Counter dynamicCounter = Counter.builder("api.counters.dynamic")
-            .tag("category", category)
+            .tag("category", tagValue)
             .description("Dynamically created counter")
             .register(meterRegistry);
 
@@ -267,6 +283,7 @@ public class CountersController {
         Map<String, Object> response = new HashMap<>();
         response.put("counter_name", "api.counters.dynamic");
         response.put("category", category);
+        response.put("tag_value", tagValue);
         response.put("created", true);
 
         return ResponseEntity.ok(response);
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Сервис, демонстрирующий использование метрик Micrometer в бизнес-логике.
@@ -23,7 +24,7 @@ public class OrderProcessingService {
     private final MeterRegistry meterRegistry;
     private final Random random = new Random();
     private final AtomicInteger orderQueueSize = new AtomicInteger(0);
-    private final Map<String, Double> orderPriceByRegion = new HashMap<>();
+    private final Map<String, AtomicLong> orderPriceByRegion;
     private final Counter totalOrdersCounter;
     private final Counter failedOrdersCounter;
     private final Timer processingTimer;
@@ -47,6 +48,8 @@ public class OrderProcessingService {
             .description("Number of failed orders")
             .register(meterRegistry);
 
+        // Процентили ниже публикуются только в режиме PERCENTILES: в режимах SLO и HISTOGRAM
+        // DistributionModeMeterFilter заменяет их на агрегируемую гистограмму (metrics.distribution.mode)
         processingTimer = Timer.builder("business.orders.processing.time")
             .description("Order processing time")
             .publishPercentiles(0.5, 0.95, 0.99)
@@ -69,17 +72,21 @@ public class OrderProcessingService {
             .description("Current orders queue size")
             .register(meterRegistry);
 
-        // Инициализируем начальные данные для регионов
-        Arrays.asList("us", "eu", "asia", "africa").forEach(region ->
-            orderPriceByRegion.put(region, 0.0));
-
-        // Многомерные метрики - средняя стоимость заказа по регионам
-        orderPriceByRegion.forEach((region, initialValue) ->
-            Gauge.builder("business.orders.avg.price", orderPriceByRegion, map -> map.get(region))
+        // Многомерные метрики - средняя стоимость заказа по регионам.
+        // Значение каждого региона хранится в своей ячейке AtomicLong (биты double): заказы обновляют
+        // ячейки из потоков DemoScheduler и HTTP запросов, а gauge читает их при сборе метрик.
+        // Набор регионов фиксирован, поэтому Map неизменяемая и gauge регистрируются один раз.
+        Map<String, AtomicLong> cells = new HashMap<>();
+        Arrays.asList("us", "eu", "asia", "africa").forEach(region -> {
+            AtomicLong cell = new AtomicLong(Double.doubleToLongBits(0.0));
+            cells.put(region, cell);
+            Gauge.builder("business.orders.avg.price", cell, value -> Double.longBitsToDouble(value.get()))
                 .tag("region", region)
                 .description("Average order price by region")
                 .baseUnit("USD")
-                .register(meterRegistry));
+                .register(meterRegistry);
+        });
+        orderPriceByRegion = Map.copyOf(cells);
 
         log.info("OrderProcessingService initialized with metrics");
     }
@@ -154,22 +161,26 @@ public class OrderProcessingService {
 
     /**
      * Обновляет среднюю цену заказа для указанного региона.
+     * <p>
+     * Обновление без блокировок: новое значение вычисляется из прочитанного и записывается
+     * через compareAndSet; если другой поток успел изменить ячейку, вычисление повторяется.
+     * Поэтому одновременные заказы одного региона не теряют обновлений.
+     * </p>
      *
      * @param region регион для обновления статистики
      * @param newOrderAmount сумма нового заказа
      */
-    private void updateRegionOrderPrice(String region, double newOrderAmount) {
-        // Если регион не задан, используем значение по умолчанию
-        String regionKey = region != null ? region : "unknown";
-
-        // Получаем текущее значение для региона
-        Double currentValue = orderPriceByRegion.getOrDefault(regionKey, 0.0);
+    void updateRegionOrderPrice(String region, double newOrderAmount) {
+        AtomicLong cell = region != null ? orderPriceByRegion.get(region) : null;
+        if (cell == null) {
+            // Для неизвестных регионов gauge нет: произвольные значения из запроса
+            // не должны порождать новые временные ряды
+            log.debug("No average price gauge for region: {}", region);
+            return;
+        }
 
         // Простой способ обновления "скользящего среднего" - смешивание
-        double newAverage = currentValue * 0.8 + newOrderAmount * 0.2;
-
-        // Обновляем значение в Map, это автоматически обновит Gauge
-        orderPriceByRegion.put(regionKey, newAverage);
+        cell.updateAndGet(bits -> Double.doubleToLongBits(Double.longBitsToDouble(bits) * 0.8 + newOrderAmount * 0.2));
     }
 
     /**
@@ -0,0 +1,138 @@
+package org.gualsh.demo.micromet.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты для {@link CardinalityLimitingMeterFilter}.
+ */
+@DisplayName("CardinalityLimitingMeterFilter Tests")
+class CardinalityLimitingMeterFilterTest {
+
+    private static final String METER = "api.counters.dynamic";
+
+    private MeterRegistry registry;
+
+    private CardinalityLimitingMeterFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new CardinalityLimitingMeterFilter(3, METER);
+        registry.config().meterFilter(filter);
+        filter.bindTo(registry);
+    }
+
+    @Test
+    @DisplayName("Должен сворачивать значения тега сверх лимита в OTHER")
+    void shouldFoldValuesOverLimit() {
+        // Act
+        for (String category : List.of("a", "b", "c", "d", "e", "a")) {
+            Counter.builder(METER).tag("category", category).register(registry).increment();
+        }
+
+        // Assert
+        assertThat(registry.find(METER).counters())
+            .extracting(counter -> counter.getId().getTag("category"))
+            .containsExactlyInAnyOrder("a", "b", "c", CardinalityLimitingMeterFilter.OTHER);
+        assertThat(registry.get(METER).tag("category", "a").counter().count()).isEqualTo(2);
+        assertThat(registry.get(METER).tag("category", CardinalityLimitingMeterFilter.OTHER).counter().count())
+            .isEqualTo(2);
+        assertThat(registry.get("metrics.tag.values.dropped").tag("meter", METER).functionCounter().count())
+            .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать значения каждого тега отдельно и не трогать другие метрики")
+    void shouldLimitEachTagSeparately() {
+        // Act
+        for (int i = 0; i < 5; i++) {
+            Counter.builder(METER).tag("category", "c" + i).tag("source", "s" + (i % 2)).register(registry);
+            Counter.builder("api.counters.other").tag("category", "c" + i).register(registry);
+        }
+
+        // Assert
+        assertThat(registry.find(METER).counters())
+            .extracting(counter -> counter.getId().getTag("source"))
+            .containsOnly("s0", "s1");
+        assertThat(registry.find("api.counters.other").counters()).hasSize(5);
+    }
+
+    @Test
+    @DisplayName("Должен приводить значение до регистрации через limit")
+    void shouldLimitBeforeRegistration() {
+        // Act
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            values.add(filter.limit(METER, "category", "scan-" + i));
+        }
+
+        // Assert
+        assertThat(new HashSet<>(values)).hasSize(4).contains(CardinalityLimitingMeterFilter.OTHER);
+        assertThat(filter.limit(METER, "category", "scan-0")).isEqualTo("scan-0");
+        assertThat(filter.limit("api.counters.other", "category", "scan-999")).isEqualTo("scan-999");
+        assertThat(registry.get("metrics.tag.values.dropped").functionCounter().count()).isEqualTo(997);
+    }
+
+    @Test
+    @DisplayName("Должен пропускать не больше лимита значений при одновременной регистрации")
+    void shouldNotExceedLimitConcurrently() throws Exception {
+        // Arrange
+        int threads = 8;
+        CardinalityLimitingMeterFilter limited = new CardinalityLimitingMeterFilter(100, METER);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        Set<String> admitted = ConcurrentHashMap.newKeySet();
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        // Половина значений общая для всех потоков, половина - своя у каждого
+                        String value = i % 2 == 0 ? "shared-" + (i % 200) : "thread-" + thread + "-" + i;
+                        admitted.add(limited.limit(METER, "category", value));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        admitted.remove(CardinalityLimitingMeterFilter.OTHER);
+        assertThat(admitted).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("Должен отклонять неположительный лимит")
+    void shouldRejectNonPositiveLimit() {
+        assertThatThrownBy(() -> new CardinalityLimitingMeterFilter(0, METER))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
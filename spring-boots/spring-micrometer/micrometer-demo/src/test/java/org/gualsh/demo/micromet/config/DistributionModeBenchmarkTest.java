@@ -0,0 +1,171 @@
+package org.gualsh.demo.micromet.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.gualsh.demo.micromet.config.DistributionModeMeterFilter.DistributionMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стоимость {@code Timer.record()} и память таймера в режимах {@link DistributionModeMeterFilter}.
+ *
+ * <p>Таймер объявлен как в OrderProcessingService: {@code publishPercentiles(0.5, 0.95, 0.99)},
+ * регистр - PrometheusMeterRegistry, как в приложении. Время записи замеряется в 1 и 4 потоках
+ * на случайных значениях от 50 до 600 мс; для 4 потоков это суммарное время потоков на одну запись.
+ * Память - прирост занятой кучи после сборки мусора на 2000 таймеров с разными тегами.
+ *
+ * <p>Не входит в обычный прогон тестов, запуск:
+ * {@code mvn test -Dtest=DistributionModeBenchmarkTest -Dbenchmark=true}
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Distribution mode benchmark")
+class DistributionModeBenchmarkTest {
+
+    private static final String TIMER = "business.orders.processing.time";
+
+    private static final int RECORDS = 2_000_000;
+
+    private static final int TIMERS = 2_000;
+
+    private final Logger rootLogger = (Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+
+    private Level rootLevel;
+
+    @BeforeEach
+    void setUp() {
+        // Без logback-test.xml корневой логгер пишет DEBUG в консоль - это исказило бы замер
+        rootLevel = rootLogger.getLevel();
+        rootLogger.setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rootLogger.setLevel(rootLevel);
+    }
+
+    @Test
+    @DisplayName("Стоимость записи и память таймера: процентили vs SLO vs гистограмма")
+    void compareModes() throws Exception {
+        System.out.printf("%-12s %14s %14s %14s%n", "mode", "ns/record x1", "ns/record x4", "bytes/timer");
+
+        double percentilesNanos = 0;
+        double sloNanos = 0;
+        long percentilesBytes = 0;
+        long sloBytes = 0;
+        for (DistributionMode mode : DistributionMode.values()) {
+            Timer timer = timer(registry(mode), "bench");
+            // Прогрев: загрузка классов, JIT
+            record(timer, 1, RECORDS / 2);
+            record(timer, 4, RECORDS / 2);
+
+            double single = record(timer, 1, RECORDS);
+            double parallel = record(timer, 4, RECORDS);
+            long bytes = bytesPerTimer(mode);
+            System.out.printf("%-12s %14.1f %14.1f %14d%n", mode, single, parallel, bytes);
+
+            if (mode == DistributionMode.PERCENTILES) {
+                percentilesNanos = single;
+                percentilesBytes = bytes;
+            } else if (mode == DistributionMode.SLO) {
+                sloNanos = single;
+                sloBytes = bytes;
+            }
+        }
+
+        assertThat(sloNanos).isLessThan(percentilesNanos);
+        assertThat(sloBytes).isLessThan(percentilesBytes);
+    }
+
+    /**
+     * Среднее время одной записи в наносекундах, когда {@code threads} потоков пишут в один таймер.
+     */
+    private static double record(Timer timer, int threads, int records) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long[] values = new long[1024];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = TimeUnit.MILLISECONDS.toNanos(50 + random.nextInt(550));
+                    }
+                    start.await();
+                    long begin = System.nanoTime();
+                    for (int i = 0; i < records / threads; i++) {
+                        timer.record(values[i & 1023], TimeUnit.NANOSECONDS);
+                    }
+                    return System.nanoTime() - begin;
+                }));
+            }
+            long elapsed = 0;
+            for (Future<Long> future : futures) {
+                elapsed += future.get(2, TimeUnit.MINUTES);
+            }
+            return (double) elapsed / records;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Прирост занятой кучи на один таймер: каждый таймер получил по одной записи,
+     * чтобы ленивые структуры тоже были созданы.
+     */
+    private static long bytesPerTimer(DistributionMode mode) {
+        PrometheusMeterRegistry registry = registry(mode);
+        long before = usedHeap();
+        List<Timer> timers = new ArrayList<>(TIMERS);
+        for (int i = 0; i < TIMERS; i++) {
+            Timer timer = timer(registry, "t" + i);
+            timer.record(Duration.ofMillis(100 + i % 500));
+            timers.add(timer);
+        }
+        long after = usedHeap();
+        assertThat(timers).hasSize(TIMERS);
+        return (after - before) / TIMERS;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static PrometheusMeterRegistry registry(DistributionMode mode) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new DistributionModeMeterFilter(mode)
+            .timer(TIMER, Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofMillis(2500)));
+        return registry;
+    }
+
+    private static Timer timer(PrometheusMeterRegistry registry, String instance) {
+        return Timer.builder(TIMER)
+            .tag("instance", instance)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+    }
+}
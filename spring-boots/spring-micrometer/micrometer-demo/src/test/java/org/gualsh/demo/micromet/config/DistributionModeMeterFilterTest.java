@@ -0,0 +1,183 @@
+package org.gualsh.demo.micromet.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.gualsh.demo.micromet.config.DistributionModeMeterFilter.DistributionMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Тесты для {@link DistributionModeMeterFilter}.
+ */
+@DisplayName("DistributionModeMeterFilter Tests")
+class DistributionModeMeterFilterTest {
+
+    private static final String TIMER = "business.orders.processing.time";
+
+    private static final String SUMMARY = "business.orders.amount";
+
+    @Test
+    @DisplayName("Должен оставлять процентили из кода в режиме PERCENTILES")
+    void shouldKeepClientPercentiles() {
+        // Arrange
+        PrometheusMeterRegistry registry = registry(DistributionMode.PERCENTILES);
+
+        // Act
+        Timer timer = timer(registry);
+        timer.record(Duration.ofMillis(120));
+
+        // Assert
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        assertThat(snapshot.percentileValues()).hasSize(3);
+        assertThat(snapshot.histogramCounts()).isEmpty();
+        assertThat(registry.scrape()).contains("quantile=\"0.99\"").doesNotContain("_bucket");
+    }
+
+    @Test
+    @DisplayName("Должен публиковать счетчики по границам SLO вместо процентилей")
+    void shouldPublishSloBuckets() {
+        // Arrange
+        PrometheusMeterRegistry registry = registry(DistributionMode.SLO);
+
+        // Act
+        Timer timer = timer(registry);
+        for (long millis : new long[] {80, 120, 300, 300, 700, 4000}) {
+            timer.record(Duration.ofMillis(millis));
+        }
+
+        // Assert
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        assertThat(snapshot.percentileValues()).isEmpty();
+        assertThat(Arrays.stream(snapshot.histogramCounts()).mapToDouble(CountAtBucket::count).toArray())
+            .containsExactly(1, 2, 4, 5, 5);
+        assertThat(registry.scrape())
+            .contains("business_orders_processing_time_seconds_bucket")
+            .contains("le=\"0.25\"")
+            .doesNotContain("quantile=");
+    }
+
+    @Test
+    @DisplayName("Должен ограничивать логарифмическую гистограмму диапазоном границ")
+    void shouldBoundPercentilesHistogram() {
+        // Arrange
+        PrometheusMeterRegistry registry = registry(DistributionMode.HISTOGRAM);
+
+        // Act
+        Timer timer = timer(registry);
+        DistributionSummary summary = summary(registry);
+        timer.record(Duration.ofMillis(300));
+        summary.record(420);
+
+        // Assert
+        CountAtBucket[] timerBuckets = timer.takeSnapshot().histogramCounts();
+        assertThat(timer.takeSnapshot().percentileValues()).isEmpty();
+        assertThat(timerBuckets).hasSizeBetween(5, 30);
+        assertThat(timerBuckets[0].bucket()).isGreaterThanOrEqualTo(Duration.ofMillis(100).toNanos());
+        assertThat(timerBuckets[timerBuckets.length - 1].bucket()).isEqualTo(Duration.ofMillis(2500).toNanos());
+        assertThat(summary.takeSnapshot().histogramCounts()).isNotEmpty();
+        assertThat(summary.takeSnapshot().percentileValues()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Должен давать счетчики, которые складываются между экземплярами")
+    void shouldAggregateBucketsAcrossInstances() {
+        // Arrange
+        PrometheusMeterRegistry first = registry(DistributionMode.SLO);
+        PrometheusMeterRegistry second = registry(DistributionMode.SLO);
+        PrometheusMeterRegistry all = registry(DistributionMode.SLO);
+        long[] values = {40, 110, 260, 260, 480, 900, 1200, 3000};
+
+        // Act
+        for (int i = 0; i < values.length; i++) {
+            (i % 2 == 0 ? summary(first) : summary(second)).record(values[i]);
+            summary(all).record(values[i]);
+        }
+
+        // Assert
+        CountAtBucket[] firstBuckets = summary(first).takeSnapshot().histogramCounts();
+        CountAtBucket[] secondBuckets = summary(second).takeSnapshot().histogramCounts();
+        CountAtBucket[] allBuckets = summary(all).takeSnapshot().histogramCounts();
+        for (int i = 0; i < allBuckets.length; i++) {
+            assertThat(firstBuckets[i].count() + secondBuckets[i].count()).isEqualTo(allBuckets[i].count());
+        }
+    }
+
+    @Test
+    @DisplayName("Должен не трогать метрики без заданных границ")
+    void shouldIgnoreOtherMeters() {
+        // Arrange
+        PrometheusMeterRegistry registry = registry(DistributionMode.SLO);
+
+        // Act
+        Timer timer = Timer.builder("other.timer").publishPercentiles(0.5).register(registry);
+        timer.record(Duration.ofMillis(10));
+
+        // Assert
+        assertThat(timer.takeSnapshot().percentileValues()).hasSize(1);
+        assertThat(timer.takeSnapshot().histogramCounts()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Должен задавать границы для @Timed метрик с процентилями в MicrometerConfig")
+    void shouldConfigureAnnotatedTimers() {
+        // Arrange
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new MicrometerConfig().distributionModeMeterFilter(DistributionMode.SLO));
+
+        for (String name : new String[] {"api.counters.process.time", "api.status.request"}) {
+            // Act: так таймер регистрирует TimedAspect для @Timed(percentiles = ...)
+            Timer timer = Timer.builder(name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+            timer.record(Duration.ofMillis(90));
+
+            // Assert
+            assertThat(timer.takeSnapshot().percentileValues()).as(name).isEmpty();
+            assertThat(timer.takeSnapshot().histogramCounts()).as(name).isNotEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен отклонять границы не по возрастанию")
+    void shouldRejectUnorderedBoundaries() {
+        DistributionModeMeterFilter filter = new DistributionModeMeterFilter(DistributionMode.SLO);
+
+        assertThatThrownBy(() -> filter.summary(SUMMARY, 10, 5))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> filter.timer(TIMER))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static PrometheusMeterRegistry registry(DistributionMode mode) {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new DistributionModeMeterFilter(mode)
+            .timer(TIMER, Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+                Duration.ofSeconds(1), Duration.ofMillis(2500))
+            .summary(SUMMARY, 100, 250, 500, 750, 1000, 2500));
+        return registry;
+    }
+
+    // Метрики объявлены так же, как в OrderProcessingService
+    private static Timer timer(PrometheusMeterRegistry registry) {
+        return Timer.builder(TIMER)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+    }
+
+    private static DistributionSummary summary(PrometheusMeterRegistry registry) {
+        return DistributionSummary.builder(SUMMARY)
+            .baseUnit("USD")
+            .publishPercentiles(0.5, 0.75, 0.9, 0.99)
+            .register(registry);
+    }
+}
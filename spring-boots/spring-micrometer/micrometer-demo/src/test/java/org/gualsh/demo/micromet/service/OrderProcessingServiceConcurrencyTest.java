@@ -0,0 +1,148 @@
+package org.gualsh.demo.micromet.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Стресс-тест средней цены заказа по регионам в {@link OrderProcessingService}.
+ *
+ * <p>Все потоки записывают одну и ту же сумму, поэтому каждое обновление - одна и та же функция
+ * {@code x -> 0.8 * x + 0.2 * amount}, и результат N обновлений не зависит от их порядка: он побитово
+ * равен последовательному применению функции N раз. Потерянное обновление дает другой результат.
+ * Каждый раунд начинается на новом сервисе, потоки стартуют одновременно через барьер,
+ * параллельно gauge читаются, как при сборе метрик.
+ */
+@DisplayName("OrderProcessingService Concurrency Tests")
+class OrderProcessingServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+
+    private static final int UPDATES_PER_THREAD = 8;
+
+    private static final int ROUNDS = 2_000;
+
+    private static final double AMOUNT = 1_000.0;
+
+    private static final List<String> REGIONS = List.of("us", "eu", "asia", "africa");
+
+    @Test
+    @DisplayName("Должен учитывать все одновременные обновления одного региона")
+    void shouldNotLoseConcurrentUpdates() throws Exception {
+        // Arrange
+        double expected = 0.0;
+        for (int i = 0; i < THREADS * UPDATES_PER_THREAD; i++) {
+            expected = expected * 0.8 + AMOUNT * 0.2;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                MeterRegistry registry = new SimpleMeterRegistry();
+                OrderProcessingService service = new OrderProcessingService(registry);
+                Gauge gauge = registry.get("business.orders.avg.price").tag("region", "eu").gauge();
+                CyclicBarrier start = new CyclicBarrier(THREADS + 1);
+                AtomicBoolean running = new AtomicBoolean(true);
+                List<Double> scraped = new ArrayList<>();
+
+                // Act
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    writers.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                            service.updateRegionOrderPrice("eu", AMOUNT);
+                        }
+                        return null;
+                    }));
+                }
+                Future<?> scraper = executor.submit(() -> {
+                    start.await();
+                    while (running.get()) {
+                        scraped.add(gauge.value());
+                    }
+                    return null;
+                });
+                for (Future<?> writer : writers) {
+                    writer.get(10, TimeUnit.SECONDS);
+                }
+                running.set(false);
+                scraper.get(10, TimeUnit.SECONDS);
+
+                // Assert
+                assertThat(gauge.value()).as("round %d", round).isEqualTo(expected);
+                assertThat(scraped).allMatch(value -> value >= 0.0 && value <= AMOUNT);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Должен обновлять регионы независимо при одновременной записи")
+    void shouldUpdateRegionsIndependently() throws Exception {
+        // Arrange
+        MeterRegistry registry = new SimpleMeterRegistry();
+        OrderProcessingService service = new OrderProcessingService(registry);
+        ExecutorService executor = Executors.newFixedThreadPool(REGIONS.size());
+        CyclicBarrier start = new CyclicBarrier(REGIONS.size());
+
+        // Act
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int r = 0; r < REGIONS.size(); r++) {
+                String region = REGIONS.get(r);
+                double amount = (r + 1) * 100.0;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100_000; i++) {
+                        service.updateRegionOrderPrice(region, amount);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert: после 100 000 обновлений скользящее среднее сходится к сумме заказа региона
+        for (int r = 0; r < REGIONS.size(); r++) {
+            assertThat(registry.get("business.orders.avg.price").tag("region", REGIONS.get(r)).gauge().value())
+                .isCloseTo((r + 1) * 100.0, offset(1e-9));
+        }
+    }
+
+    @Test
+    @DisplayName("Должен регистрировать gauge только для известных регионов")
+    void shouldRegisterGaugesOnce() {
+        // Arrange
+        MeterRegistry registry = new SimpleMeterRegistry();
+        OrderProcessingService service = new OrderProcessingService(registry);
+
+        // Act
+        service.updateRegionOrderPrice("mars", 500.0);
+        service.updateRegionOrderPrice(null, 500.0);
+        service.updateRegionOrderPrice("us", 500.0);
+
+        // Assert
+        assertThat(registry.find("business.orders.avg.price").gauges()).hasSize(REGIONS.size());
+        assertThat(registry.get("business.orders.avg.price").tag("region", "us").gauge().value()).isEqualTo(100.0);
+    }
+}